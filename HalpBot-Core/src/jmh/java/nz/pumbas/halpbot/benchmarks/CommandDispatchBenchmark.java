@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import nz.pumbas.halpbot.objects.AliasTrie;
+import nz.pumbas.halpbot.utilities.HalpbotUtils;
+
+/**
+ * Compares the allocations per message of the previous split based command dispatch against the offset based
+ * dispatch using an {@link AliasTrie}. Run with {@code ./gradlew :HalpBot-Core:jmh} and compare the
+ * {@code gc.alloc.rate.norm} column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandDispatchBenchmark
+{
+    private static final String PREFIX = "$";
+
+    // Mostly regular chat, as is the case in busy guilds
+    private static final List<String> MESSAGES = List.of(
+        "hey does anyone know how to do question 3?",
+        "lol",
+        "I think you need to transpose the matrix first",
+        "$transpose [2 2 1 2 3 4]",
+        "$ HALP transpose",
+        "$notacommand with some content",
+        "the answer was 42 btw",
+        "$cross   [1 2 3]    [4 5 6]",
+        "can someone check my working for the moment question",
+        "$$$ money");
+
+    private final Map<String, Object> commands = new HashMap<>();
+    private final AliasTrie<Object> commandTrie = new AliasTrie<>();
+
+    @Setup
+    public void setup() {
+        for (String alias : List.of("transpose", "halp", "help", "cross", "dot", "multiply", "info", "status")) {
+            Object command = new Object();
+            this.commands.put(alias, command);
+            this.commandTrie.put(alias, command);
+        }
+    }
+
+    @Benchmark
+    public void splitDispatch(Blackhole blackhole) {
+        for (String message : MESSAGES) {
+            if (message.startsWith(PREFIX)) {
+                message = message.substring(PREFIX.length()).stripLeading();
+
+                String[] splitText = message.split("\\s", 2);
+                String alias = splitText[0];
+                String content = (2 == splitText.length) ? splitText[1] : "";
+
+                Object command = this.commands.get(alias.toLowerCase(Locale.ROOT));
+                if (command != null)
+                    blackhole.consume(content.replaceAll("\\s+", " "));
+                else blackhole.consume(alias);
+            }
+        }
+    }
+
+    @Benchmark
+    public void trieDispatch(Blackhole blackhole) {
+        for (String message : MESSAGES) {
+            if (message.startsWith(PREFIX)) {
+                int aliasStart = HalpbotUtils.skipWhitespace(message, PREFIX.length());
+                int aliasEnd = HalpbotUtils.nextWhitespace(message, aliasStart);
+
+                Object command = this.commandTrie.get(message, aliasStart, aliasEnd);
+                if (command != null) {
+                    String content = aliasEnd < message.length() ? message.substring(aliasEnd + 1) : "";
+                    blackhole.consume(HalpbotUtils.collapseWhitespace(content));
+                }
+                else blackhole.consume(message.substring(aliasStart, aliasEnd));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.benchmarks;
+
+import org.dockbox.hartshorn.core.context.element.ConstructorContext;
+import org.dockbox.hartshorn.core.context.element.MethodContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import nz.pumbas.halpbot.actions.methods.MethodHandleInvoker;
+import nz.pumbas.halpbot.commands.objects.Matrix;
+import nz.pumbas.halpbot.commands.objects.Vector3;
+
+/**
+ * Compares invoking the test command objects through Hartshorn's reflective {@link MethodContext} and
+ * {@link ConstructorContext} against the {@link MethodHandleInvoker} bound at registration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class InvokerBenchmark
+{
+    private final Matrix matrix = new Matrix(2, 2, 1, 2, 3, 4);
+    private final Object[] multiplyParameters = { new Matrix(2, 2, 4, 3, 2, 1) };
+    private final Object[] scaleParameters = { 2D };
+    private final Object[] vectorParameters = { 1D, 2D, 3D };
+
+    private MethodContext multiplyContext;
+    private MethodContext scaleContext;
+    private ConstructorContext<Vector3> vectorContext;
+
+    private MethodHandleInvoker multiplyInvoker;
+    private MethodHandleInvoker scaleInvoker;
+    private MethodHandleInvoker vectorInvoker;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        this.multiplyContext = MethodContext.of(Matrix.class.getMethod("multiply", Matrix.class));
+        this.scaleContext = MethodContext.of(Matrix.class.getMethod("scale", double.class));
+        this.vectorContext = ConstructorContext.of(Vector3.class.getConstructor(double.class, double.class, double.class));
+
+        this.multiplyInvoker = MethodHandleInvoker.of(this.multiplyContext);
+        this.scaleInvoker = MethodHandleInvoker.of(this.scaleContext);
+        this.vectorInvoker = MethodHandleInvoker.of(this.vectorContext);
+    }
+
+    @Benchmark
+    public Exceptional<?> reflectionInstanceMethod() {
+        return this.multiplyContext.invoke(this.matrix, this.multiplyParameters);
+    }
+
+    @Benchmark
+    public Exceptional<?> methodHandleInstanceMethod() {
+        return this.multiplyInvoker.invoke(this.matrix, this.multiplyParameters);
+    }
+
+    @Benchmark
+    public Exceptional<?> reflectionStaticMethod() {
+        return this.scaleContext.invoke(null, this.scaleParameters);
+    }
+
+    @Benchmark
+    public Exceptional<?> methodHandleStaticMethod() {
+        return this.scaleInvoker.invoke(null, this.scaleParameters);
+    }
+
+    @Benchmark
+    public Exceptional<Vector3> reflectionConstructor() {
+        return this.vectorContext.createInstance(this.vectorParameters);
+    }
+
+    @Benchmark
+    public Exceptional<Vector3> methodHandleConstructor() {
+        return this.vectorInvoker.invoke(null, this.vectorParameters);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.benchmarks;
+
+import org.dockbox.hartshorn.core.ArrayListMultiMap;
+import org.dockbox.hartshorn.core.MultiMap;
+import org.dockbox.hartshorn.core.context.element.MethodContext;
+import org.dockbox.hartshorn.core.context.element.TypeContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import nz.pumbas.halpbot.commands.Content;
+import nz.pumbas.halpbot.commands.ReflectiveCommandIndex;
+import nz.pumbas.halpbot.commands.actioninvokable.HalpbotCommandInvokable;
+import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
+import nz.pumbas.halpbot.commands.actioninvokable.context.command.HalpbotCommandContext;
+import nz.pumbas.halpbot.commands.annotations.Command;
+import nz.pumbas.halpbot.commands.annotations.Reflective;
+import nz.pumbas.halpbot.commands.objects.Matrix;
+
+/**
+ * Compares the reflective command lookups performed while parsing a deeply nested reflective expression, such as
+ * {@code scale(rotate(xShear(...us())))}, using the previous filtered {@link MultiMap} against the
+ * {@link ReflectiveCommandIndex}. Run with {@code ./gradlew :HalpBot-Core:jmh} and compare the
+ * {@code gc.alloc.rate.norm} column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReflectiveLookupBenchmark
+{
+    private static final List<String> NAMES = List.of(
+        "scale", "Rotate", "xShear", "yShear", "xStretch", "yStretch", "mirrorX", "mirrorY", "notAMethod");
+
+    @Param({ "4", "16", "64" })
+    private int depth;
+
+    private final TypeContext<Matrix> matrixType = TypeContext.of(Matrix.class);
+    private final Set<TypeContext<?>> reflections = Set.of(this.matrixType);
+    private final Map<TypeContext<?>, MultiMap<String, CommandContext>> reflectiveCommands = new HashMap<>();
+    private final ReflectiveCommandIndex reflectiveCommandIndex = new ReflectiveCommandIndex();
+
+    private String expression;
+
+    @Setup
+    public void setup() {
+        MultiMap<String, CommandContext> aliasMappings = new ArrayListMultiMap<>();
+        this.reflectiveCommands.put(this.matrixType, aliasMappings);
+
+        for (MethodContext<?, Matrix> methodContext : this.matrixType.methods(Reflective.class)) {
+            List<String> aliases = new ArrayList<>(List.of(methodContext.annotation(Command.class).get().alias()));
+            if (aliases.isEmpty())
+                aliases.add(methodContext.name());
+
+            CommandContext commandContext = new HalpbotCommandContext(
+                aliases, "", "", new HalpbotCommandInvokable(null, methodContext), List.of(), this.reflections,
+                Duration.ZERO, false, false, Content.RAW);
+
+            for (String alias : aliases) {
+                aliasMappings.put(alias.toLowerCase(Locale.ROOT), commandContext);
+                this.reflectiveCommandIndex.register(this.matrixType, this.matrixType, alias, commandContext);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < this.depth; i++) {
+            builder.append(NAMES.get(i % NAMES.size())).append('(');
+        }
+        builder.append("us(").append(")".repeat(this.depth + 1));
+        this.expression = builder.toString();
+    }
+
+    @Benchmark
+    public void multiMapLookup(Blackhole blackhole) {
+        int index = 0;
+        int nameEnd;
+        while ((nameEnd = this.expression.indexOf('(', index)) != -1) {
+            String methodName = this.expression.substring(index, nameEnd);
+            index = nameEnd + 1;
+
+            if (!this.reflectiveCommands.containsKey(this.matrixType)) {
+                blackhole.consume(Collections.emptyList());
+                continue;
+            }
+
+            Collection<CommandContext> commandContexts = this.reflectiveCommands.get(this.matrixType)
+                .get(methodName.toLowerCase(Locale.ROOT))
+                .stream()
+                .filter(commandContext -> commandContext.executable() instanceof MethodContext methodContext
+                    && this.reflections.contains(methodContext.parent()))
+                .toList();
+            blackhole.consume(commandContexts);
+        }
+    }
+
+    @Benchmark
+    public void indexLookup(Blackhole blackhole) {
+        int index = 0;
+        int nameEnd;
+        while ((nameEnd = this.expression.indexOf('(', index)) != -1) {
+            ReflectiveCommandIndex.Partitions partitions =
+                this.reflectiveCommandIndex.get(this.matrixType, this.expression, index, nameEnd);
+            index = nameEnd + 1;
+
+            if (partitions == null)
+                continue;
+            for (int i = 0; i < partitions.size(); i++) {
+                if (this.reflections.contains(partitions.declaringType(i)))
+                    blackhole.consume(partitions.commands(i));
+            }
+        }
+    }
+}
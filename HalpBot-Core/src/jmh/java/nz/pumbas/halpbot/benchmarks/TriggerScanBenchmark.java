@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import nz.pumbas.halpbot.triggers.HalpbotTriggerContext;
+import nz.pumbas.halpbot.triggers.TriggerContext;
+import nz.pumbas.halpbot.triggers.TriggerMatcher;
+import nz.pumbas.halpbot.triggers.TriggerStrategy;
+import nz.pumbas.halpbot.utilities.Require;
+
+/**
+ * Compares matching the triggers against each message of a recorded corpus of chat messages by checking every
+ * trigger against a lowered copy of the message, by using the {@link TriggerMatcher} on a lowered copy and by using
+ * the {@link TriggerMatcher} while folding the case of the message as it's scanned. Run with
+ * {@code ./gradlew :HalpBot-Core:jmh} and compare the {@code gc.alloc.rate.norm} column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TriggerScanBenchmark
+{
+    private static final String CORPUS = "/trigger-corpus.txt";
+
+    @Param({ "8", "256" })
+    private int triggerCount;
+
+    private final List<String> messages = new ArrayList<>();
+    private final List<TriggerContext> triggerContexts = new ArrayList<>();
+    private TriggerMatcher triggerMatcher;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream inputStream = TriggerScanBenchmark.class.getResourceAsStream(CORPUS)) {
+            if (inputStream == null)
+                throw new IOException("The corpus %s could not be found".formatted(CORPUS));
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isBlank())
+                    this.messages.add(line);
+            }
+        }
+
+        this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ANY, "my id", "discord id"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ALL, "found", "bug"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ALL, "how", "report", "issue"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ALL, "halpbot", "show", "easter egg"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.START, Require.ANY, "when is the exam", "exam date"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ANY, "formula sheet"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.START, Require.ANY, "what are office hours"));
+        this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ALL, "inverse", "matrix"));
+
+        // Pad the triggers with FAQ triggers that mostly don't match, as is the case for a large FAQ
+        for (int i = this.triggerContexts.size(); i < this.triggerCount; i++) {
+            this.triggerContexts.add(this.trigger(TriggerStrategy.ANYWHERE, Require.ANY,
+                "faq question " + i, "topic " + i + " help"));
+        }
+        this.triggerMatcher = new TriggerMatcher(this.triggerContexts);
+    }
+
+    private TriggerContext trigger(TriggerStrategy strategy, Require require, String... triggers) {
+        return new HalpbotTriggerContext(List.of(triggers), "", strategy, require, List.of(), null, Duration.ZERO, false);
+    }
+
+    @Benchmark
+    public void perTriggerScan(Blackhole blackhole) {
+        for (String message : this.messages) {
+            String lowered = message.toLowerCase(Locale.ROOT);
+            for (TriggerContext triggerContext : this.triggerContexts) {
+                if (triggerContext.matches(lowered))
+                    blackhole.consume(triggerContext);
+            }
+        }
+    }
+
+    @Benchmark
+    public void loweredAutomatonScan(Blackhole blackhole) {
+        for (String message : this.messages) {
+            blackhole.consume(this.triggerMatcher.matches(message.toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    @Benchmark
+    public void foldingAutomatonScan(Blackhole blackhole) {
+        for (String message : this.messages) {
+            blackhole.consume(this.triggerMatcher.matches(message));
+        }
+    }
+}
@@ -25,6 +25,7 @@
 package nz.pumbas.halpbot;
 
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.ShutdownEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
 
 import org.dockbox.hartshorn.core.annotations.inject.Provider;
@@ -45,9 +46,14 @@ import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 
 import lombok.Getter;
+import lombok.Setter;
+import nz.pumbas.halpbot.actions.execution.ExecutionEngine;
 import nz.pumbas.halpbot.adapters.HalpbotAdapter;
+import nz.pumbas.halpbot.buttons.state.ButtonStateStore;
+import nz.pumbas.halpbot.commands.prefixes.GuildPrefixService;
 import nz.pumbas.halpbot.configurations.BotConfiguration;
 import nz.pumbas.halpbot.configurations.SimpleDisplayConfiguration;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
 import nz.pumbas.halpbot.permissions.HalpbotPermissions;
 import nz.pumbas.halpbot.permissions.PermissionService;
 import nz.pumbas.halpbot.configurations.DisplayConfiguration;
@@ -63,6 +69,16 @@ public class HalpbotCore implements ContextCarrier
     private ApplicationContext applicationContext;
     @Inject
     private PermissionService permissionService;
+    @Inject
+    private GuildPrefixService guildPrefixService;
+    @Inject
+    private ButtonStateStore buttonStateStore;
+    @Inject
+    private ExpiryScheduler expiryScheduler;
+    @Getter
+    @Setter
+    @Inject
+    private ExecutionEngine executionEngine;
 
     @Getter
     private DisplayConfiguration displayConfiguration = new SimpleDisplayConfiguration();
@@ -110,6 +126,10 @@ public class HalpbotCore implements ContextCarrier
     public void initialise(JDA jda) {
         this.jda = jda;
         this.adapters.forEach(jda::addEventListener);
+        jda.addEventListener((EventListener) event -> {
+            if (event instanceof ShutdownEvent)
+                this.shutdown();
+        });
 
         // Prevent any event listeners being automatically registered twice
         jda.removeEventListener(this.eventListeners.toArray());
@@ -125,7 +145,19 @@ public class HalpbotCore implements ContextCarrier
         this.setOwner(config.ownerId());
         this.permissionService.initialise();
         this.adapters.forEach(adapter -> adapter.initialise(jda));
+    }
 
+    /**
+     * Stops the threads used by the bot, including the {@link ExpiryScheduler}, and closes the
+     * {@link ButtonStateStore}, so that the application can exit cleanly. This is automatically invoked when the JDA
+     * instance is shutdown.
+     */
+    public void shutdown() {
+        this.executionEngine.shutdown();
+        this.threadpool.shutdown();
+        this.guildPrefixService.shutdown();
+        this.buttonStateStore.shutdown();
+        this.expiryScheduler.shutdown();
     }
 
     public <T extends HalpbotAdapter> HalpbotCore registerAdapters(Collection<T> adapters) {
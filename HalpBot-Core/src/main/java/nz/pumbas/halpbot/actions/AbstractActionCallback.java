@@ -24,7 +24,6 @@
 
 package nz.pumbas.halpbot.actions;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -40,8 +39,11 @@ public abstract class AbstractActionCallback implements ActionCallback
     protected final boolean singleUse;
     protected final long displayDuration;
 
+    /**
+     * @return The custom permissions a user must have to use this callback
+     */
     public Set<String> permissions() {
-        return Collections.emptySet();
+        return Set.copyOf(this.permissions);
     }
 
     protected AbstractActionCallback(
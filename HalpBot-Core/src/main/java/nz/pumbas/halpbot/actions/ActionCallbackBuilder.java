@@ -26,7 +26,6 @@ package nz.pumbas.halpbot.actions;
 
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
-import net.dv8tion.jda.internal.utils.EncodingUtil;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -39,7 +38,7 @@ import java.util.function.Supplier;
 import nz.pumbas.halpbot.actions.annotations.Action;
 import nz.pumbas.halpbot.buttons.ButtonAction;
 import nz.pumbas.halpbot.actions.cooldowns.Cooldown;
-import nz.pumbas.halpbot.adapters.ReactionAdapter;
+import nz.pumbas.halpbot.utilities.EmojiKeys;
 
 public class ActionCallbackBuilder
 {
@@ -110,10 +109,7 @@ public class ActionCallbackBuilder
      * @return Itself for chaining
      */
     public ActionCallbackBuilder setEmoji(String emoji) {
-        this.codepointEmoji = emoji.startsWith("U+")
-            ? emoji : EncodingUtil.encodeCodepoints(emoji);
-
-        this.codepointEmoji = ReactionAdapter.convertCodepointToValidCase(this.codepointEmoji);
+        this.codepointEmoji = EmojiKeys.toCodepoints(emoji);
         return this;
     }
 
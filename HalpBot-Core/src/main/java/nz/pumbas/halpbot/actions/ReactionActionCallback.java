@@ -27,20 +27,25 @@ package nz.pumbas.halpbot.actions;
 import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
 
 import org.dockbox.hartshorn.core.domain.Exceptional;
-import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import nz.pumbas.halpbot.actions.cooldowns.CooldownTimer;
 import nz.pumbas.halpbot.events.HalpbotEvent;
+import nz.pumbas.halpbot.utilities.EmojiKeys;
 
 public class ReactionActionCallback extends AbstractActionCallback
 {
     protected final String codepointEmoji;
+    protected final int emojiKey;
     protected final Function<MessageReactionAddEvent, Object> callback;
     protected final boolean removeReactionIfCoolingDown;
+    private final Map<Long, CooldownTimer> cooldownTimers = new ConcurrentHashMap<>();
 
     protected ReactionActionCallback(
         String codepointEmoji,
@@ -58,6 +63,7 @@ public class ReactionActionCallback extends AbstractActionCallback
             singleUse,
             displayDuration);
         this.codepointEmoji = codepointEmoji;
+        this.emojiKey = EmojiKeys.intern(codepointEmoji);
         this.callback = callback;
         this.removeReactionIfCoolingDown = removeReactionIfCoolingDown;
     }
@@ -76,12 +82,33 @@ public class ReactionActionCallback extends AbstractActionCallback
         return this.codepointEmoji;
     }
 
-    public @Nullable CooldownTimer cooldownTimer() {
-        return null;
+    /**
+     * @return The {@link EmojiKeys key} of the emoji, which is used to match reactions to this callback
+     */
+    public int getEmojiKey() {
+        return this.emojiKey;
     }
 
+    /**
+     * Starts the cooldown of this callback for the user, unless they're still cooling down from a previous use. This
+     * is checked and started atomically, so concurrent reactions from the same user can't both start it.
+     *
+     * @param userId
+     *     The id of the user using this callback
+     *
+     * @return If the user can use this callback, or false if they're still cooling down
+     */
+    public boolean startCooldown(long userId) {
+        if (this.cooldownDuration <= 0)
+            return true;
 
-    public long cooldownDurationMs() {
-        return 0;
+        boolean[] started = new boolean[1];
+        this.cooldownTimers.compute(userId, (id, cooldownTimer) -> {
+            if (cooldownTimer != null && !cooldownTimer.hasFinished())
+                return cooldownTimer;
+            started[0] = true;
+            return new CooldownTimer(Duration.ofMillis(this.cooldownTimeUnit.toMillis(this.cooldownDuration)));
+        });
+        return started[0];
     }
 }
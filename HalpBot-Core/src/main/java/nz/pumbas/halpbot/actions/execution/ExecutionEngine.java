@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.execution;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import nz.pumbas.halpbot.events.HalpbotEvent;
+
+public interface ExecutionEngine
+{
+    /**
+     * Executes the action away from the thread the event was received on. Actions that are executed for the same
+     * channel are guaranteed to be run in the order they were submitted.
+     *
+     * @param event
+     *     The event that caused the action
+     * @param action
+     *     The action to execute
+     *
+     * @return If the action was accepted. If false, then it has been handled according to the {@link OverloadPolicy}
+     */
+    boolean execute(HalpbotEvent event, Runnable action);
+
+    /**
+     * Runs the tasks in parallel on the worker pool and waits for them to finish. This is intended to be called from
+     * within an executed action, so the calling thread runs any tasks that haven't been picked up by another worker
+     * rather than blocking on them. This means it can't deadlock, even if every worker is busy.
+     *
+     * @param tasks
+     *     The tasks to run
+     * @param <T>
+     *     The type of the results
+     *
+     * @return The results of the tasks, in the same order as the tasks
+     */
+    <T> List<T> invokeAll(List<? extends Supplier<? extends T>> tasks);
+
+    /**
+     * @return The number of actions that have been accepted but have not finished executing yet
+     */
+    int pending();
+
+    /**
+     * Stops accepting new actions. Any actions that have already been accepted will still be executed.
+     */
+    void shutdown();
+}
@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.execution;
+
+import org.dockbox.hartshorn.core.Enableable;
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.HalpbotCore;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
+import nz.pumbas.halpbot.events.HalpbotEvent;
+import nz.pumbas.halpbot.events.InteractionEvent;
+
+/**
+ * Executes actions on a shared worker pool while keeping the actions for each channel ordered. Each channel has its
+ * own queue which is drained by at most one worker at a time, so a slow action only delays the channel it was sent
+ * in rather than every event for the shard.
+ */
+@Singleton
+@ComponentBinding(ExecutionEngine.class)
+public class HalpbotExecutionEngine implements ExecutionEngine, Enableable
+{
+    @Getter
+    @Inject
+    private ApplicationContext applicationContext;
+    @Inject
+    private HalpbotCore halpbotCore;
+
+    private final Map<Long, ChannelQueue> channelQueues = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private ExecutorService executor;
+    private int maxQueueDepth;
+    private int maxChannelQueueDepth;
+    private OverloadPolicy overloadPolicy;
+
+    @Override
+    public void enable() {
+        BotConfiguration config = this.applicationContext.get(BotConfiguration.class);
+        this.maxQueueDepth = config.maxQueueDepth();
+        this.maxChannelQueueDepth = config.maxChannelQueueDepth();
+        this.overloadPolicy = this.overloadPolicy(config.overloadPolicy());
+        this.executor = config.useVirtualThreads()
+            ? this.virtualThreadExecutor(config.executionThreads())
+            : Executors.newFixedThreadPool(config.executionThreads());
+    }
+
+    private OverloadPolicy overloadPolicy(String overloadPolicy) {
+        try {
+            return OverloadPolicy.valueOf(overloadPolicy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            this.applicationContext.log().warn("The overload policy %s specified in bot-config.properties doesn't exist. Falling back to %s"
+                .formatted(overloadPolicy, OverloadPolicy.REJECT));
+            return OverloadPolicy.REJECT;
+        }
+    }
+
+    private ExecutorService virtualThreadExecutor(int fallbackThreads) {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                .invoke();
+        } catch (Throwable e) {
+            this.applicationContext.log().warn("Virtual threads are not supported by this version of Java. Falling back to a pool of %d threads"
+                .formatted(fallbackThreads));
+            return Executors.newFixedThreadPool(fallbackThreads);
+        }
+    }
+
+    @Override
+    public boolean execute(HalpbotEvent event, Runnable action) {
+        long channelId = event.messageChannel().getIdLong();
+
+        if (this.pending.incrementAndGet() > this.maxQueueDepth) {
+            this.pending.decrementAndGet();
+            this.handleOverload(event);
+            return false;
+        }
+
+        while (true) {
+            ChannelQueue channelQueue = this.channelQueues.computeIfAbsent(channelId, ChannelQueue::new);
+            synchronized (channelQueue) {
+                // The queue was removed after we retrieved it, so try again with the new queue
+                if (channelQueue.removed)
+                    continue;
+
+                if (channelQueue.actions.size() >= this.maxChannelQueueDepth) {
+                    this.pending.decrementAndGet();
+                    this.handleOverload(event);
+                    return false;
+                }
+
+                channelQueue.actions.add(action);
+                if (!channelQueue.scheduled) {
+                    channelQueue.scheduled = true;
+                    return this.schedule(channelQueue, event);
+                }
+                return true;
+            }
+        }
+    }
+
+    private boolean schedule(ChannelQueue channelQueue, HalpbotEvent event) {
+        try {
+            this.executor.execute(() -> this.drain(channelQueue));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // The engine has been shutdown, so discard the queued actions
+            this.pending.addAndGet(-channelQueue.actions.size());
+            channelQueue.actions.clear();
+            channelQueue.scheduled = false;
+            this.handleOverload(event);
+            return false;
+        }
+    }
+
+    private void drain(ChannelQueue channelQueue) {
+        while (true) {
+            Runnable action;
+            synchronized (channelQueue) {
+                action = channelQueue.actions.poll();
+                if (action == null) {
+                    channelQueue.scheduled = false;
+                    channelQueue.removed = true;
+                    this.channelQueues.remove(channelQueue.channelId, channelQueue);
+                    return;
+                }
+            }
+
+            try {
+                action.run();
+            } catch (Throwable e) {
+                // Errors are caught too, as otherwise the queue would stay scheduled and the channel would never run
+                // another action
+                this.applicationContext.log().error("There was an uncaught error while executing an action", e);
+            } finally {
+                this.pending.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public <T> List<T> invokeAll(List<? extends Supplier<? extends T>> tasks) {
+        List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+        for (Supplier<? extends T> task : tasks) {
+            futures.add(new FutureTask<>(task::get));
+        }
+
+        // The first task is always run by the calling thread, so there's no need to hand it to another worker
+        for (int i = 1; i < futures.size(); i++) {
+            try {
+                this.executor.execute(futures.get(i));
+            } catch (RejectedExecutionException e) {
+                break; // The remaining tasks will be run by the calling thread
+            }
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        boolean interrupted = false;
+        for (FutureTask<T> future : futures) {
+            // Does nothing if another worker has already started running the task
+            future.run();
+            while (true) {
+                try {
+                    results.add(future.get());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException runtimeException)
+                        throw runtimeException;
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return results;
+    }
+
+    private void handleOverload(HalpbotEvent event) {
+        if (this.overloadPolicy == OverloadPolicy.REJECT)
+            this.halpbotCore.displayConfiguration()
+                .displayTemporary(event, "I'm a bit busy right now, please try again in a moment", 10);
+        // A dropped slash command would otherwise be left loading, as it's deferred before it's queued
+        else if (event instanceof InteractionEvent interactionEvent)
+            interactionEvent.completeDeferredReply();
+    }
+
+    @Override
+    public int pending() {
+        return this.pending.get();
+    }
+
+    @Override
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    private static class ChannelQueue
+    {
+        private final long channelId;
+        private final Queue<Runnable> actions = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean removed;
+
+        ChannelQueue(long channelId) {
+            this.channelId = channelId;
+        }
+    }
+}
@@ -29,6 +29,8 @@ import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
 import org.dockbox.hartshorn.core.domain.Exceptional;
 import org.jetbrains.annotations.Nullable;
 
+import nz.pumbas.halpbot.actions.methods.MethodHandleInvoker;
+
 public interface ActionContextDecorator<C extends InvocationContext> extends ActionInvokable<C>
 {
     ActionInvokable<C> actionInvokable();
@@ -49,6 +51,12 @@ public interface ActionContextDecorator<C extends InvocationContext> extends Act
         return this.actionInvokable().executable();
     }
 
+    @Override
+    @Nullable
+    default MethodHandleInvoker invoker() {
+        return this.actionInvokable().invoker();
+    }
+
     @Override
     default <R> Exceptional<R> invoke(C invocationContext) {
         return this.actionInvokable().invoke(invocationContext);
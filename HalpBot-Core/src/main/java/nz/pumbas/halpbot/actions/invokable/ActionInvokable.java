@@ -28,13 +28,29 @@ import org.dockbox.hartshorn.core.domain.Exceptional;
 import org.dockbox.hartshorn.core.function.CheckedFunction;
 
 import nz.pumbas.halpbot.actions.methods.Invokable;
+import nz.pumbas.halpbot.actions.metrics.InvocationTimings;
 
 public interface ActionInvokable<C extends InvocationContext> extends Invokable
 {
     Exceptional<Object[]> parameters(C invocationContext);
 
     default <R> Exceptional<R> invoke(C invocationContext) {
-        return this.parameters(invocationContext)
-            .flatMap((CheckedFunction<Object[], Exceptional<R>>) this::invoke);
+        InvocationTimings timings = invocationContext.timings();
+        if (!timings.enter()) {
+            timings.exit();
+            return this.parameters(invocationContext)
+                .flatMap((CheckedFunction<Object[], Exceptional<R>>) this::invoke);
+        }
+
+        try {
+            long start = System.nanoTime();
+            Exceptional<Object[]> parameters = this.parameters(invocationContext);
+            long parsed = System.nanoTime();
+            Exceptional<R> result = parameters.flatMap((CheckedFunction<Object[], Exceptional<R>>) this::invoke);
+            timings.record(parsed - start, System.nanoTime() - parsed);
+            return result;
+        } finally {
+            timings.exit();
+        }
     }
 }
@@ -30,6 +30,7 @@ import org.jetbrains.annotations.Nullable;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import nz.pumbas.halpbot.actions.methods.MethodHandleInvoker;
 
 @Getter
 @RequiredArgsConstructor
@@ -47,6 +48,11 @@ public class ActionInvokableDecorator<C extends InvocationContext> implements Ac
         return this.actionInvokable.executable();
     }
 
+    @Override
+    public @Nullable MethodHandleInvoker invoker() {
+        return this.actionInvokable.invoker();
+    }
+
     @Override
     public Exceptional<Object[]> parameters(C invocationContext) {
         return this.actionInvokable.parameters(invocationContext);
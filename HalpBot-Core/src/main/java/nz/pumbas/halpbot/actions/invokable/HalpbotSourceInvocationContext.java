@@ -37,6 +37,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import nz.pumbas.halpbot.actions.metrics.InvocationTimings;
 import nz.pumbas.halpbot.converters.tokens.ParsingToken;
 import nz.pumbas.halpbot.events.HalpbotEvent;
 
@@ -53,4 +54,5 @@ public class HalpbotSourceInvocationContext implements SourceInvocationContext
 
     private final HalpbotEvent halpbotEvent;
     private final List<ParsingToken> nonCommandParameterTokens;
+    private final InvocationTimings timings = new InvocationTimings();
 }
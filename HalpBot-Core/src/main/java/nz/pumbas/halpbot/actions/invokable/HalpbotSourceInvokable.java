@@ -29,11 +29,16 @@ import org.dockbox.hartshorn.core.annotations.inject.Bound;
 import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
 import org.jetbrains.annotations.Nullable;
 
+import nz.pumbas.halpbot.actions.methods.MethodHandleInvoker;
+
 @ComponentBinding(SourceInvokable.class)
 public record HalpbotSourceInvokable(@Nullable Object instance,
-                                     ExecutableElementContext<?, ?> executable)
+                                     ExecutableElementContext<?, ?> executable,
+                                     @Nullable MethodHandleInvoker invoker)
     implements SourceInvokable<SourceInvocationContext>
 {
     @Bound
-    public HalpbotSourceInvokable {}
+    public HalpbotSourceInvokable(@Nullable Object instance, ExecutableElementContext<?, ?> executable) {
+        this(instance, executable, MethodHandleInvoker.of(executable));
+    }
 }
@@ -28,6 +28,7 @@ import org.dockbox.hartshorn.core.context.ContextCarrier;
 import org.dockbox.hartshorn.core.context.element.TypeContext;
 import org.jetbrains.annotations.Nullable;
 
+import nz.pumbas.halpbot.actions.metrics.InvocationTimings;
 import nz.pumbas.halpbot.events.HalpbotEvent;
 
 public interface InvocationContext extends ContextCarrier
@@ -37,4 +38,9 @@ public interface InvocationContext extends ContextCarrier
     TypeContext<?> currentType();
 
     void currentType(TypeContext<?> typeContext);
+
+    /**
+     * @return The {@link InvocationTimings} of the action being invoked with this context
+     */
+    InvocationTimings timings();
 }
@@ -38,8 +38,21 @@ public interface Invokable
 
     ExecutableElementContext<?, ?> executable();
 
+    /**
+     * @return The {@link MethodHandleInvoker} bound to the executable, or null if it should be invoked using
+     * reflection instead
+     */
+    @Nullable
+    default MethodHandleInvoker invoker() {
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     default <R> Exceptional<R> invoke(Object... parameters) {
+        final MethodHandleInvoker invoker = this.invoker();
+        if (invoker != null) {
+            return invoker.invoke(this.instance(), parameters);
+        }
         final ExecutableElementContext<?, ?> executable = this.executable();
         if (executable instanceof MethodContext methodContext) {
             return methodContext.invoke(this.instance(), parameters);
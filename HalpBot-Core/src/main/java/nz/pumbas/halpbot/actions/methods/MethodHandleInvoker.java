@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.methods;
+
+import org.dockbox.hartshorn.core.context.element.ConstructorContext;
+import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
+import org.dockbox.hartshorn.core.context.element.MethodContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invokes an executable through a {@link MethodHandle} that is bound once, rather than through reflection each time
+ * it's called. Every handle is adapted to the same {@code (Object, Object[])Object} shape, so that the JIT is able to
+ * inline the call to the underlying method.
+ */
+public final class MethodHandleInvoker
+{
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final Map<ExecutableElementContext<?, ?>, Exceptional<MethodHandleInvoker>> INVOKERS =
+        new ConcurrentHashMap<>();
+
+    private final MethodHandle methodHandle;
+
+    private MethodHandleInvoker(MethodHandle methodHandle) {
+        this.methodHandle = methodHandle;
+    }
+
+    /**
+     * Binds the executable to a {@link MethodHandleInvoker}. Invokers are cached, so binding the same executable
+     * multiple times will always return the same invoker. If the executable cannot be bound, for example because it's
+     * not accessible, then null is returned and reflection should be used instead.
+     *
+     * @param executable
+     *     The method or constructor to bind
+     *
+     * @return The bound invoker, or null if the executable couldn't be bound
+     */
+    @Nullable
+    public static MethodHandleInvoker of(ExecutableElementContext<?, ?> executable) {
+        return INVOKERS.computeIfAbsent(executable, MethodHandleInvoker::bind).orNull();
+    }
+
+    private static Exceptional<MethodHandleInvoker> bind(ExecutableElementContext<?, ?> executable) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle methodHandle;
+            if (executable instanceof MethodContext<?, ?> methodContext) {
+                Method method = methodContext.method();
+                methodHandle = lookup.unreflect(method).asFixedArity();
+                // Static methods ignore the instance, so the handle has the same shape as instance methods
+                if (Modifier.isStatic(method.getModifiers()))
+                    methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+            }
+            else if (executable instanceof ConstructorContext<?> constructorContext) {
+                methodHandle = MethodHandles.dropArguments(
+                    lookup.unreflectConstructor(constructorContext.constructor()).asFixedArity(), 0, Object.class);
+            }
+            else return Exceptional.empty();
+
+            int parameterCount = methodHandle.type().parameterCount() - 1;
+            methodHandle = methodHandle
+                .asType(MethodType.genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount)
+                .asType(INVOKER_TYPE);
+            return Exceptional.of(new MethodHandleInvoker(methodHandle));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return Exceptional.of(e);
+        }
+    }
+
+    /**
+     * Invokes the bound executable. If the executable is static or a constructor, the instance is ignored.
+     *
+     * @param instance
+     *     The instance to invoke the method on
+     * @param parameters
+     *     The parameters to pass to the executable
+     * @param <R>
+     *     The type of the returned value
+     *
+     * @return An {@link Exceptional} containing the returned value, or the exception that was thrown
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Exceptional<R> invoke(@Nullable Object instance, Object... parameters) {
+        try {
+            Object result = this.methodHandle.invokeExact(instance, parameters);
+            return Exceptional.of((R) result);
+        } catch (Throwable e) {
+            return Exceptional.of(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * The latency of each {@link Phase} of an action, along with the number of times the action has failed.
+ */
+public class ActionMetrics
+{
+    @Getter
+    private final ActionType actionType;
+    @Getter
+    private final String name;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final LongAdder failures = new LongAdder();
+
+    public ActionMetrics(ActionType actionType, String name) {
+        this.actionType = actionType;
+        this.name = name;
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        this.histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records the parsing, decorators and invocation phases from the timings of an invocation.
+     *
+     * @param timings
+     *     The {@link InvocationTimings} of the invocation
+     * @param totalNanos
+     *     The total time spent invoking the action, including its decorators
+     */
+    public void record(InvocationTimings timings, long totalNanos) {
+        this.record(Phase.PARSING, timings.parsingNanos());
+        this.record(Phase.INVOCATION, timings.invocationNanos());
+        this.record(Phase.DECORATORS, totalNanos - timings.parsingNanos() - timings.invocationNanos());
+    }
+
+    public void recordFailure() {
+        this.failures.increment();
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    /**
+     * @return The number of times the action has been invoked
+     */
+    public long invocations() {
+        return this.histogram(Phase.INVOCATION).count();
+    }
+
+    public long failures() {
+        return this.failures.sum();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.reset();
+        }
+        this.failures.reset();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.metrics;
+
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Singleton;
+
+@Singleton
+@ComponentBinding(MetricsRegistry.class)
+public class HalpbotMetricsRegistry implements MetricsRegistry
+{
+    private final Map<ActionType, Map<String, ActionMetrics>> metrics = new EnumMap<>(ActionType.class);
+
+    public HalpbotMetricsRegistry() {
+        for (ActionType actionType : ActionType.values()) {
+            this.metrics.put(actionType, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public ActionMetrics metrics(ActionType actionType, String name) {
+        Map<String, ActionMetrics> metrics = this.metrics.get(actionType);
+        ActionMetrics actionMetrics = metrics.get(name);
+        if (actionMetrics == null)
+            actionMetrics = metrics.computeIfAbsent(name, key -> new ActionMetrics(actionType, key));
+        return actionMetrics;
+    }
+
+    @Override
+    public Collection<ActionMetrics> metrics(ActionType actionType) {
+        return Collections.unmodifiableCollection(this.metrics.get(actionType).values());
+    }
+
+    @Override
+    public void reset() {
+        for (Map<String, ActionMetrics> metrics : this.metrics.values()) {
+            metrics.values().forEach(ActionMetrics::reset);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.metrics;
+
+import lombok.Getter;
+
+/**
+ * Records the time spent parsing the parameters and invoking the method of an action. An invocation context is only
+ * used by a single thread, so this doesn't need to be thread-safe. Actions invoked while parsing the parameters of
+ * another action, such as reflective commands, are included in the parsing time of the outer action.
+ */
+@Getter
+public class InvocationTimings
+{
+    private long parsingNanos;
+    private long invocationNanos;
+    private int depth;
+
+    /**
+     * Marks the start of an invocation.
+     *
+     * @return If this is the outermost invocation, and so should be timed
+     */
+    public boolean enter() {
+        return this.depth++ == 0;
+    }
+
+    public void exit() {
+        this.depth--;
+    }
+
+    public void record(long parsingNanos, long invocationNanos) {
+        this.parsingNanos += parsingNanos;
+        this.invocationNanos += invocationNanos;
+    }
+}
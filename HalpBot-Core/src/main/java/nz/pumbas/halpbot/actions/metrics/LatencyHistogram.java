@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.actions.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds. Values are stored in log-linear buckets, where each power of two
+ * is split into 8 sub-buckets, so that recorded values are accurate to within 12.5% while only using a fixed number of
+ * buckets. Recording a value never allocates or blocks.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values larger than 2^41ns (About 36 minutes) are all recorded in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the latency.
+     *
+     * @param nanos
+     *     The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        this.counts.incrementAndGet(index(nanos));
+        this.count.increment();
+        this.total.add(nanos);
+
+        long currentMax = this.max.get();
+        while (nanos > currentMax && !this.max.compareAndSet(currentMax, nanos))
+            currentMax = this.max.get();
+    }
+
+    /**
+     * @return The number of latencies that have been recorded
+     */
+    public long count() {
+        return this.count.sum();
+    }
+
+    /**
+     * Takes a snapshot of the recorded latencies. As values may be recorded while the snapshot is being taken, the
+     * snapshot is not guaranteed to be exact.
+     *
+     * @return A {@link Snapshot} of the recorded latencies
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.counts.get(i);
+            count += counts[i];
+        }
+
+        return new Snapshot(
+            count,
+            count == 0 ? 0 : this.total.sum() / Math.max(this.count.sum(), 1),
+            this.max.get(),
+            percentile(counts, count, 0.5),
+            percentile(counts, count, 0.9),
+            percentile(counts, count, 0.99));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.reset();
+        this.total.reset();
+        this.max.set(0);
+    }
+
+    private static long percentile(long[] counts, long count, double percentile) {
+        if (count == 0)
+            return 0;
+
+        long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return upperBound(i);
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return BUCKETS - 1;
+
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int shift = index / SUB_BUCKETS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * The latencies recorded by a {@link LatencyHistogram}, in nanoseconds. The percentiles are the upper bound of the
+     * bucket they fall in.
+     */
+    public record Snapshot(long count, long mean, long max, long p50, long p90, long p99) {}
+}
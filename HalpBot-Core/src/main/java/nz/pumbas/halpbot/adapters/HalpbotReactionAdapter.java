@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.adapters;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageReaction.ReactionEmote;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
+
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.HalpbotCore;
+import nz.pumbas.halpbot.actions.ReactionActionCallback;
+import nz.pumbas.halpbot.configurations.DisplayConfiguration;
+import nz.pumbas.halpbot.events.HalpbotEvent;
+import nz.pumbas.halpbot.events.MessageEvent;
+import nz.pumbas.halpbot.permissions.PermissionService;
+import nz.pumbas.halpbot.utilities.EmojiKeys;
+
+@Singleton
+@ComponentBinding(ReactionAdapter.class)
+public class HalpbotReactionAdapter implements ReactionAdapter
+{
+    @Getter
+    @Inject
+    private ApplicationContext applicationContext;
+    @Getter
+    @Inject
+    private HalpbotCore halpbotCore;
+    @Inject
+    private PermissionService permissionService;
+
+    private final ReactionCallbackRegistry reactionCallbacks = new ReactionCallbackRegistry();
+
+    @Override
+    public void onMessageReactionAdd(MessageReactionAddEvent event) {
+        // Custom emotes don't have any codepoints
+        ReactionEmote reactionEmote = event.getReactionEmote();
+        if (!reactionEmote.isEmoji() || event.getUserIdLong() == event.getJDA().getSelfUser().getIdLong())
+            return;
+
+        long messageId = event.getMessageIdLong();
+        ReactionActionCallback actionCallback = this.reactionCallbacks
+            .callback(messageId, EmojiKeys.find(reactionEmote.getEmoji()));
+        // Most reactions aren't on a message with callbacks, so this is checked before the user is looked at
+        if (actionCallback == null)
+            return;
+
+        User user = event.getUser();
+        if (user != null && user.isBot())
+            return;
+
+        // The permissions and cooldown are checked before the use is claimed, so that a reaction which isn't allowed
+        // to use a single use callback doesn't consume it
+        if (!this.canUse(event, actionCallback))
+            return;
+        if (!actionCallback.startCooldown(event.getUserIdLong())) {
+            if (actionCallback.removeReactionIfCoolingDown() && user != null)
+                event.getReaction().removeReaction(user).queue();
+            return;
+        }
+        if (!this.reactionCallbacks.use(messageId, actionCallback))
+            return;
+
+        HalpbotEvent halpbotEvent = new MessageEvent(event);
+        this.halpbotCore.executionEngine().execute(halpbotEvent, () -> {
+            Exceptional<Object> result = actionCallback.invokeCallback(halpbotEvent);
+            if (result.present())
+                this.displayResult(halpbotEvent, actionCallback, result.get());
+            else if (result.caught())
+                this.handleException(halpbotEvent, result.error());
+        });
+    }
+
+    private boolean canUse(MessageReactionAddEvent event, ReactionActionCallback actionCallback) {
+        Set<String> permissions = actionCallback.permissions();
+        if (permissions.isEmpty())
+            return true;
+
+        Member member = event.getMember();
+        // Permissions are bound to guilds, so they can't be checked in a private message
+        return event.isFromGuild() && member != null
+            && this.permissionService.canUse(event.getGuild(), member, permissions);
+    }
+
+    private void displayResult(HalpbotEvent halpbotEvent, ReactionActionCallback actionCallback, Object result) {
+        DisplayConfiguration displayConfiguration = this.halpbotCore.displayConfiguration();
+        if (actionCallback.displayTemporarily())
+            displayConfiguration.displayTemporary(halpbotEvent, result, actionCallback.getDisplayDuration());
+        else displayConfiguration.display(halpbotEvent, result);
+    }
+
+    @Override
+    public void registerCallback(Message message, ReactionActionCallback actionCallback) {
+        this.reactionCallbacks.register(message.getIdLong(), actionCallback);
+
+        message.addReaction(actionCallback.getCodepointEmoji()).queue();
+        if (0 < actionCallback.getDeleteAfterDuration()) {
+            this.halpbotCore.threadpool().schedule(
+                () -> this.unregisterCallback(message, actionCallback),
+                actionCallback.getDeleteAfterDuration(),
+                actionCallback.getDeleteAfterTimeUnit());
+        }
+    }
+
+    @Override
+    public boolean unregisterCallback(Message message, ReactionActionCallback actionCallback) {
+        if (!this.reactionCallbacks.unregister(message.getIdLong(), actionCallback))
+            return false;
+
+        message.clearReactions(actionCallback.getCodepointEmoji()).queue();
+        return true;
+    }
+
+    @Override
+    public boolean unregisterCallbacks(long messageId) {
+        return this.reactionCallbacks.unregisterAll(messageId);
+    }
+}
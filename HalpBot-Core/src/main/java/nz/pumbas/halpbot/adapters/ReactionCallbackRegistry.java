@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.adapters;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+import nz.pumbas.halpbot.actions.ReactionActionCallback;
+import nz.pumbas.halpbot.objects.ConcurrentLongMap;
+import nz.pumbas.halpbot.utilities.EmojiKeys;
+
+/**
+ * The reaction callbacks registered on each message. The callbacks on a message are an immutable snapshot which is
+ * replaced as a whole whenever they change, so looking up a callback only takes the lock of the message's segment once
+ * and a single use callback can be claimed by removing the snapshot it was found in.
+ */
+public class ReactionCallbackRegistry
+{
+    private final ConcurrentLongMap<MessageCallbacks> reactionCallbacks = new ConcurrentLongMap<>();
+
+    /**
+     * Retrieves the callback registered on the message for the emoji.
+     *
+     * @param messageId
+     *     The id of the message
+     * @param emojiKey
+     *     The {@link EmojiKeys key} of the emoji
+     *
+     * @return The {@link ReactionActionCallback}, or null if there is none
+     */
+    @Nullable
+    public ReactionActionCallback callback(long messageId, int emojiKey) {
+        MessageCallbacks callbacks = this.reactionCallbacks.get(messageId);
+        return callbacks == null ? null : callbacks.get(emojiKey);
+    }
+
+    /**
+     * Claims a use of a callback which was {@link #callback(long, int) found} on the message. If the callback is single
+     * use, then all the callbacks on the message are unregistered, so only one reaction can ever use it. Otherwise,
+     * this doesn't need to look the callback up again.
+     *
+     * @param messageId
+     *     The id of the message
+     * @param actionCallback
+     *     The {@link ReactionActionCallback} to use
+     *
+     * @return If the callback can be invoked, or false if it was single use and has already been used
+     */
+    public boolean use(long messageId, ReactionActionCallback actionCallback) {
+        if (!actionCallback.isSingleUse())
+            return true;
+
+        while (true) {
+            MessageCallbacks callbacks = this.reactionCallbacks.get(messageId);
+            if (callbacks == null || !callbacks.contains(actionCallback))
+                return false;
+            // Only the first reaction can use a single use callback. If another callback was registered on the
+            // message at the same time, then the updated callbacks are removed instead
+            if (this.reactionCallbacks.remove(messageId, callbacks))
+                return true;
+        }
+    }
+
+    /**
+     * Registers the callback on the message, replacing any callback already registered for its emoji.
+     */
+    public void register(long messageId, ReactionActionCallback actionCallback) {
+        while (true) {
+            MessageCallbacks callbacks = this.reactionCallbacks.get(messageId);
+            MessageCallbacks updatedCallbacks = callbacks == null
+                ? new MessageCallbacks(actionCallback)
+                : callbacks.with(actionCallback);
+
+            boolean updated = callbacks == null
+                ? this.reactionCallbacks.putIfAbsent(messageId, updatedCallbacks) == null
+                : this.reactionCallbacks.replace(messageId, callbacks, updatedCallbacks);
+            if (updated)
+                return;
+        }
+    }
+
+    /**
+     * Unregisters the callback from the message.
+     *
+     * @return If the callback was registered on the message
+     */
+    public boolean unregister(long messageId, ReactionActionCallback actionCallback) {
+        while (true) {
+            MessageCallbacks callbacks = this.reactionCallbacks.get(messageId);
+            if (callbacks == null || !callbacks.contains(actionCallback))
+                return false;
+
+            MessageCallbacks updatedCallbacks = callbacks.without(actionCallback);
+            boolean updated = updatedCallbacks == null
+                ? this.reactionCallbacks.remove(messageId, callbacks)
+                : this.reactionCallbacks.replace(messageId, callbacks, updatedCallbacks);
+            if (updated)
+                return true;
+        }
+    }
+
+    /**
+     * Unregisters all the callbacks on the message.
+     *
+     * @return If there were any callbacks registered on the message
+     */
+    public boolean unregisterAll(long messageId) {
+        return this.reactionCallbacks.remove(messageId) != null;
+    }
+
+    /**
+     * An immutable set of the callbacks registered on a message, indexed by the {@link EmojiKeys key} of their emoji.
+     * Messages rarely have more than a few callbacks, so a linear scan of the keys is faster than hashing.
+     */
+    private static final class MessageCallbacks
+    {
+        private final int[] emojiKeys;
+        private final ReactionActionCallback[] callbacks;
+
+        private MessageCallbacks(ReactionActionCallback callback) {
+            this(new int[]{ callback.getEmojiKey() }, new ReactionActionCallback[]{ callback });
+        }
+
+        private MessageCallbacks(int[] emojiKeys, ReactionActionCallback[] callbacks) {
+            this.emojiKeys = emojiKeys;
+            this.callbacks = callbacks;
+        }
+
+        @Nullable
+        public ReactionActionCallback get(int emojiKey) {
+            int index = this.indexOf(emojiKey);
+            return index == -1 ? null : this.callbacks[index];
+        }
+
+        public boolean contains(ReactionActionCallback callback) {
+            int index = this.indexOf(callback.getEmojiKey());
+            return index != -1 && this.callbacks[index] == callback;
+        }
+
+        /**
+         * @return A copy of these callbacks with the callback added, replacing any callback with the same emoji
+         */
+        public MessageCallbacks with(ReactionActionCallback callback) {
+            int index = this.indexOf(callback.getEmojiKey());
+            if (index != -1) {
+                ReactionActionCallback[] callbacks = this.callbacks.clone();
+                callbacks[index] = callback;
+                return new MessageCallbacks(this.emojiKeys, callbacks);
+            }
+
+            int[] emojiKeys = Arrays.copyOf(this.emojiKeys, this.emojiKeys.length + 1);
+            ReactionActionCallback[] callbacks = Arrays.copyOf(this.callbacks, this.callbacks.length + 1);
+            emojiKeys[emojiKeys.length - 1] = callback.getEmojiKey();
+            callbacks[callbacks.length - 1] = callback;
+            return new MessageCallbacks(emojiKeys, callbacks);
+        }
+
+        /**
+         * @return A copy of these callbacks without the callback, which must be one of them, or null if there are no
+         *     callbacks left
+         */
+        @Nullable
+        public MessageCallbacks without(ReactionActionCallback callback) {
+            int index = this.indexOf(callback.getEmojiKey());
+            if (this.callbacks.length == 1)
+                return null;
+
+            int[] emojiKeys = new int[this.emojiKeys.length - 1];
+            ReactionActionCallback[] callbacks = new ReactionActionCallback[this.callbacks.length - 1];
+            System.arraycopy(this.emojiKeys, 0, emojiKeys, 0, index);
+            System.arraycopy(this.emojiKeys, index + 1, emojiKeys, index, emojiKeys.length - index);
+            System.arraycopy(this.callbacks, 0, callbacks, 0, index);
+            System.arraycopy(this.callbacks, index + 1, callbacks, index, callbacks.length - index);
+            return new MessageCallbacks(emojiKeys, callbacks);
+        }
+
+        private int indexOf(int emojiKey) {
+            for (int i = 0; i < this.emojiKeys.length; i++) {
+                if (this.emojiKeys[i] == emojiKey)
+                    return i;
+            }
+            return -1;
+        }
+    }
+}
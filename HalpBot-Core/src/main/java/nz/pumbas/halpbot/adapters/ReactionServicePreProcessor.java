@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.adapters;
+
+import org.dockbox.hartshorn.core.Key;
+import org.dockbox.hartshorn.core.annotations.activate.AutomaticActivation;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+import org.dockbox.hartshorn.core.services.ServicePreProcessor;
+
+/**
+ * Enables the {@link ReactionAdapter} if there are any services which use it. Reaction callbacks are registered while
+ * the bot is running, so the adapter needs to be enabled before the bot starts for it to receive their reactions.
+ */
+@AutomaticActivation
+public class ReactionServicePreProcessor implements ServicePreProcessor<UseReactions>
+{
+    @Override
+    public Integer order() {
+        return 1;
+    }
+
+    @Override
+    public boolean preconditions(ApplicationContext context, Key<?> key) {
+        return !key.type().fieldsOf(ReactionAdapter.class).isEmpty();
+    }
+
+    @Override
+    public <T> void process(ApplicationContext context, Key<T> key) {
+        // The adapter is a singleton, so it's only enabled and registered with the HalpbotCore the first time
+        context.get(ReactionAdapter.class);
+    }
+
+    @Override
+    public Class<UseReactions> activator() {
+        return UseReactions.class;
+    }
+}
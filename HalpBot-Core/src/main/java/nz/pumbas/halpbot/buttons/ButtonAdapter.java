@@ -24,8 +24,11 @@
 
 package nz.pumbas.halpbot.buttons;
 
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.events.interaction.ButtonClickEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
 import net.dv8tion.jda.api.interactions.components.Button;
 
 import org.dockbox.hartshorn.core.context.element.MethodContext;
@@ -34,30 +37,29 @@ import org.dockbox.hartshorn.core.domain.Exceptional;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import nz.pumbas.halpbot.adapters.HalpbotAdapter;
 
 public interface ButtonAdapter extends HalpbotAdapter
 {
-    String DYNAMIC_ID_FORMAT = "%s$$%s$$%d-%d";
-    Pattern DYNAMIC_ID_EXTRACTION_PATTERN = Pattern.compile(".*\\$\\$(.*)\\$\\$.*");
-
-    String dynamicPrefix();
-
-    int idSuffix();
-
-    void idSuffix(int idSuffix);
-
     @Override
     default void onEvent(GenericEvent event) {
         if (event instanceof ButtonClickEvent buttonClickEvent)
             this.onButtonClick(buttonClickEvent);
+        else if (event instanceof MessageReceivedEvent messageReceivedEvent)
+            this.trackDynamicButtons(messageReceivedEvent.getMessage());
+        else if (event instanceof MessageUpdateEvent messageUpdateEvent)
+            this.trackDynamicButtons(messageUpdateEvent.getMessage());
     }
 
     void onButtonClick(ButtonClickEvent event);
 
+    /**
+     * Records the message that any dynamic buttons in the message were sent in, so that their
+     * {@link AfterRemovalFunction} can be applied to the message as soon as they're removed.
+     */
+    void trackDynamicButtons(Message message);
+
     default <T> void registerButtons(TypeContext<T> type) {
         final T instance = this.applicationContext().get(type);
         List<MethodContext<?, T>> buttons = type.methods(ButtonAction.class);
@@ -111,35 +113,34 @@ public interface ButtonAdapter extends HalpbotAdapter
             .toList();
     }
 
-    default String generateDynamicId(String currentId) {
-        // The id suffix prevents buttons registered within the same millisecond having the same id. 1000 is used so
-        // that it won't take up any more than 3 characters
-        this.idSuffix((this.idSuffix() + 1) % 1000);
-        return DYNAMIC_ID_FORMAT.formatted(this.dynamicPrefix(), currentId, System.currentTimeMillis(), this.idSuffix());
-    }
+    /**
+     * Generates a new dynamic id, which is unique across all the bot processes as long as they're each configured with
+     * a different node id. See {@link DynamicIdGenerator} for the format of the id.
+     */
+    String generateDynamicId();
 
     default Exceptional<String> extractOriginalIdSafely(String dynamicId) {
         String extractedId = this.extractOriginalId(dynamicId);
 
         if (extractedId == null)
             return Exceptional.of(
-                new IllegalArgumentException("The specified id did not match the dynamic id format of '%s'"
-                    .formatted(DYNAMIC_ID_FORMAT)));
+                new IllegalArgumentException("The specified id %s is not the id of a registered dynamic button"
+                    .formatted(dynamicId)));
 
         return Exceptional.of(extractedId);
     }
 
+    /**
+     * Retrieves the id of the button action that a dynamic button was created from. As dynamic ids don't contain the
+     * original id, this is only available while the dynamic button is registered.
+     *
+     * @return The original id, or null if the id isn't the id of a registered dynamic button
+     */
     @Nullable
-    default String extractOriginalId(String dynamicId) {
-        Matcher matcher = DYNAMIC_ID_EXTRACTION_PATTERN.matcher(dynamicId);
-        if (matcher.matches()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
+    String extractOriginalId(String dynamicId);
 
     default boolean isDynamic(String id) {
-        return id.startsWith(this.dynamicPrefix());
+        return DynamicIdGenerator.isDynamic(id);
     }
 
     default boolean isDynamic(Button button) {
@@ -38,14 +38,25 @@ public interface ButtonContext extends SourceContext<ButtonInvocationContext>, D
 
     Object[] passedParameters();
 
+    int UNLIMITED_USES = -1;
+
+    /**
+     * @return The number of uses this button has left, or {@link #UNLIMITED_USES} if it can be used any number of times
+     */
     int remainingUses();
 
-    void deductUse();
+    /**
+     * Atomically claims one of the remaining uses of this button. As the check and the deduction are a single
+     * operation, concurrent clicks can never use a button more times than it has uses.
+     *
+     * @return The {@link UseResult} describing if the button can be invoked
+     */
+    UseResult use();
 
     AsyncDuration removeAfter();
 
     default boolean hasUses() {
-        return this.remainingUses() > 0;
+        return this.remainingUses() != 0;
     }
 
     default boolean isUsingDuration() {
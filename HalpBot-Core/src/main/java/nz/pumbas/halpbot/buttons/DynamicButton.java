@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons;
+
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+import nz.pumbas.halpbot.buttons.state.ButtonState;
+import nz.pumbas.halpbot.objects.TimingWheel;
+
+/**
+ * A button that was registered with the parameters to invoke its {@link ButtonAction} with. Each dynamic button has
+ * its own {@link ButtonContext}, which tracks how many uses it has left.
+ */
+public final class DynamicButton
+{
+    private final String actionId;
+    private final ButtonContext buttonContext;
+    @Nullable
+    private final TimingWheel.Timeout expiration;
+    private final long expiresAt;
+    // The message the button was sent in, if known. The message id is set last, so if it's not 0 then the
+    // channel id and rows have also been set
+    private volatile long channelId;
+    @Nullable
+    private volatile List<ActionRow> rows;
+    private volatile long messageId;
+
+    /**
+     * Creates a dynamic button.
+     *
+     * @param actionId
+     *     The id of the {@link ButtonAction} the button invokes
+     * @param buttonContext
+     *     The {@link ButtonContext} of the button
+     * @param expiration
+     *     The expiration of the button, which is cancelled if it's removed before it expires, or null if it doesn't
+     *     expire
+     * @param expiresAt
+     *     The time the button expires, in epoch milliseconds, or {@link ButtonState#NEVER_EXPIRES}
+     */
+    public DynamicButton(String actionId,
+                         ButtonContext buttonContext,
+                         @Nullable TimingWheel.Timeout expiration,
+                         long expiresAt) {
+        this.actionId = actionId;
+        this.buttonContext = buttonContext;
+        this.expiration = expiration;
+        this.expiresAt = expiresAt;
+    }
+
+    public String actionId() {
+        return this.actionId;
+    }
+
+    public ButtonContext buttonContext() {
+        return this.buttonContext;
+    }
+
+    @Nullable
+    public TimingWheel.Timeout expiration() {
+        return this.expiration;
+    }
+
+    public long channelId() {
+        return this.channelId;
+    }
+
+    /**
+     * @return The action rows of the message the button was sent in, as they were when the message was last seen, or
+     *     null if the message isn't known
+     */
+    @Nullable
+    public List<ActionRow> rows() {
+        return this.rows;
+    }
+
+    public long messageId() {
+        return this.messageId;
+    }
+
+    /**
+     * Sets the message the button was sent in. This is updated each time the message is seen, so that the removal
+     * function can be applied to its latest action rows without retrieving it.
+     *
+     * @param channelId
+     *     The id of the channel the message is in
+     * @param messageId
+     *     The id of the message
+     * @param rows
+     *     The current action rows of the message
+     */
+    public void sentIn(long channelId, long messageId, List<ActionRow> rows) {
+        this.channelId = channelId;
+        this.rows = rows;
+        this.messageId = messageId;
+    }
+
+    public ButtonState state() {
+        return new ButtonState(this.buttonContext.id(), this.actionId, this.buttonContext.passedParameters(),
+            this.buttonContext.remainingUses(), this.expiresAt);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons;
+
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import nz.pumbas.halpbot.objects.ConcurrentLongMap;
+
+/**
+ * The registered dynamic buttons, keyed by their decoded id so that clicks don't need to hash the string id, along
+ * with the removal functions waiting to be applied to the messages they were removed from.
+ * <p>
+ * A dynamic button may be removed by its expiration, its last use and being unregistered at the same time, so only the
+ * call that actually removes it cancels its expiration and queues its removal function. The removal functions of all
+ * the buttons removed from a message before they're applied are then applied in a single edit.
+ */
+public class DynamicButtonRegistry
+{
+    private final ConcurrentLongMap<DynamicButton> dynamicButtons = new ConcurrentLongMap<>();
+    // The removal functions waiting to be applied, keyed by the id of the message the buttons were sent in
+    private final ConcurrentLongMap<PendingRemoval> pendingRemovals = new ConcurrentLongMap<>();
+    private final Consumer<String> removalListener;
+    private final RemovalScheduler removalScheduler;
+
+    /**
+     * Creates a registry of dynamic buttons.
+     *
+     * @param removalListener
+     *     The listener which is passed the id of each dynamic button when it's removed
+     * @param removalScheduler
+     *     The {@link RemovalScheduler} which schedules the removal functions queued for a message to be applied
+     */
+    public DynamicButtonRegistry(Consumer<String> removalListener, RemovalScheduler removalScheduler) {
+        this.removalListener = removalListener;
+        this.removalScheduler = removalScheduler;
+    }
+
+    @Nullable
+    public DynamicButton get(long key) {
+        return this.dynamicButtons.get(key);
+    }
+
+    public boolean contains(long key) {
+        return this.dynamicButtons.containsKey(key);
+    }
+
+    public void register(long key, DynamicButton dynamicButton) {
+        this.dynamicButtons.put(key, dynamicButton);
+    }
+
+    /**
+     * Registers the dynamic button if there isn't already one registered with the same key.
+     *
+     * @return The dynamic button that was already registered, or null if this one was registered
+     */
+    @Nullable
+    public DynamicButton registerIfAbsent(long key, DynamicButton dynamicButton) {
+        return this.dynamicButtons.putIfAbsent(key, dynamicButton);
+    }
+
+    /**
+     * Claims a use of the dynamic button, removing it if that was its last use. As the use is claimed atomically and
+     * removing a dynamic button is idempotent, concurrent clicks can't invoke the button more times than it has uses.
+     * <p>
+     * If the button is removed, its removal function is queued for the message that was clicked, even if the button
+     * wasn't known to have been sent in it, such as when the message is ephemeral. It isn't scheduled, as the click
+     * is expected to {@link #claimRemovalFunctions(long) claim} it and apply it when it responds. It must be claimed
+     * even if invoking the button fails, otherwise it will never be applied.
+     *
+     * @param key
+     *     The decoded id of the dynamic button
+     * @param dynamicButton
+     *     The {@link DynamicButton} that was clicked
+     * @param clickedMessageId
+     *     The id of the message that the button was clicked in
+     *
+     * @return The {@link ButtonContext} to invoke, or null if the button has no uses left
+     */
+    @Nullable
+    public ButtonContext use(long key, DynamicButton dynamicButton, long clickedMessageId) {
+        ButtonContext buttonContext = dynamicButton.buttonContext();
+        // The button context has already been checked to make sure it's not past it's expiration time (If
+        // applicable) so we only need to determine if it still has any uses left.
+        UseResult result = buttonContext.use();
+        if (result == UseResult.LAST_USE)
+            this.remove(key, true, clickedMessageId);
+
+        return result.isAccepted() ? buttonContext : null;
+    }
+
+    /**
+     * Removes the dynamic button. If this call removed it, then its expiration is cancelled and, if specified, its
+     * removal function is queued to be applied to the message it was sent in.
+     *
+     * @param key
+     *     The decoded id of the dynamic button
+     * @param applyRemovalFunction
+     *     If the removal function of the button should be applied
+     *
+     * @return The removed {@link DynamicButton}, or null if it had already been removed
+     */
+    @Nullable
+    public DynamicButton remove(long key, boolean applyRemovalFunction) {
+        return this.remove(key, applyRemovalFunction, 0);
+    }
+
+    @Nullable
+    private DynamicButton remove(long key, boolean applyRemovalFunction, long clickedMessageId) {
+        DynamicButton dynamicButton = this.dynamicButtons.remove(key);
+        if (dynamicButton == null)
+            return null;
+
+        String id = dynamicButton.buttonContext().id();
+        this.removalListener.accept(id);
+        if (dynamicButton.expiration() != null)
+            dynamicButton.expiration().cancel();
+
+        AfterRemovalFunction afterRemoval = dynamicButton.buttonContext().afterRemoval();
+        if (!applyRemovalFunction || afterRemoval == null)
+            return dynamicButton;
+
+        if (clickedMessageId != 0)
+            this.queueRemovalFunction(clickedMessageId, dynamicButton, afterRemoval, false);
+        // If the message the button was sent in isn't known, then there is no message to apply it to
+        else if (dynamicButton.messageId() != 0)
+            this.queueRemovalFunction(dynamicButton.messageId(), dynamicButton, afterRemoval, true);
+        return dynamicButton;
+    }
+
+    private void queueRemovalFunction(long messageId,
+                                      DynamicButton dynamicButton,
+                                      AfterRemovalFunction afterRemoval,
+                                      boolean schedule) {
+        String id = dynamicButton.buttonContext().id();
+        while (true) {
+            PendingRemoval pendingRemoval = new PendingRemoval(dynamicButton.channelId());
+            pendingRemoval.add(id, afterRemoval, dynamicButton.rows());
+
+            PendingRemoval existing = this.pendingRemovals.putIfAbsent(messageId, pendingRemoval);
+            if (existing == null) {
+                if (schedule)
+                    this.removalScheduler.schedule(messageId, pendingRemoval);
+                return;
+            }
+            if (existing.add(id, afterRemoval, dynamicButton.rows()))
+                return;
+            // The existing removal functions were claimed before this one could be added
+            this.pendingRemovals.remove(messageId, existing);
+        }
+    }
+
+    /**
+     * Updates the action rows that the removal functions waiting to be applied to the message will be applied to, so
+     * that they aren't applied to rows which have since been edited.
+     *
+     * @param messageId
+     *     The id of the message
+     * @param rows
+     *     The current action rows of the message
+     */
+    public void updateRows(long messageId, List<ActionRow> rows) {
+        PendingRemoval pendingRemoval = this.pendingRemovals.get(messageId);
+        if (pendingRemoval != null)
+            pendingRemoval.rows(rows);
+    }
+
+    /**
+     * Claims the removal functions waiting to be applied to the message, so that they can be applied along with
+     * another edit to the message.
+     *
+     * @return The removal functions, mapped by the id of their button, or null if there are none
+     */
+    @Nullable
+    public Map<String, AfterRemovalFunction> claimRemovalFunctions(long messageId) {
+        PendingRemoval pendingRemoval = this.pendingRemovals.remove(messageId);
+        return pendingRemoval == null ? null : pendingRemoval.claim();
+    }
+
+    /**
+     * Claims the removal functions that were scheduled to be applied to the message.
+     *
+     * @return The removal functions, mapped by the id of their button, or null if they've already been claimed
+     */
+    @Nullable
+    public Map<String, AfterRemovalFunction> claimRemovalFunctions(long messageId, PendingRemoval pendingRemoval) {
+        this.pendingRemovals.remove(messageId, pendingRemoval);
+        return pendingRemoval.claim();
+    }
+
+    /**
+     * Schedules the removal functions queued for a message to be applied. It's invoked with the first removal
+     * function queued for the message, so that all the removal functions queued before they're applied are applied in
+     * a single edit.
+     */
+    @FunctionalInterface
+    public interface RemovalScheduler
+    {
+        void schedule(long messageId, PendingRemoval pendingRemoval);
+    }
+
+    /**
+     * The removal functions waiting to be applied to a message. Once they've been claimed, no more can be added.
+     */
+    public static final class PendingRemoval
+    {
+        private final long channelId;
+        @Nullable
+        private Map<String, AfterRemovalFunction> removalFunctions = new HashMap<>();
+        @Nullable
+        private List<ActionRow> rows;
+
+        private PendingRemoval(long channelId) {
+            this.channelId = channelId;
+        }
+
+        public long channelId() {
+            return this.channelId;
+        }
+
+        /**
+         * @return The latest action rows of the message, or null if they're not known because the buttons were only
+         *     removed by a click, which applies the removal functions itself
+         */
+        @Nullable
+        public synchronized List<ActionRow> rows() {
+            return this.rows;
+        }
+
+        private synchronized void rows(List<ActionRow> rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * @return If the removal function was added, or false if the removal functions have already been claimed
+         */
+        private synchronized boolean add(String id, AfterRemovalFunction afterRemoval, @Nullable List<ActionRow> rows) {
+            if (this.removalFunctions == null)
+                return false;
+            this.removalFunctions.put(id, afterRemoval);
+            // The rows of the button removed last were seen most recently, as they stop being updated once removed
+            if (rows != null)
+                this.rows = rows;
+            return true;
+        }
+
+        /**
+         * @return The removal functions, or null if they've already been claimed
+         */
+        @Nullable
+        private synchronized Map<String, AfterRemovalFunction> claim() {
+            Map<String, AfterRemovalFunction> removalFunctions = this.removalFunctions;
+            this.removalFunctions = null;
+            return removalFunctions;
+        }
+    }
+}
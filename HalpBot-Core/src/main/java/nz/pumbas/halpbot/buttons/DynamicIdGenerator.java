@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the ids of dynamic buttons. Each id is a 64-bit value made up of a 54-bit sequence, which begins at the
+ * number of milliseconds since {@link #EPOCH} shifted left by 12 bits, followed by a 10-bit node id. The node id
+ * keeps the ids unique across multiple bot processes, while seeding the sequence from the clock keeps them unique
+ * across restarts, which matters as dynamic buttons can be restored from their saved state. Up to 4096 ids can be
+ * generated per millisecond on average before the sequence gets ahead of the clock.
+ * <p>
+ * Ids are sent to discord as a {@link #MARKER} followed by a fixed-width, 11 character base-62 encoding of the value,
+ * which allows them to be identified and decoded without any string matching or intermediate objects.
+ */
+public class DynamicIdGenerator
+{
+    public static final char MARKER = '~';
+    public static final int ENCODED_LENGTH = 12;
+    public static final int NODE_BITS = 10;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long EPOCH = 1640995200000L; // 2022-01-01T00:00:00Z
+    private static final int BASE = 62;
+    private static final char[] DIGITS =
+        "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGIT_VALUES[DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private final int nodeId;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    public DynamicIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID)
+            throw new IllegalArgumentException(
+                "The node id must be between 0 and %d, but was %d".formatted(MAX_NODE_ID, nodeId));
+        this.nodeId = nodeId;
+    }
+
+    public int nodeId() {
+        return this.nodeId;
+    }
+
+    /**
+     * @return The next unique id. The ids generated by a single generator are strictly increasing
+     */
+    public long next() {
+        long clockSequence = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long sequence = this.lastSequence.accumulateAndGet(clockSequence, (last, clock) -> Math.max(last + 1, clock));
+        return (sequence << NODE_BITS) | this.nodeId;
+    }
+
+    /**
+     * @return The id of the node which generated the specified id
+     */
+    public static int nodeId(long id) {
+        return (int) (id & MAX_NODE_ID);
+    }
+
+    /**
+     * Encodes the id into its fixed-width string representation. The id is treated as unsigned.
+     */
+    public static String encode(long id) {
+        char[] encoded = new char[ENCODED_LENGTH];
+        encoded[0] = MARKER;
+        long remaining = id;
+        for (int i = ENCODED_LENGTH - 1; i > 0; i--) {
+            encoded[i] = DIGITS[(int) Long.remainderUnsigned(remaining, BASE)];
+            remaining = Long.divideUnsigned(remaining, BASE);
+        }
+        return new String(encoded);
+    }
+
+    /**
+     * @return If the id has the format of an encoded dynamic id
+     */
+    public static boolean isDynamic(String id) {
+        if (id.length() != ENCODED_LENGTH || id.charAt(0) != MARKER)
+            return false;
+
+        for (int i = 1; i < ENCODED_LENGTH; i++) {
+            if (digit(id.charAt(i)) == -1)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes an id which was encoded by {@link #encode(long)}.
+     *
+     * @throws IllegalArgumentException If the id doesn't have the format of an encoded dynamic id
+     */
+    public static long decode(String id) {
+        if (!isDynamic(id))
+            throw new IllegalArgumentException("The id %s is not a dynamic id".formatted(id));
+
+        long value = 0;
+        for (int i = 1; i < ENCODED_LENGTH; i++) {
+            value = value * BASE + digit(id.charAt(i));
+        }
+        return value;
+    }
+
+    private static int digit(char c) {
+        return c < DIGIT_VALUES.length ? DIGIT_VALUES[c] : -1;
+    }
+}
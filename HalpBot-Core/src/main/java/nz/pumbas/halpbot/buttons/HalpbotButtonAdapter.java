@@ -25,10 +25,14 @@
 package nz.pumbas.halpbot.buttons;
 
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.events.interaction.ButtonClickEvent;
+import net.dv8tion.jda.api.exceptions.ErrorHandler;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
 import net.dv8tion.jda.api.interactions.components.Button;
 import net.dv8tion.jda.api.interactions.components.Component;
+import net.dv8tion.jda.api.requests.ErrorResponse;
 
 import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
 import org.dockbox.hartshorn.core.context.ApplicationContext;
@@ -40,43 +44,48 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import lombok.Getter;
-import lombok.Setter;
-import lombok.experimental.Accessors;
 import nz.pumbas.halpbot.HalpbotCore;
 import nz.pumbas.halpbot.actions.invokable.ActionInvokable;
 import nz.pumbas.halpbot.actions.invokable.InvocationContextFactory;
+import nz.pumbas.halpbot.actions.metrics.ActionMetrics;
+import nz.pumbas.halpbot.actions.metrics.ActionType;
+import nz.pumbas.halpbot.actions.metrics.MetricsRegistry;
+import nz.pumbas.halpbot.actions.metrics.Phase;
+import nz.pumbas.halpbot.buttons.DynamicButtonRegistry.PendingRemoval;
+import nz.pumbas.halpbot.buttons.state.ButtonState;
+import nz.pumbas.halpbot.buttons.state.ButtonStateStore;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
 import nz.pumbas.halpbot.converters.tokens.ParsingToken;
 import nz.pumbas.halpbot.converters.tokens.TokenService;
 import nz.pumbas.halpbot.decorators.DecoratorService;
 import nz.pumbas.halpbot.events.HalpbotEvent;
 import nz.pumbas.halpbot.events.InteractionEvent;
 import nz.pumbas.halpbot.objects.AsyncDuration;
+import nz.pumbas.halpbot.objects.TimingWheel;
 import nz.pumbas.halpbot.utilities.HalpbotUtils;
 
 @Singleton
-@Accessors(chain = false)
 @ComponentBinding(ButtonAdapter.class)
 public class HalpbotButtonAdapter implements ButtonAdapter
 {
-    @Getter
-    @Setter
-    private int idSuffix;
-    // This will be overwritten when the bot starts such that the prefix is unique to this particular bot
-    @Getter
-    @Setter
-    private String dynamicPrefix = "HB-TEMP";
+    private static final long REMOVAL_EDIT_DELAY = 500;
+
+    // This will be overwritten when the bot starts with the node id of this particular bot
+    private volatile DynamicIdGenerator idGenerator = new DynamicIdGenerator(0);
 
     private final Map<String, ButtonContext> registeredButtons = new ConcurrentHashMap<>();
-    private final Map<String, ButtonContext> dynamicButtons = new ConcurrentHashMap<>();
-    private final Map<String, AfterRemovalFunction> afterRemovalFunctions = new ConcurrentHashMap<>();
-    private final Map<String, ScheduledFuture<?>> scheduledExpirations = new ConcurrentHashMap<>();
+    // The state store is injected after this is created, so it has to be referenced lazily
+    private final DynamicButtonRegistry dynamicButtons = new DynamicButtonRegistry(
+        id -> this.buttonStateStore.remove(id), this::scheduleRemovalFunctions);
+    // Buttons expire after at least a few seconds, so a one second resolution is precise enough
+    private final TimingWheel buttonExpirations = new TimingWheel(1, TimeUnit.SECONDS, this::expireDynamicButtons);
 
     @Inject
     private TokenService tokenService;
@@ -86,6 +95,10 @@ public class HalpbotButtonAdapter implements ButtonAdapter
     private InvocationContextFactory invocationContextFactory;
     @Inject
     private ButtonContextFactory buttonContextFactory;
+    @Inject
+    private MetricsRegistry metricsRegistry;
+    @Inject
+    private ButtonStateStore buttonStateStore;
 
     @Inject
     @Getter
@@ -96,12 +109,37 @@ public class HalpbotButtonAdapter implements ButtonAdapter
 
     @Override
     public void initialise(JDA jda) {
-        this.dynamicPrefix("HB-" + jda.getSelfUser().getAsTag());
+        BotConfiguration configuration = this.applicationContext.get(BotConfiguration.class);
+        int nodeId = configuration.nodeId();
+        if (nodeId < 0) {
+            nodeId = jda.getShardInfo().getShardId();
+            // The shard id is only unique to this process if it's the only one sending buttons
+            if (jda.getShardInfo().getShardTotal() > 1 || !configuration.buttonStateJournal().isBlank())
+                this.applicationContext.log().warn(
+                    ("The nodeId isn't configured, so the shard id %d is used for dynamic button ids. If multiple "
+                        + "processes are running, they must each be configured with a unique nodeId")
+                        .formatted(nodeId));
+        }
+        if (nodeId > DynamicIdGenerator.MAX_NODE_ID) {
+            this.applicationContext.log().warn(
+                "The node id %d is greater than %d, so only its lower %d bits will be used for dynamic button ids"
+                    .formatted(nodeId, DynamicIdGenerator.MAX_NODE_ID, DynamicIdGenerator.NODE_BITS));
+            nodeId &= DynamicIdGenerator.MAX_NODE_ID;
+        }
+        this.idGenerator = new DynamicIdGenerator(nodeId);
+        this.buttonExpirations.start(this.halpbotCore.threadpool());
     }
 
     @Override
     public <T> void registerButton(T instance, MethodContext<?, T> methodContext) {
         ButtonAction buttonAction = methodContext.annotation(ButtonAction.class).get();
+        if (this.isDynamic(buttonAction.id())) {
+            this.applicationContext.log().error(
+                "The button action %s can't have the id %s as it has the same format as a dynamic id"
+                    .formatted(methodContext.qualifiedName(), buttonAction.id()));
+            return;
+        }
+
         ButtonContext buttonContext = this.createButton(
             buttonAction.id(),
             buttonAction,
@@ -117,6 +155,21 @@ public class HalpbotButtonAdapter implements ButtonAdapter
         return this.registeredButtons.get(id);
     }
 
+    @Override
+    public String generateDynamicId() {
+        return DynamicIdGenerator.encode(this.idGenerator.next());
+    }
+
+    @Override
+    @Nullable
+    public String extractOriginalId(String dynamicId) {
+        if (!this.isDynamic(dynamicId))
+            return null;
+
+        DynamicButton dynamicButton = this.dynamicButtons.get(DynamicIdGenerator.decode(dynamicId));
+        return dynamicButton == null ? null : dynamicButton.actionId();
+    }
+
     @Override
     public Button register(Button button, Object... parameters) {
         if (this.isInvalid(button))
@@ -137,22 +190,24 @@ public class HalpbotButtonAdapter implements ButtonAdapter
         ButtonContext buttonContext = this.registeredButtons.get(id);
 
         assert id != null; // id will never be null as this would invalidate the button
-        final String newId = this.generateDynamicId(id);
+        final long key = this.idGenerator.next();
+        final String newId = DynamicIdGenerator.encode(key);
         ButtonContext newButtonContext = this.buttonContextFactory
             .create(newId, parameters, buttonContext, buttonContext.afterRemoval());
 
-        this.dynamicButtons.put(newId, newButtonContext);
+        TimingWheel.Timeout expiration = null;
+        long expiresAt = ButtonState.NEVER_EXPIRES;
         if (newButtonContext.isUsingDuration()) {
             AsyncDuration duration = newButtonContext.removeAfter();
-
-            // Store the completable future so that it can be cancelled later if the dynamic button is unregistered
-            this.scheduledExpirations.put(newId, this.halpbotCore.threadpool()
-                .schedule(
-                    () -> this.removeDynamicButton(newId, true),
-                    duration.value(),
-                    duration.unit()));
+            // Store the timeout so that it can be cancelled later if the dynamic button is unregistered
+            expiration = this.buttonExpirations.schedule(key, duration.value(), duration.unit());
+            expiresAt = System.currentTimeMillis() + duration.unit().toMillis(duration.value());
         }
 
+        DynamicButton dynamicButton = new DynamicButton(id, newButtonContext, expiration, expiresAt);
+        this.dynamicButtons.register(key, dynamicButton);
+        this.buttonStateStore.save(dynamicButton.state());
+
         return button.withId(newId);
     }
 
@@ -175,25 +230,17 @@ public class HalpbotButtonAdapter implements ButtonAdapter
 
     @Override
     public void unregister(String id, boolean applyRemovalFunction) {
-        if (this.registeredButtons.containsKey(id))
-            this.registeredButtons.remove(id);
-        else this.removeDynamicButton(id, applyRemovalFunction);
-    }
-
-    private void removeDynamicButton(String id, boolean applyRemovalFunction) {
-        if (!this.dynamicButtons.containsKey(id))
+        if (this.registeredButtons.remove(id) != null || !this.isDynamic(id))
             return;
 
-        ButtonContext buttonContext = this.dynamicButtons.remove(id);
-        if (this.scheduledExpirations.containsKey(id)) {
-            this.scheduledExpirations.get(id).cancel(false);
-        }
+        // The button may have been saved before the bot started and not restored yet
+        if (this.dynamicButtons.remove(DynamicIdGenerator.decode(id), applyRemovalFunction) == null)
+            this.buttonStateStore.remove(id);
+    }
 
-        if (applyRemovalFunction) {
-            AfterRemovalFunction afterRemoval = buttonContext.afterRemoval();
-            if (afterRemoval != null) {
-                this.afterRemovalFunctions.put(id, afterRemoval);
-            }
+    private void expireDynamicButtons(long[] keys) {
+        for (long key : keys) {
+            this.dynamicButtons.remove(key, true);
         }
     }
 
@@ -218,83 +265,261 @@ public class HalpbotButtonAdapter implements ButtonAdapter
         );
     }
 
-    private ButtonContext retrieveDynamicButtonContext(String id) {
-        ButtonContext buttonContext = this.dynamicButtons.get(id);
-        // The button context has already been checked to make sure it's not past it's expiration time (If
-        // applicable) so we only need to determine if it still has any uses left.
-
-        if (buttonContext.hasUses()) {
-            buttonContext.deductUse();
-            // Now check if it no longer has any uses
-            if (!buttonContext.hasUses())
-                this.removeDynamicButton(id, true);
-        }
-
-        return buttonContext;
-    }
-
-
     @Override
     public void onButtonClick(ButtonClickEvent event) {
+        long receivedAt = System.nanoTime();
         String id = event.getComponentId();
 
         HalpbotEvent halpbotEvent = new InteractionEvent(event);
         ButtonContext buttonContext;
 
         if (this.isDynamic(id)) {
-            if (this.dynamicButtons.containsKey(id)) {
-                buttonContext = this.retrieveDynamicButtonContext(id);
-            } else { // The button has expired
+            long key = DynamicIdGenerator.decode(id);
+            DynamicButton dynamicButton = this.dynamicButtons.get(key);
+            if (dynamicButton == null) {
+                dynamicButton = this.restoreDynamicButton(id, key);
+                // The buttons in the message may share parameters, so they need to be restored together
+                if (dynamicButton != null)
+                    this.restoreDynamicButtons(this.dynamicKeys(event.getMessage()));
+            }
+            if (dynamicButton != null && !event.getMessage().isEphemeral())
+                dynamicButton.sentIn(
+                    event.getChannel().getIdLong(), event.getMessageIdLong(), event.getMessage().getActionRows());
+
+            // If this is the button's last use, its removal function is queued for this message even if it's
+            // ephemeral, as it's applied through this click's hook once the button has been invoked
+            buttonContext = dynamicButton == null
+                ? null : this.dynamicButtons.use(key, dynamicButton, event.getMessageIdLong());
+            if (buttonContext == null) { // The button has expired or has no uses left
                 this.halpbotCore().displayConfiguration()
                     .displayTemporary(halpbotEvent, "This button has expired", -30);
                 this.handleRemovalFunctions(event);
                 return;
             }
-        } else if (this.registeredButtons.containsKey(id)) {
+        } else {
             buttonContext = this.registeredButtons.get(id);
-        } else return; // Not a halpbot button
+            if (buttonContext == null)
+                return; // Not a halpbot button
+        }
+
+        try {
+            ActionMetrics metrics = this.metrics(buttonContext);
+            metrics.record(Phase.RESOLUTION, System.nanoTime() - receivedAt);
+
+            ButtonInvocationContext invocationContext = this.invocationContextFactory
+                .button(halpbotEvent, buttonContext);
+            long invocationStart = System.nanoTime();
+            Exceptional<Object> result = buttonContext.invoke(invocationContext);
+            long displayStart = System.nanoTime();
+            metrics.record(invocationContext.timings(), displayStart - invocationStart);
+
+            if (result.present()) {
+                this.displayResult(halpbotEvent, buttonContext, result.get());
+            } else if (result.caught()) {
+                metrics.recordFailure();
+                event.deferEdit(); // Prevent interaction failed event
+                this.handleException(halpbotEvent, result.error());
+            }
+            metrics.record(Phase.DISPLAY, System.nanoTime() - displayStart);
+        } finally {
+            // The button has been used even if invoking it failed. Only its remaining uses change when it's clicked,
+            // and if it has no uses left then it's been removed
+            int remainingUses = buttonContext.remainingUses();
+            if (this.isDynamic(id) && remainingUses != ButtonContext.UNLIMITED_USES && remainingUses != 0)
+                this.buttonStateStore.updateUses(id, remainingUses);
+            // If this was the button's last use, its removal function has been queued for this message
+            this.handleRemovalFunctions(event);
+        }
+    }
 
-        ButtonInvocationContext invocationContext = this.invocationContextFactory.button(halpbotEvent, buttonContext);
-        Exceptional<Object> result = buttonContext.invoke(invocationContext);
+    /**
+     * Saves the state of the dynamic buttons which are still registered. They're saved together, as buttons sent in
+     * the same message are often registered with the same parameters.
+     */
+    private void saveDynamicButtons(long[] keys) {
+        List<ButtonState> states = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            DynamicButton dynamicButton = this.dynamicButtons.get(key);
+            if (dynamicButton != null && dynamicButton.buttonContext().hasUses())
+                states.add(dynamicButton.state());
+        }
+        if (!states.isEmpty())
+            this.buttonStateStore.save(states);
+    }
+
+    private void restoreDynamicButtons(long[] keys) {
+        for (long key : keys) {
+            if (!this.dynamicButtons.contains(key))
+                this.restoreDynamicButton(DynamicIdGenerator.encode(key), key);
+        }
+    }
 
-        if (result.present()) {
-            this.displayResult(halpbotEvent, buttonContext, result.get());
-        } else if (result.caught()) {
-            event.deferEdit(); // Prevent interaction failed event
-            this.handleException(halpbotEvent, result.error());
+    /**
+     * Restores a dynamic button that was registered before the bot started from its saved {@link ButtonState}.
+     *
+     * @return The restored {@link DynamicButton}, or null if there was no saved state for it
+     */
+    @Nullable
+    private DynamicButton restoreDynamicButton(String id, long key) {
+        Exceptional<ButtonState> state = this.buttonStateStore.load(id);
+        if (state.absent())
+            return null;
+
+        ButtonState buttonState = state.get();
+        if (buttonState.remainingUses() == 0) {
+            // The state was saved by a click that finished after the last use of the button was claimed
+            this.buttonStateStore.remove(id);
+            return null;
         }
 
-        this.handleRemovalFunctions(event);
+        ButtonContext buttonAction = this.registeredButtons.get(buttonState.actionId());
+        if (buttonAction == null)
+            return null;
+
+        ButtonContext buttonContext = this.buttonContextFactory.create(
+            id,
+            buttonAction.isEphemeral(),
+            buttonAction.displayDuration(),
+            buttonAction.actionInvokable(),
+            buttonState.parameters(),
+            buttonAction.nonCommandParameterTokens(),
+            buttonState.remainingUses(),
+            buttonAction.removeAfter(),
+            buttonAction.afterRemoval());
+
+        TimingWheel.Timeout expiration = null;
+        if (buttonState.hasExpiry()) {
+            long remainingMillis = Math.max(0, buttonState.expiresAt() - System.currentTimeMillis());
+            expiration = this.buttonExpirations.schedule(key, remainingMillis, TimeUnit.MILLISECONDS);
+        }
+
+        DynamicButton dynamicButton = new DynamicButton(
+            buttonState.actionId(), buttonContext, expiration, buttonState.expiresAt());
+        // Another click may have restored the button at the same time
+        DynamicButton existing = this.dynamicButtons.registerIfAbsent(key, dynamicButton);
+        if (existing == null)
+            return dynamicButton;
+
+        if (expiration != null)
+            expiration.cancel();
+        return existing;
     }
 
-    private boolean removalFunctionsApplies(ButtonClickEvent event) {
-        return event.getMessage().getButtons().stream()
-            .anyMatch(button -> {
-                final String id = button.getId();
-                return id != null && this.afterRemovalFunctions.containsKey(id);
-            });
+    /**
+     * Retrieves the metrics for the button. Dynamic buttons are recorded against the id of their button action, so
+     * that each registered dynamic button doesn't create its own metrics.
+     */
+    private ActionMetrics metrics(ButtonContext buttonContext) {
+        String name = buttonContext.executable().annotation(ButtonAction.class)
+            .map(ButtonAction::id)
+            .or(buttonContext.id());
+        return this.metricsRegistry.metrics(ActionType.BUTTON, name);
+    }
+
+    @Override
+    public void trackDynamicButtons(Message message) {
+        // Only this bot sends its dynamic buttons
+        if (message.getAuthor().getIdLong() != message.getJDA().getSelfUser().getIdLong() || message.isEphemeral())
+            return;
+
+        List<ActionRow> rows = message.getActionRows();
+        long[] keys = this.dynamicKeys(message);
+        boolean hasNewButtons = false;
+        for (long key : keys) {
+            DynamicButton dynamicButton = this.dynamicButtons.get(key);
+            if (dynamicButton != null) {
+                hasNewButtons |= dynamicButton.messageId() != message.getIdLong();
+                dynamicButton.sentIn(message.getChannel().getIdLong(), message.getIdLong(), rows);
+            }
+        }
+        // Removal functions waiting to be applied to the message should be applied to its latest rows
+        this.dynamicButtons.updateRows(message.getIdLong(), rows);
+        // The buttons were saved individually when they were registered, so they're saved again as a group the first
+        // time it's known which buttons were sent together
+        if (keys.length > 1 && hasNewButtons)
+            this.saveDynamicButtons(keys);
+    }
+
+    /**
+     * @return The keys of the dynamic buttons in the message
+     */
+    private long[] dynamicKeys(Message message) {
+        return message.getActionRows().stream()
+            .flatMap(row -> row.getComponents().stream())
+            .map(Component::getId)
+            .filter(id -> id != null && this.isDynamic(id))
+            .mapToLong(DynamicIdGenerator::decode)
+            .toArray();
+    }
+
+    /**
+     * Schedules the removal functions queued for the message to be applied. The removal functions of all the buttons
+     * removed from a message within {@link #REMOVAL_EDIT_DELAY} milliseconds of the first one are applied in a single
+     * edit. The edit is made when the delay elapses, or sooner if one of the message's buttons is clicked.
+     * <p>
+     * The removal functions are applied to the rows the message had when it was last seen, so that it doesn't need to
+     * be retrieved first. As the rows are updated whenever the message is edited, this doesn't overwrite edits made
+     * since the buttons were sent.
+     */
+    private void scheduleRemovalFunctions(long messageId, PendingRemoval pendingRemoval) {
+        this.halpbotCore.threadpool().schedule(
+            () -> this.applyRemovalFunctions(messageId, pendingRemoval),
+            REMOVAL_EDIT_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    private void applyRemovalFunctions(long messageId, PendingRemoval pendingRemoval) {
+        Map<String, AfterRemovalFunction> removalFunctions = this.dynamicButtons
+            .claimRemovalFunctions(messageId, pendingRemoval);
+        if (removalFunctions == null)
+            return; // They've already been applied by a click on the message
+
+        MessageChannel channel = this.channel(pendingRemoval.channelId());
+        List<ActionRow> rows = pendingRemoval.rows();
+        if (channel == null || rows == null)
+            return;
+
+        channel.editMessageComponentsById(messageId, this.applyRemovalFunctions(rows, removalFunctions))
+            .queue(null, new ErrorHandler().ignore(ErrorResponse.UNKNOWN_MESSAGE, ErrorResponse.UNKNOWN_CHANNEL));
     }
 
     private void handleRemovalFunctions(ButtonClickEvent event) {
-        if (!this.afterRemovalFunctions.isEmpty() && this.removalFunctionsApplies(event)) {
-            final List<ActionRow> rows = new ArrayList<>();
-
-            for (ActionRow row : event.getMessage().getActionRows()) {
-                List<Component> components = new ArrayList<>();
-                for (Component component : row.getComponents()) {
-                    final String componentId = component.getId();
-                    final AfterRemovalFunction afterRemoval = this.afterRemovalFunctions.remove(componentId);
-
-                    if (null != afterRemoval) {
-                        Component modifiedComponent = afterRemoval.apply(component);
-                        components.add(modifiedComponent);
-                        continue;
-                    }
-                    components.add(component);
+        Map<String, AfterRemovalFunction> removalFunctions = this.dynamicButtons
+            .claimRemovalFunctions(event.getMessageIdLong());
+        if (removalFunctions != null) {
+            List<ActionRow> rows = this.applyRemovalFunctions(event.getMessage().getActionRows(), removalFunctions);
+            // The interaction won't have been acknowledged if invoking the button failed
+            if (event.isAcknowledged())
+                event.getHook().editMessageComponentsById(event.getMessageIdLong(), rows).queue();
+            else event.editComponents(rows).queue();
+        }
+    }
+
+    private List<ActionRow> applyRemovalFunctions(List<ActionRow> actionRows,
+                                                  Map<String, AfterRemovalFunction> removalFunctions) {
+        final List<ActionRow> rows = new ArrayList<>();
+
+        for (ActionRow row : actionRows) {
+            List<Component> components = new ArrayList<>();
+            for (Component component : row.getComponents()) {
+                final String componentId = component.getId();
+                final AfterRemovalFunction afterRemoval = removalFunctions.get(componentId);
+
+                if (null != afterRemoval) {
+                    Component modifiedComponent = afterRemoval.apply(component);
+                    components.add(modifiedComponent);
+                    continue;
                 }
-                rows.add(ActionRow.of(components));
+                components.add(component);
             }
-            event.getHook().editMessageComponentsById(event.getMessageIdLong(), rows).queue();
+            rows.add(ActionRow.of(components));
         }
+        return rows;
+    }
+
+    @Nullable
+    private MessageChannel channel(long channelId) {
+        JDA jda = this.halpbotCore.jda();
+        MessageChannel channel = jda.getTextChannelById(channelId);
+        return channel != null ? channel : jda.getPrivateChannelById(channelId);
     }
 }
@@ -30,8 +30,8 @@ import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import nz.pumbas.halpbot.actions.invokable.ActionInvokable;
 import nz.pumbas.halpbot.converters.tokens.ParsingToken;
@@ -40,7 +40,6 @@ import nz.pumbas.halpbot.objects.AsyncDuration;
 
 @Getter
 @ComponentBinding(ButtonContext.class)
-@AllArgsConstructor(onConstructor_ = @Bound)
 public class HalpbotButtonContext implements ButtonContext
 {
     private final String id;
@@ -49,13 +48,48 @@ public class HalpbotButtonContext implements ButtonContext
     private final ActionInvokable<ButtonInvocationContext> actionInvokable;
     private final Object[] passedParameters;
     private final List<ParsingToken> nonCommandParameterTokens;
-    private int remainingUses;
+    private final AtomicInteger remainingUses;
     private final AsyncDuration removeAfter;
     @Nullable
     private final AfterRemovalFunction afterRemoval;
 
+    @Bound
+    public HalpbotButtonContext(String id,
+                                boolean isEphemeral,
+                                Duration displayDuration,
+                                ActionInvokable<ButtonInvocationContext> actionInvokable,
+                                Object[] passedParameters,
+                                List<ParsingToken> nonCommandParameterTokens,
+                                int remainingUses,
+                                AsyncDuration removeAfter,
+                                @Nullable AfterRemovalFunction afterRemoval) {
+        this.id = id;
+        this.isEphemeral = isEphemeral;
+        this.displayDuration = displayDuration;
+        this.actionInvokable = actionInvokable;
+        this.passedParameters = passedParameters;
+        this.nonCommandParameterTokens = nonCommandParameterTokens;
+        // A max uses of 0 or less means that the button can be used any number of times
+        this.remainingUses = new AtomicInteger(remainingUses <= 0 ? UNLIMITED_USES : remainingUses);
+        this.removeAfter = removeAfter;
+        this.afterRemoval = afterRemoval;
+    }
+
+    @Override
+    public int remainingUses() {
+        return this.remainingUses.get();
+    }
+
     @Override
-    public void deductUse() {
-        this.remainingUses--;
+    public UseResult use() {
+        while (true) {
+            int remaining = this.remainingUses.get();
+            if (remaining == UNLIMITED_USES)
+                return UseResult.UNLIMITED;
+            if (remaining == 0)
+                return UseResult.EXHAUSTED;
+            if (this.remainingUses.compareAndSet(remaining, remaining - 1))
+                return remaining == 1 ? UseResult.LAST_USE : UseResult.USED;
+        }
     }
 }
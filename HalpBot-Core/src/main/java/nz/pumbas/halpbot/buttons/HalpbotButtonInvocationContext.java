@@ -37,6 +37,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import nz.pumbas.halpbot.actions.metrics.InvocationTimings;
 import nz.pumbas.halpbot.converters.tokens.ParsingToken;
 import nz.pumbas.halpbot.events.HalpbotEvent;
 
@@ -54,4 +55,5 @@ public class HalpbotButtonInvocationContext implements ButtonInvocationContext
     private final HalpbotEvent halpbotEvent;
     private final List<ParsingToken> nonCommandParameterTokens;
     private final Object[] passedParameters;
+    private final InvocationTimings timings = new InvocationTimings();
 }
@@ -29,11 +29,16 @@ import org.dockbox.hartshorn.core.annotations.inject.Bound;
 import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
 import org.jetbrains.annotations.Nullable;
 
+import nz.pumbas.halpbot.actions.methods.MethodHandleInvoker;
+
 @ComponentBinding(ButtonInvokable.class)
 public record HalpbotButtonInvokable(@Nullable Object instance,
-                                     ExecutableElementContext<?, ?> executable)
+                                     ExecutableElementContext<?, ?> executable,
+                                     @Nullable MethodHandleInvoker invoker)
     implements ButtonInvokable
 {
     @Bound
-    public HalpbotButtonInvokable {}
+    public HalpbotButtonInvokable(@Nullable Object instance, ExecutableElementContext<?, ?> executable) {
+        this(instance, executable, MethodHandleInvoker.of(executable));
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons;
+
+/**
+ * The result of trying to use a {@link ButtonContext}.
+ */
+public enum UseResult
+{
+    /**
+     * The button doesn't have a limited number of uses.
+     */
+    UNLIMITED,
+
+    /**
+     * One of the remaining uses was claimed and the button still has more uses left.
+     */
+    USED,
+
+    /**
+     * The last remaining use was claimed, so the button should be removed. Only a single use will ever return this.
+     */
+    LAST_USE,
+
+    /**
+     * The button has no uses left and shouldn't be invoked.
+     */
+    EXHAUSTED;
+
+    /**
+     * @return If the button can be invoked
+     */
+    public boolean isAccepted() {
+        return this != EXHAUSTED;
+    }
+}
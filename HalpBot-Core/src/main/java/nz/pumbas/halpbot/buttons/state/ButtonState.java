@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons.state;
+
+/**
+ * The state of a dynamic button which is needed to restore it.
+ *
+ * @param id
+ *     The dynamic id of the button
+ * @param actionId
+ *     The id of the {@link nz.pumbas.halpbot.buttons.ButtonAction} the button invokes
+ * @param parameters
+ *     The parameters that were passed when the button was registered
+ * @param remainingUses
+ *     The number of uses the button has left, or a negative number if its uses aren't limited
+ * @param expiresAt
+ *     The time the button expires, in epoch milliseconds, or -1 if it doesn't expire
+ */
+public record ButtonState(String id, String actionId, Object[] parameters, int remainingUses, long expiresAt)
+{
+    public static final long NEVER_EXPIRES = -1;
+
+    public boolean hasExpiry() {
+        return this.expiresAt != NEVER_EXPIRES;
+    }
+
+    public boolean isExpired(long currentTimeMillis) {
+        return this.hasExpiry() && this.expiresAt <= currentTimeMillis;
+    }
+}
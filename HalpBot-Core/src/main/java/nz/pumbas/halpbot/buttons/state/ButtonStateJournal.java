@@ -0,0 +1,408 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An append-only journal of button states, which is memory-mapped so that appending a record is just a copy into the
+ * page cache. Every saved state and removal is appended as a record, with later records superseding earlier ones for
+ * the same id, and the journal is then compacted by rewriting only the live states.
+ * <p>
+ * The serialized parameters are written in their own record, which is only written once for all the entries saved
+ * together with the same parameters, and changes to the remaining uses of a button are written without its
+ * parameters.
+ * <p>
+ * The journal starts with a header containing the end of the last complete record, which is only updated once a
+ * record has been fully written, so a partially written record is ignored when the journal is next read. This class
+ * is not thread-safe.
+ */
+public class ButtonStateJournal implements Closeable
+{
+    private static final int MAGIC = 0x48425354;
+    private static final int VERSION = 2;
+    private static final int END_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 5;
+    private static final long INITIAL_CAPACITY = 1 << 20;
+
+    private static final byte SAVE = 1;
+    private static final byte REMOVE = 2;
+    private static final byte PARAMETERS = 3;
+    private static final byte USES = 4;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long end;
+
+    public ButtonStateJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Opens the journal, creating it if it doesn't exist. If the file isn't a valid journal, it's overwritten.
+     *
+     * @throws IOException
+     *     If there was an error opening the journal
+     */
+    public void open() throws IOException {
+        this.channel = FileChannel.open(this.path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = this.channel.size();
+        this.map(Math.max(INITIAL_CAPACITY, size));
+
+        if (size >= HEADER_SIZE && this.buffer.getInt(0) == MAGIC && this.buffer.getInt(4) == VERSION)
+            this.end = this.buffer.getLong(END_OFFSET);
+        else {
+            this.buffer.putInt(0, MAGIC);
+            this.buffer.putInt(4, VERSION);
+            this.commit(HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Maps the journal with the specified capacity. A mapped buffer can't be larger than {@link Integer#MAX_VALUE}
+     * bytes, so an {@link IOException} is thrown if the journal needs to be any larger.
+     */
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE)
+            throw new IOException("The journal %s can't grow to %d bytes, as it can be at most %d bytes"
+                .formatted(this.path, capacity, Integer.MAX_VALUE));
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void commit(long end) {
+        this.end = end;
+        this.buffer.putLong(END_OFFSET, end);
+    }
+
+    /**
+     * @return The end of the last record in the journal, which is also its size in bytes
+     */
+    public long end() {
+        return this.end;
+    }
+
+    /**
+     * Appends the records saving the entry.
+     *
+     * @param entry
+     *     The {@link Entry} to save
+     *
+     * @throws IOException
+     *     If there was an error growing the journal
+     */
+    public void save(Entry entry) throws IOException {
+        this.save(List.of(entry));
+    }
+
+    /**
+     * Appends the records saving the entries. The parameters of entries which share the same parameters array are
+     * only written once, and the entries are read back with a shared array again.
+     *
+     * @param entries
+     *     The {@link Entry entries} to save
+     *
+     * @throws IOException
+     *     If there was an error growing the journal
+     */
+    public void save(Collection<Entry> entries) throws IOException {
+        // The parameters are keyed by the id of the first entry they're saved with
+        Map<byte[], String> parameterKeys = new IdentityHashMap<>();
+        for (Entry entry : entries) {
+            String parametersKey = parameterKeys.get(entry.parameters());
+            if (parametersKey == null) {
+                parametersKey = entry.id();
+                parameterKeys.put(entry.parameters(), parametersKey);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + entry.parameters().length);
+                DataOutputStream output = new DataOutputStream(bytes);
+                output.writeUTF(parametersKey);
+                output.writeInt(entry.parameters().length);
+                output.write(entry.parameters());
+                this.append(PARAMETERS, bytes.toByteArray());
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeUTF(entry.id());
+            output.writeUTF(entry.actionId());
+            output.writeInt(entry.remainingUses());
+            output.writeLong(entry.expiresAt());
+            output.writeUTF(parametersKey);
+            this.append(SAVE, bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Appends a record updating the remaining uses of the entry with the specified id. As the uses of a button only
+     * ever decrease, an update is ignored if it's read after one with fewer uses, so updates can be written out of
+     * order.
+     *
+     * @param id
+     *     The id of the entry to update
+     * @param remainingUses
+     *     The remaining uses of the entry
+     *
+     * @throws IOException
+     *     If there was an error growing the journal
+     */
+    public void updateUses(String id, int remainingUses) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(id);
+        output.writeInt(remainingUses);
+
+        this.append(USES, bytes.toByteArray());
+    }
+
+    /**
+     * Appends a record removing the entry with the specified id.
+     *
+     * @param id
+     *     The id of the entry to remove
+     *
+     * @throws IOException
+     *     If there was an error growing the journal
+     */
+    public void remove(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        new DataOutputStream(bytes).writeUTF(id);
+
+        this.append(REMOVE, bytes.toByteArray());
+    }
+
+    private void append(byte type, byte[] payload) throws IOException {
+        long recordEnd = this.end + RECORD_HEADER_SIZE + payload.length;
+        if (recordEnd > this.buffer.capacity())
+            this.map(Math.max(recordEnd, Math.min(Integer.MAX_VALUE, 2L * this.buffer.capacity())));
+
+        int position = (int) this.end;
+        this.buffer.putInt(position, payload.length);
+        this.buffer.put(position + 4, type);
+        this.buffer.put(position + RECORD_HEADER_SIZE, payload);
+        this.commit(recordEnd);
+    }
+
+    /**
+     * Reads the live entries from the start of the journal up to the specified position.
+     *
+     * @param upTo
+     *     The position to read up to, which must be the end of a record
+     *
+     * @return The live entries, mapped by their id
+     * @throws IOException
+     *     If a record is corrupted
+     */
+    public Map<String, Entry> read(long upTo) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        Map<String, byte[]> parameters = new HashMap<>();
+        this.scan(HEADER_SIZE, upTo, (type, id, input) -> {
+            switch (type) {
+                case REMOVE -> entries.remove(id);
+                case PARAMETERS -> {
+                    byte[] bytes = new byte[checkLength(input.readInt(), input.available())];
+                    input.readFully(bytes);
+                    parameters.put(id, bytes);
+                }
+                case SAVE -> {
+                    String actionId = input.readUTF();
+                    int remainingUses = input.readInt();
+                    long expiresAt = input.readLong();
+                    String parametersKey = input.readUTF();
+                    byte[] bytes = parameters.get(parametersKey);
+                    if (bytes == null)
+                        throw new IOException("The parameters %s of the entry %s are missing"
+                            .formatted(parametersKey, id));
+                    entries.put(id, new Entry(id, actionId, remainingUses, expiresAt, bytes));
+                }
+                case USES -> {
+                    int remainingUses = input.readInt();
+                    Entry entry = entries.get(id);
+                    if (entry != null && remainingUses < entry.remainingUses())
+                        entries.put(id, new Entry(
+                            id, entry.actionId(), remainingUses, entry.expiresAt(), entry.parameters()));
+                }
+                default -> throw new IOException("The record type %d of the entry %s is unknown".formatted(type, id));
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Finds the ids of the entries which have been saved or removed since the specified position.
+     *
+     * @param from
+     *     The position to start reading from, which must be the end of a record
+     *
+     * @return The ids of the entries
+     * @throws IOException
+     *     If a record is corrupted
+     */
+    public Set<String> ids(long from) throws IOException {
+        Set<String> ids = new HashSet<>();
+        this.scan(Math.max(HEADER_SIZE, from), this.end, (type, id, input) -> {
+            // The parameters are keyed by an id, but they're only part of an entry once it's saved
+            if (type != PARAMETERS)
+                ids.add(id);
+        });
+        return ids;
+    }
+
+    private void scan(long from, long upTo, RecordConsumer consumer) throws IOException {
+        int position = (int) from;
+        while (position < upTo) {
+            if (upTo - position < RECORD_HEADER_SIZE)
+                throw new IOException("The record at %d is truncated".formatted(position));
+            int length = checkLength(this.buffer.getInt(position), upTo - position - RECORD_HEADER_SIZE);
+            byte type = this.buffer.get(position + 4);
+            byte[] payload = new byte[length];
+            this.buffer.get(position + RECORD_HEADER_SIZE, payload);
+            position += RECORD_HEADER_SIZE + length;
+
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+            consumer.accept(type, input.readUTF(), input);
+        }
+    }
+
+    /**
+     * Checks that a length read from the journal fits in the bytes remaining, so that a corrupted length can't cause
+     * an oversized allocation.
+     *
+     * @return The length
+     * @throws IOException
+     *     If the length is negative or larger than the bytes remaining
+     */
+    private static int checkLength(int length, long remaining) throws IOException {
+        if (length < 0 || length > remaining)
+            throw new IOException("The record length %d is invalid, as there are only %d bytes remaining"
+                .formatted(length, remaining));
+        return length;
+    }
+
+    /**
+     * Compacts the journal by atomically replacing it with one which only contains the specified entries.
+     *
+     * @param entries
+     *     The live entries to keep
+     *
+     * @throws IOException
+     *     If there was an error writing the compacted journal
+     */
+    public void compact(Collection<Entry> entries) throws IOException {
+        Path compactedPath = this.path.resolveSibling(this.path.getFileName() + ".compact");
+        Files.deleteIfExists(compactedPath);
+
+        try (ButtonStateJournal compacted = new ButtonStateJournal(compactedPath)) {
+            compacted.open();
+            compacted.save(entries);
+            compacted.force();
+        }
+
+        // The journal has to be unmapped before it's replaced, as a mapped file can't be replaced on Windows
+        this.close();
+        try {
+            Files.move(compactedPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // If the journal couldn't be replaced, then the uncompacted journal is reopened so it can still be used
+            this.open();
+        }
+    }
+
+    /**
+     * Forces any changes to be written to the disk.
+     */
+    public void force() {
+        this.buffer.force();
+    }
+
+    /**
+     * Forces any changes to be written to the disk and then unmaps and closes the journal. The journal must not be
+     * used again unless it's reopened.
+     *
+     * @throws IOException
+     *     If there was an error closing the journal
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.buffer != null) {
+            this.buffer.force();
+            unmap(this.buffer);
+            this.buffer = null;
+        }
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Unmaps the buffer immediately, rather than when it's garbage collected. There is no public API to do this, so if
+     * the internal one isn't available then the buffer is left to be unmapped when it's garbage collected.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafe = unsafeClass.getDeclaredField("theUnsafe");
+            unsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // The buffer will be unmapped once it's garbage collected instead
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer
+    {
+        void accept(byte type, String id, DataInputStream input) throws IOException;
+    }
+
+    /**
+     * A button state in the journal, with its parameters already serialized.
+     */
+    public record Entry(String id, String actionId, int remainingUses, long expiresAt, byte[] parameters) {}
+}
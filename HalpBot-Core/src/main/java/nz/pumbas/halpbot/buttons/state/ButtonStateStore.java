@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons.state;
+
+import org.dockbox.hartshorn.core.context.ContextCarrier;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.util.List;
+
+/**
+ * Persists the state of dynamic buttons, so that they can be restored after the bot restarts. Saving and removing
+ * state should not block, as they're called while handling button clicks.
+ */
+public interface ButtonStateStore extends ContextCarrier
+{
+    /**
+     * Saves the state of the button, replacing any state previously saved for it. The parameters are only persisted
+     * if they're all {@link java.io.Serializable}.
+     *
+     * @param state
+     *     The {@link ButtonState} to save
+     */
+    void save(ButtonState state);
+
+    /**
+     * Saves the states of buttons that were sent in the same message, replacing any state previously saved for them.
+     * As the buttons may have been registered with the same parameters, their parameters are saved as a single
+     * object graph, so that any objects they shared are still shared once they're restored. The parameters are only
+     * persisted if they're all {@link java.io.Serializable}.
+     *
+     * @param states
+     *     The {@link ButtonState states} to save
+     */
+    void save(List<ButtonState> states);
+
+    /**
+     * Updates the remaining uses of the button, without saving its parameters again. This is ignored if the state of
+     * the button hasn't been saved.
+     *
+     * @param id
+     *     The dynamic id of the button
+     * @param remainingUses
+     *     The remaining uses of the button
+     */
+    void updateUses(String id, int remainingUses);
+
+    /**
+     * Removes the saved state of the button, if there is any.
+     *
+     * @param id
+     *     The dynamic id of the button
+     */
+    void remove(String id);
+
+    /**
+     * Loads the state of a button that was saved before the bot started. Once it's been loaded, the state will not be
+     * returned again. If the button was saved with others that it may share parameters with, then their states are
+     * restored at the same time and will be returned when they're loaded.
+     *
+     * @param id
+     *     The dynamic id of the button
+     *
+     * @return The {@link ButtonState}, or {@link Exceptional#empty()} if there was none or it has expired
+     */
+    Exceptional<ButtonState> load(String id);
+
+    /**
+     * Waits for any pending changes to be persisted and then releases the resources used by the store. The state of
+     * buttons will no longer be saved once this has been called.
+     */
+    void shutdown();
+}
@@ -0,0 +1,468 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.buttons.state;
+
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
+
+/**
+ * A {@link ButtonStateStore} backed by a {@link ButtonStateJournal}. The parameters are serialized by the caller, so
+ * that they're a snapshot of the state when it was saved, while all the writes to the journal are done on a single
+ * background thread so that they never add to the latency of a click. The journal written before the bot started is
+ * only replayed when the first button that isn't in memory is clicked, and is periodically compacted once it has grown
+ * to twice its size after the last compaction.
+ * <p>
+ * The journal is only used if {@link BotConfiguration#buttonStateJournal()} is set. As it's read back with Java
+ * serialization, only the parameter classes allowed by {@link #DEFAULT_ALLOWED_CLASSES} and
+ * {@link BotConfiguration#buttonStateClasses()} can be restored.
+ */
+@Singleton
+@ComponentBinding(ButtonStateStore.class)
+public class JournalButtonStateStore implements ButtonStateStore
+{
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+    private static final long COMPACTION_INTERVAL_MINUTES = 10;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    // The ObjectInputFilter patterns of the classes that can always be restored. Any other class is rejected
+    private static final String DEFAULT_ALLOWED_CLASSES
+        = "java.lang.*;java.util.*;java.time.*;java.math.*;nz.pumbas.halpbot.**;maxdepth=64;maxrefs=100000";
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "halpbot-button-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Getter
+    @Inject
+    private ApplicationContext applicationContext;
+
+    @Nullable
+    private volatile ObjectInputFilter inputFilter;
+    // The journal and its sizes are only accessed by the writer thread
+    @Nullable
+    private ButtonStateJournal journal;
+    private boolean isDisabled;
+    private long startupEnd;
+    private long compactedSize;
+
+    @Nullable
+    private volatile CompletableFuture<Map<String, ButtonStateJournal.Entry>> restoredEntries;
+    // The states that were restored along with another button they shared parameters with, mapped by their id
+    private final Map<String, ButtonState> sharedStates = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(ButtonState state) {
+        this.save(List.of(state));
+    }
+
+    @Override
+    public void save(List<ButtonState> states) {
+        for (ButtonState state : states) {
+            for (Object parameter : state.parameters()) {
+                if (parameter != null && !(parameter instanceof Serializable))
+                    return;
+            }
+        }
+
+        // The parameters are serialized before returning, as the action may modify them as soon as it's next invoked
+        byte[] parameters;
+        try {
+            parameters = this.serialize(states);
+        } catch (IOException | RuntimeException e) {
+            this.applicationContext.log().warn("There was an error serializing the state of the buttons %s"
+                .formatted(this.ids(states)), e);
+            return;
+        }
+
+        this.write(() -> {
+            ButtonStateJournal journal = this.journal();
+            if (journal == null)
+                return;
+
+            try {
+                // Each button in the group is saved with the parameters of the whole group, so that it can still be
+                // restored if the others are removed. As they share the same array, it's only written once
+                journal.save(states.stream()
+                    .map(state -> new ButtonStateJournal.Entry(
+                        state.id(), state.actionId(), state.remainingUses(), state.expiresAt(), parameters))
+                    .toList());
+            } catch (IOException | RuntimeException e) {
+                this.applicationContext.log().warn("There was an error saving the state of the buttons %s"
+                    .formatted(this.ids(states)), e);
+            }
+        });
+    }
+
+    private List<String> ids(List<ButtonState> states) {
+        return states.stream().map(ButtonState::id).toList();
+    }
+
+    @Override
+    public void updateUses(String id, int remainingUses) {
+        this.write(() -> {
+            ButtonStateJournal journal = this.journal();
+            if (journal == null)
+                return;
+
+            try {
+                journal.updateUses(id, remainingUses);
+            } catch (IOException | RuntimeException e) {
+                this.applicationContext.log().warn("There was an error updating the uses of the button %s"
+                    .formatted(id), e);
+            }
+        });
+    }
+
+    @Override
+    public void remove(String id) {
+        this.removeRestoredEntry(id);
+        this.write(() -> {
+            // If the journal was being replayed when this was called, it will have finished by now
+            this.removeRestoredEntry(id);
+            ButtonStateJournal journal = this.journal();
+            if (journal == null)
+                return;
+
+            try {
+                journal.remove(id);
+            } catch (IOException | RuntimeException e) {
+                this.applicationContext.log().warn("There was an error removing the state of the button %s"
+                    .formatted(id), e);
+            }
+        });
+    }
+
+    /**
+     * Queues the write to be made on the writer thread. Once the store has been shutdown, any writes are discarded.
+     */
+    private void write(Runnable write) {
+        try {
+            this.writer.execute(write);
+        } catch (RejectedExecutionException ignored) {
+            // The store has been shutdown
+        }
+    }
+
+    private void removeRestoredEntry(String id) {
+        this.sharedStates.remove(id);
+        CompletableFuture<Map<String, ButtonStateJournal.Entry>> restoredEntries = this.restoredEntries;
+        if (restoredEntries != null && restoredEntries.isDone())
+            restoredEntries.join().remove(id);
+    }
+
+    @Override
+    public Exceptional<ButtonState> load(String id) {
+        Map<String, ButtonStateJournal.Entry> restoredEntries = this.restoredEntries();
+        long currentTime = System.currentTimeMillis();
+
+        // Buttons which share their parameters are restored together, so they can't be loaded at the same time
+        synchronized (this.sharedStates) {
+            ButtonState sharedState = this.sharedStates.remove(id);
+            if (sharedState != null)
+                return sharedState.isExpired(currentTime) ? Exceptional.empty() : Exceptional.of(sharedState);
+
+            ButtonStateJournal.Entry entry = restoredEntries.remove(id);
+            if (entry == null || this.isExpired(entry, currentTime))
+                return Exceptional.empty();
+
+            return Exceptional.of(() -> this.restore(entry, restoredEntries, currentTime))
+                .caught(e -> this.applicationContext.log()
+                    .warn("There was an error restoring the state of the button %s".formatted(id), e));
+        }
+    }
+
+    /**
+     * Deserializes the parameters of the entry. If they were saved along with the parameters of other buttons, then
+     * the states of the other buttons are restored from the same object graph and held until they're loaded.
+     */
+    private ButtonState restore(ButtonStateJournal.Entry entry,
+                                Map<String, ButtonStateJournal.Entry> restoredEntries,
+                                long currentTime) throws IOException, ClassNotFoundException {
+        Object parameters = this.deserialize(entry.parameters());
+        if (!(parameters instanceof SharedParameters sharedParameters))
+            return this.state(entry, (Object[]) parameters);
+
+        ButtonState state = null;
+        for (int index = 0; index < sharedParameters.ids().length; index++) {
+            String id = sharedParameters.ids()[index];
+            if (id.equals(entry.id())) {
+                state = this.state(entry, sharedParameters.parameters()[index]);
+                continue;
+            }
+
+            // The button may have been saved again or removed after it was saved with this group. Entries saved
+            // together are read back with the same parameters array
+            ButtonStateJournal.Entry sharedEntry = restoredEntries.get(id);
+            if (sharedEntry == null || sharedEntry.parameters() != entry.parameters())
+                continue;
+
+            restoredEntries.remove(id);
+            if (!this.isExpired(sharedEntry, currentTime))
+                this.sharedStates.put(id, this.state(sharedEntry, sharedParameters.parameters()[index]));
+        }
+
+        if (state == null)
+            throw new IOException("The shared parameters of the button %s don't contain it".formatted(entry.id()));
+        return state;
+    }
+
+    private ButtonState state(ButtonStateJournal.Entry entry, Object[] parameters) {
+        return new ButtonState(entry.id(), entry.actionId(), parameters, entry.remainingUses(), entry.expiresAt());
+    }
+
+    /**
+     * Retrieves the entries that were saved before the bot started, replaying the journal on the writer thread if it
+     * hasn't been yet. Only the first caller has to wait for the journal to be replayed.
+     */
+    private Map<String, ButtonStateJournal.Entry> restoredEntries() {
+        CompletableFuture<Map<String, ButtonStateJournal.Entry>> restoredEntries = this.restoredEntries;
+        if (restoredEntries == null) {
+            synchronized (this) {
+                if (this.restoredEntries == null)
+                    this.restoredEntries = CompletableFuture.supplyAsync(this::replay, this.writer);
+                restoredEntries = this.restoredEntries;
+            }
+        }
+        return restoredEntries.join();
+    }
+
+    private Map<String, ButtonStateJournal.Entry> replay() {
+        Map<String, ButtonStateJournal.Entry> entries = new ConcurrentHashMap<>();
+        ButtonStateJournal journal = this.journal();
+        if (journal == null)
+            return entries;
+
+        try {
+            long currentTime = System.currentTimeMillis();
+            // Buttons saved since the bot started are already in memory and any removed since shouldn't be restored
+            Set<String> changedIds = journal.ids(this.startupEnd);
+            journal.read(this.startupEnd).forEach((id, entry) -> {
+                if (!changedIds.contains(id) && !this.isExpired(entry, currentTime))
+                    entries.put(id, entry);
+            });
+            this.applicationContext.log().info("Replayed the state of %d buttons".formatted(entries.size()));
+        } catch (IOException | RuntimeException e) {
+            // The buttons can't be restored, but the loads waiting for the replay shouldn't fail because of it
+            entries.clear();
+            this.applicationContext.log().error("There was an error replaying the button state journal", e);
+        }
+        return entries;
+    }
+
+    /**
+     * Opens the journal the first time it's used.
+     *
+     * @return The {@link ButtonStateJournal}, or null if the journal is disabled or couldn't be opened
+     */
+    @Nullable
+    private ButtonStateJournal journal() {
+        if (this.journal != null || this.isDisabled)
+            return this.journal;
+
+        String journalPath = this.applicationContext.get(BotConfiguration.class).buttonStateJournal();
+        if (journalPath.isBlank()) {
+            this.isDisabled = true;
+            return null;
+        }
+
+        ButtonStateJournal journal = new ButtonStateJournal(Path.of(journalPath));
+        try {
+            journal.open();
+        } catch (IOException | RuntimeException e) {
+            this.applicationContext.log()
+                .error("There was an error opening the button state journal %s, button state will not be saved"
+                    .formatted(journalPath), e);
+            this.isDisabled = true;
+            return null;
+        }
+
+        this.journal = journal;
+        this.startupEnd = journal.end();
+        this.compactedSize = journal.end();
+        try {
+            this.writer.scheduleWithFixedDelay(this::compact,
+                COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        } catch (RejectedExecutionException ignored) {
+            // The store is being shutdown, so the journal will be closed before it needs compacting
+        }
+        return journal;
+    }
+
+    private void compact() {
+        ButtonStateJournal journal = this.journal;
+        if (journal == null || journal.end() < Math.max(MIN_COMPACTION_SIZE, 2 * this.compactedSize))
+            return;
+
+        // The entries from before the bot started need to be replayed before their positions are lost
+        if (this.restoredEntries == null) {
+            synchronized (this) {
+                if (this.restoredEntries == null)
+                    this.restoredEntries = CompletableFuture.completedFuture(this.replay());
+            }
+        }
+
+        try {
+            long currentTime = System.currentTimeMillis();
+            Map<String, ButtonStateJournal.Entry> entries = journal.read(journal.end());
+            entries.values().removeIf(entry -> this.isExpired(entry, currentTime));
+
+            long previousSize = journal.end();
+            journal.compact(entries.values());
+            this.compactedSize = journal.end();
+            this.applicationContext.log().debug("Compacted the button state journal from %d to %d bytes"
+                .formatted(previousSize, this.compactedSize));
+        } catch (IOException | RuntimeException e) {
+            // This is caught so that the scheduled compaction isn't cancelled
+            this.applicationContext.log().error("There was an error compacting the button state journal", e);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (this.writer.isShutdown())
+            return;
+
+        this.write(() -> {
+            ButtonStateJournal journal = this.journal;
+            // Prevent any writes that were queued after this from reopening the journal
+            this.journal = null;
+            this.isDisabled = true;
+            if (journal == null)
+                return;
+
+            try {
+                journal.close();
+            } catch (IOException | RuntimeException e) {
+                this.applicationContext.log().error("There was an error closing the button state journal", e);
+            }
+        });
+        this.writer.shutdown();
+        try {
+            if (!this.writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                this.applicationContext.log().warn("The button state journal was not closed before shutting down");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isExpired(ButtonStateJournal.Entry entry, long currentTime) {
+        return entry.expiresAt() != ButtonState.NEVER_EXPIRES && entry.expiresAt() <= currentTime;
+    }
+
+    /**
+     * Serializes the parameters of the buttons. If there are several buttons, their parameters are written as a
+     * single {@link SharedParameters}, so that the objects they share are only written once.
+     */
+    private byte[] serialize(List<ButtonState> states) throws IOException {
+        Object parameters;
+        if (states.size() == 1)
+            parameters = states.get(0).parameters();
+        else {
+            String[] ids = new String[states.size()];
+            Object[][] sharedParameters = new Object[states.size()][];
+            for (int index = 0; index < states.size(); index++) {
+                ids[index] = states.get(index).id();
+                sharedParameters[index] = states.get(index).parameters();
+            }
+            parameters = new SharedParameters(ids, sharedParameters);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(parameters);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Object deserialize(byte[] parameters) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(parameters))) {
+            input.setObjectInputFilter(this.inputFilter());
+            return input.readObject();
+        }
+    }
+
+    /**
+     * @return The filter which only allows the configured classes to be deserialized
+     */
+    private ObjectInputFilter inputFilter() {
+        ObjectInputFilter inputFilter = this.inputFilter;
+        if (inputFilter == null) {
+            String allowedClasses = this.applicationContext.get(BotConfiguration.class).buttonStateClasses();
+            inputFilter = createInputFilter(allowedClasses);
+            this.inputFilter = inputFilter;
+        }
+        return inputFilter;
+    }
+
+    /**
+     * Creates a filter which allows the {@link #DEFAULT_ALLOWED_CLASSES}, the additional patterns and arrays of the
+     * allowed classes, and rejects every other class.
+     *
+     * @param allowedClasses
+     *     Additional {@link ObjectInputFilter.Config#createFilter(String) patterns}, separated by semicolons
+     *
+     * @return The {@link ObjectInputFilter}
+     */
+    static ObjectInputFilter createInputFilter(String allowedClasses) {
+        // The shared parameters are a nested class of this store, so they're allowed by the default patterns
+        String patterns = allowedClasses.isBlank()
+            ? DEFAULT_ALLOWED_CLASSES
+            : DEFAULT_ALLOWED_CLASSES + ";" + allowedClasses;
+        return ObjectInputFilter.Config.createFilter(patterns + ";!*");
+    }
+
+    /**
+     * The parameters of buttons that were saved together, where the parameters at each index belong to the button
+     * with the id at the same index.
+     */
+    private record SharedParameters(String[] ids, Object[][] parameters) implements Serializable {}
+}
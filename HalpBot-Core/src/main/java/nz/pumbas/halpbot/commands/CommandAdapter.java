@@ -25,6 +25,8 @@
 package nz.pumbas.halpbot.commands;
 
 import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
@@ -61,10 +63,25 @@ public interface CommandAdapter extends HalpbotAdapter
     default void onEvent(GenericEvent event) {
         if (event instanceof MessageReceivedEvent messageReceivedEvent)
             this.onMessageReceived(messageReceivedEvent);
+        else if (event instanceof SlashCommandEvent slashCommandEvent)
+            this.onSlashCommand(slashCommandEvent);
+        else if (event instanceof ReadyEvent readyEvent)
+            this.onReady(readyEvent);
     }
 
     void onMessageReceived(MessageReceivedEvent event);
 
+    void onSlashCommand(SlashCommandEvent event);
+
+    /**
+     * Called once the bot has connected to discord, so that the slash commands can be updated now that the guilds
+     * are available.
+     *
+     * @param event
+     *     The {@link ReadyEvent}
+     */
+    void onReady(ReadyEvent event);
+
     String defaultPrefix();
 
     void defaultPrefix(String defaultPrefix);
@@ -143,9 +160,19 @@ public interface CommandAdapter extends HalpbotAdapter
                                                         String methodName,
                                                         Set<TypeContext<?>> reflections);
 
+    /**
+     * @return The {@link ReflectiveCommandIndex} containing the registered reflective commands
+     */
+    ReflectiveCommandIndex reflectiveCommandIndex();
+
 
     Map<String, CommandContext> commands();
 
+    /**
+     * @return An unmodifiable map of the registered slash commands, mapped by their name
+     */
+    Map<String, CommandContext> slashCommands();
+
     Collection<CustomConstructorContext> customConstructors(TypeContext<?> typeContext);
 
     void registerCustomConstructors(TypeContext<?> typeContext);
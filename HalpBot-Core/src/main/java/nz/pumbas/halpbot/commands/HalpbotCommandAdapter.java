@@ -25,7 +25,14 @@
 package nz.pumbas.halpbot.commands;
 
 import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.requests.RestAction;
 
 import org.dockbox.hartshorn.core.ArrayListMultiMap;
 import org.dockbox.hartshorn.core.HartshornUtils;
@@ -35,17 +42,24 @@ import org.dockbox.hartshorn.core.context.ApplicationContext;
 import org.dockbox.hartshorn.core.context.element.AccessModifier;
 import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
 import org.dockbox.hartshorn.core.context.element.MethodContext;
+import org.dockbox.hartshorn.core.context.element.ParameterContext;
 import org.dockbox.hartshorn.core.context.element.TypeContext;
 import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.dockbox.hartshorn.core.exceptions.ApplicationException;
 import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,26 +71,44 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import nz.pumbas.halpbot.actions.invokable.ActionInvokable;
+import nz.pumbas.halpbot.actions.metrics.ActionMetrics;
+import nz.pumbas.halpbot.actions.metrics.ActionType;
+import nz.pumbas.halpbot.actions.metrics.MetricsRegistry;
+import nz.pumbas.halpbot.actions.metrics.Phase;
 import nz.pumbas.halpbot.HalpbotCore;
 import nz.pumbas.halpbot.commands.annotations.Command;
 import nz.pumbas.halpbot.commands.annotations.CustomConstructor;
 import nz.pumbas.halpbot.commands.annotations.CustomParameter;
+import nz.pumbas.halpbot.commands.annotations.SlashCommand;
 import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
 import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContextFactory;
 import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
+import nz.pumbas.halpbot.commands.actioninvokable.CommandParser;
+import nz.pumbas.halpbot.commands.actioninvokable.CommandParserCompiler;
 import nz.pumbas.halpbot.commands.actioninvokable.HalpbotCommandInvokable;
 import nz.pumbas.halpbot.actions.invokable.InvocationContextFactory;
 import nz.pumbas.halpbot.commands.actioninvokable.context.constructor.CustomConstructorContext;
 import nz.pumbas.halpbot.commands.actioninvokable.context.constructor.CustomConstructorContextFactory;
 import nz.pumbas.halpbot.commands.exceptions.IllegalCustomParameterException;
 import nz.pumbas.halpbot.commands.exceptions.MissingResourceException;
+import nz.pumbas.halpbot.commands.prefixes.GuildPrefixService;
+import nz.pumbas.halpbot.commands.slashcommands.OptionBinder;
+import nz.pumbas.halpbot.commands.slashcommands.SlashCommandRegistrar;
+import nz.pumbas.halpbot.common.ExplainedException;
+import nz.pumbas.halpbot.common.UndisplayedException;
 import nz.pumbas.halpbot.commands.usage.UsageBuilder;
 import nz.pumbas.halpbot.converters.parametercontext.ParameterAnnotationService;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
+import nz.pumbas.halpbot.converters.annotations.parameter.Description;
+import nz.pumbas.halpbot.converters.tokens.ParsingToken;
 import nz.pumbas.halpbot.converters.tokens.Token;
 import nz.pumbas.halpbot.converters.tokens.TokenService;
 import nz.pumbas.halpbot.decorators.DecoratorService;
 import nz.pumbas.halpbot.events.HalpbotEvent;
+import nz.pumbas.halpbot.events.InteractionEvent;
 import nz.pumbas.halpbot.events.MessageEvent;
+import nz.pumbas.halpbot.objects.AliasTrie;
+import nz.pumbas.halpbot.objects.DiscordObject;
 import nz.pumbas.halpbot.utilities.HalpbotUtils;
 import nz.pumbas.halpbot.utilities.Reflect;
 
@@ -85,12 +117,18 @@ import nz.pumbas.halpbot.utilities.Reflect;
 @Accessors(chain = false)
 public class HalpbotCommandAdapter implements CommandAdapter
 {
+    private static final int MAX_SLASH_DESCRIPTION_LENGTH = 100;
+    private static final int MAX_SLASH_CHOICES = 25;
+
     private final MultiMap<TypeContext<?>, CustomConstructorContext> customConstructors = new ArrayListMultiMap<>();
     private final Map<String, CommandContext> commands = new ConcurrentHashMap<>();
-    private final Map<TypeContext<?>, MultiMap<String, CommandContext>> reflectiveCommands = new ConcurrentHashMap<>();
+    private final AliasTrie<CommandContext> commandTrie = new AliasTrie<>();
+    private final Map<String, CommandContext> slashCommands = new ConcurrentHashMap<>();
+    @Getter
+    private final ReflectiveCommandIndex reflectiveCommandIndex = new ReflectiveCommandIndex();
 
     private final Map<TypeContext<?>, String> typeAliases = new ConcurrentHashMap<>();
-    private final Map<Long, String> guildPrefixes = new ConcurrentHashMap<>();
+    private final AtomicBoolean hasUpdatedSlashCommands = new AtomicBoolean();
 
     @Setter
     @Getter
@@ -118,80 +156,296 @@ public class HalpbotCommandAdapter implements CommandAdapter
     private TokenService tokenService;
     @Inject
     private DecoratorService decoratorService;
+    @Inject
+    private GuildPrefixService guildPrefixService;
+    @Inject
+    private CommandParserCompiler commandParserCompiler;
+    @Inject
+    private MetricsRegistry metricsRegistry;
+    @Inject
+    private SlashCommandRegistrar slashCommandRegistrar;
+
+    private String commandSeparator = "";
+    private int maxPipelinedCommands;
+
+    @Override
+    public void enable() throws ApplicationException {
+        BotConfiguration config = this.applicationContext.get(BotConfiguration.class);
+        this.commandSeparator = config.commandSeparator();
+        this.maxPipelinedCommands = config.maxPipelinedCommands();
+        CommandAdapter.super.enable();
+    }
 
-    //TODO: Setting the guild specific prefixes
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
         if (event.getAuthor().isBot()) return;
 
+        long receivedAt = System.nanoTime();
         String message = event.getMessage().getContentRaw();
         String prefix = event.isFromType(ChannelType.TEXT)
             ? this.prefix(event.getGuild().getIdLong())
             : this.defaultPrefix;
 
+        if (!message.startsWith(prefix)) return;
+
         HalpbotEvent halpbotEvent = new MessageEvent(event);
+        List<String> parts = this.pipelinedParts(message, prefix);
+        if (parts != null) {
+            this.onPipelinedMessageReceived(event, halpbotEvent, prefix, parts, receivedAt);
+            return;
+        }
 
-        if (message.startsWith(prefix)) {
-            message = message.substring(prefix.length()).stripLeading();
-
-            String[] splitText = message.split("\\s", 2);
-            String alias = splitText[0];
-            String content = (2 == splitText.length) ? splitText[1] : "";
-
-            Exceptional<CommandContext> eCommandContext = this.commandContextSafely(alias);
-            if (eCommandContext.present()) {
-                CommandContext commandContext = eCommandContext.get();
-                if (commandContext.content() != Content.RAW) {
-                    String tempContent = commandContext.content().parse(event);
-                    int startIndex = tempContent.indexOf(alias);
-                    if (startIndex != -1) {
-                        content = tempContent.substring(startIndex + alias.length());
-                    }
-                }
+        ResolvedCommand command = this.resolveCommand(event, halpbotEvent, message, prefix, -1);
+        if (command == null) return;
+        command.metrics().record(Phase.RESOLUTION, System.nanoTime() - receivedAt);
+
+        this.halpbotCore.executionEngine().execute(halpbotEvent, () -> this.invokeAndDisplay(halpbotEvent, command));
+    }
+
+    @Override
+    public void onSlashCommand(SlashCommandEvent event) {
+        long receivedAt = System.nanoTime();
+        CommandContext commandContext = this.slashCommands.get(event.getName());
+        if (commandContext == null) return; // Not a halpbot slash command
+
+        InteractionEvent halpbotEvent = new InteractionEvent(event);
+        ResolvedCommand command = new ResolvedCommand(
+            commandContext,
+            "",
+            this.metricsRegistry.metrics(ActionType.COMMAND, commandContext.aliases().get(0)),
+            event);
+        command.metrics().record(Phase.RESOLUTION, System.nanoTime() - receivedAt);
+
+        // The command may not be invoked within the 3 seconds Discord allows, so it's acknowledged before it's queued
+        halpbotEvent.deferReply(commandContext.isEphemeral());
+        this.halpbotCore.executionEngine().execute(halpbotEvent, () -> {
+            try {
+                this.invokeAndDisplay(halpbotEvent, command);
+            } finally {
+                halpbotEvent.completeDeferredReply();
+            }
+        });
+    }
 
-                if (!commandContext.preserveWhitespace())
-                    content = content.replaceAll("\\s+", " ");
+    @Override
+    public void onReady(ReadyEvent event) {
+        // Slash commands are global, so they only need to be updated by the first shard that's ready
+        if (this.hasUpdatedSlashCommands.compareAndSet(false, true))
+            this.slashCommandRegistrar.updateCommands(event.getJDA());
+    }
 
-                Exceptional<Object> result = this.handleCommandInvocation(halpbotEvent, commandContext, content);
+    private void invokeAndDisplay(HalpbotEvent halpbotEvent, ResolvedCommand command) {
+        Exceptional<Object> result = this.handleCommandInvocation(halpbotEvent, command);
 
-                if (result.present())
-                    this.displayResult(halpbotEvent, commandContext, result.get());
-                else if (result.caught()) {
-                    //this.applicationContext.log().error("Caught the error: ", result.error());
-                    this.handleException(halpbotEvent, result.error());
-                }
-            } else this.halpbotCore.displayConfiguration()
+        long displayStart = System.nanoTime();
+        if (result.present())
+            this.displayResult(halpbotEvent, command.commandContext(), result.get());
+        else if (result.caught()) {
+            //this.applicationContext.log().error("Caught the error: ", result.error());
+            this.handleException(halpbotEvent, result.error());
+        }
+        command.metrics().record(Phase.DISPLAY, System.nanoTime() - displayStart);
+    }
+
+    private void onPipelinedMessageReceived(MessageReceivedEvent event,
+                                            HalpbotEvent halpbotEvent,
+                                            String prefix,
+                                            List<String> parts,
+                                            long receivedAt) {
+        if (parts.size() > this.maxPipelinedCommands) {
+            this.halpbotCore.displayConfiguration()
                 .displayTemporary(halpbotEvent,
-                    "The command **" + alias + "** doesn't seem to exist, you may want to check your spelling",
+                    "You can only chain up to %d commands in a single message".formatted(this.maxPipelinedCommands),
                     30);
+            return;
+        }
+
+        // Resolve every command before invoking any of them, so nothing is run if one of them doesn't exist
+        List<ResolvedCommand> commands = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            ResolvedCommand command = this.resolveCommand(event, halpbotEvent, parts.get(i), prefix, i);
+            if (command == null) return;
+            commands.add(command);
+        }
+
+        long resolutionNanos = System.nanoTime() - receivedAt;
+        for (ResolvedCommand command : commands) {
+            command.metrics().record(Phase.RESOLUTION, resolutionNanos);
         }
+
+        this.halpbotCore.executionEngine().execute(halpbotEvent, () -> {
+            // Each part is parsed and invoked independently of the others, so they can all be run in parallel
+            List<Exceptional<Object>> results = this.halpbotCore.executionEngine().invokeAll(
+                commands.stream()
+                    .map(command -> (Supplier<Exceptional<Object>>) () ->
+                        this.handleCommandInvocation(halpbotEvent, command))
+                    .toList());
+
+            long displayStart = System.nanoTime();
+            this.displayPipelinedResults(halpbotEvent, commands, results);
+            long displayNanos = System.nanoTime() - displayStart;
+            for (ResolvedCommand command : commands) {
+                command.metrics().record(Phase.DISPLAY, displayNanos);
+            }
+        });
     }
 
-    private Exceptional<Object> handleCommandInvocation(HalpbotEvent event,
-                                                        CommandContext commandContext,
-                                                        String content) {
-        CommandInvocationContext invocationContext = this.invocationContextFactory.command(content, event);
-        return commandContext.invoke(invocationContext);
+    /**
+     * Combines the results of the pipelined commands into a single reply. As each command may be displayed
+     * differently, only the results of commands with the same display settings are combined, and each reply uses the
+     * settings of its commands. Results that can't be combined into text, such as a {@link MessageEmbed}, and
+     * exceptions with their own explanation are still displayed individually.
+     */
+    private void displayPipelinedResults(HalpbotEvent halpbotEvent,
+                                         List<ResolvedCommand> commands,
+                                         List<Exceptional<Object>> results) {
+        Map<DisplaySettings, CombinedResult> combinedResults = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            Exceptional<Object> result = results.get(i);
+            CommandContext commandContext = commands.get(i).commandContext();
+            StringBuilder combined = combinedResults.computeIfAbsent(
+                    new DisplaySettings(commandContext.displayDuration(), commandContext.isEphemeral()),
+                    settings -> new CombinedResult(commandContext, new StringBuilder()))
+                .text();
+
+            if (result.present()) {
+                Object value = result.get();
+                if (value instanceof MessageEmbed || value instanceof RestAction)
+                    this.displayResult(halpbotEvent, commandContext, value);
+                else this.appendLine(combined, value instanceof DiscordObject discordObject
+                    ? discordObject.toDiscordString()
+                    : value.toString());
+            }
+            else if (result.caught()) {
+                Throwable exception = result.error();
+                if (exception instanceof ExplainedException || exception instanceof UndisplayedException)
+                    this.handleException(halpbotEvent, exception);
+                else if (exception.getMessage() != null)
+                    this.appendLine(combined,
+                        "There was the following error trying to invoke this action: " + exception.getMessage());
+            }
+        }
+
+        for (CombinedResult combinedResult : combinedResults.values()) {
+            if (!combinedResult.text().isEmpty())
+                this.displayResult(halpbotEvent, combinedResult.commandContext(),
+                    HalpbotUtils.limitMessageLength(combinedResult.text().toString()));
+        }
+    }
+
+    private void appendLine(StringBuilder builder, String line) {
+        if (!builder.isEmpty())
+            builder.append('\n');
+        builder.append(line);
+    }
+
+    /**
+     * Splits the message into the commands that have been chained together using the command separator. A separator
+     * is only treated as one if it's followed by the prefix, so that it can still be used within a command's content.
+     *
+     * @return The parts of the message, each starting with the prefix, or null if there is only a single command
+     */
+    @Nullable
+    private List<String> pipelinedParts(String message, String prefix) {
+        if (this.commandSeparator.isEmpty())
+            return null;
+
+        List<String> parts = null;
+        int partStart = 0;
+        int separatorIndex = message.indexOf(this.commandSeparator);
+
+        while (separatorIndex != -1) {
+            int nextStart = HalpbotUtils.skipWhitespace(message, separatorIndex + this.commandSeparator.length());
+            if (message.startsWith(prefix, nextStart)) {
+                if (parts == null)
+                    parts = new ArrayList<>();
+                parts.add(message.substring(partStart, separatorIndex).stripTrailing());
+                partStart = nextStart;
+            }
+            separatorIndex = message.indexOf(this.commandSeparator, separatorIndex + this.commandSeparator.length());
+        }
+
+        if (parts != null)
+            parts.add(message.substring(partStart));
+        return parts;
+    }
+
+    /**
+     * Resolves the command at the start of the message, which must begin with the prefix. If there is no matching
+     * command, then the user is notified.
+     *
+     * @param partIndex
+     *     The index of the message within the pipelined parts, or -1 if the message isn't pipelined
+     *
+     * @return The resolved command and its content, or null if there is no matching command
+     */
+    @Nullable
+    private ResolvedCommand resolveCommand(MessageReceivedEvent event,
+                                           HalpbotEvent halpbotEvent,
+                                           String message,
+                                           String prefix,
+                                           int partIndex) {
+        // Resolve the alias using offsets into the raw message, so that no strings are created unless it matches
+        int aliasStart = HalpbotUtils.skipWhitespace(message, prefix.length());
+        int aliasEnd = HalpbotUtils.nextWhitespace(message, aliasStart);
+        CommandContext commandContext = this.commandTrie.get(message, aliasStart, aliasEnd);
+
+        if (commandContext == null) {
+            this.halpbotCore.displayConfiguration()
+                .displayTemporary(halpbotEvent,
+                    "The command **" + message.substring(aliasStart, aliasEnd) + "** doesn't seem to exist, you may want to check your spelling",
+                    30);
+            return null;
+        }
+
+        String content = aliasEnd < message.length() ? message.substring(aliasEnd + 1) : "";
+        if (commandContext.content() != Content.RAW) {
+            String alias = message.substring(aliasStart, aliasEnd);
+            String tempContent = commandContext.content().parse(event);
+            if (partIndex != -1) {
+                List<String> parsedParts = this.pipelinedParts(tempContent, prefix);
+                tempContent = parsedParts != null && partIndex < parsedParts.size()
+                    ? parsedParts.get(partIndex)
+                    : null;
+            }
+
+            int startIndex = tempContent == null ? -1 : tempContent.indexOf(alias);
+            if (startIndex != -1) {
+                content = tempContent.substring(startIndex + alias.length());
+            }
+        }
+
+        if (!commandContext.preserveWhitespace())
+            content = HalpbotUtils.collapseWhitespace(content);
+        ActionMetrics metrics = this.metricsRegistry.metrics(ActionType.COMMAND, commandContext.aliases().get(0));
+        return new ResolvedCommand(commandContext, content, metrics, null);
+    }
+
+    private Exceptional<Object> handleCommandInvocation(HalpbotEvent event, ResolvedCommand command) {
+        CommandInvocationContext invocationContext = this.invocationContextFactory.command(command.content(), event);
+        // The parameters of slash commands are bound directly from their options rather than parsed from the content
+        invocationContext.slashCommandEvent(command.slashCommandEvent());
+
+        long start = System.nanoTime();
+        Exceptional<Object> result = command.commandContext().invoke(invocationContext);
+        command.metrics().record(invocationContext.timings(), System.nanoTime() - start);
+
+        if (result.caught())
+            command.metrics().recordFailure();
+        return result;
     }
 
     @Override
     @Nullable
     public CommandContext commandContext(String alias) {
-        return this.commands.get(alias.toLowerCase(Locale.ROOT));
+        return this.commandTrie.get(alias);
     }
 
     @Override
     public Collection<CommandContext> reflectiveCommandContext(TypeContext<?> targetType,
                                                                String methodName,
                                                                Set<TypeContext<?>> reflections) {
-        if (!this.reflectiveCommands.containsKey(targetType))
-            return Collections.emptyList();
-
-        return this.reflectiveCommands.get(targetType).get(methodName.toLowerCase(Locale.ROOT))
-            .stream()
-            .filter(commandContext -> commandContext.executable() instanceof MethodContext methodContext
-                && reflections.contains(methodContext.parent()))
-            .toList();
+        return this.reflectiveCommandIndex.get(targetType, methodName, reflections);
     }
 
     @Override
@@ -211,7 +465,7 @@ public class HalpbotCommandAdapter implements CommandAdapter
             aliases,
             command,
             methodContext,
-            new HalpbotCommandInvokable(instance, methodContext));
+            this.commandInvokable(instance, methodContext));
 
         for (String alias : aliases) {
             if (this.commands.containsKey(alias)) {
@@ -222,12 +476,83 @@ public class HalpbotCommandAdapter implements CommandAdapter
             }
 
             this.commands.put(alias, commandContext);
+            this.commandTrie.put(alias, commandContext);
         }
     }
 
     @Override
     public <T> void registerSlashCommand(T instance, MethodContext<?, T> methodContext) {
-        //TODO: Slash Commands
+        if (!methodContext.isPublic()) {
+            this.applicationContext.log().warn("The slash command method %s must be public"
+                .formatted(methodContext.qualifiedName()));
+            return;
+        }
+
+        SlashCommand slashCommand = methodContext.annotation(SlashCommand.class).get();
+        // Commands that aren't registered are removed from discord the next time the slash commands are updated
+        if (slashCommand.remove() || !this.parameterAnnotationsAreValid(methodContext))
+            return;
+
+        Command command = methodContext.annotation(Command.class).get();
+        List<String> aliases = this.aliases(command, methodContext);
+        CommandContext commandContext = this.createCommand(
+            aliases,
+            command,
+            methodContext,
+            this.commandInvokable(instance, methodContext));
+
+        String name = aliases.get(0);
+        Exceptional<CommandData> commandData = this.slashCommandData(name, commandContext);
+        if (commandData.caught()) {
+            this.applicationContext.log().warn("The slash command %s is not valid: %s"
+                .formatted(methodContext.qualifiedName(), commandData.error().getMessage()));
+            return;
+        }
+
+        this.slashCommands.put(name, commandContext);
+        this.slashCommandRegistrar.register(commandData.get(), slashCommand.guilds(), slashCommand.register());
+    }
+
+    /**
+     * Creates the {@link CommandData} for the slash command, using the {@link OptionType} of each parameter's
+     * converter. Enum parameters are restricted to their constants if there aren't too many of them.
+     */
+    private Exceptional<CommandData> slashCommandData(String name, CommandContext commandContext) {
+        return Exceptional.of(() -> {
+            CommandData commandData = new CommandData(name, this.slashDescription(commandContext.description()));
+
+            for (Token token : commandContext.tokens()) {
+                if (!(token instanceof ParsingToken parsingToken) || !parsingToken.isCommandParameter())
+                    continue;
+
+                ParameterContext<?> parameterContext = parsingToken.parameterContext();
+                TypeContext<?> type = parameterContext.type();
+                OptionData option = new OptionData(
+                    parsingToken.converter().optionType(),
+                    OptionBinder.optionName(parameterContext),
+                    this.slashDescription(parameterContext.annotation(Description.class)
+                        .map(Description::value)
+                        .or(this.typeAlias(type))),
+                    !parsingToken.isOptional());
+
+                if (type.isEnum() && type.enumConstants().size() <= MAX_SLASH_CHOICES) {
+                    for (Object constant : type.enumConstants()) {
+                        String constantName = ((Enum<?>) constant).name();
+                        option.addChoice(constantName, constantName);
+                    }
+                }
+                commandData.addOptions(option);
+            }
+            return commandData;
+        });
+    }
+
+    private String slashDescription(@Nullable String description) {
+        if (description == null || description.isBlank())
+            return "No description";
+        return description.length() <= MAX_SLASH_DESCRIPTION_LENGTH
+            ? description
+            : description.substring(0, MAX_SLASH_DESCRIPTION_LENGTH);
     }
 
     @Override
@@ -254,22 +579,18 @@ public class HalpbotCommandAdapter implements CommandAdapter
             aliases,
             command,
             methodContext,
-            new HalpbotCommandInvokable(null, methodContext));
+            this.commandInvokable(null, methodContext));
 
         TypeContext<?> returnType = methodContext.genericReturnType();
-        if (!this.reflectiveCommands.containsKey(returnType))
-            this.reflectiveCommands.put(returnType, new ArrayListMultiMap<>());
-
-        MultiMap<String, CommandContext> aliasMappings = this.reflectiveCommands.get(returnType);
-
         for (String alias : aliases) {
-            aliasMappings.put(alias.toLowerCase(Locale.ROOT), commandContext);
+            this.reflectiveCommandIndex.register(returnType, methodContext.parent(), alias, commandContext);
         }
     }
 
     @Override
     public String prefix(long guildId) {
-        return this.guildPrefixes.getOrDefault(guildId, this.defaultPrefix);
+        String prefix = this.guildPrefixService.prefix(guildId);
+        return prefix == null ? this.defaultPrefix : prefix;
     }
 
     private List<String> aliases(Command command, MethodContext<?, ?> methodContext) {
@@ -294,6 +615,14 @@ public class HalpbotCommandAdapter implements CommandAdapter
         return Stream.of(reflections).map(TypeContext::of).collect(Collectors.toSet());
     }
 
+    private HalpbotCommandInvokable commandInvokable(@Nullable Object instance,
+                                                     ExecutableElementContext<?, ?> executable) {
+        CommandParser parser = this.applicationContext.get(BotConfiguration.class).compileParsers()
+            ? this.commandParserCompiler.compile(executable, this.tokenService.tokens(executable)).orNull()
+            : null;
+        return new HalpbotCommandInvokable(instance, executable, parser);
+    }
+
     private <T> CommandContext createCommand(List<String> aliases,
                                              Command command,
                                              MethodContext<?, T> methodContext,
@@ -340,7 +669,7 @@ public class HalpbotCommandAdapter implements CommandAdapter
 
                 return this.customConstructorContextFactory.create(
                     this.usage(construction.usage(), constructor),
-                    this.decoratorService.decorate(new HalpbotCommandInvokable(null, constructor)),
+                    this.decoratorService.decorate(this.commandInvokable(null, constructor)),
                     this.reflections(construction.reflections()),
                     tokens);
             })
@@ -361,6 +690,11 @@ public class HalpbotCommandAdapter implements CommandAdapter
         return Collections.unmodifiableMap(this.commands);
     }
 
+    @Override
+    public Map<String, CommandContext> slashCommands() {
+        return Collections.unmodifiableMap(this.slashCommands);
+    }
+
     @Override
     public String typeAlias(TypeContext<?> typeContext) {
         if (!this.typeAliases.containsKey(typeContext)) {
@@ -378,4 +712,13 @@ public class HalpbotCommandAdapter implements CommandAdapter
 
         return this.typeAliases.get(typeContext);
     }
+
+    private record ResolvedCommand(CommandContext commandContext,
+                                   String content,
+                                   ActionMetrics metrics,
+                                   @Nullable SlashCommandEvent slashCommandEvent) {}
+
+    private record DisplaySettings(Duration displayDuration, boolean isEphemeral) {}
+
+    private record CombinedResult(CommandContext commandContext, StringBuilder text) {}
 }
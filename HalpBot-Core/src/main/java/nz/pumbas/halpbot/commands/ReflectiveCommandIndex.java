@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.dockbox.hartshorn.core.context.element.TypeContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
+import nz.pumbas.halpbot.objects.AliasTrie;
+
+/**
+ * An index of the reflective commands, keyed by their return type and case-insensitive method name. The commands for
+ * each key are partitioned by the class that declares them when they're registered, so that looking up the commands
+ * available to a set of reflections doesn't need to filter every candidate. Lookups are lock-free and don't allocate,
+ * while registrations are synchronised and replace the partitions of the modified key.
+ */
+public class ReflectiveCommandIndex
+{
+    private final Map<TypeContext<?>, AliasTrie<Partitions>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the reflective command under the return type and alias.
+     *
+     * @param returnType
+     *     The type returned by the reflective command
+     * @param declaringType
+     *     The class that declares the reflective command
+     * @param alias
+     *     The case-insensitive alias of the command
+     * @param commandContext
+     *     The {@link CommandContext} of the reflective command
+     */
+    public synchronized void register(TypeContext<?> returnType,
+                                      TypeContext<?> declaringType,
+                                      String alias,
+                                      CommandContext commandContext) {
+        AliasTrie<Partitions> aliases = this.index.computeIfAbsent(returnType, key -> new AliasTrie<>());
+        Partitions partitions = aliases.get(alias);
+        aliases.put(alias, partitions == null
+            ? new Partitions(declaringType, commandContext)
+            : partitions.with(declaringType, commandContext));
+    }
+
+    /**
+     * Retrieves the partitioned reflective commands that return the type and have the method name specified by the
+     * region of the source between the start (inclusive) and end (exclusive) indices.
+     *
+     * @return The {@link Partitions}, or null if there are no matching reflective commands
+     */
+    @Nullable
+    public Partitions get(TypeContext<?> returnType, CharSequence source, int start, int end) {
+        AliasTrie<Partitions> aliases = this.index.get(returnType);
+        return aliases == null ? null : aliases.get(source, start, end);
+    }
+
+    /**
+     * Retrieves the reflective commands that return the type, have the method name and are declared by one of the
+     * reflections. If only one of the reflections declares matching commands, then its partition is returned
+     * directly without creating a new list.
+     *
+     * @return An unmodifiable list of the matching {@link CommandContext}
+     */
+    public List<CommandContext> get(TypeContext<?> returnType, String methodName, Set<TypeContext<?>> reflections) {
+        Partitions partitions = this.get(returnType, methodName, 0, methodName.length());
+        return partitions == null ? Collections.emptyList() : partitions.commands(reflections);
+    }
+
+    public static final class Partitions
+    {
+        private final TypeContext<?>[] declaringTypes;
+        private final List<CommandContext>[] commands;
+
+        @SuppressWarnings("unchecked")
+        private Partitions(TypeContext<?> declaringType, CommandContext commandContext) {
+            this(new TypeContext[] { declaringType }, new List[] { List.of(commandContext) });
+        }
+
+        private Partitions(TypeContext<?>[] declaringTypes, List<CommandContext>[] commands) {
+            this.declaringTypes = declaringTypes;
+            this.commands = commands;
+        }
+
+        private Partitions with(TypeContext<?> declaringType, CommandContext commandContext) {
+            for (int i = 0; i < this.declaringTypes.length; i++) {
+                if (this.declaringTypes[i].equals(declaringType)) {
+                    List<CommandContext>[] commands = Arrays.copyOf(this.commands, this.commands.length);
+                    List<CommandContext> partition = new ArrayList<>(commands[i]);
+                    partition.add(commandContext);
+                    commands[i] = List.copyOf(partition);
+                    return new Partitions(this.declaringTypes, commands);
+                }
+            }
+
+            int size = this.declaringTypes.length;
+            TypeContext<?>[] declaringTypes = Arrays.copyOf(this.declaringTypes, size + 1);
+            List<CommandContext>[] commands = Arrays.copyOf(this.commands, size + 1);
+            declaringTypes[size] = declaringType;
+            commands[size] = List.of(commandContext);
+            return new Partitions(declaringTypes, commands);
+        }
+
+        /**
+         * @return The number of classes that declare commands in these partitions
+         */
+        public int size() {
+            return this.declaringTypes.length;
+        }
+
+        public TypeContext<?> declaringType(int index) {
+            return this.declaringTypes[index];
+        }
+
+        /**
+         * @return An unmodifiable list of the commands declared by the class at the index
+         */
+        public List<CommandContext> commands(int index) {
+            return this.commands[index];
+        }
+
+        /**
+         * @return An unmodifiable list of the commands declared by any of the reflections
+         */
+        public List<CommandContext> commands(Set<TypeContext<?>> reflections) {
+            List<CommandContext> result = Collections.emptyList();
+            boolean isShared = true;
+
+            for (int i = 0; i < this.declaringTypes.length; i++) {
+                if (!reflections.contains(this.declaringTypes[i]))
+                    continue;
+
+                if (result.isEmpty())
+                    result = this.commands[i];
+                else {
+                    if (isShared) {
+                        result = new ArrayList<>(result);
+                        isShared = false;
+                    }
+                    result.addAll(this.commands[i]);
+                }
+            }
+            return isShared ? result : Collections.unmodifiableList(result);
+        }
+    }
+}
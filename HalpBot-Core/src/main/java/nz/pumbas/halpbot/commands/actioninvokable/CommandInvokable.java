@@ -24,13 +24,17 @@
 
 package nz.pumbas.halpbot.commands.actioninvokable;
 
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
 import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
 import nz.pumbas.halpbot.actions.invokable.ActionInvokable;
 import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
 import nz.pumbas.halpbot.commands.exceptions.CommandException;
+import nz.pumbas.halpbot.commands.slashcommands.OptionBinder;
 import nz.pumbas.halpbot.converters.tokens.ParsingToken;
 import nz.pumbas.halpbot.converters.tokens.PlaceholderToken;
 import nz.pumbas.halpbot.converters.tokens.Token;
@@ -38,9 +42,26 @@ import nz.pumbas.halpbot.utilities.HalpbotUtils;
 
 public interface CommandInvokable extends ActionInvokable<CommandInvocationContext>
 {
+    /**
+     * @return The {@link CommandParser} that was compiled for this invokable, or null if the parameters should be
+     *     parsed by interpreting the tokens
+     */
+    @Nullable
+    default CommandParser parser() {
+        return null;
+    }
+
     @Override
     default Exceptional<Object[]> parameters(CommandInvocationContext invocationContext) {
+        final SlashCommandEvent slashCommandEvent = invocationContext.slashCommandEvent();
+        if (slashCommandEvent != null)
+            return OptionBinder.bind(invocationContext, slashCommandEvent, this.executable().parameterCount());
+
         final List<Token> tokens = invocationContext.tokens();
+        final CommandParser parser = this.parser();
+        if (parser != null && parser.tokens() == tokens)
+            return parser.parse(invocationContext);
+
         final Object[] parsedTokens = new Object[this.executable().parameterCount()];
 
         int tokenIndex = 0;
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.actioninvokable;
+
+import org.dockbox.hartshorn.core.context.ContextCarrier;
+import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.util.List;
+
+import nz.pumbas.halpbot.converters.tokens.Token;
+
+public interface CommandParserCompiler extends ContextCarrier
+{
+    /**
+     * Generates a {@link CommandParser} for the executable which parses the tokens in order without having to check
+     * the type of each token, or store and restore the state of the invocation context, at runtime. If the parser
+     * cannot be generated, then the {@link Exceptional} will contain the reason why and the interpreted parsing in
+     * {@link CommandInvokable#parameters} should be used instead.
+     *
+     * @param executable
+     *     The {@link ExecutableElementContext} to generate the parser for
+     * @param tokens
+     *     The tokens of the executable
+     *
+     * @return An {@link Exceptional} containing the compiled {@link CommandParser}
+     */
+    Exceptional<CommandParser> compile(ExecutableElementContext<?, ?> executable, List<Token> tokens);
+}
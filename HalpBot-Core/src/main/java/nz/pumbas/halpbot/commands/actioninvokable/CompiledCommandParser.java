@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.actioninvokable;
+
+import org.dockbox.hartshorn.core.context.element.ParameterContext;
+import org.dockbox.hartshorn.core.context.element.TypeContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
+import nz.pumbas.halpbot.commands.exceptions.CommandException;
+import nz.pumbas.halpbot.converters.Converter;
+import nz.pumbas.halpbot.converters.ParameterConverter;
+import nz.pumbas.halpbot.converters.tokens.ParsingToken;
+import nz.pumbas.halpbot.converters.tokens.PlaceholderToken;
+import nz.pumbas.halpbot.converters.tokens.Token;
+
+/**
+ * The base class of the parsers generated by the {@link HalpbotCommandParserCompiler}. The generated subclass only
+ * implements {@link CommandParser#parse(CommandInvocationContext)}, where the tokens are unrolled into straight-line
+ * calls to the helper methods in this class. The type and annotations of each parameter are resolved once when the
+ * parser is created rather than every time a token is parsed.
+ */
+@SuppressWarnings("unchecked")
+public abstract class CompiledCommandParser implements CommandParser
+{
+    @Getter
+    private final List<Token> tokens;
+
+    private final TypeContext<?>[] types;
+    private final Set<Annotation>[] annotations;
+    private final List<TypeContext<? extends Annotation>>[] sortedAnnotations;
+    private final Converter<CommandInvocationContext, ?>[] converters;
+    private final boolean[] isParameterConverter;
+    private final PlaceholderToken[] placeholders;
+
+    protected final Object[] defaultValues;
+
+    protected CompiledCommandParser(List<Token> tokens) {
+        this.tokens = tokens;
+
+        int tokenCount = tokens.size();
+        this.types = new TypeContext[tokenCount];
+        this.annotations = new Set[tokenCount];
+        this.sortedAnnotations = new List[tokenCount];
+        this.converters = new Converter[tokenCount];
+        this.isParameterConverter = new boolean[tokenCount];
+        this.placeholders = new PlaceholderToken[tokenCount];
+        this.defaultValues = new Object[tokenCount];
+
+        for (int i = 0; i < tokenCount; i++) {
+            Token token = tokens.get(i);
+            if (token instanceof ParsingToken parsingToken) {
+                ParameterContext<?> parameterContext = parsingToken.parameterContext();
+                this.types[i] = parameterContext.genericType();
+                this.annotations[i] = parameterContext.annotations();
+                this.sortedAnnotations[i] = parsingToken.sortedAnnotations();
+                this.converters[i] = parsingToken.converter();
+                this.isParameterConverter[i] = this.converters[i] instanceof ParameterConverter;
+                this.defaultValues[i] = parsingToken.defaultValue();
+            }
+            else if (token instanceof PlaceholderToken placeholderToken)
+                this.placeholders[i] = placeholderToken;
+        }
+    }
+
+    /**
+     * Parses the parsing token at the specified index. If there are no reflections, the converter's mapper is applied
+     * directly as the parameter is known to not be a reflective method call. This means the state of the invocation
+     * context only needs to be restored on the rare occasion that the parameter couldn't be parsed.
+     */
+    protected final Exceptional<?> convert(CommandInvocationContext invocationContext, int tokenIndex,
+                                           boolean hasReflections) {
+        invocationContext.currentType(this.types[tokenIndex]);
+        invocationContext.annotations(this.annotations[tokenIndex]);
+        invocationContext.sortedAnnotations(this.sortedAnnotations[tokenIndex]);
+        invocationContext.currentAnnotationIndex(0);
+
+        Converter<CommandInvocationContext, ?> converter = this.converters[tokenIndex];
+        if (hasReflections || !this.isParameterConverter[tokenIndex])
+            return converter.apply(invocationContext);
+
+        int currentIndex = invocationContext.currentIndex();
+        boolean canHaveContextLeft = invocationContext.canHaveContextLeft();
+        Exceptional<?> result = converter.mapper().apply(invocationContext);
+        if (result.caught())
+            invocationContext.currentIndex(currentIndex);
+        invocationContext.canHaveContextLeft(canHaveContextLeft);
+        return result;
+    }
+
+    protected final boolean matches(CommandInvocationContext invocationContext, int tokenIndex) {
+        return this.placeholders[tokenIndex].matches(invocationContext);
+    }
+
+    protected final Exceptional<Object[]> failed(Exceptional<?> result) {
+        return Exceptional.of(result.error());
+    }
+
+    protected final Exceptional<Object[]> expectedPlaceholder(int tokenIndex) {
+        return Exceptional.of(new CommandException("Expected the placeholder " + this.placeholders[tokenIndex].placeholder()));
+    }
+
+    protected final Exceptional<Object[]> finish(CommandInvocationContext invocationContext, Object[] parameters) {
+        if (invocationContext.hasNext() && !invocationContext.canHaveContextLeft())
+            return Exceptional.of(new CommandException("There appears to be too many parameters for this command"));
+        return Exceptional.of(parameters);
+    }
+}
@@ -29,11 +29,23 @@ import org.dockbox.hartshorn.core.annotations.inject.Bound;
 import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
 import org.jetbrains.annotations.Nullable;
 
+import nz.pumbas.halpbot.actions.methods.MethodHandleInvoker;
+
 @ComponentBinding(CommandInvokable.class)
 public record HalpbotCommandInvokable(@Nullable Object instance,
-                                      ExecutableElementContext<?, ?> executable)
+                                      ExecutableElementContext<?, ?> executable,
+                                      @Nullable MethodHandleInvoker invoker,
+                                      @Nullable CommandParser parser)
     implements CommandInvokable
 {
     @Bound
-    public HalpbotCommandInvokable {}
+    public HalpbotCommandInvokable(@Nullable Object instance, ExecutableElementContext<?, ?> executable) {
+        this(instance, executable, null);
+    }
+
+    public HalpbotCommandInvokable(@Nullable Object instance,
+                                   ExecutableElementContext<?, ?> executable,
+                                   @Nullable CommandParser parser) {
+        this(instance, executable, MethodHandleInvoker.of(executable), parser);
+    }
 }
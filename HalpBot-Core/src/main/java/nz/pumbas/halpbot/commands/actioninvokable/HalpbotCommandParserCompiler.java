@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.actioninvokable;
+
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+import org.dockbox.hartshorn.core.context.element.ExecutableElementContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import lombok.Getter;
+import nz.pumbas.halpbot.converters.tokens.ParsingToken;
+import nz.pumbas.halpbot.converters.tokens.PlaceholderToken;
+import nz.pumbas.halpbot.converters.tokens.Token;
+
+@Singleton
+@ComponentBinding(CommandParserCompiler.class)
+public class HalpbotCommandParserCompiler implements CommandParserCompiler
+{
+    private static final String CONTEXT = "nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext";
+    private static final String EXCEPTIONAL = "org.dockbox.hartshorn.core.domain.Exceptional";
+
+    private final Map<ExecutableElementContext<?, ?>, Exceptional<CommandParser>> cache = new ConcurrentHashMap<>();
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ClassPool classPool = new ClassPool(true);
+
+    @Inject
+    @Getter
+    private ApplicationContext applicationContext;
+
+    public HalpbotCommandParserCompiler() {
+        this.classPool.appendClassPath(new LoaderClassPath(CompiledCommandParser.class.getClassLoader()));
+    }
+
+    @Override
+    public Exceptional<CommandParser> compile(ExecutableElementContext<?, ?> executable, List<Token> tokens) {
+        return this.cache.computeIfAbsent(executable, key -> {
+            Exceptional<CommandParser> parser = Exceptional.of(() -> this.generate(key, tokens));
+            parser.caught(e -> this.applicationContext.log()
+                .debug("Unable to compile a parser for %s, it will be interpreted instead: %s"
+                    .formatted(key.qualifiedName(), e.getMessage())));
+            return parser;
+        });
+    }
+
+    private synchronized CommandParser generate(ExecutableElementContext<?, ?> executable, List<Token> tokens)
+        throws Exception
+    {
+        String name = "%s$%s$%d".formatted(
+            CompiledCommandParser.class.getName(),
+            executable.parent().name(),
+            this.counter.incrementAndGet());
+
+        CtClass parserClass = this.classPool.makeClass(name, this.classPool.get(CompiledCommandParser.class.getName()));
+        parserClass.addConstructor(CtNewConstructor.make(
+            "public %s(java.util.List tokens) { super(tokens); }".formatted(parserClass.getSimpleName()),
+            parserClass));
+        parserClass.addMethod(CtNewMethod.make(this.parseSource(tokens, executable.parameterCount()), parserClass));
+
+        Class<?> compiledClass = parserClass.toClass(CompiledCommandParser.class);
+        parserClass.detach();
+        return (CommandParser) compiledClass.getConstructor(List.class).newInstance(tokens);
+    }
+
+    /**
+     * Unrolls the loop in {@link CommandInvokable#parameters} for the tokens. Like the interpreted version, any tokens
+     * after the last parameter has been parsed are ignored.
+     */
+    private String parseSource(List<Token> tokens, int parameterCount) {
+        StringBuilder source = new StringBuilder()
+            .append("public ").append(EXCEPTIONAL).append(" parse(").append(CONTEXT).append(" context) {\n")
+            .append("boolean hasReflections = !context.reflections().isEmpty();\n")
+            .append("Object[] parameters = new Object[").append(parameterCount).append("];\n")
+            .append(EXCEPTIONAL).append(" result;\n");
+
+        int parameterIndex = 0;
+        for (int tokenIndex = 0; parameterIndex < parameterCount; tokenIndex++) {
+            if (tokenIndex >= tokens.size())
+                throw new IllegalStateException("There are fewer tokens than parameters");
+
+            Token token = tokens.get(tokenIndex);
+            if (token instanceof ParsingToken) {
+                source.append("result = convert(context, ").append(tokenIndex).append(", hasReflections);\n");
+                if (token.isOptional())
+                    source.append("if (result.caught()) parameters[").append(parameterIndex)
+                        .append("] = defaultValues[").append(tokenIndex).append("];\n")
+                        .append("else ");
+                else source.append("if (result.caught()) return failed(result);\n");
+                source.append("parameters[").append(parameterIndex++).append("] = result.orNull();\n");
+            }
+            else if (token instanceof PlaceholderToken) {
+                if (token.isOptional())
+                    source.append("matches(context, ").append(tokenIndex).append(");\n");
+                else source.append("if (!matches(context, ").append(tokenIndex)
+                    .append(")) return expectedPlaceholder(").append(tokenIndex).append(");\n");
+            }
+            else throw new IllegalStateException("Unsupported token type " + token.getClass().getName());
+        }
+
+        return source.append("return finish(context, parameters);\n}").toString();
+    }
+}
@@ -24,6 +24,8 @@
 
 package nz.pumbas.halpbot.commands.actioninvokable.context;
 
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
 import org.dockbox.hartshorn.core.context.element.ParameterContext;
 import org.dockbox.hartshorn.core.context.element.TypeContext;
 import org.dockbox.hartshorn.core.domain.Exceptional;
@@ -67,6 +69,15 @@ public interface CommandInvocationContext extends StringTraverser, InvocationCon
 
     void tokens(List<Token> tokens);
 
+    /**
+     * @return The {@link SlashCommandEvent} that the parameters are bound from, or null if the parameters are parsed
+     *     from the content
+     */
+    @Nullable
+    SlashCommandEvent slashCommandEvent();
+
+    void slashCommandEvent(@Nullable SlashCommandEvent slashCommandEvent);
+
     /**
      * Updates the current type, sorted annotations, parameter annotations and resets the current annotation index using
      * the {@link ParameterContext} and provided sorted annotations.
@@ -24,6 +24,8 @@
 
 package nz.pumbas.halpbot.commands.actioninvokable.context;
 
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+
 import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
 import org.dockbox.hartshorn.core.annotations.inject.Bound;
 import org.dockbox.hartshorn.core.context.ApplicationContext;
@@ -41,6 +43,7 @@ import javax.inject.Inject;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import nz.pumbas.halpbot.actions.metrics.InvocationTimings;
 import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
 import nz.pumbas.halpbot.converters.tokens.Token;
 import nz.pumbas.halpbot.events.HalpbotEvent;
@@ -71,6 +74,9 @@ public class HalpbotCommandInvocationContext implements CommandInvocationContext
     private boolean canHaveContextLeft;
     @Setter
     private List<Token> tokens = Collections.emptyList();
+    @Setter
+    private @Nullable SlashCommandEvent slashCommandEvent;
+    private final InvocationTimings timings = new InvocationTimings();
 
     @Bound
     public HalpbotCommandInvocationContext(String content, @Nullable HalpbotEvent halpbotEvent) {
@@ -34,9 +34,9 @@ import java.lang.annotation.Target;
 public @interface SlashCommand
 {
     /**
-     * This should only be set to true if you've edited or just created the slash command so that its registered. If
-     * you've not made any changes, turning this off means that you'll instantly be able to use your slash commands when
-     * you start up your bot.
+     * Slash commands are automatically registered when their definition changes, so this only needs to be set to true
+     * if you want to force the slash command to be registered again, for example, if it was removed from discord
+     * externally.
      */
     boolean register() default false;
 
@@ -45,4 +45,10 @@ public @interface SlashCommand
      * is set to true, this takes priority and so if this is true then it won't be registered as well, only removed).
      */
     boolean remove() default false;
+
+    /**
+     * The ids of the guilds to register this slash command in. If no guilds are specified, then the slash command is
+     * registered globally.
+     */
+    long[] guilds() default {};
 }
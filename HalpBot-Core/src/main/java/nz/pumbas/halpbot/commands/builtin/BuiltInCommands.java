@@ -40,16 +40,26 @@ import org.jetbrains.annotations.Nullable;
 
 import java.awt.Color;
 import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
+import nz.pumbas.halpbot.actions.metrics.ActionMetrics;
+import nz.pumbas.halpbot.actions.metrics.ActionType;
+import nz.pumbas.halpbot.actions.metrics.LatencyHistogram;
+import nz.pumbas.halpbot.actions.metrics.MetricsRegistry;
+import nz.pumbas.halpbot.actions.metrics.Phase;
 import nz.pumbas.halpbot.commands.CommandAdapter;
 import nz.pumbas.halpbot.converters.annotations.parameter.Source;
 import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
 import nz.pumbas.halpbot.commands.annotations.Command;
+import nz.pumbas.halpbot.commands.exceptions.IllegalPrefixException;
+import nz.pumbas.halpbot.commands.prefixes.GuildPrefixService;
 import nz.pumbas.halpbot.converters.annotations.parameter.Unrequired;
 import nz.pumbas.halpbot.permissions.HalpbotPermissions;
 import nz.pumbas.halpbot.permissions.Permissions;
@@ -65,6 +75,10 @@ public class BuiltInCommands
     private PermissionService permissionService;
     @Inject
     private HelpService helpService;
+    @Inject
+    private GuildPrefixService guildPrefixService;
+    @Inject
+    private MetricsRegistry metricsRegistry;
 
     @Command(description = "Displays the current information of this bot")
     public void info(MessageReceivedEvent event, JDA jda) {
@@ -119,12 +133,76 @@ public class BuiltInCommands
         jda.shutdownNow();
     }
 
+    @Permissions(permissions = HalpbotPermissions.BOT_OWNER)
+    @Command(description = "Displays the latency of each phase of the most used actions, or of the specified action")
+    public Object metrics(@Unrequired("") String name) {
+        List<ActionMetrics> actions = Stream.of(ActionType.values())
+            .flatMap(actionType -> this.metricsRegistry.metrics(actionType).stream())
+            .filter(metrics -> name.isEmpty() || metrics.name().equalsIgnoreCase(name))
+            .filter(metrics -> metrics.invocations() != 0)
+            .sorted(Comparator.comparingLong(ActionMetrics::invocations).reversed())
+            .limit(MessageEmbed.MAX_FIELD_AMOUNT)
+            .toList();
+
+        if (actions.isEmpty())
+            return name.isEmpty()
+                ? "No actions have been invoked yet"
+                : "The action `%s` hasn't been invoked yet".formatted(name);
+
+        EmbedBuilder embedBuilder = new EmbedBuilder()
+            .setTitle("Action Metrics")
+            .setColor(Color.ORANGE)
+            .setFooter("p50 / p99 / max in milliseconds");
+
+        for (ActionMetrics metrics : actions) {
+            StringBuilder value = new StringBuilder("Invocations: %d, Failures: %d\n"
+                .formatted(metrics.invocations(), metrics.failures()));
+
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram.Snapshot snapshot = metrics.histogram(phase).snapshot();
+                if (snapshot.count() != 0)
+                    value.append("`%-10s` %s / %s / %s\n".formatted(
+                        HalpbotUtils.capitalise(phase.name()),
+                        this.milliseconds(snapshot.p50()),
+                        this.milliseconds(snapshot.p99()),
+                        this.milliseconds(snapshot.max())));
+            }
+            embedBuilder.addField("%s %s".formatted(HalpbotUtils.capitalise(metrics.actionType().name()), metrics.name()),
+                value.toString(), false);
+        }
+        return embedBuilder.build();
+    }
+
+    private String milliseconds(long nanos) {
+        return "%.2f".formatted(nanos / 1_000_000D);
+    }
+
     @Command(description = "Retrieves the current status of the bot")
     public String status(JDA jda) {
         return String.format("The current status of the bot is: **%s**",
             HalpbotUtils.capitalise(jda.getStatus().toString()));
     }
 
+    @Permissions(user = Permission.MANAGE_SERVER)
+    @Command(description = "Sets the command prefix for this guild. If no prefix is specified, it's reset to the default")
+    public String prefix(@Source @Nullable Guild guild, CommandAdapter commandAdapter, @Unrequired("") String prefix) {
+        if (!this.guildPrefixService.useGuildPrefixes())
+            return "Guild prefixes have been disabled for this bot";
+        if (guild == null)
+            return "This cannot be used in a private message";
+        if (prefix.isEmpty()) {
+            this.guildPrefixService.resetPrefix(guild.getIdLong());
+            return "The prefix for this guild has been reset to `%s`".formatted(commandAdapter.defaultPrefix());
+        }
+
+        try {
+            this.guildPrefixService.prefix(guild.getIdLong(), prefix);
+        } catch (IllegalPrefixException e) {
+            return e.getMessage();
+        }
+        return "The prefix for this guild is now `%s`".formatted(prefix);
+    }
+
     //TODO: Make it so that it automatically throws an error when a field is null
     @Permissions(user = Permission.MANAGE_PERMISSIONS)
     @Command(description = "Binds a permission to a role")
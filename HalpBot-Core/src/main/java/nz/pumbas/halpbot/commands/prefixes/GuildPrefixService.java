@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.prefixes;
+
+import org.dockbox.hartshorn.core.context.ContextCarrier;
+import org.jetbrains.annotations.Nullable;
+
+import nz.pumbas.halpbot.commands.exceptions.IllegalPrefixException;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
+
+public interface GuildPrefixService extends ContextCarrier
+{
+    int MAX_PREFIX_LENGTH = 10;
+
+    /**
+     * @return If the guild prefixes are persisted. This can be determined from
+     * {@link BotConfiguration#useGuildPrefixes()}
+     */
+    boolean useGuildPrefixes();
+
+    /**
+     * Retrieves the custom prefix for the guild from the in-memory cache. This is called for every message received
+     * and so it will never block on the database. If the prefix hasn't been cached, then it will be loaded
+     * asynchronously and null is returned.
+     *
+     * @param guildId
+     *     The id of the guild
+     *
+     * @return The custom prefix of the guild, or null if the guild doesn't have one
+     */
+    @Nullable
+    String prefix(long guildId);
+
+    /**
+     * Sets the custom prefix for the guild. The cache is updated immediately while the change is written to the
+     * database asynchronously.
+     *
+     * @param guildId
+     *     The id of the guild
+     * @param prefix
+     *     The new prefix for the guild
+     *
+     * @throws IllegalPrefixException
+     *     If the prefix is blank or longer than {@link GuildPrefixService#MAX_PREFIX_LENGTH}
+     */
+    void prefix(long guildId, String prefix) throws IllegalPrefixException;
+
+    /**
+     * Removes the custom prefix for the guild so that it will use the default prefix again.
+     *
+     * @param guildId
+     *     The id of the guild
+     */
+    void resetPrefix(long guildId);
+
+    /**
+     * Waits for any pending changes to be written to the database and then stops the thread used to write them.
+     */
+    void shutdown();
+}
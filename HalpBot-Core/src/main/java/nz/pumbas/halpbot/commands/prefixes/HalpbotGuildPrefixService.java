@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.prefixes;
+
+import org.dockbox.hartshorn.core.Enableable;
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+import org.dockbox.hartshorn.data.remote.DerbyFileRemote;
+import org.dockbox.hartshorn.data.remote.PersistenceConnection;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.commands.exceptions.IllegalPrefixException;
+import nz.pumbas.halpbot.commands.prefixes.repositories.GuildPrefix;
+import nz.pumbas.halpbot.commands.prefixes.repositories.GuildPrefixRepository;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
+
+@Singleton
+@ComponentBinding(GuildPrefixService.class)
+public class HalpbotGuildPrefixService implements GuildPrefixService, Enableable
+{
+    // Cached for guilds known to not have a custom prefix, so that they're not repeatedly loaded from the database
+    private static final String NO_PREFIX = "";
+
+    @Getter
+    @Inject
+    private ApplicationContext applicationContext;
+    @Inject
+    private GuildPrefixRepository guildPrefixRepository;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    // Guarded by itself. It's access ordered so that the least recently used prefix is evicted when it's full
+    private final Map<Long, String> prefixCache = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            if (this.size() > HalpbotGuildPrefixService.this.maximumCacheSize) {
+                HalpbotGuildPrefixService.this.fullyCached = false;
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Set<Long> pendingLoads = ConcurrentHashMap.newKeySet();
+    // A single thread ensures that the writes for a guild are applied in the order they were made
+    private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "halpbot-guild-prefixes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Getter
+    private boolean useGuildPrefixes;
+    private int maximumCacheSize = Integer.MAX_VALUE;
+    private volatile boolean fullyCached = true;
+
+    @Override
+    public void enable() {
+        BotConfiguration config = this.applicationContext.get(BotConfiguration.class);
+        this.useGuildPrefixes = config.useGuildPrefixes();
+        this.maximumCacheSize = Math.max(1, config.guildPrefixCacheSize());
+
+        if (this.useGuildPrefixes) {
+            Path path = new File("Halpbot-Core-DB").toPath();
+            PersistenceConnection connection = DerbyFileRemote.INSTANCE.connection(path, "root", "");
+            this.applicationContext.log().info("Guild prefix database connection created");
+            this.guildPrefixRepository.connection(connection);
+            this.loadAll();
+        }
+    }
+
+    private void loadAll() {
+        Set<GuildPrefix> guildPrefixes = this.guildPrefixRepository.findAll();
+        int cached;
+        synchronized (this.prefixCache) {
+            for (GuildPrefix guildPrefix : guildPrefixes) {
+                if (this.prefixCache.size() >= this.maximumCacheSize) {
+                    this.fullyCached = false;
+                    break;
+                }
+                this.prefixCache.put(guildPrefix.guildId(), guildPrefix.prefix());
+            }
+            cached = this.prefixCache.size();
+        }
+        this.applicationContext.log().info("Loaded %d of %d guild prefixes into the cache"
+            .formatted(cached, guildPrefixes.size()));
+    }
+
+    @Override
+    @Nullable
+    public String prefix(long guildId) {
+        String prefix;
+        synchronized (this.prefixCache) {
+            prefix = this.prefixCache.get(guildId);
+        }
+        if (prefix == null) {
+            // If not every prefix could be cached, then we can't assume that the guild doesn't have one
+            if (!this.fullyCached)
+                this.loadAsync(guildId);
+            return null;
+        }
+        //noinspection StringEquality
+        return prefix == NO_PREFIX ? null : prefix;
+    }
+
+    private void loadAsync(long guildId) {
+        if (!this.pendingLoads.add(guildId))
+            return;
+
+        this.databaseExecutor.execute(() -> {
+            try {
+                String prefix = this.guildPrefixRepository.findById(guildId)
+                    .map(GuildPrefix::prefix)
+                    .or(NO_PREFIX);
+                synchronized (this.prefixCache) {
+                    this.prefixCache.putIfAbsent(guildId, prefix);
+                }
+            } finally {
+                this.pendingLoads.remove(guildId);
+            }
+        });
+    }
+
+    @Override
+    public void prefix(long guildId, String prefix) throws IllegalPrefixException {
+        if (prefix.isBlank())
+            throw new IllegalPrefixException("The prefix cannot be blank");
+        if (prefix.length() > MAX_PREFIX_LENGTH)
+            throw new IllegalPrefixException(
+                "The prefix cannot be longer than %d characters".formatted(MAX_PREFIX_LENGTH));
+
+        synchronized (this.prefixCache) {
+            this.prefixCache.put(guildId, prefix);
+        }
+        if (this.useGuildPrefixes)
+            this.writeAsync(() -> this.guildPrefixRepository.updateOrSave(new GuildPrefix(guildId, prefix)));
+    }
+
+    @Override
+    public void resetPrefix(long guildId) {
+        synchronized (this.prefixCache) {
+            if (this.fullyCached)
+                this.prefixCache.remove(guildId);
+            else this.prefixCache.put(guildId, NO_PREFIX);
+        }
+
+        if (this.useGuildPrefixes)
+            this.writeAsync(() -> this.guildPrefixRepository.findById(guildId)
+                .present(this.guildPrefixRepository::delete));
+    }
+
+    private void writeAsync(Runnable write) {
+        this.databaseExecutor.execute(() -> {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                this.applicationContext.log().error("There was an error while writing a guild prefix to the database", e);
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        this.databaseExecutor.shutdown();
+        try {
+            // Wait for any queued writes so that prefix changes aren't lost
+            if (!this.databaseExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                this.applicationContext.log().warn("Not all guild prefix changes were written before shutting down");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.slashcommands;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
+
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.context.ApplicationContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
+
+@Singleton
+@ComponentBinding(SlashCommandRegistrar.class)
+public class HalpbotSlashCommandRegistrar implements SlashCommandRegistrar
+{
+    private final Map<String, Map<String, CommandData>> definitions = new ConcurrentHashMap<>();
+    private final Set<String> forcedScopes = ConcurrentHashMap.newKeySet();
+
+    @Getter
+    @Inject
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void register(CommandData commandData, long[] guilds, boolean forceUpdate) {
+        if (guilds.length == 0)
+            this.register(GLOBAL_SCOPE, commandData, forceUpdate);
+        for (long guildId : guilds) {
+            this.register(Long.toString(guildId), commandData, forceUpdate);
+        }
+    }
+
+    private void register(String scope, CommandData commandData, boolean forceUpdate) {
+        this.definitions.computeIfAbsent(scope, key -> new ConcurrentHashMap<>())
+            .put(commandData.getName(), commandData);
+        if (forceUpdate)
+            this.forcedScopes.add(scope);
+    }
+
+    @Override
+    public void updateCommands(JDA jda) {
+        Path path = Path.of(this.applicationContext.get(BotConfiguration.class).slashCommandCache());
+        SlashCommandHashStore hashStore = new SlashCommandHashStore(path);
+        try {
+            hashStore.load();
+        } catch (IOException e) {
+            this.applicationContext.log()
+                .warn("There was an error loading the slash command hashes from %s, all slash commands will be updated"
+                    .formatted(path), e);
+        }
+
+        // Scopes that have been stored but no longer have any definitions need to be updated to remove their commands
+        Set<String> scopes = new HashSet<>(this.definitions.keySet());
+        scopes.addAll(hashStore.scopes());
+
+        int updatedScopes = 0;
+        for (String scope : scopes) {
+            Map<String, CommandData> commands = this.definitions.getOrDefault(scope, Map.of());
+            Map<String, String> hashes = new TreeMap<>();
+            commands.forEach((name, commandData) -> hashes.put(name, SlashCommandHashStore.hash(commandData)));
+
+            if (!this.forcedScopes.contains(scope) && hashes.equals(hashStore.hashes(scope)))
+                continue;
+
+            CommandListUpdateAction updateAction = this.updateAction(jda, scope);
+            if (updateAction == null)
+                continue;
+
+            updatedScopes++;
+            updateAction.addCommands(List.copyOf(commands.values()))
+                .queue(registered -> {
+                    try {
+                        hashStore.update(scope, hashes);
+                    } catch (IOException e) {
+                        this.applicationContext.log()
+                            .error("There was an error saving the slash command hashes to %s".formatted(path), e);
+                    }
+                    this.applicationContext.log().info("Updated the %d slash commands in the %s scope"
+                        .formatted(registered.size(), scope));
+                },
+                error -> this.applicationContext.log()
+                    .error("There was an error updating the slash commands in the %s scope".formatted(scope), error));
+        }
+
+        this.forcedScopes.clear();
+        this.applicationContext.log().info("%d of %d slash command scopes have changed and are being updated"
+            .formatted(updatedScopes, scopes.size()));
+    }
+
+    @Nullable
+    private CommandListUpdateAction updateAction(JDA jda, String scope) {
+        if (GLOBAL_SCOPE.equals(scope))
+            return jda.updateCommands();
+
+        Guild guild = jda.getGuildById(scope);
+        if (guild == null) {
+            // The stored hashes aren't updated, so this will be retried the next time the bot starts
+            this.applicationContext.log()
+                .warn("Cannot update the slash commands of the guild %s as the bot is not in it".formatted(scope));
+            return null;
+        }
+        return guild.updateCommands();
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.slashcommands;
+
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+
+import org.dockbox.hartshorn.core.context.element.ParameterContext;
+import org.dockbox.hartshorn.core.context.element.TypeContext;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.util.List;
+import java.util.Locale;
+
+import nz.pumbas.halpbot.actions.invokable.InvocationContextFactory;
+import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
+import nz.pumbas.halpbot.commands.exceptions.CommandException;
+import nz.pumbas.halpbot.converters.tokens.ParsingToken;
+import nz.pumbas.halpbot.converters.tokens.Token;
+import nz.pumbas.halpbot.utilities.Reflect;
+
+/**
+ * Binds the parameters of a slash command directly from the typed options of the {@link SlashCommandEvent}, rather
+ * than parsing them from a string. Only parameters of a type that can't be represented by an option, such as custom
+ * parameters, fall back to being parsed from the string value of their option using their converter.
+ */
+public final class OptionBinder
+{
+    private OptionBinder() {}
+
+    /**
+     * Retrieves the name of the option that the parameter is bound from. Discord requires option names to be lower
+     * case.
+     *
+     * @param parameterContext
+     *     The {@link ParameterContext} of the parameter
+     *
+     * @return The name of the option
+     */
+    public static String optionName(ParameterContext<?> parameterContext) {
+        return parameterContext.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Binds the parameters for the tokens in the invocation context from the options of the slash command. Source
+     * parameters are still retrieved using their converter.
+     *
+     * @param invocationContext
+     *     The {@link CommandInvocationContext} containing the tokens of the slash command
+     * @param event
+     *     The {@link SlashCommandEvent} to retrieve the options from
+     * @param parameterCount
+     *     The number of parameters of the slash command
+     *
+     * @return An {@link Exceptional} containing the bound parameters, or the error that occurred
+     */
+    public static Exceptional<Object[]> bind(CommandInvocationContext invocationContext,
+                                             SlashCommandEvent event,
+                                             int parameterCount) {
+        final List<Token> tokens = invocationContext.tokens();
+        final Object[] parameters = new Object[parameterCount];
+
+        int parameterIndex = 0;
+        for (int tokenIndex = 0; tokenIndex < tokens.size() && parameterIndex < parameterCount; tokenIndex++) {
+            // Placeholders can't be represented in a slash command, so they're ignored
+            if (!(tokens.get(tokenIndex) instanceof ParsingToken parsingToken))
+                continue;
+
+            Exceptional<Object> parameter;
+            if (parsingToken.isCommandParameter())
+                parameter = bindOption(invocationContext, event, parsingToken);
+            else {
+                invocationContext.update(parsingToken.parameterContext(), parsingToken.sortedAnnotations());
+                parameter = parsingToken.converter()
+                    .apply(invocationContext)
+                    .map(o -> o);
+            }
+
+            if (parameter.caught())
+                return Exceptional.of(parameter.error());
+            parameters[parameterIndex++] = parameter.orNull();
+        }
+
+        if (parameterIndex != parameterCount)
+            return Exceptional.of(new CommandException("There appears to be too few parameters for this command"));
+        return Exceptional.of(parameters);
+    }
+
+    private static Exceptional<Object> bindOption(CommandInvocationContext invocationContext,
+                                                  SlashCommandEvent event,
+                                                  ParsingToken parsingToken) {
+        ParameterContext<?> parameterContext = parsingToken.parameterContext();
+        OptionMapping option = event.getOption(optionName(parameterContext));
+        if (option == null) {
+            if (parsingToken.isOptional())
+                return Exceptional.of(parsingToken.defaultValue());
+            return Exceptional.of(new CommandException(
+                "The option %s is required".formatted(optionName(parameterContext))));
+        }
+
+        TypeContext<?> type = Reflect.wrapPrimative(parameterContext.type());
+        // Custom parameters, or parameters with an annotation that changes how they're converted, are still handled by
+        // their converter
+        if (!parsingToken.converter().annotationType().isVoid() || !isBindable(type.type()))
+            return parseOption(invocationContext, parsingToken, option);
+
+        return Exceptional.of(() -> bindValue(option, type));
+    }
+
+    private static boolean isBindable(Class<?> type) {
+        return type.isEnum()
+            || type == Long.class || type == Integer.class || type == Short.class || type == Byte.class
+            || type == Double.class || type == Float.class || type == Boolean.class
+            || type == String.class || type == Character.class
+            || type == User.class || type == Member.class || type == Role.class
+            || type == TextChannel.class || type == MessageChannel.class || type == GuildChannel.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object bindValue(OptionMapping option, TypeContext<?> type) {
+        Class<?> rawType = type.type();
+
+        if (rawType == Long.class)
+            return option.getAsLong();
+        if (rawType == Integer.class)
+            return Math.toIntExact(option.getAsLong());
+        if (rawType == Short.class)
+            return (short) checkRange(option.getAsLong(), Short.MIN_VALUE, Short.MAX_VALUE);
+        if (rawType == Byte.class)
+            return (byte) checkRange(option.getAsLong(), Byte.MIN_VALUE, Byte.MAX_VALUE);
+        if (rawType == Double.class)
+            return Double.parseDouble(option.getAsString());
+        if (rawType == Float.class)
+            return Float.parseFloat(option.getAsString());
+        if (rawType == Boolean.class)
+            return option.getAsBoolean();
+        if (rawType == String.class)
+            return option.getAsString();
+        if (rawType == Character.class)
+            return option.getAsString().charAt(0);
+        if (rawType.isEnum())
+            return Reflect.parseEnumValue((TypeContext<Enum<?>>) type, option.getAsString())
+                .rethrowUnchecked()
+                .get();
+        if (rawType == User.class)
+            return option.getAsUser();
+        if (rawType == Member.class) {
+            Member member = option.getAsMember();
+            if (member == null)
+                throw new UnsupportedOperationException("You can't specify a member in a private message");
+            return member;
+        }
+        if (rawType == Role.class)
+            return option.getAsRole();
+        if (rawType == MessageChannel.class) {
+            MessageChannel channel = option.getAsMessageChannel();
+            if (channel == null)
+                throw new CommandException("The channel %s is not a text channel".formatted(option.getAsString()));
+            return channel;
+        }
+        GuildChannel channel = option.getAsGuildChannel();
+        if (rawType == TextChannel.class && !(channel instanceof TextChannel))
+            throw new CommandException("The channel %s is not a text channel".formatted(channel.getName()));
+        return channel;
+    }
+
+    private static long checkRange(long value, long min, long max) {
+        if (value < min || value > max)
+            throw new ArithmeticException("%d must be between %d and %d".formatted(value, min, max));
+        return value;
+    }
+
+    /**
+     * Parses the string value of the option using the token's converter, for types that can't be bound directly.
+     */
+    private static Exceptional<Object> parseOption(CommandInvocationContext invocationContext,
+                                                   ParsingToken parsingToken,
+                                                   OptionMapping option) {
+        CommandInvocationContext optionContext = invocationContext.applicationContext()
+            .get(InvocationContextFactory.class)
+            .command(option.getAsString(), invocationContext.halpbotEvent());
+        optionContext.reflections(invocationContext.reflections());
+        optionContext.update(parsingToken.parameterContext(), parsingToken.sortedAnnotations());
+
+        Exceptional<Object> parameter = parsingToken.converter()
+            .apply(optionContext)
+            .map(o -> o);
+        if (parameter.present() && optionContext.hasNext())
+            return Exceptional.of(new CommandException(
+                "The option %s couldn't be parsed".formatted(optionName(parsingToken.parameterContext()))));
+        return parameter;
+    }
+}
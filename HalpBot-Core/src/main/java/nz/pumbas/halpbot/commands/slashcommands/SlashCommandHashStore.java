@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.slashcommands;
+
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Stores the hash of each registered slash command on disk, grouped by the scope they were registered in, so that
+ * unchanged commands don't need to be registered again when the bot restarts. The hashes are stored in a properties
+ * file where each key is in the format {@code scope.name}.
+ */
+public class SlashCommandHashStore
+{
+    private final Path path;
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    public SlashCommandHashStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Loads the stored hashes from disk, replacing any hashes currently in the store. If there is no file, then the
+     * store is left empty.
+     *
+     * @throws IOException
+     *     If there was an error reading the file
+     */
+    public synchronized void load() throws IOException {
+        this.hashes.clear();
+        if (!Files.exists(this.path))
+            return;
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(this.path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.indexOf('.');
+            if (separator == -1) continue;
+
+            this.hashes.computeIfAbsent(key.substring(0, separator), scope -> new TreeMap<>())
+                .put(key.substring(separator + 1), properties.getProperty(key));
+        }
+    }
+
+    /**
+     * @return The hashes of the commands last registered in the scope, mapped by their name
+     */
+    public synchronized Map<String, String> hashes(String scope) {
+        return new TreeMap<>(this.hashes.getOrDefault(scope, Map.of()));
+    }
+
+    /**
+     * @return The scopes that commands have previously been registered in
+     */
+    public synchronized Set<String> scopes() {
+        return Set.copyOf(this.hashes.keySet());
+    }
+
+    /**
+     * Replaces the hashes stored for the scope and writes the store to disk.
+     *
+     * @param scope
+     *     The scope the commands were registered in
+     * @param hashes
+     *     The hashes of the commands mapped by their name, or an empty map if there are no longer any commands in
+     *     the scope
+     *
+     * @throws IOException
+     *     If there was an error writing the file
+     */
+    public synchronized void update(String scope, Map<String, String> hashes) throws IOException {
+        if (hashes.isEmpty())
+            this.hashes.remove(scope);
+        else this.hashes.put(scope, new TreeMap<>(hashes));
+
+        Properties properties = new Properties();
+        this.hashes.forEach((storedScope, storedHashes) ->
+            storedHashes.forEach((name, hash) -> properties.setProperty(storedScope + "." + name, hash)));
+
+        Path parent = this.path.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        try (Writer writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8)) {
+            properties.store(writer, "The hashes of the registered slash commands");
+        }
+    }
+
+    /**
+     * Creates a stable hash of the {@link CommandData}. Unlike the JSON representation of the command, the hash only
+     * depends on the fields of the command that are sent to discord and not the order they're serialised in.
+     *
+     * @param commandData
+     *     The {@link CommandData} to hash
+     *
+     * @return The hexadecimal SHA-256 hash of the command
+     */
+    public static String hash(CommandData commandData) {
+        StringBuilder builder = new StringBuilder()
+            .append(commandData.getName()).append('\0')
+            .append(commandData.getDescription()).append('\0');
+
+        for (OptionData option : commandData.getOptions()) {
+            builder.append(option.getType().name()).append('\0')
+                .append(option.getName()).append('\0')
+                .append(option.getDescription()).append('\0')
+                .append(option.isRequired()).append('\0');
+            for (Choice choice : option.getChoices()) {
+                builder.append(choice.getName()).append('=').append(choice.getAsString()).append('\0');
+            }
+            builder.append('\n');
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+            return "%064x".formatted(new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            // Every implementation of the Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands.slashcommands;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+import org.dockbox.hartshorn.core.context.ContextCarrier;
+
+import nz.pumbas.halpbot.commands.annotations.SlashCommand;
+
+public interface SlashCommandRegistrar extends ContextCarrier
+{
+    /**
+     * The scope of the commands which are registered globally, rather than to a specific guild.
+     */
+    String GLOBAL_SCOPE = "global";
+
+    /**
+     * Adds the definition of a slash command so that it's registered with discord when {@link #updateCommands(JDA)}
+     * is called. Any slash command which was previously registered but has no definition will be removed.
+     *
+     * @param commandData
+     *     The {@link CommandData} defining the slash command
+     * @param guilds
+     *     The ids of the guilds to register the slash command in, or an empty array to register it globally
+     * @param forceUpdate
+     *     If the command should be updated even if its definition hasn't changed. See {@link SlashCommand#register()}
+     */
+    void register(CommandData commandData, long[] guilds, boolean forceUpdate);
+
+    /**
+     * Updates the slash commands registered with discord. The hash of each scope's definitions is compared against
+     * the hashes stored from the last update and only the scopes that have changed are updated, using a single bulk
+     * update per scope.
+     *
+     * @param jda
+     *     The {@link JDA} instance to update the commands of
+     */
+    void updateCommands(JDA jda);
+}
@@ -8,12 +8,14 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import nz.pumbas.halpbot.adapters.UseReactions;
 import nz.pumbas.halpbot.buttons.UseButtons;
 import nz.pumbas.halpbot.commands.annotations.UseCommands;
 import nz.pumbas.halpbot.triggers.UseTriggers;
 
 @UseButtons
 @UseCommands
+@UseReactions
 @UseTriggers
 @ServiceActivator(scanPackages = "nz.pumbas.halpbot")
 @Retention(RetentionPolicy.RUNTIME)
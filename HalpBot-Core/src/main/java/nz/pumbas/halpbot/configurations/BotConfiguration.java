@@ -53,4 +53,53 @@ public class BotConfiguration
 
     @Value("useRoleBinding")
     private boolean useRoleBinding;
+
+    @Value("useGuildPrefixes")
+    private boolean useGuildPrefixes;
+
+    @Value("guildPrefixCacheSize")
+    private int guildPrefixCacheSize = 10_000;
+
+    @Value("executionThreads")
+    private int executionThreads = Runtime.getRuntime().availableProcessors();
+
+    @Value("useVirtualThreads")
+    private boolean useVirtualThreads;
+
+    @Value("maxQueueDepth")
+    private int maxQueueDepth = 1024;
+
+    @Value("maxChannelQueueDepth")
+    private int maxChannelQueueDepth = 16;
+
+    @Value("overloadPolicy")
+    private String overloadPolicy = "REJECT";
+
+    @Value("compileParsers")
+    private boolean compileParsers;
+
+    // If this is empty, several commands can't be sent in a single message
+    @Value("commandSeparator")
+    private String commandSeparator = "";
+
+    @Value("maxPipelinedCommands")
+    private int maxPipelinedCommands = 5;
+
+    @Value("triggerContent")
+    private String triggerContent = "DISPLAY";
+
+    @Value("slashCommandCache")
+    private String slashCommandCache = "slash-commands.properties";
+
+    // If this is blank, the state of dynamic buttons isn't saved
+    @Value("buttonStateJournal")
+    private String buttonStateJournal = "";
+
+    // Additional ObjectInputFilter patterns for the classes of button parameters that can be restored
+    @Value("buttonStateClasses")
+    private String buttonStateClasses = "";
+
+    // If this is negative, the shard id is used instead. Each process must have a unique node id
+    @Value("nodeId")
+    private int nodeId = -1;
 }
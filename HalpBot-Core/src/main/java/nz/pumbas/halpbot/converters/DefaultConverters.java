@@ -344,7 +344,7 @@ public class DefaultConverters
                     .map(guild::getRoleById);
             return role;
         })
-        .optionType(OptionType.CHANNEL)
+        .optionType(OptionType.ROLE)
         .build();
 
     public static final TypeConverter<Member> MEMBER_CONVERTER = TypeConverter.builder(Member.class)
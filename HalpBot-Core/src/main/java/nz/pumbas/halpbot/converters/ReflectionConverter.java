@@ -27,9 +27,12 @@ package nz.pumbas.halpbot.converters;
 import org.dockbox.hartshorn.core.context.element.TypeContext;
 import org.dockbox.hartshorn.core.domain.Exceptional;
 
-import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import nz.pumbas.halpbot.commands.CommandAdapter;
+import nz.pumbas.halpbot.commands.ReflectiveCommandIndex;
+import nz.pumbas.halpbot.commands.ReflectiveCommandIndex.Partitions;
 import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
 import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
 import nz.pumbas.halpbot.utilities.HalpbotUtils;
@@ -37,22 +40,34 @@ import nz.pumbas.halpbot.utilities.HalpbotUtils;
 public interface ReflectionConverter
 {
     default Exceptional<Object> parseReflection(CommandInvocationContext invocationContext) {
-        if (!invocationContext.reflections().isEmpty()) {
-            TypeContext<?> targetType = invocationContext.currentType();
+        Set<TypeContext<?>> reflections = invocationContext.reflections();
+        if (!reflections.isEmpty() && invocationContext.hasNext()) {
+            // Look up the method name directly from the content to avoid creating a substring for every argument
+            String content = invocationContext.content();
+            int nameStart = invocationContext.currentIndex();
+            int nameEnd = content.indexOf('(', nameStart);
+            if (nameEnd != -1) {
+                invocationContext.currentIndex(nameEnd + 1);
+                invocationContext.skipPastWhitespaces();
 
-            Exceptional<String> methodName = invocationContext.next("(");
-            if (methodName.present()) {
-                CommandAdapter commandAdapter = invocationContext.applicationContext().get(CommandAdapter.class);
-                Collection<CommandContext> commandContexts = commandAdapter.reflectiveCommandContext(
-                    targetType, methodName.get(), invocationContext.reflections());
-                if (!commandContexts.isEmpty()) {
+                ReflectiveCommandIndex index = invocationContext.applicationContext()
+                    .get(CommandAdapter.class)
+                    .reflectiveCommandIndex();
+                Partitions partitions = index.get(invocationContext.currentType(), content, nameStart, nameEnd);
+                if (partitions != null) {
                     int currentIndex = invocationContext.currentIndex();
                     invocationContext.canHaveContextLeft(true);
-                    for (CommandContext commandContext : commandContexts) {
-                        Exceptional<Object> result = commandContext.invoke(invocationContext);
-                        if (!result.caught() && invocationContext.isNext(')'))
-                            return result;
-                        else invocationContext.currentIndex(currentIndex);
+                    for (int i = 0; i < partitions.size(); i++) {
+                        if (!reflections.contains(partitions.declaringType(i)))
+                            continue;
+
+                        List<CommandContext> commandContexts = partitions.commands(i);
+                        for (int j = 0; j < commandContexts.size(); j++) {
+                            Exceptional<Object> result = commandContexts.get(j).invoke(invocationContext);
+                            if (!result.caught() && invocationContext.isNext(')'))
+                                return result;
+                            else invocationContext.currentIndex(currentIndex);
+                        }
                     }
                 }
             }
@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.decorators.memoize;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.temporal.ChronoUnit;
+
+import nz.pumbas.halpbot.decorators.Decorator;
+import nz.pumbas.halpbot.decorators.Order;
+import nz.pumbas.halpbot.utilities.Duration;
+
+/**
+ * Caches the results of an action so that repeated invocations with the same input don't need to invoke the action
+ * again. This should only be used on actions that are pure functions of their parameters.
+ */
+@Decorator(value = MemoizeDecoratorFactory.class, order = Order.LAST)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Memoize
+{
+    /**
+     * What the cached results should be keyed by. If the action uses information from the event, such as the user
+     * who invoked it, then {@link MemoizeKey#PARAMETERS} should be used.
+     */
+    MemoizeKey key() default MemoizeKey.CONTENT;
+
+    /**
+     * The maximum number of results cached for the action before the least recently used result is evicted.
+     */
+    int maxSize() default 256;
+
+    /**
+     * How long a result is cached for after it was first computed.
+     */
+    Duration ttl() default @Duration(value = 10, unit = ChronoUnit.MINUTES);
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.decorators.memoize;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size bounded, least recently used cache where each entry expires a fixed duration after it was added. The number
+ * of hits, misses and evictions are recorded so that the effectiveness of the cache can be monitored.
+ *
+ * @param <K>
+ *     The type of the keys
+ * @param <V>
+ *     The type of the cached values
+ */
+public class MemoizeCache<K, V>
+{
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+
+    public MemoizeCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("The max size of the cache must be positive");
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (this.size() > MemoizeCache.this.maxSize) {
+                    MemoizeCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the value cached for the key if it hasn't expired.
+     *
+     * @param key
+     *     The key of the value
+     *
+     * @return The cached value, or null if there is no value cached for the key
+     */
+    @Nullable
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (this.entries) {
+            Entry<V> entry = this.entries.get(key);
+            if (entry != null) {
+                if (now - entry.expiresAt < 0) {
+                    this.hits.increment();
+                    return entry.value;
+                }
+                this.entries.remove(key);
+                this.evictions.increment();
+            }
+        }
+        this.misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the value for the key, replacing any existing value. If the cache is full, the least recently used
+     * value is evicted.
+     */
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + this.ttlNanos);
+        synchronized (this.entries) {
+            this.entries.put(key, entry);
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The number of values that have been removed because the cache was full or they had expired
+     */
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return The fraction of lookups that were hits, or 0 if there haven't been any lookups
+     */
+    public double hitRate() {
+        long hits = this.hits();
+        long total = hits + this.misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
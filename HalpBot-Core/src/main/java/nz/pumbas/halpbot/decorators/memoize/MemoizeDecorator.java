@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.decorators.memoize;
+
+import net.dv8tion.jda.api.requests.RestAction;
+
+import org.dockbox.hartshorn.core.annotations.inject.Bound;
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+import nz.pumbas.halpbot.actions.invokable.ActionInvokable;
+import nz.pumbas.halpbot.actions.invokable.ActionInvokableDecorator;
+import nz.pumbas.halpbot.actions.invokable.InvocationContext;
+import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
+import nz.pumbas.halpbot.commands.annotations.Reflective;
+import nz.pumbas.halpbot.utilities.HalpbotUtils;
+
+@ComponentBinding(MemoizeDecorator.class)
+public class MemoizeDecorator<C extends InvocationContext> extends ActionInvokableDecorator<C>
+{
+    @Getter
+    private final MemoizeCache<Object, Object> cache;
+    private final MemoizeKey key;
+    private final boolean isReflective;
+
+    @Bound
+    public MemoizeDecorator(ActionInvokable<C> actionInvokable, Memoize memoize) {
+        super(actionInvokable);
+        this.cache = new MemoizeCache<>(memoize.maxSize(), HalpbotUtils.asDuration(memoize.ttl()));
+        this.key = memoize.key();
+        this.isReflective = this.executable().annotation(Reflective.class).present();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> Exceptional<R> invoke(C invocationContext) {
+        if (this.key == MemoizeKey.CONTENT && invocationContext instanceof CommandInvocationContext commandContext) {
+            // Reflective commands are parsed from part of the content and slash commands are bound from their options,
+            // so the content doesn't identify their input
+            if (!this.isReflective && commandContext.slashCommandEvent() == null) {
+                String content = HalpbotUtils.collapseWhitespace(commandContext.content()).strip();
+                Object cached = this.cache.get(content);
+                if (cached != null)
+                    return Exceptional.of((R) cached);
+
+                Exceptional<R> result = super.invoke(invocationContext);
+                return result.map(value -> (R) this.cache(content, value));
+            }
+        }
+
+        Exceptional<Object[]> parameters = this.parameters(invocationContext);
+        if (parameters.absent())
+            return Exceptional.of(parameters.error());
+
+        ParametersKey parametersKey = new ParametersKey(parameters.get());
+        Object cached = this.cache.get(parametersKey);
+        if (cached != null)
+            return Exceptional.of((R) cached);
+
+        Exceptional<R> result = this.invoke(parameters.get());
+        return result.map(value -> (R) this.cache(parametersKey, value));
+    }
+
+    /**
+     * Caches the result of the action. The result object itself is cached and rendered when it's displayed, so that
+     * a hit is displayed the same way as the original result. Results with side effects, such as a
+     * {@link RestAction}, are never cached.
+     *
+     * @return The result of the action
+     */
+    private Object cache(Object key, Object result) {
+        if (!(result instanceof RestAction))
+            this.cache.put(key, result);
+        return result;
+    }
+
+    private record ParametersKey(Object[] parameters)
+    {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ParametersKey other && Arrays.deepEquals(this.parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.deepHashCode(this.parameters);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.deepToString(this.parameters);
+        }
+    }
+}
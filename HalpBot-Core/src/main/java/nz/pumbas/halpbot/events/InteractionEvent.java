@@ -29,12 +29,14 @@ import net.dv8tion.jda.api.entities.AbstractChannel;
 import net.dv8tion.jda.api.entities.ChannelType;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.PrivateChannel;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.interactions.Interaction;
+import net.dv8tion.jda.api.requests.restaction.WebhookMessageAction;
 import net.dv8tion.jda.api.requests.restaction.interactions.ReplyAction;
 
 import org.jetbrains.annotations.Nullable;
@@ -44,6 +46,7 @@ import java.util.concurrent.TimeUnit;
 public class InteractionEvent implements HalpbotEvent
 {
     private final Interaction interaction;
+    private volatile boolean hasReplied;
 
     public InteractionEvent(Interaction interaction) {
         this.interaction = interaction;
@@ -102,14 +105,39 @@ public class InteractionEvent implements HalpbotEvent
         return this.interaction.getMember();
     }
 
+    /**
+     * Acknowledges the interaction so that it can be responded to after Discord's 3 second limit, such as when it's
+     * handled off the event thread. Any replies are then sent through the interaction hook.
+     *
+     * @param isEphemeral
+     *     If the response should be ephemeral, as this can't be changed once the interaction has been acknowledged
+     */
+    public void deferReply(boolean isEphemeral) {
+        this.interaction.deferReply(isEphemeral).queue();
+    }
+
+    /**
+     * Deletes the deferred response if nothing was ever sent in reply to it, so that it isn't left loading forever.
+     */
+    public void completeDeferredReply() {
+        if (this.interaction.isAcknowledged() && !this.hasReplied)
+            this.interaction.getHook().deleteOriginal().queue();
+    }
+
     @Override
     public void reply(String message) {
-        this.interaction.reply(message).queue();
+        this.hasReplied = true;
+        if (this.interaction.isAcknowledged())
+            this.interaction.getHook().sendMessage(message).queue();
+        else this.interaction.reply(message).queue();
     }
 
     @Override
     public void reply(MessageEmbed embed) {
-        this.interaction.replyEmbeds(embed).queue();
+        this.hasReplied = true;
+        if (this.interaction.isAcknowledged())
+            this.interaction.getHook().sendMessageEmbeds(embed).queue();
+        else this.interaction.replyEmbeds(embed).queue();
     }
 
     /**
@@ -123,11 +151,10 @@ public class InteractionEvent implements HalpbotEvent
      */
     @Override
     public void replyTemporarily(String message, long seconds) {
-        ReplyAction replyAction = this.interaction.reply(message);
-        if (seconds < 1)
-            replyAction.setEphemeral(true).queue();
-        else replyAction.queue(
-            m -> m.deleteOriginal().queueAfter(seconds, TimeUnit.SECONDS));
+        this.hasReplied = true;
+        if (this.interaction.isAcknowledged())
+            this.replyTemporarily(this.interaction.getHook().sendMessage(message), seconds);
+        else this.replyTemporarily(this.interaction.reply(message), seconds);
     }
 
     /**
@@ -141,11 +168,25 @@ public class InteractionEvent implements HalpbotEvent
      */
     @Override
     public void replyTemporarily(MessageEmbed embed, long seconds) {
-        ReplyAction replyAction = this.interaction.replyEmbeds(embed);
+        this.hasReplied = true;
+        if (this.interaction.isAcknowledged())
+            this.replyTemporarily(this.interaction.getHook().sendMessageEmbeds(embed), seconds);
+        else this.replyTemporarily(this.interaction.replyEmbeds(embed), seconds);
+    }
+
+    private void replyTemporarily(ReplyAction replyAction, long seconds) {
         if (seconds < 1)
             replyAction.setEphemeral(true).queue();
         else replyAction.queue(
             m -> m.deleteOriginal().queueAfter(seconds, TimeUnit.SECONDS));
+    }
 
+    // The first message sent through the hook replaces the deferred response, so it's only ephemeral if the
+    // reply was deferred as ephemeral
+    private void replyTemporarily(WebhookMessageAction<Message> messageAction, long seconds) {
+        if (seconds < 1)
+            messageAction.setEphemeral(true).queue();
+        else messageAction.queue(
+            m -> this.interaction.getHook().deleteMessageById(m.getIdLong()).queueAfter(seconds, TimeUnit.SECONDS));
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * An immutable Aho-Corasick automaton, which finds every occurrence of a set of patterns in a single pass over the
+ * text. The time to scan a text is proportional to its length plus the number of matches, regardless of how many
+ * patterns there are. Patterns are identified by their index in the list the automaton was built from.
+ * <p>
+ * If the automaton ignores case, then each character is folded as it's scanned, so the text never needs to be
+ * lowered beforehand.
+ */
+public class AhoCorasickAutomaton
+{
+    private static final int ROOT = 0;
+    private static final int[] NO_OUTPUTS = new int[0];
+
+    // The transitions of each state, with the keys sorted so that they can be binary searched
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failures;
+    // The closest state reachable through failure links that has outputs, or -1 if there isn't one
+    private final int[] dictionaryLinks;
+    private final int[][] outputs;
+    private final int[] patternLengths;
+    private final boolean ignoreCase;
+
+    public AhoCorasickAutomaton(List<? extends CharSequence> patterns) {
+        this(patterns, false);
+    }
+
+    public AhoCorasickAutomaton(List<? extends CharSequence> patterns, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        List<StringBuilder> stateKeys = new ArrayList<>();
+        List<List<Integer>> stateTargets = new ArrayList<>();
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        stateKeys.add(new StringBuilder());
+        stateTargets.add(new ArrayList<>());
+        stateOutputs.add(new ArrayList<>());
+
+        this.patternLengths = new int[patterns.size()];
+        for (int pattern = 0; pattern < patterns.size(); pattern++) {
+            CharSequence chars = patterns.get(pattern);
+            this.patternLengths[pattern] = chars.length();
+
+            int state = ROOT;
+            for (int i = 0; i < chars.length(); i++) {
+                char c = this.fold(chars.charAt(i));
+                int index = stateKeys.get(state).indexOf(String.valueOf(c));
+                if (index == -1) {
+                    stateKeys.get(state).append(c);
+                    stateTargets.get(state).add(stateKeys.size());
+                    stateKeys.add(new StringBuilder());
+                    stateTargets.add(new ArrayList<>());
+                    stateOutputs.add(new ArrayList<>());
+                    state = stateKeys.size() - 1;
+                }
+                else state = stateTargets.get(state).get(index);
+            }
+            stateOutputs.get(state).add(pattern);
+        }
+
+        int stateCount = stateKeys.size();
+        this.keys = new char[stateCount][];
+        this.targets = new int[stateCount][];
+        this.outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            this.sortTransitions(state, stateKeys.get(state), stateTargets.get(state));
+            List<Integer> outputs = stateOutputs.get(state);
+            this.outputs[state] = outputs.isEmpty()
+                ? NO_OUTPUTS
+                : outputs.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.failures = new int[stateCount];
+        this.dictionaryLinks = new int[stateCount];
+        this.buildFailureLinks();
+    }
+
+    private void sortTransitions(int state, CharSequence keys, List<Integer> targets) {
+        Integer[] order = new Integer[keys.length()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Character.compare(keys.charAt(a), keys.charAt(b)));
+
+        this.keys[state] = new char[order.length];
+        this.targets[state] = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.keys[state][i] = keys.charAt(order[i]);
+            this.targets[state][i] = targets.get(order[i]);
+        }
+    }
+
+    private void buildFailureLinks() {
+        // The failure links are built breadth first, so that the failure link of every shallower state is known
+        Queue<Integer> queue = new ArrayDeque<>();
+        this.dictionaryLinks[ROOT] = -1;
+        for (int child : this.targets[ROOT]) {
+            this.failures[child] = ROOT;
+            this.dictionaryLinks[child] = this.outputs[ROOT].length == 0 ? -1 : ROOT;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int i = 0; i < this.keys[state].length; i++) {
+                char c = this.keys[state][i];
+                int child = this.targets[state][i];
+
+                int failure = this.failures[state];
+                int next = this.transition(failure, c);
+                while (next == -1 && failure != ROOT) {
+                    failure = this.failures[failure];
+                    next = this.transition(failure, c);
+                }
+                this.failures[child] = next == -1 ? ROOT : next;
+
+                int failureState = this.failures[child];
+                this.dictionaryLinks[child] = this.outputs[failureState].length != 0
+                    ? failureState
+                    : this.dictionaryLinks[failureState];
+                queue.add(child);
+            }
+        }
+    }
+
+    private char fold(char c) {
+        return this.ignoreCase ? Character.toLowerCase(c) : c;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(this.keys[state], c);
+        return index < 0 ? -1 : this.targets[state][index];
+    }
+
+    /**
+     * @return The number of patterns this automaton matches
+     */
+    public int patternCount() {
+        return this.patternLengths.length;
+    }
+
+    /**
+     * @return The length of the pattern
+     */
+    public int patternLength(int pattern) {
+        return this.patternLengths[pattern];
+    }
+
+    /**
+     * @return If the automaton matches patterns regardless of their case
+     */
+    public boolean ignoreCase() {
+        return this.ignoreCase;
+    }
+
+    /**
+     * Scans the text, calling the listener for every occurrence of each pattern, including overlapping occurrences.
+     * Empty patterns are only reported once, at the start of the text.
+     *
+     * @param text
+     *     The text to scan
+     * @param listener
+     *     The {@link MatchListener} to call for each match
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        for (int pattern : this.outputs[ROOT]) {
+            listener.onMatch(pattern, 0);
+        }
+
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = this.fold(text.charAt(i));
+            int next = this.transition(state, c);
+            while (next == -1 && state != ROOT) {
+                state = this.failures[state];
+                next = this.transition(state, c);
+            }
+            state = next == -1 ? ROOT : next;
+
+            for (int output = state; output > ROOT; output = this.dictionaryLinks[output]) {
+                for (int pattern : this.outputs[output]) {
+                    listener.onMatch(pattern, i + 1 - this.patternLengths[pattern]);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface MatchListener
+    {
+        /**
+         * Called when a pattern is found in the text.
+         *
+         * @param pattern
+         *     The index of the pattern that was matched
+         * @param start
+         *     The index in the text where the match starts
+         */
+        void onMatch(int pattern, int start);
+    }
+}
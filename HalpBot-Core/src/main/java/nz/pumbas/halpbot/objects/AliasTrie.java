@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A case-insensitive trie keyed by {@code char}, which allows a key to be looked up directly from a region of a
+ * {@link CharSequence} without having to create any intermediate strings. Lookups are lock-free, while insertions
+ * are synchronised and publish each modified node by replacing its child array.
+ *
+ * @param <T>
+ *     The type of the values stored in the trie
+ */
+public class AliasTrie<T>
+{
+    private final Node<T> root = new Node<>('\0');
+    private int size;
+
+    /**
+     * Maps the key to the value. The key is case-insensitive, so any existing value for a key that only differs in
+     * case will be replaced.
+     *
+     * @param key
+     *     The key to map the value to
+     * @param value
+     *     The value to store
+     *
+     * @return The previous value mapped to the key, or null if there wasn't one
+     */
+    @Nullable
+    public synchronized T put(CharSequence key, T value) {
+        Node<T> node = this.root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(fold(key.charAt(i)));
+        }
+
+        T previous = node.value;
+        node.value = value;
+        if (previous == null)
+            this.size++;
+        return previous;
+    }
+
+    /**
+     * Retrieves the value mapped to the key.
+     *
+     * @param key
+     *     The case-insensitive key
+     *
+     * @return The value, or null if there is no value mapped to the key
+     */
+    @Nullable
+    public T get(CharSequence key) {
+        return this.get(key, 0, key.length());
+    }
+
+    /**
+     * Retrieves the value mapped to the region of the source between the start (inclusive) and end (exclusive)
+     * indices. No strings are created while looking up the value.
+     *
+     * @param source
+     *     The source containing the key
+     * @param start
+     *     The index of the first character of the key
+     * @param end
+     *     The index after the last character of the key
+     *
+     * @return The value, or null if there is no value mapped to the region
+     */
+    @Nullable
+    public T get(CharSequence source, int start, int end) {
+        Node<T> node = this.root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.child(fold(source.charAt(i)));
+        }
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(CharSequence key) {
+        return this.get(key) != null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    private static final class Node<T>
+    {
+        @SuppressWarnings("rawtypes")
+        private static final Node[] EMPTY = new Node[0];
+
+        private final char key;
+        @SuppressWarnings("unchecked")
+        private volatile Node<T>[] children = EMPTY;
+        @Nullable
+        private volatile T value;
+
+        private Node(char key) {
+            this.key = key;
+        }
+
+        @Nullable
+        private Node<T> child(char c) {
+            Node<T>[] children = this.children;
+            int low = 0;
+            int high = children.length - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midKey = children[mid].key;
+                if (midKey < c)
+                    low = mid + 1;
+                else if (midKey > c)
+                    high = mid - 1;
+                else return children[mid];
+            }
+            return null;
+        }
+
+        private Node<T> childOrCreate(char c) {
+            Node<T> child = this.child(c);
+            if (child != null)
+                return child;
+
+            Node<T>[] children = this.children;
+            int index = 0;
+            while (index < children.length && children[index].key < c)
+                index++;
+
+            Node<T>[] newChildren = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            child = new Node<>(c);
+            newChildren[index] = child;
+            this.children = newChildren;
+            return child;
+        }
+    }
+}
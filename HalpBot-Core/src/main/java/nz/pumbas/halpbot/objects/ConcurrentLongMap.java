@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.LongFunction;
+
+/**
+ * A thread-safe map with primitive {@code long} keys. The keys are split across a fixed number of {@link LongMap}
+ * segments, each of which is guarded by its own lock, so operations on keys in different segments don't contend with
+ * each other. As with {@link LongMap}, values cannot be null.
+ *
+ * @param <V> The type of the values
+ */
+public class ConcurrentLongMap<V>
+{
+    private static final int SEGMENT_BITS = 4;
+
+    private final LongMap<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap() {
+        this.segments = new LongMap[1 << SEGMENT_BITS];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new LongMap<>();
+        }
+    }
+
+    @Nullable
+    public V get(long key) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    /**
+     * @see LongMap#put(long, Object)
+     */
+    @Nullable
+    public V put(long key, V value) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    /**
+     * @see LongMap#putIfAbsent(long, Object)
+     */
+    @Nullable
+    public V putIfAbsent(long key, V value) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.putIfAbsent(key, value);
+        }
+    }
+
+    /**
+     * Returns the value associated with the key, otherwise computes it using the mapping function. The mapping
+     * function is called while holding the lock of the key's segment, so it should be short and must not modify this
+     * map.
+     *
+     * @see LongMap#computeIfAbsent(long, LongFunction)
+     */
+    @Nullable
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.computeIfAbsent(key, mappingFunction);
+        }
+    }
+
+    /**
+     * @see LongMap#remove(long)
+     */
+    @Nullable
+    public V remove(long key) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    /**
+     * @see LongMap#remove(long, Object)
+     */
+    public boolean remove(long key, Object value) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.remove(key, value);
+        }
+    }
+
+    /**
+     * @see LongMap#replace(long, Object, Object)
+     */
+    public boolean replace(long key, Object oldValue, V newValue) {
+        LongMap<V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.replace(key, oldValue, newValue);
+        }
+    }
+
+    /**
+     * @return The number of entries in this map. This isn't a snapshot, as each segment is counted separately
+     */
+    public int size() {
+        int size = 0;
+        for (LongMap<V> segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Performs the action for each entry in this map, one segment at a time. The action is called while holding the
+     * lock of the entry's segment, so it must not modify this map.
+     */
+    public void forEach(LongMap.LongObjectConsumer<? super V> action) {
+        for (LongMap<V> segment : this.segments) {
+            synchronized (segment) {
+                segment.forEach(action);
+            }
+        }
+    }
+
+    private LongMap<V> segment(long key) {
+        // The upper bits are used so that the segment is independent of the slot within the segment
+        return this.segments[(int) (LongMap.mix(key) >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * A map with primitive {@code long} keys, which uses open addressing with linear probing so that entries are stored
+ * directly in two parallel arrays rather than in boxed keys and separate entry nodes. Values cannot be null, as a null
+ * value is used to represent an empty slot. This map is not thread-safe, see {@link ConcurrentLongMap}.
+ *
+ * @param <V> The type of the values
+ */
+public class LongMap<V>
+{
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    public LongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongMap(int expectedSize) {
+        this.allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return The number of slots in the backing arrays
+     */
+    int capacity() {
+        return this.values.length;
+    }
+
+    public boolean containsKey(long key) {
+        return this.indexOf(key) != -1;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = this.indexOf(key);
+        return index == -1 ? null : (V) this.values[index];
+    }
+
+    /**
+     * Associates the value with the key, replacing any existing value.
+     *
+     * @return The previous value associated with the key, or null if there wasn't one
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "The value cannot be null");
+        int index = this.slot(key);
+        while (this.values[index] != null) {
+            if (this.keys[index] == key) {
+                V previous = (V) this.values[index];
+                this.values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & this.mask;
+        }
+        this.insertAt(index, key, value);
+        return null;
+    }
+
+    /**
+     * Associates the value with the key if it isn't already associated with a value.
+     *
+     * @return The existing value associated with the key, or null if the value was added
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(long key, V value) {
+        Objects.requireNonNull(value, "The value cannot be null");
+        int index = this.slot(key);
+        while (this.values[index] != null) {
+            if (this.keys[index] == key)
+                return (V) this.values[index];
+            index = (index + 1) & this.mask;
+        }
+        this.insertAt(index, key, value);
+        return null;
+    }
+
+    /**
+     * Returns the value associated with the key. If there isn't one, the mapping function is used to compute it. If the
+     * mapping function returns null, then nothing is added.
+     *
+     * @return The existing or computed value, or null if the mapping function returned null
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        int index = this.slot(key);
+        while (this.values[index] != null) {
+            if (this.keys[index] == key)
+                return (V) this.values[index];
+            index = (index + 1) & this.mask;
+        }
+
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            // The slot found is still valid as long as the mapping function didn't modify this map
+            this.insertAt(index, key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the value associated with the key.
+     *
+     * @return The removed value, or null if there was no value associated with the key
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = this.indexOf(key);
+        if (index == -1)
+            return null;
+
+        V previous = (V) this.values[index];
+        this.removeAt(index);
+        return previous;
+    }
+
+    /**
+     * Removes the entry only if the key is currently associated with the specified value.
+     *
+     * @return If the entry was removed
+     */
+    public boolean remove(long key, Object value) {
+        int index = this.indexOf(key);
+        if (index == -1 || !this.values[index].equals(value))
+            return false;
+
+        this.removeAt(index);
+        return true;
+    }
+
+    /**
+     * Replaces the value associated with the key only if it's currently associated with the old value.
+     *
+     * @return If the value was replaced
+     */
+    public boolean replace(long key, Object oldValue, V newValue) {
+        Objects.requireNonNull(newValue, "The value cannot be null");
+        int index = this.indexOf(key);
+        if (index == -1 || !this.values[index].equals(oldValue))
+            return false;
+
+        this.values[index] = newValue;
+        return true;
+    }
+
+    public void clear() {
+        this.allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Performs the action for each entry in this map. The map must not be modified by the action.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (int i = 0; i < this.values.length; i++) {
+            if (this.values[i] != null)
+                action.accept(this.keys[i], (V) this.values[i]);
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = this.slot(key);
+        while (this.values[index] != null) {
+            if (this.keys[index] == key)
+                return index;
+            index = (index + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private void insertAt(int index, long key, Object value) {
+        this.keys[index] = key;
+        this.values[index] = value;
+        if (++this.size > this.threshold)
+            this.resize(this.values.length << 1);
+    }
+
+    /**
+     * Removes the entry at the index and then shifts back any following entries in the same cluster which can be moved
+     * closer to their ideal slot. This removes the need for tombstones, which would otherwise slow down lookups.
+     */
+    private void removeAt(int index) {
+        this.values[index] = null;
+        this.size--;
+
+        int hole = index;
+        int current = (index + 1) & this.mask;
+        while (this.values[current] != null) {
+            int ideal = this.slot(this.keys[current]);
+            // The entry can only be moved into the hole if the hole lies cyclically between its ideal slot and itself
+            if (((current - ideal) & this.mask) >= ((current - hole) & this.mask)) {
+                this.keys[hole] = this.keys[current];
+                this.values[hole] = this.values[current];
+                this.values[current] = null;
+                hole = current;
+            }
+            current = (current + 1) & this.mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = this.slot(oldKeys[i]);
+                while (this.values[index] != null)
+                    index = (index + 1) & this.mask;
+                this.keys[index] = oldKeys[i];
+                this.values[index] = oldValues[i];
+                this.size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        // A load factor of 2/3 keeps the probe sequences short without wasting too much space
+        this.threshold = capacity / 3 * 2;
+        this.size = 0;
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & this.mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 3 * 2 < expectedSize)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Mixes the bits of the key so that sequential keys, or keys which only differ in their upper bits, are spread out
+     * evenly across the table. This is the finalisation step of MurmurHash3.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V>
+    {
+        void accept(long key, V value);
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds which of a set of regular expressions are contained within a text using a single combined automaton, so the
+ * text only needs to be scanned once regardless of how many expressions there are. The expressions are compiled
+ * into one NFA, which is lazily converted into a DFA as texts are scanned. The DFA states are cached and shared between
+ * threads, so scanning is lock-free once the states for the common inputs have been built.
+ * <p>
+ * Only the subset of the {@link Pattern} syntax which can be represented by a finite automaton is supported:
+ * literals, {@code .}, character classes (including {@code \d}, {@code \w} and {@code \s}), groups, alternation, the
+ * greedy and lazy quantifiers and {@code ^} and {@code $} at the start and end of an expression. Use
+ * {@link #unsupportedReason(String)} to check if an expression can be compiled into the automaton. Supported
+ * expressions match the same texts as they would with {@link Pattern#find()} and no flags: {@code .} doesn't match
+ * line terminators and {@code $} also matches before a line terminator at the end of the text.
+ */
+public class RegexAutomaton
+{
+    private static final int MAX_REPETITIONS = 100;
+    private static final int MAX_CACHED_STATES = 10_000;
+    private static final int ASCII = 128;
+
+    // The NFA, where each state either matches a character, is an epsilon split or accepts a pattern
+    private final CharMatcher[] matchers;
+    private final int[] next;
+    private final int[] alternate;
+    private final int[] acceptedPatterns;
+    private final boolean[] acceptsAtEnd;
+    private final int[] unanchoredStarts;
+
+    private final boolean ignoreCase;
+    private final int patternCount;
+    private final Map<StateKey, DfaState> states = new ConcurrentHashMap<>();
+    private final DfaState initialState;
+
+    public RegexAutomaton(List<String> patterns) {
+        this(patterns, false);
+    }
+
+    /**
+     * Compiles the patterns into a single automaton. Patterns are identified by their index in the list.
+     *
+     * @param patterns
+     *     The regular expressions to compile
+     * @param ignoreCase
+     *     If the patterns should be matched regardless of case
+     *
+     * @throws PatternSyntaxException
+     *     If one of the patterns isn't a valid regular expression
+     * @throws IllegalArgumentException
+     *     If one of the patterns uses syntax that isn't supported by this automaton
+     */
+    public RegexAutomaton(List<String> patterns, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.patternCount = patterns.size();
+
+        NfaBuilder builder = new NfaBuilder();
+        List<Integer> allStarts = new ArrayList<>();
+        List<Integer> unanchoredStarts = new ArrayList<>();
+
+        for (int pattern = 0; pattern < patterns.size(); pattern++) {
+            Pattern.compile(patterns.get(pattern));
+            ParsedPattern parsed = new Parser(patterns.get(pattern), ignoreCase).parsePattern();
+            int accept = builder.accept(pattern, parsed.anchoredAtEnd());
+            int start = builder.compile(parsed.node(), accept);
+
+            allStarts.add(start);
+            if (!parsed.anchoredAtStart())
+                unanchoredStarts.add(start);
+        }
+
+        this.matchers = builder.matchers.toArray(CharMatcher[]::new);
+        this.next = builder.next.stream().mapToInt(Integer::intValue).toArray();
+        this.alternate = builder.alternate.stream().mapToInt(Integer::intValue).toArray();
+        this.acceptedPatterns = builder.acceptedPatterns.stream().mapToInt(Integer::intValue).toArray();
+        this.acceptsAtEnd = new boolean[this.matchers.length];
+        for (int state = 0; state < this.acceptsAtEnd.length; state++) {
+            this.acceptsAtEnd[state] = builder.acceptsAtEnd.get(state);
+        }
+        this.unanchoredStarts = unanchoredStarts.stream().mapToInt(Integer::intValue).toArray();
+
+        this.initialState = this.state(allStarts.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Determines if the pattern can be compiled into a {@link RegexAutomaton}.
+     *
+     * @param pattern
+     *     The regular expression to check
+     *
+     * @return The reason the pattern can't be compiled, or null if it's supported
+     * @throws PatternSyntaxException
+     *     If the pattern isn't a valid regular expression
+     */
+    public static String unsupportedReason(String pattern) {
+        Pattern.compile(pattern);
+        try {
+            new Parser(pattern, false).parsePattern();
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * @return The number of patterns this automaton matches
+     */
+    public int patternCount() {
+        return this.patternCount;
+    }
+
+    /**
+     * Scans the text, setting the index of each pattern that's found within it.
+     *
+     * @param text
+     *     The text to scan
+     * @param matched
+     *     The {@link BitSet} to set the indices of the matched patterns in
+     * @param offset
+     *     The offset to add to the index of each pattern before it's set
+     */
+    public void scan(CharSequence text, BitSet matched, int offset) {
+        DfaState state = this.initialState;
+        DfaState previous = null;
+        DfaState secondPrevious = null;
+        this.set(state.accepts, matched, offset);
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            secondPrevious = previous;
+            previous = state;
+            state = this.transition(state, this.ignoreCase ? Character.toLowerCase(c) : c);
+            this.set(state.accepts, matched, offset);
+        }
+        this.set(state.acceptsAtEnd, matched, offset);
+
+        // Like Pattern, $ also matches before a line terminator at the end of the text, but not between \r\n
+        int length = text.length();
+        if (length >= 2 && text.charAt(length - 2) == '\r' && text.charAt(length - 1) == '\n')
+            this.set(secondPrevious.acceptsAtEnd, matched, offset);
+        else if (length >= 1 && isLineTerminator(text.charAt(length - 1)))
+            this.set(previous.acceptsAtEnd, matched, offset);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private void set(int[] patterns, BitSet matched, int offset) {
+        for (int pattern : patterns) {
+            matched.set(pattern + offset);
+        }
+    }
+
+    private DfaState transition(DfaState state, char c) {
+        DfaState cached = c < ASCII ? state.asciiTransitions.get(c) : state.transitions.get(c);
+        if (cached != null)
+            return cached;
+
+        BitSet moved = new BitSet(this.matchers.length);
+        for (int nfaState : state.nfaStates) {
+            CharMatcher matcher = this.matchers[nfaState];
+            if (matcher != null && matcher.matches(c))
+                moved.set(this.next[nfaState]);
+        }
+        // Patterns can start matching at any position, unless they're anchored to the start of the text
+        for (int start : this.unanchoredStarts) {
+            moved.set(start);
+        }
+
+        DfaState target = this.state(moved.stream().toArray());
+        if (this.states.size() < MAX_CACHED_STATES) {
+            if (c < ASCII)
+                state.asciiTransitions.set(c, target);
+            else state.transitions.put(c, target);
+        }
+        return target;
+    }
+
+    private DfaState state(int[] nfaStates) {
+        BitSet closure = new BitSet(this.matchers.length);
+        int[] stack = new int[this.matchers.length];
+        int size = 0;
+        for (int nfaState : nfaStates) {
+            if (!closure.get(nfaState)) {
+                closure.set(nfaState);
+                stack[size++] = nfaState;
+            }
+        }
+
+        while (size > 0) {
+            int nfaState = stack[--size];
+            if (this.matchers[nfaState] != null || this.acceptedPatterns[nfaState] != -1)
+                continue;
+
+            for (int target : new int[]{ this.next[nfaState], this.alternate[nfaState] }) {
+                if (target != -1 && !closure.get(target)) {
+                    closure.set(target);
+                    stack[size++] = target;
+                }
+            }
+        }
+
+        StateKey key = new StateKey(closure.stream().toArray());
+        DfaState state = this.states.get(key);
+        if (state != null)
+            return state;
+
+        state = new DfaState(key.nfaStates(), this.acceptedPatterns, this.acceptsAtEnd);
+        if (this.states.size() >= MAX_CACHED_STATES)
+            return state;
+        DfaState existing = this.states.putIfAbsent(key, state);
+        return existing == null ? state : existing;
+    }
+
+    private record StateKey(int[] nfaStates)
+    {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateKey other && Arrays.equals(this.nfaStates, other.nfaStates);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.nfaStates);
+        }
+    }
+
+    private static final class DfaState
+    {
+        private final int[] nfaStates;
+        private final int[] accepts;
+        private final int[] acceptsAtEnd;
+        private final AtomicReferenceArray<DfaState> asciiTransitions = new AtomicReferenceArray<>(ASCII);
+        private final Map<Character, DfaState> transitions = new ConcurrentHashMap<>();
+
+        private DfaState(int[] nfaStates, int[] acceptedPatterns, boolean[] acceptsAtEnd) {
+            this.nfaStates = nfaStates;
+            this.accepts = Arrays.stream(nfaStates)
+                .filter(state -> acceptedPatterns[state] != -1 && !acceptsAtEnd[state])
+                .map(state -> acceptedPatterns[state])
+                .toArray();
+            this.acceptsAtEnd = Arrays.stream(nfaStates)
+                .filter(state -> acceptedPatterns[state] != -1 && acceptsAtEnd[state])
+                .map(state -> acceptedPatterns[state])
+                .toArray();
+        }
+    }
+
+    //region Compilation
+
+    @FunctionalInterface
+    private interface CharMatcher
+    {
+        boolean matches(char c);
+    }
+
+    private interface Node {}
+
+    private record CharNode(CharMatcher matcher) implements Node {}
+
+    private record ConcatNode(List<Node> nodes) implements Node {}
+
+    private record AlternationNode(List<Node> alternatives) implements Node {}
+
+    private record RepeatNode(Node node, int min, int max) implements Node {}
+
+    private record ParsedPattern(Node node, boolean anchoredAtStart, boolean anchoredAtEnd) {}
+
+    private static final class NfaBuilder
+    {
+        private final List<CharMatcher> matchers = new ArrayList<>();
+        private final List<Integer> next = new ArrayList<>();
+        private final List<Integer> alternate = new ArrayList<>();
+        private final List<Integer> acceptedPatterns = new ArrayList<>();
+        private final List<Boolean> acceptsAtEnd = new ArrayList<>();
+
+        private int state(CharMatcher matcher, int next, int alternate, int acceptedPattern, boolean acceptsAtEnd) {
+            this.matchers.add(matcher);
+            this.next.add(next);
+            this.alternate.add(alternate);
+            this.acceptedPatterns.add(acceptedPattern);
+            this.acceptsAtEnd.add(acceptsAtEnd);
+            return this.matchers.size() - 1;
+        }
+
+        private int accept(int pattern, boolean atEnd) {
+            return this.state(null, -1, -1, pattern, atEnd);
+        }
+
+        private int split(int first, int second) {
+            return this.state(null, first, second, -1, false);
+        }
+
+        /**
+         * Compiles the node so that it continues to the next state once it's matched.
+         *
+         * @return The state to start matching the node from
+         */
+        private int compile(Node node, int next) {
+            if (node instanceof CharNode charNode)
+                return this.state(charNode.matcher(), next, -1, -1, false);
+
+            if (node instanceof ConcatNode concatNode) {
+                int start = next;
+                for (int i = concatNode.nodes().size() - 1; i >= 0; i--) {
+                    start = this.compile(concatNode.nodes().get(i), start);
+                }
+                return start;
+            }
+
+            if (node instanceof AlternationNode alternationNode) {
+                List<Node> alternatives = alternationNode.alternatives();
+                int start = this.compile(alternatives.get(alternatives.size() - 1), next);
+                for (int i = alternatives.size() - 2; i >= 0; i--) {
+                    start = this.split(this.compile(alternatives.get(i), next), start);
+                }
+                return start;
+            }
+
+            RepeatNode repeatNode = (RepeatNode) node;
+            int start = next;
+            if (repeatNode.max() == -1) {
+                // The split is created first so that the repeated node can loop back to it
+                int loop = this.split(-1, next);
+                this.next.set(loop, this.compile(repeatNode.node(), loop));
+                start = loop;
+            } else {
+                for (int i = repeatNode.min(); i < repeatNode.max(); i++) {
+                    start = this.split(this.compile(repeatNode.node(), start), next);
+                }
+            }
+
+            for (int i = 0; i < repeatNode.min(); i++) {
+                start = this.compile(repeatNode.node(), start);
+            }
+            return start;
+        }
+    }
+
+    private static final class Parser
+    {
+        private final String pattern;
+        private final boolean ignoreCase;
+        private int index;
+        private int depth;
+        private boolean alternatesAtTopLevel;
+
+        private Parser(String pattern, boolean ignoreCase) {
+            this.pattern = pattern;
+            this.ignoreCase = ignoreCase;
+        }
+
+        private ParsedPattern parsePattern() {
+            int end = this.pattern.length();
+            boolean anchoredAtStart = this.pattern.startsWith("^");
+            boolean anchoredAtEnd = end > 0 && this.pattern.charAt(end - 1) == '$' && !this.isEscaped(end - 1);
+
+            if (anchoredAtStart)
+                this.index++;
+            Node node = this.parseAlternation(anchoredAtEnd ? end - 1 : end);
+            if (this.index < (anchoredAtEnd ? end - 1 : end))
+                throw this.unsupported("Unbalanced groups");
+            // The anchors would only apply to the first or last alternative
+            if ((anchoredAtStart || anchoredAtEnd) && this.alternatesAtTopLevel)
+                throw this.unsupported("Anchors on alternations");
+            return new ParsedPattern(node, anchoredAtStart, anchoredAtEnd);
+        }
+
+        private boolean isEscaped(int position) {
+            int backslashes = 0;
+            for (int i = position - 1; i >= 0 && this.pattern.charAt(i) == '\\'; i--) {
+                backslashes++;
+            }
+            return backslashes % 2 == 1;
+        }
+
+        private IllegalArgumentException unsupported(String reason) {
+            return new IllegalArgumentException("%s at index %d".formatted(reason, this.index));
+        }
+
+        private Node parseAlternation(int end) {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(this.parseConcatenation(end));
+            while (this.index < end && this.pattern.charAt(this.index) == '|') {
+                this.alternatesAtTopLevel |= this.depth == 0;
+                this.index++;
+                alternatives.add(this.parseConcatenation(end));
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+        }
+
+        private Node parseConcatenation(int end) {
+            List<Node> nodes = new ArrayList<>();
+            while (this.index < end) {
+                char c = this.pattern.charAt(this.index);
+                if (c == '|' || c == ')')
+                    break;
+                nodes.add(this.parseQuantifier(this.parseAtom(end), end));
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new ConcatNode(nodes);
+        }
+
+        private Node parseQuantifier(Node atom, int end) {
+            while (this.index < end) {
+                char c = this.pattern.charAt(this.index);
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = -1;
+                } else if (c == '+') {
+                    min = 1;
+                    max = -1;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                } else if (c == '{') {
+                    int close = this.pattern.indexOf('}', this.index);
+                    String[] bounds = this.pattern.substring(this.index + 1, close).split(",", -1);
+                    min = Integer.parseInt(bounds[0].strip());
+                    max = bounds.length == 1 ? min : bounds[1].isBlank() ? -1 : Integer.parseInt(bounds[1].strip());
+                    if (Math.max(min, max) > MAX_REPETITIONS)
+                        throw this.unsupported("Repetitions of more than %d".formatted(MAX_REPETITIONS));
+                    this.index = close;
+                } else return atom;
+
+                this.index++;
+                // Lazy quantifiers find the same matches, but possessive quantifiers can prevent a match
+                if (this.index < end && this.pattern.charAt(this.index) == '?')
+                    this.index++;
+                else if (this.index < end && this.pattern.charAt(this.index) == '+')
+                    throw this.unsupported("Possessive quantifiers");
+                atom = new RepeatNode(atom, min, max);
+            }
+            return atom;
+        }
+
+        private Node parseAtom(int end) {
+            char c = this.pattern.charAt(this.index++);
+            switch (c) {
+                case '(' -> {
+                    if (this.pattern.startsWith("?:", this.index))
+                        this.index += 2;
+                    else if (this.index < end && this.pattern.charAt(this.index) == '?')
+                        throw this.unsupported("Lookarounds, flags and named groups");
+
+                    this.depth++;
+                    Node node = this.parseAlternation(end);
+                    this.depth--;
+                    if (this.index >= end || this.pattern.charAt(this.index) != ')')
+                        throw this.unsupported("Unclosed groups");
+                    this.index++;
+                    return node;
+                }
+                case '[' -> {
+                    return new CharNode(this.parseClass());
+                }
+                case '.' -> {
+                    return new CharNode(ch -> !isLineTerminator(ch));
+                }
+                case '\\' -> {
+                    return new CharNode(this.parseEscape(false));
+                }
+                case '^', '$' -> throw this.unsupported("Anchors other than at the start or end of the pattern");
+                default -> {
+                    char literal = this.ignoreCase ? Character.toLowerCase(c) : c;
+                    return new CharNode(ch -> ch == literal);
+                }
+            }
+        }
+
+        private CharMatcher parseEscape(boolean inClass) {
+            char c = this.pattern.charAt(this.index++);
+            return switch (c) {
+                case 'd', 'w', 's' -> this.escapeMatcher(c);
+                case 'D', 'W', 'S' -> {
+                    if (inClass)
+                        throw this.unsupported("Negated escapes within character classes");
+                    CharMatcher positive = this.escapeMatcher(Character.toLowerCase(c));
+                    yield ch -> !positive.matches(ch);
+                }
+                case 't' -> ch -> ch == '\t';
+                case 'n' -> ch -> ch == '\n';
+                case 'r' -> ch -> ch == '\r';
+                case 'f' -> ch -> ch == '\f';
+                default -> {
+                    if (Character.isLetterOrDigit(c))
+                        throw this.unsupported("The escape \\" + c);
+                    yield ch -> ch == c;
+                }
+            };
+        }
+
+        private CharMatcher escapeMatcher(char escape) {
+            return switch (escape) {
+                case 'd' -> ch -> ch >= '0' && ch <= '9';
+                case 'w' -> ch -> ch == '_' || ch >= '0' && ch <= '9' || ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z';
+                default -> ch -> ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+            };
+        }
+
+        private CharMatcher parseClass() {
+            boolean negated = this.index < this.pattern.length() && this.pattern.charAt(this.index) == '^';
+            if (negated)
+                this.index++;
+
+            List<CharMatcher> members = new ArrayList<>();
+            boolean first = true;
+            while (this.index < this.pattern.length()) {
+                char c = this.pattern.charAt(this.index);
+                if (c == ']' && !first)
+                    break;
+                if (c == '[')
+                    throw this.unsupported("Nested character classes");
+                if (this.pattern.startsWith("&&", this.index))
+                    throw this.unsupported("Character class intersections");
+
+                this.index++;
+                first = false;
+                if (c == '\\') {
+                    members.add(this.parseEscape(true));
+                    continue;
+                }
+
+                if (this.index + 1 < this.pattern.length() && this.pattern.charAt(this.index) == '-'
+                    && this.pattern.charAt(this.index + 1) != ']') {
+                    char upper = this.pattern.charAt(this.index + 1);
+                    if (upper == '\\' || upper == '[')
+                        throw this.unsupported("Escaped character class ranges");
+                    this.index += 2;
+                    members.add(ch -> ch >= c && ch <= upper);
+                }
+                else members.add(ch -> ch == c);
+            }
+            this.index++; // Skip the closing ]
+
+            CharMatcher[] matchers = members.toArray(CharMatcher[]::new);
+            boolean ignoreCase = this.ignoreCase;
+            return ch -> {
+                boolean matches = this.classMatches(matchers, ch)
+                    || ignoreCase && this.classMatches(matchers, Character.toUpperCase(ch));
+                return matches != negated;
+            };
+        }
+
+        private boolean classMatches(CharMatcher[] matchers, char c) {
+            for (CharMatcher matcher : matchers) {
+                if (matcher.matches(c))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    //endregion
+}
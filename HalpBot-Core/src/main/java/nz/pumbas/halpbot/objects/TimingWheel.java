@@ -0,0 +1,330 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A hierarchical timing wheel, which expires {@code long} values, such as ids, after a delay with a resolution of one
+ * tick. Each level of the wheel is a ring of buckets, where every bucket in a level spans all the buckets in the level
+ * below it. Values are placed in the lowest level that can hold their deadline and are cascaded down to the lower
+ * levels as the wheel turns, so scheduling and cancelling a value are both O(1), regardless of how many values are in
+ * the wheel.
+ * <p>
+ * Values can be scheduled and cancelled from any thread without blocking. They're placed in the wheel the next time
+ * it's advanced, at which point all the values which have expired since the last advance are passed to the expiry
+ * handler as a single batch. The values are stored as primitives, so they don't need to be boxed when they're
+ * scheduled or expired.
+ */
+public class TimingWheel
+{
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final Consumer<long[]> expiryHandler;
+
+    // The head of each bucket, indexed by level * WHEEL_SIZE + slot
+    private final Timeout[] buckets = new Timeout[LEVELS * WHEEL_SIZE];
+    private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private long nextTick;
+    private int placedTimeouts;
+
+    public TimingWheel(long tickDuration, TimeUnit unit, Consumer<long[]> expiryHandler) {
+        this(tickDuration, unit, System::nanoTime, expiryHandler);
+    }
+
+    /**
+     * Creates a timing wheel, which measures time using the specified clock.
+     *
+     * @param tickDuration
+     *     The duration of each tick, which is the resolution of the wheel
+     * @param unit
+     *     The {@link TimeUnit} of the tick duration
+     * @param nanoClock
+     *     The clock used to measure time, in nanoseconds
+     * @param expiryHandler
+     *     The handler which is passed the values that have expired each time the wheel is advanced
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit, LongSupplier nanoClock, Consumer<long[]> expiryHandler) {
+        if (tickDuration <= 0)
+            throw new IllegalArgumentException("The tick duration must be positive");
+
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.expiryHandler = expiryHandler;
+    }
+
+    /**
+     * Schedules the wheel to be advanced every tick using the specified executor. If the expiry handler throws an
+     * exception, it's passed to the uncaught exception handler of the thread rather than stopping the wheel.
+     *
+     * @param executor
+     *     The {@link ScheduledExecutorService} to advance the wheel with
+     *
+     * @return The {@link ScheduledFuture}, which can be cancelled to stop the wheel
+     */
+    public ScheduledFuture<?> start(ScheduledExecutorService executor) {
+        return executor.scheduleAtFixedRate(() -> {
+            try {
+                this.advance();
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }, this.tickNanos, this.tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Schedules the value to expire after the specified delay.
+     *
+     * @param value
+     *     The value to expire
+     * @param delay
+     *     The delay before the value expires
+     * @param unit
+     *     The {@link TimeUnit} of the delay
+     *
+     * @return The {@link Timeout}, which can be used to cancel the expiry
+     */
+    public Timeout schedule(long value, long delay, TimeUnit unit) {
+        long deadline = this.nanoClock.getAsLong() + unit.toNanos(delay);
+        // Round up, so that values never expire before their deadline
+        long deadlineTick = Math.floorDiv(deadline - this.startNanos + this.tickNanos - 1, this.tickNanos);
+
+        Timeout timeout = new Timeout(this, value, deadlineTick);
+        this.scheduledTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to the current time.
+     */
+    public void advance() {
+        this.advance(this.nanoClock.getAsLong());
+    }
+
+    /**
+     * Advances the wheel to the specified time, passing all the values that have expired since it was last advanced
+     * to the expiry handler.
+     *
+     * @param nanoTime
+     *     The time to advance the wheel to, as measured by the clock of this wheel
+     */
+    public synchronized void advance(long nanoTime) {
+        long targetTick = Math.floorDiv(nanoTime - this.startNanos, this.tickNanos);
+        long[] expired = new long[0];
+        int expiredCount = 0;
+
+        this.removeCancelledTimeouts();
+        this.placeScheduledTimeouts(this.nextTick);
+        while (this.nextTick <= targetTick) {
+            // There's nothing to cascade or expire, so the empty ticks can be skipped
+            if (this.placedTimeouts == 0 && this.scheduledTimeouts.isEmpty()) {
+                this.nextTick = targetTick + 1;
+                break;
+            }
+            long tick = this.nextTick;
+            // Cascade the buckets of the higher levels which start at this tick down into the lower levels
+            for (int level = 1; level < LEVELS; level++) {
+                if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) != 0)
+                    break;
+                this.cascade(level, (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK, tick);
+            }
+            this.placeScheduledTimeouts(tick);
+
+            // Every value in the current bucket of the lowest level expires at this tick
+            Timeout timeout = this.detach((int) tick & WHEEL_MASK);
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                this.placedTimeouts--;
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    if (expiredCount == expired.length)
+                        expired = Arrays.copyOf(expired, Math.max(8, expiredCount << 1));
+                    expired[expiredCount++] = timeout.value;
+                }
+                timeout = next;
+            }
+            this.nextTick++;
+        }
+        this.placeScheduledTimeouts(this.nextTick);
+
+        if (expiredCount != 0)
+            this.expiryHandler.accept(Arrays.copyOf(expired, expiredCount));
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = this.cancelledTimeouts.poll()) != null) {
+            this.unlink(timeout);
+        }
+    }
+
+    private void placeScheduledTimeouts(long tick) {
+        Timeout timeout;
+        while ((timeout = this.scheduledTimeouts.poll()) != null) {
+            if (timeout.state.get() == PENDING)
+                this.place(timeout, tick);
+        }
+    }
+
+    private void cascade(int level, int slot, long tick) {
+        Timeout timeout = this.detach(level * WHEEL_SIZE + slot);
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            this.placedTimeouts--;
+            if (timeout.state.get() == PENDING)
+                this.place(timeout, tick);
+            timeout = next;
+        }
+    }
+
+    /**
+     * Places the timeout in the lowest level that can hold its deadline, relative to the next tick to be processed.
+     * Timeouts whose deadline is further away than the highest level can hold are placed as far away as possible and
+     * are placed again once they're cascaded.
+     */
+    private void place(Timeout timeout, long tick) {
+        long deadlineTick = Math.max(timeout.deadlineTick, tick);
+        long delta = deadlineTick - tick;
+        if (delta > MAX_DELTA) {
+            deadlineTick = tick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+
+        int level = 0;
+        while (delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int bucket = level * WHEEL_SIZE + ((int) (deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+        Timeout head = this.buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null)
+            head.previous = timeout;
+        this.buckets[bucket] = timeout;
+        this.placedTimeouts++;
+    }
+
+    @Nullable
+    private Timeout detach(int bucket) {
+        Timeout head = this.buckets[bucket];
+        this.buckets[bucket] = null;
+        for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.bucket = -1;
+            timeout.previous = null;
+        }
+        return head;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.bucket == -1)
+            return;
+
+        if (timeout.previous != null)
+            timeout.previous.next = timeout.next;
+        else this.buckets[timeout.bucket] = timeout.next;
+        if (timeout.next != null)
+            timeout.next.previous = timeout.previous;
+
+        timeout.bucket = -1;
+        timeout.previous = null;
+        timeout.next = null;
+        this.placedTimeouts--;
+    }
+
+    /**
+     * A value that has been scheduled to expire in a {@link TimingWheel}.
+     */
+    public static final class Timeout
+    {
+        private final TimingWheel wheel;
+        private final long value;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // These are only accessed by the thread advancing the wheel
+        private int bucket = -1;
+        @Nullable
+        private Timeout previous;
+        @Nullable
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, long value, long deadlineTick) {
+            this.wheel = wheel;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public long value() {
+            return this.value;
+        }
+
+        /**
+         * Cancels the expiry of the value. The timeout is removed from the wheel the next time it's advanced.
+         *
+         * @return If the timeout was cancelled, or false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!this.state.compareAndSet(PENDING, CANCELLED))
+                return false;
+            this.wheel.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,575 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects.expiring;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A thread-safe {@link ExpiringMap} which is bounded by a maximum weight, as well as expiring entries after their time
+ * to live. When the map is full, entries are evicted using W-TinyLFU: new entries are added to a small least recently
+ * used window, and once they leave the window they're only admitted into the main region if they've been accessed more
+ * frequently than the entry that would be evicted to make room for them. This prevents a burst of keys which are only
+ * used once from flushing out the entries that are used frequently.
+ * <p>
+ * The removal callback is invoked when an entry expires or is evicted, but not when it's explicitly removed or
+ * replaced. The number of hits, misses, evictions and expirations are recorded so that the map can be sized.
+ *
+ * @param <K>
+ *     The type of the key elements
+ * @param <V>
+ *     The type of the value elements
+ */
+public class BoundedExpiringMap<K, V> extends AbstractMap<K, V> implements ExpiringMap<K, V>
+{
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+    private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> protectedQueue = new AccessOrderQueue<>();
+    private final FrequencySketch sketch;
+
+    private final long maximumWeight;
+    private final long maximumWindowWeight;
+    private final long maximumProtectedWeight;
+    private long weight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expirationDurationMs;
+    private final BiConsumer<K, V> removalCallback;
+    private final ExpiryScheduler expiryScheduler;
+
+    public BoundedExpiringMap(
+        long maximumSize,
+        long expirationDuration,
+        TimeUnit expirationDurationUnit,
+        ExpiryScheduler expiryScheduler) {
+        this(maximumSize, expirationDuration, expirationDurationUnit, (k, v) -> {}, expiryScheduler);
+    }
+
+    public BoundedExpiringMap(
+        long maximumSize,
+        long expirationDuration,
+        TimeUnit expirationDurationUnit,
+        BiConsumer<K, V> removalCallback,
+        ExpiryScheduler expiryScheduler) {
+        this(maximumSize, (k, v) -> 1, expirationDuration, expirationDurationUnit, removalCallback, expiryScheduler);
+    }
+
+    /**
+     * Creates a bounded expiring map where the total weight of the entries is kept below the maximum weight.
+     *
+     * @param maximumWeight
+     *     The maximum total weight of the entries in the map
+     * @param weigher
+     *     Determines the weight of an entry. This must not be negative
+     * @param expirationDuration
+     *     The default time that must pass before an entry is removed
+     * @param expirationDurationUnit
+     *     The time unit for the expiration duration
+     * @param removalCallback
+     *     The callback that's invoked after an entry expires or is evicted
+     * @param expiryScheduler
+     *     The scheduler that removes the expired entries
+     *
+     * @throws IllegalArgumentException
+     *     If the maximum weight is less than or equal to 0 or if the expiration duration is less than a millisecond
+     */
+    public BoundedExpiringMap(
+        long maximumWeight,
+        ToIntBiFunction<? super K, ? super V> weigher,
+        long expirationDuration,
+        TimeUnit expirationDurationUnit,
+        BiConsumer<K, V> removalCallback,
+        ExpiryScheduler expiryScheduler) {
+        if (0 >= maximumWeight)
+            throw new IllegalArgumentException("The maximum weight must be greater than 0");
+
+        this.expirationDurationMs = expirationDurationUnit.toMillis(expirationDuration);
+        if (0 >= this.expirationDurationMs)
+            throw new IllegalArgumentException("The expiration duration must be at least a millisecond");
+
+        this.maximumWeight = maximumWeight;
+        this.maximumWindowWeight = Math.max(1, maximumWeight / 100);
+        this.maximumProtectedWeight = (maximumWeight - this.maximumWindowWeight) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumWeight);
+        this.weigher = weigher;
+        this.removalCallback = removalCallback;
+        this.expiryScheduler = expiryScheduler;
+    }
+
+    @Override
+    @Nullable
+    public V get(Object key) {
+        long now = this.expiryScheduler.now();
+        Node<K, V> expired;
+        synchronized (this.nodes) {
+            Node<K, V> node = this.nodes.get(key);
+            if (key != null)
+                this.sketch.increment(key);
+
+            if (node != null && node.deadline > now) {
+                this.hits.increment();
+                this.onAccess(node);
+                return node.value;
+            }
+            this.misses.increment();
+            if (node == null)
+                return null;
+
+            this.removeNode(node);
+            this.expirations.increment();
+            expired = node;
+        }
+        this.removalCallback.accept(expired.key, expired.value);
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        long now = this.expiryScheduler.now();
+        synchronized (this.nodes) {
+            Node<K, V> node = this.nodes.get(key);
+            return node != null && node.deadline > now;
+        }
+    }
+
+    @Override
+    @Nullable
+    public V put(K key, V value) {
+        return this.put(key, value, this.expirationDurationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc} If this causes the map to exceed its maximum weight, then entries will be evicted.
+     */
+    @Override
+    @Nullable
+    public V put(K key, V value, long ttl, TimeUnit ttlUnit) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        long ttlMs = ttlUnit.toMillis(ttl);
+        if (0 >= ttlMs)
+            throw new IllegalArgumentException("The time to live must be at least a millisecond");
+        int weight = this.weigher.applyAsInt(key, value);
+        if (0 > weight)
+            throw new IllegalArgumentException("The weight of an entry must not be negative");
+
+        long now = this.expiryScheduler.now();
+        long deadline = now + ttlMs;
+        Node<K, V> scheduled = null;
+        V previous = null;
+        V expired = null;
+        List<Node<K, V>> evicted;
+
+        synchronized (this.nodes) {
+            this.sketch.increment(key);
+            Node<K, V> node = this.nodes.get(key);
+            if (node == null) {
+                node = new Node<>(key, value, weight, ttlMs, deadline);
+                this.nodes.put(key, node);
+                node.queue = WINDOW;
+                this.window.addLast(node);
+                this.windowWeight += weight;
+                this.weight += weight;
+                scheduled = node;
+            }
+            else {
+                if (node.deadline > now)
+                    previous = node.value;
+                else {
+                    // The previous value has expired, even though it hasn't been removed yet
+                    expired = node.value;
+                    this.expirations.increment();
+                }
+                this.reweigh(node, weight);
+                node.value = value;
+                node.ttlMs = ttlMs;
+                node.deadline = deadline;
+                if (deadline < node.scheduledDeadline)
+                    scheduled = node;
+                this.onAccess(node);
+            }
+            if (scheduled != null)
+                node.scheduledDeadline = deadline;
+            evicted = this.evict();
+        }
+
+        if (scheduled != null)
+            this.scheduleExpiry(scheduled, deadline);
+        if (expired != null)
+            this.removalCallback.accept(key, expired);
+        for (Node<K, V> node : evicted) {
+            this.removalCallback.accept(node.key, node.value);
+        }
+        return previous;
+    }
+
+    @Override
+    @Nullable
+    public V remove(Object key) {
+        long now = this.expiryScheduler.now();
+        Node<K, V> node;
+        synchronized (this.nodes) {
+            node = this.nodes.get(key);
+            if (node == null)
+                return null;
+
+            this.removeNode(node);
+            if (node.deadline > now)
+                return node.value;
+            this.expirations.increment();
+        }
+        // The entry had already expired, even though it hadn't been removed yet
+        this.removalCallback.accept(node.key, node.value);
+        return null;
+    }
+
+    @Override
+    public boolean renewKey(K key) {
+        long now = this.expiryScheduler.now();
+        synchronized (this.nodes) {
+            Node<K, V> node = this.nodes.get(key);
+            if (node == null || node.deadline <= now)
+                return false;
+
+            node.deadline = now + node.ttlMs;
+            return true;
+        }
+    }
+
+    @Override
+    public long getExpirationDuration() {
+        return this.expirationDurationMs;
+    }
+
+    /**
+     * @return The number of entries in the map. This may include entries that have expired but haven't been removed
+     *     yet
+     */
+    @Override
+    public int size() {
+        synchronized (this.nodes) {
+            return this.nodes.size();
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this.nodes) {
+            this.nodes.clear();
+            this.window.clear();
+            this.probation.clear();
+            this.protectedQueue.clear();
+            this.weight = 0;
+            this.windowWeight = 0;
+            this.protectedWeight = 0;
+        }
+    }
+
+    /**
+     * @return A snapshot of the entries which haven't expired. Changes to the map aren't reflected in the snapshot
+     */
+    @NotNull
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        long now = this.expiryScheduler.now();
+        Set<Entry<K, V>> entries = new HashSet<>();
+        synchronized (this.nodes) {
+            for (Node<K, V> node : this.nodes.values()) {
+                if (node.deadline > now)
+                    entries.add(new SimpleImmutableEntry<>(node.key, node.value));
+            }
+        }
+        return Collections.unmodifiableSet(entries);
+    }
+
+    /**
+     * @return The total weight of the entries in the map
+     */
+    public long weightedSize() {
+        synchronized (this.nodes) {
+            return this.weight;
+        }
+    }
+
+    public long maximumWeight() {
+        return this.maximumWeight;
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The number of entries that have been removed because the map was full
+     */
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return The number of entries that have been removed because they expired
+     */
+    public long expirations() {
+        return this.expirations.sum();
+    }
+
+    /**
+     * @return The fraction of lookups that were hits, or 0 if there haven't been any lookups
+     */
+    public double hitRate() {
+        long hits = this.hits();
+        long total = hits + this.misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void scheduleExpiry(Node<K, V> node, long deadline) {
+        this.expiryScheduler.schedule(deadline, () -> this.expire(node));
+    }
+
+    private void expire(Node<K, V> node) {
+        long now = this.expiryScheduler.now();
+        long deadline;
+        synchronized (this.nodes) {
+            if (this.nodes.get(node.key) != node)
+                return;
+
+            deadline = node.deadline;
+            if (deadline > now)
+                // It was renewed, so it's rescheduled for its new deadline rather than every renewal being scheduled
+                node.scheduledDeadline = deadline;
+            else {
+                this.removeNode(node);
+                this.expirations.increment();
+            }
+        }
+
+        if (deadline > now)
+            this.scheduleExpiry(node, deadline);
+        else this.removalCallback.accept(node.key, node.value);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> this.window.moveToBack(node);
+            case PROBATION -> {
+                this.probation.remove(node);
+                node.queue = PROTECTED;
+                this.protectedQueue.addLast(node);
+                this.protectedWeight += node.weight;
+                this.demoteProtected();
+            }
+            default -> this.protectedQueue.moveToBack(node);
+        }
+    }
+
+    private void demoteProtected() {
+        while (this.protectedWeight > this.maximumProtectedWeight) {
+            Node<K, V> demoted = this.protectedQueue.peekFirst();
+            if (demoted == null)
+                return;
+
+            this.protectedQueue.remove(demoted);
+            this.protectedWeight -= demoted.weight;
+            demoted.queue = PROBATION;
+            this.probation.addLast(demoted);
+        }
+    }
+
+    /**
+     * Moves any entries that no longer fit in the window to the probation region as candidates, and then evicts
+     * entries until the map is within its maximum weight. When a candidate competes with the entry at the front of the
+     * probation region, whichever has been accessed less frequently is evicted.
+     *
+     * @return The entries that were evicted
+     */
+    private List<Node<K, V>> evict() {
+        Node<K, V> candidate = null;
+        while (this.windowWeight > this.maximumWindowWeight) {
+            Node<K, V> node = this.window.peekFirst();
+            if (node == null)
+                break;
+
+            this.window.remove(node);
+            this.windowWeight -= node.weight;
+            node.queue = PROBATION;
+            this.probation.addLast(node);
+            if (candidate == null)
+                candidate = node;
+        }
+
+        List<Node<K, V>> evicted = List.of();
+        while (this.weight > this.maximumWeight) {
+            Node<K, V> victim = this.probation.peekFirst();
+            // The candidates are at the back of the probation region, so if they're at the front there are no other
+            // entries in probation that they can replace
+            if (victim == candidate)
+                victim = this.protectedQueue.peekFirst();
+
+            Node<K, V> evictee;
+            if (candidate == null)
+                evictee = victim != null ? victim : this.window.peekFirst();
+            else if (victim == null
+                || candidate.weight > this.maximumWeight
+                || this.sketch.frequency(candidate.key) <= this.sketch.frequency(victim.key)) {
+                evictee = candidate;
+                candidate = this.probation.nextOf(candidate);
+            }
+            else evictee = victim;
+
+            if (evictee == null)
+                break;
+            if (evicted.isEmpty())
+                evicted = new ArrayList<>();
+            this.removeNode(evictee);
+            this.evictions.increment();
+            evicted.add(evictee);
+        }
+        return evicted;
+    }
+
+    private void reweigh(Node<K, V> node, int weight) {
+        int difference = weight - node.weight;
+        node.weight = weight;
+        this.weight += difference;
+        if (node.queue == WINDOW)
+            this.windowWeight += difference;
+        else if (node.queue == PROTECTED)
+            this.protectedWeight += difference;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        this.nodes.remove(node.key);
+        this.weight -= node.weight;
+        switch (node.queue) {
+            case WINDOW -> {
+                this.window.remove(node);
+                this.windowWeight -= node.weight;
+            }
+            case PROBATION -> this.probation.remove(node);
+            default -> {
+                this.protectedQueue.remove(node);
+                this.protectedWeight -= node.weight;
+            }
+        }
+    }
+
+    private static final class Node<K, V>
+    {
+        private final K key;
+        private V value;
+        private int weight;
+        private long ttlMs;
+        private long deadline;
+        private long scheduledDeadline;
+        private int queue;
+
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(K key, V value, int weight, long ttlMs, long deadline) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.ttlMs = ttlMs;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes, ordered from the least to the most recently accessed.
+     */
+    private static final class AccessOrderQueue<K, V>
+    {
+        private final Node<K, V> head = new Node<>(null, null, 0, 0, 0);
+
+        private AccessOrderQueue() {
+            this.clear();
+        }
+
+        private void addLast(Node<K, V> node) {
+            node.previous = this.head.previous;
+            node.next = this.head;
+            this.head.previous.next = node;
+            this.head.previous = node;
+        }
+
+        private void remove(Node<K, V> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+        }
+
+        private void moveToBack(Node<K, V> node) {
+            this.remove(node);
+            this.addLast(node);
+        }
+
+        @Nullable
+        private Node<K, V> peekFirst() {
+            return this.nextOf(this.head);
+        }
+
+        @Nullable
+        private Node<K, V> nextOf(Node<K, V> node) {
+            return node.next == this.head ? null : node.next;
+        }
+
+        private void clear() {
+            this.head.previous = this.head;
+            this.head.next = this.head;
+        }
+    }
+}
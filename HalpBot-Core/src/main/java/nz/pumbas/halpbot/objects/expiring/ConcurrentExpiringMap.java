@@ -25,25 +25,45 @@
 package nz.pumbas.halpbot.objects.expiring;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
-public class ConcurrentExpiringMap<K, V> extends ConcurrentHashMap<K, V> implements ExpiringMap<K, V>
+/**
+ * A thread-safe {@link ExpiringMap} which is backed by a {@link ConcurrentHashMap}. The deadline of each entry is stored
+ * in the same node as its value, and entries are treated as absent as soon as their deadline has passed, so they never
+ * outlive their time to live. Expired entries that aren't read again are removed by the {@link ExpiryScheduler}, so
+ * that the removal callback is still invoked for them.
+ *
+ * @param <K>
+ *     The type of the key elements
+ * @param <V>
+ *     The type of the value elements
+ */
+public class ConcurrentExpiringMap<K, V> extends AbstractMap<K, V>
+    implements ExpiringMap<K, V>, ConcurrentMap<K, V>
 {
-    private final Map<K, Long> expirationKeys = new ConcurrentHashMap<>();
+    // The deadline of a node which has been removed, or whose removal callback has already been invoked
+    private static final long DEAD = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<K, Node<V>> nodes = new ConcurrentHashMap<>();
     private final long expirationDurationMs;
     private final BiConsumer<K, V> removalCallback;
+    private final ExpiryScheduler expiryScheduler;
 
     /**
-     * Creates a concurrent expiring map where the elements expire after the specified expiration duration. Due to how
-     * this has been implemented, the key won't be removed before the expiration duration, however, it may take up to
-     * 1.5 * the expiration duration for it to be actually removed due to extreme looping.
+     * Creates a concurrent expiring map where the elements expire after the specified expiration duration. An entry is
+     * absent as soon as it expires, but it may take up to the resolution of the {@link ExpiryScheduler} longer for it
+     * to actually be removed.
      * <p>
      * Note that if you try and specifiy an expiration duration unit that is smaller than milliseconds an {@link
      * IllegalArgumentException} will be thrown.
@@ -52,19 +72,24 @@ public class ConcurrentExpiringMap<K, V> extends ConcurrentHashMap<K, V> impleme
      *     The time that must pass before an entry is removed
      * @param expirationDurationUnit
      *     The time unit for the expiration duration. This cannot be smaller than milliseconds
+     * @param expiryScheduler
+     *     The {@link ExpiryScheduler} that removes the expired entries
      *
      * @throws IllegalArgumentException
      *     If the expiration duration unit is smaller than milliseconds
      */
-    public ConcurrentExpiringMap(long expirationDuration, TimeUnit expirationDurationUnit) {
-        this(expirationDuration, expirationDurationUnit, (k, v) -> {});
+    public ConcurrentExpiringMap(
+        long expirationDuration,
+        TimeUnit expirationDurationUnit,
+        ExpiryScheduler expiryScheduler) {
+        this(expirationDuration, expirationDurationUnit, (k, v) -> {}, expiryScheduler);
     }
 
     /**
      * Creates a concurrent expiring map where the elements expire after the specified expiration duration. Just after
      * the expired entries are removed from the map, the removal callback is invoked on them. Note that this could be on
-     * another thread. Due to how this has been implemented, the key won't be removed before the expiration duration,
-     * however, it may take up to 1.5 * the expiration duration for it to be actually removed due to extreme looping.
+     * another thread. An entry is absent as soon as it expires, but it may take up to the resolution of the
+     * {@link ExpiryScheduler} longer for it to actually be removed.
      * <p>
      * Note that if you try and specifiy an expiration duration unit that is smaller than milliseconds an {@link
      * IllegalArgumentException} will be thrown.
@@ -75,6 +100,8 @@ public class ConcurrentExpiringMap<K, V> extends ConcurrentHashMap<K, V> impleme
      *     The time unit for the expiration duration. This cannot be smaller than milliseconds
      * @param removalCallback
      *     The callback that's invoked before an entry is removed
+     * @param expiryScheduler
+     *     The {@link ExpiryScheduler} that removes the expired entries
      *
      * @throws IllegalArgumentException
      *     If the expiration duration is less than or equal to 0 or if the expiration duration unit is smaller than
@@ -83,7 +110,8 @@ public class ConcurrentExpiringMap<K, V> extends ConcurrentHashMap<K, V> impleme
     public ConcurrentExpiringMap(
         long expirationDuration,
         TimeUnit expirationDurationUnit,
-        BiConsumer<K, V> removalCallback) {
+        BiConsumer<K, V> removalCallback,
+        ExpiryScheduler expiryScheduler) {
         if (0 >= expirationDuration)
             throw new IllegalArgumentException("The expiration duration must be greater than 0");
 
@@ -94,41 +122,123 @@ public class ConcurrentExpiringMap<K, V> extends ConcurrentHashMap<K, V> impleme
 
         this.expirationDurationMs = TimeUnit.MILLISECONDS.convert(expirationDuration, expirationDurationUnit);
         this.removalCallback = removalCallback;
-        this.initialiseCleaner();
-    }
-
-    // Its Scheduled twice every expiration period to reduce the chance of extrememe looping (An element just doesn't
-    // expire on the first loop, meaning it essentially stays in the map for twice the expected expiration duration)
-    private void initialiseCleaner() {
-        Executors.newSingleThreadScheduledExecutor()
-            .scheduleAtFixedRate(
-                this::clean,
-                this.expirationDurationMs / 2,
-                this.expirationDurationMs / 2,
-                TimeUnit.MILLISECONDS);
-    }
-
-    private void clean() {
-        for (Entry<K, Long> entry : this.expirationKeys.entrySet()) {
-            if (this.hasExpired(entry.getValue())) {
-                this.remove(entry.getKey());
-                this.expirationKeys.remove(entry.getKey());
-                this.removalCallback.accept(entry.getKey(), this.get(entry.getKey()));
+        this.expiryScheduler = expiryScheduler;
+    }
+
+    @Override
+    @Nullable
+    public V get(Object key) {
+        Node<V> node = this.nodes.get(key);
+        if (node == null)
+            return null;
+        if (node.isAlive(this.expiryScheduler.now()))
+            return node.value;
+
+        this.expireIfDue(key, node);
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    @Nullable
+    public V put(@NotNull K key, @NotNull V value) {
+        return this.put(key, value, this.expirationDurationMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    @Nullable
+    public V put(@NotNull K key, @NotNull V value, long ttl, TimeUnit ttlUnit) {
+        Node<V> added = this.createNode(value, ttl, ttlUnit);
+        Node<V> previous = this.nodes.put(key, added);
+        this.scheduleExpiry(key, added);
+        return previous == null ? null : this.retire(key, previous);
+    }
+
+    @Override
+    @Nullable
+    public V putIfAbsent(@NotNull K key, @NotNull V value) {
+        Node<V> added = this.createNode(value, this.expirationDurationMs, TimeUnit.MILLISECONDS);
+        while (true) {
+            Node<V> node = this.nodes.putIfAbsent(key, added);
+            if (node == null) {
+                this.scheduleExpiry(key, added);
+                return null;
+            }
+            if (node.isAlive(this.expiryScheduler.now()))
+                return node.value;
+            // The existing node has expired, so it needs to be removed before the value can be added
+            this.expireIfDue(key, node);
+        }
+    }
+
+    @Override
+    @Nullable
+    public V replace(@NotNull K key, @NotNull V value) {
+        Node<V> added = this.createNode(value, this.expirationDurationMs, TimeUnit.MILLISECONDS);
+        while (true) {
+            Node<V> node = this.nodes.get(key);
+            if (node == null || !node.isAlive(this.expiryScheduler.now()))
+                return null;
+            if (this.nodes.replace(key, node, added)) {
+                this.scheduleExpiry(key, added);
+                return this.retire(key, node);
             }
         }
     }
 
-    private boolean hasExpired(long addedTimeMs) {
-        return System.currentTimeMillis() - addedTimeMs > this.expirationDurationMs;
+    @Override
+    public boolean replace(@NotNull K key, @NotNull V oldValue, @NotNull V newValue) {
+        Node<V> node = this.nodes.get(key);
+        if (node == null || !node.isAlive(this.expiryScheduler.now()) || !Objects.equals(node.value, oldValue))
+            return false;
+
+        Node<V> added = this.createNode(newValue, this.expirationDurationMs, TimeUnit.MILLISECONDS);
+        if (!this.nodes.replace(key, node, added))
+            return false;
+        this.scheduleExpiry(key, added);
+        this.retire(key, node);
+        return true;
+    }
+
+    @Override
+    @Nullable
+    public V remove(@NotNull Object key) {
+        Node<V> node = this.nodes.remove(key);
+        return node == null ? null : this.retire(key, node);
+    }
+
+    @Override
+    public boolean remove(@NotNull Object key, Object value) {
+        Node<V> node = this.nodes.get(key);
+        if (node == null || !Objects.equals(node.value, value))
+            return false;
+
+        long now = this.expiryScheduler.now();
+        long deadline;
+        do {
+            deadline = node.deadline.get();
+            if (deadline <= now) {
+                this.expireIfDue(key, node);
+                return false;
+            }
+        } while (!node.deadline.compareAndSet(deadline, DEAD));
+
+        this.nodes.remove(key, node);
+        return true;
     }
 
     @Override
     public boolean renewKey(K key) {
-        if (this.expirationKeys.containsKey(key)) {
-            this.expirationKeys.put(key, System.currentTimeMillis());
-            return true;
-        }
-        return false;
+        Node<V> node = this.nodes.get(key);
+        if (node == null)
+            return false;
+
+        long now = this.expiryScheduler.now();
+        return node.renew(now, now + node.ttlMs);
     }
 
     @Override
@@ -136,41 +246,127 @@ public class ConcurrentExpiringMap<K, V> extends ConcurrentHashMap<K, V> impleme
         return this.expirationDurationMs;
     }
 
+    /**
+     * @return The number of entries that haven't expired. This requires iterating over all the entries
+     */
     @Override
-    public V put(@NotNull K key, @NotNull V value) {
-        this.expirationKeys.put(key, System.currentTimeMillis());
-        return super.put(key, value);
+    public int size() {
+        long now = this.expiryScheduler.now();
+        return (int) this.nodes.values().stream().filter(node -> node.isAlive(now)).count();
     }
 
     @Override
-    public void putAll(Map<? extends K, ? extends V> map) {
-        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-            this.put(entry.getKey(), entry.getValue());
-        }
+    public void clear() {
+        this.nodes.forEach((key, node) -> {
+            node.deadline.set(DEAD);
+            this.nodes.remove(key, node);
+        });
     }
 
+    /**
+     * @return A snapshot of the entries which haven't expired. Changes to the map aren't reflected in the snapshot
+     */
+    @NotNull
     @Override
-    public V putIfAbsent(K key, V value) {
-        if (!this.containsKey(key)) {
-            return this.put(key, value);
-        }
-        return this.get(key);
+    public Set<Entry<K, V>> entrySet() {
+        long now = this.expiryScheduler.now();
+        Set<Entry<K, V>> entries = new HashSet<>();
+        this.nodes.forEach((key, node) -> {
+            if (node.isAlive(now))
+                entries.add(new SimpleImmutableEntry<>(key, node.value));
+        });
+        return Collections.unmodifiableSet(entries);
     }
 
-    @Override
-    public V remove(@NotNull Object key) {
-        if (this.containsKey(key)) {
-            this.expirationKeys.remove(key);
+    private Node<V> createNode(V value, long ttl, TimeUnit ttlUnit) {
+        Objects.requireNonNull(value);
+        long ttlMs = ttlUnit.toMillis(ttl);
+        if (0 >= ttlMs)
+            throw new IllegalArgumentException("The time to live must be at least a millisecond");
+        return new Node<>(value, ttlMs, this.expiryScheduler.now() + ttlMs);
+    }
+
+    private void scheduleExpiry(K key, Node<V> node) {
+        this.expiryScheduler.schedule(node.deadline.get(), () -> {
+            // If it was renewed, then it's rescheduled for its new deadline rather than every renewal being scheduled
+            if (!this.expireIfDue(key, node))
+                this.scheduleExpiry(key, node);
+        });
+    }
+
+    /**
+     * Removes the node if it has expired, invoking the removal callback unless it has already been invoked for it.
+     *
+     * @return If the node has been removed
+     */
+    private boolean expireIfDue(Object key, Node<V> node) {
+        long now = this.expiryScheduler.now();
+        while (true) {
+            long deadline = node.deadline.get();
+            if (deadline > now)
+                return false;
+            if (deadline == DEAD || node.deadline.compareAndSet(deadline, DEAD)) {
+                this.nodes.remove(key, node);
+                if (deadline != DEAD)
+                    this.invokeRemovalCallback(key, node.value);
+                return true;
+            }
         }
-        return super.remove(key);
     }
 
-    @Override
-    public boolean remove(Object key, Object value) {
-        if (this.containsKey(key) && Objects.equals(this.get(key), value)) {
-            this.remove(key);
+    /**
+     * Marks a node that has been removed from the map as dead. If it had already expired, then the removal callback
+     * is invoked for it.
+     *
+     * @return The value of the node, or null if it had already expired
+     */
+    @Nullable
+    private V retire(Object key, Node<V> node) {
+        long deadline = node.deadline.getAndSet(DEAD);
+        if (deadline > this.expiryScheduler.now())
+            return node.value;
+        if (deadline != DEAD)
+            this.invokeRemovalCallback(key, node.value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void invokeRemovalCallback(Object key, V value) {
+        // Only keys of type K are ever added to the map
+        this.removalCallback.accept((K) key, value);
+    }
+
+    private static final class Node<V>
+    {
+        private final V value;
+        private final long ttlMs;
+        private final AtomicLong deadline;
+
+        private Node(V value, long ttlMs, long deadline) {
+            this.value = value;
+            this.ttlMs = ttlMs;
+            this.deadline = new AtomicLong(deadline);
+        }
+
+        private boolean isAlive(long now) {
+            return this.deadline.get() > now;
+        }
+
+        /**
+         * Extends the deadline of this node if it hasn't already expired.
+         *
+         * @return If the node was renewed
+         */
+        private boolean renew(long now, long newDeadline) {
+            long deadline;
+            do {
+                deadline = this.deadline.get();
+                if (deadline <= now)
+                    return false;
+                if (deadline >= newDeadline)
+                    return true;
+            } while (!this.deadline.compareAndSet(deadline, newDeadline));
             return true;
         }
-        return false;
     }
 }
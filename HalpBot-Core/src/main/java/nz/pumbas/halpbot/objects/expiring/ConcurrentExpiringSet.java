@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects.expiring;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe {@link ExpiringCollection} which is backed by a {@link ConcurrentHashMap}. Each value's deadline is
+ * stored alongside it and is only ever updated with a compare-and-set, so adding, renewing, removing and expiring
+ * values never block each other. Values are treated as absent as soon as their deadline has passed, even if the
+ * {@link ExpiryScheduler} hasn't removed them yet.
+ */
+public class ConcurrentExpiringSet<T> extends AbstractSet<T> implements ExpiringCollection<T>
+{
+    // The deadline of a node which has been removed, or is in the process of being removed
+    private static final long DEAD = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<T, Node> values = new ConcurrentHashMap<>();
+    private final long expirationDurationMs;
+    private final ExpiryScheduler expiryScheduler;
+
+    public ConcurrentExpiringSet(
+        long expirationDuration,
+        TimeUnit expirationDurationUnit,
+        ExpiryScheduler expiryScheduler) {
+        if (0 >= expirationDuration)
+            throw new IllegalArgumentException("The expiration duration must be greater than 0");
+
+        this.expirationDurationMs = TimeUnit.MILLISECONDS.convert(expirationDuration, expirationDurationUnit);
+        this.expiryScheduler = expiryScheduler;
+    }
+
+    /**
+     * Adds the value if it's absent or has expired. If the value is already present, then it's renewed instead.
+     *
+     * @return If the value was absent
+     */
+    @Override
+    public boolean add(T value) {
+        long now = this.expiryScheduler.now();
+        long deadline = now + this.expirationDurationMs;
+        Node added = new Node(deadline);
+
+        while (true) {
+            Node node = this.values.putIfAbsent(value, added);
+            if (node == null) {
+                this.scheduleExpiry(value, added, deadline);
+                return true;
+            }
+            if (node.renew(now, deadline))
+                return false;
+
+            // The existing node has expired, so it needs to be removed before it can be replaced
+            node.kill();
+            if (this.values.replace(value, node, added)) {
+                this.scheduleExpiry(value, added, deadline);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void renew(T value) {
+        Node node = this.values.get(value);
+        if (node != null) {
+            long now = this.expiryScheduler.now();
+            node.renew(now, now + this.expirationDurationMs);
+        }
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        Node node = this.values.get(value);
+        if (node == null)
+            return false;
+
+        boolean wasPresent = node.kill(this.expiryScheduler.now());
+        this.values.remove(value, node);
+        return wasPresent;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        Node node = this.values.get(value);
+        return node != null && node.isAlive(this.expiryScheduler.now());
+    }
+
+    /**
+     * @return The number of values that haven't expired. This requires iterating over all the values
+     */
+    @Override
+    public int size() {
+        long now = this.expiryScheduler.now();
+        return (int) this.values.values().stream().filter(node -> node.isAlive(now)).count();
+    }
+
+    /**
+     * @return The number of values in the backing map, including any that have expired but haven't been removed yet
+     */
+    int rawSize() {
+        return this.values.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !this.iterator().hasNext();
+    }
+
+    @Override
+    public void clear() {
+        this.values.forEach((value, node) -> {
+            node.kill();
+            this.values.remove(value, node);
+        });
+    }
+
+    @NotNull
+    @Override
+    public Iterator<T> iterator() {
+        return new ExpiringIterator();
+    }
+
+    @Override
+    public long getExpirationDuration() {
+        return this.expirationDurationMs;
+    }
+
+    private void scheduleExpiry(T value, Node node, long deadline) {
+        this.expiryScheduler.schedule(deadline, () -> this.expire(value, node));
+    }
+
+    private void expire(T value, Node node) {
+        long now = this.expiryScheduler.now();
+        long deadline = node.deadline.get();
+        if (deadline == DEAD)
+            this.values.remove(value, node);
+        // If it was renewed, then it's rescheduled for its new deadline rather than every renewal being scheduled
+        else if (deadline > now)
+            this.scheduleExpiry(value, node, deadline);
+        else if (node.deadline.compareAndSet(deadline, DEAD))
+            this.values.remove(value, node);
+        else this.expire(value, node);
+    }
+
+    private static final class Node
+    {
+        private final AtomicLong deadline;
+
+        private Node(long deadline) {
+            this.deadline = new AtomicLong(deadline);
+        }
+
+        private boolean isAlive(long now) {
+            return this.deadline.get() > now;
+        }
+
+        /**
+         * Extends the deadline of this node if it hasn't already expired.
+         *
+         * @return If the node was renewed
+         */
+        private boolean renew(long now, long newDeadline) {
+            long deadline;
+            do {
+                deadline = this.deadline.get();
+                if (deadline <= now)
+                    return false;
+                if (deadline >= newDeadline)
+                    return true;
+            } while (!this.deadline.compareAndSet(deadline, newDeadline));
+            return true;
+        }
+
+        private void kill() {
+            this.deadline.set(DEAD);
+        }
+
+        /**
+         * Marks this node as dead.
+         *
+         * @return If the node was alive before it was killed
+         */
+        private boolean kill(long now) {
+            return this.deadline.getAndSet(DEAD) > now;
+        }
+    }
+
+    private final class ExpiringIterator implements Iterator<T>
+    {
+        private final Iterator<Map.Entry<T, Node>> entries = ConcurrentExpiringSet.this.values.entrySet().iterator();
+        private final long now = ConcurrentExpiringSet.this.expiryScheduler.now();
+        private T next;
+        private T last;
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.entries.hasNext()) {
+                Map.Entry<T, Node> entry = this.entries.next();
+                if (entry.getValue().isAlive(this.now))
+                    this.next = entry.getKey();
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext())
+                throw new NoSuchElementException();
+            this.last = this.next;
+            this.next = null;
+            return this.last;
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == null)
+                throw new IllegalStateException();
+            ConcurrentExpiringSet.this.remove(this.last);
+            this.last = null;
+        }
+    }
+}
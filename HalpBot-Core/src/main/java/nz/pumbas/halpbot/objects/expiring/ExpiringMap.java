@@ -25,6 +25,7 @@
 package nz.pumbas.halpbot.objects.expiring;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An expiring map is a thread-safe map that automatically removes entries after a specified period of time has passed.
@@ -53,6 +54,23 @@ public interface ExpiringMap<K, V> extends Map<K, V>
      */
     boolean renewKey(K key);
 
+    /**
+     * Adds the entry to the map with its own time to live, rather than the expiration duration of the map. Renewing
+     * the key resets it to this time to live.
+     *
+     * @param key
+     *     The key of the entry
+     * @param value
+     *     The value of the entry
+     * @param ttl
+     *     The time that must pass before this entry is removed
+     * @param ttlUnit
+     *     The time unit for the time to live
+     *
+     * @return The previous value for the key, or null if there wasn't one
+     */
+    V put(K key, V value, long ttl, TimeUnit ttlUnit);
+
     /**
      * @return The expiration duration for this expiring map in milliseconds
      */
@@ -0,0 +1,360 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.objects.expiring;
+
+import org.dockbox.hartshorn.core.Enableable;
+import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.inject.Singleton;
+
+/**
+ * Drives the expiration of all the expiring collections from a single timer thread. Each {@link Expiry} is placed in a
+ * bucket for its deadline, and the buckets are ordered by their deadline, so each tick only visits the buckets that
+ * are due. The cost of cleaning is therefore proportional to the number of entries that have expired, rather than the
+ * total number of entries.
+ * <p>
+ * Renewing an expiry only updates its deadline. If the deadline was extended, then the expiry is moved to the bucket
+ * for its new deadline when its old bucket becomes due, so that an entry which is renewed frequently is only moved
+ * once per expiration period. Cancelling an expiry removes it from its bucket straight away.
+ * <p>
+ * The scheduler bound in the application context is shared by all the expiring collections, and is started when it's
+ * enabled and shutdown by {@link nz.pumbas.halpbot.HalpbotCore#shutdown()}.
+ */
+@Singleton
+@ComponentBinding(ExpiryScheduler.class)
+public class ExpiryScheduler implements Enableable
+{
+    private static final long DEFAULT_RESOLUTION_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    private final long resolutionMs;
+    private final LongSupplier clock;
+
+    @Nullable
+    private ScheduledExecutorService executor;
+    private volatile boolean isShutdown;
+
+    public ExpiryScheduler() {
+        this(DEFAULT_RESOLUTION_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public ExpiryScheduler(long resolution, TimeUnit unit) {
+        this(resolution, unit, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates an expiry scheduler which uses the specified clock. The scheduler isn't started, so it will only process
+     * expiries when {@link #advance()} is called.
+     *
+     * @param resolution
+     *     How often the scheduler checks for expiries that are due
+     * @param unit
+     *     The unit of the resolution
+     * @param clock
+     *     The clock, in milliseconds, that the deadlines are measured with
+     */
+    public ExpiryScheduler(long resolution, TimeUnit unit, LongSupplier clock) {
+        this.resolutionMs = Math.max(1, unit.toMillis(resolution));
+        this.clock = clock;
+    }
+
+    @Override
+    public void enable() {
+        this.start();
+    }
+
+    /**
+     * Starts a daemon thread which processes any due expiries every resolution period.
+     */
+    public synchronized void start() {
+        if (this.executor != null || this.isShutdown)
+            return;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "halpbot-expiry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(this::advance, this.resolutionMs, this.resolutionMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the timer thread and then runs the actions of any expiries that are due. The expiries that aren't due yet
+     * will no longer be processed.
+     */
+    public synchronized void shutdown() {
+        if (this.isShutdown)
+            return;
+
+        this.isShutdown = true;
+        if (this.executor != null) {
+            this.executor.shutdown();
+            try {
+                this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Any buckets already claimed by the timer thread are skipped, so each expiry is only processed once
+        this.advance();
+        this.buckets.clear();
+    }
+
+    public boolean isShutdown() {
+        return this.isShutdown;
+    }
+
+    /**
+     * @return The current time, in milliseconds, according to this scheduler's clock
+     */
+    public long now() {
+        return this.clock.getAsLong();
+    }
+
+    /**
+     * Schedules the action to be run once the deadline has passed.
+     *
+     * @param deadline
+     *     The time, in milliseconds, after which the action should be run
+     * @param action
+     *     The action to run. This will be invoked on the timer thread, so it should be short
+     *
+     * @return The {@link Expiry}, which can be used to renew or cancel it
+     */
+    public Expiry schedule(long deadline, Runnable action) {
+        Expiry expiry = new Expiry(this, deadline, action);
+        this.enqueue(expiry);
+        return expiry;
+    }
+
+    /**
+     * @return The number of expiries waiting in the buckets, including any that have been renewed but haven't been
+     *     visited yet
+     */
+    public int pendingExpiries() {
+        return this.buckets.values().stream().mapToInt(Bucket::size).sum();
+    }
+
+    /**
+     * Processes all the buckets that are due according to the clock.
+     */
+    public void advance() {
+        long now = this.now();
+        // A bucket is only due once every deadline it can contain has passed, so a renewed expiry is always moved to
+        // a later bucket
+        long currentBucket = Math.floorDiv(now, this.resolutionMs);
+
+        Map.Entry<Long, Bucket> due;
+        while ((due = this.buckets.firstEntry()) != null && due.getKey() <= currentBucket) {
+            if (!this.buckets.remove(due.getKey(), due.getValue()))
+                continue;
+
+            for (Expiry expiry : due.getValue().close()) {
+                this.process(expiry, due.getKey(), now);
+            }
+        }
+    }
+
+    private void process(Expiry expiry, long bucket, long now) {
+        // The expiry has been rescheduled to an earlier bucket since it was placed in this one
+        if (expiry.isCancelled() || expiry.bucket != bucket)
+            return;
+
+        if (!expiry.expireIfDue(now)) {
+            if (expiry.isPending())
+                this.enqueue(expiry); // It was renewed
+            return;
+        }
+
+        try {
+            expiry.action.run();
+        } catch (Throwable throwable) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, throwable);
+        }
+    }
+
+    private void enqueue(Expiry expiry) {
+        if (this.isShutdown)
+            return;
+
+        long bucket = this.bucketOf(expiry.deadline);
+        expiry.bucket = bucket;
+        while (true) {
+            Bucket target = this.buckets.computeIfAbsent(bucket, key -> new Bucket());
+            if (target.add(expiry))
+                return;
+            // The bucket was closed as it became due, so it needs to be replaced
+            this.buckets.remove(bucket, target);
+        }
+    }
+
+    /**
+     * Removes the expiry from the bucket it was last placed in. If the bucket is then empty, it's removed as well.
+     */
+    private void dequeue(Expiry expiry) {
+        long bucket = expiry.bucket;
+        Bucket target = this.buckets.get(bucket);
+        if (target != null && target.remove(expiry))
+            this.buckets.remove(bucket, target);
+    }
+
+    private long bucketOf(long time) {
+        // Rounding up prevents expiries being processed before their deadline
+        return Math.floorDiv(time + this.resolutionMs - 1, this.resolutionMs);
+    }
+
+    /**
+     * A scheduled action that can be renewed or cancelled.
+     */
+    public static final class Expiry
+    {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final ExpiryScheduler scheduler;
+        private final Runnable action;
+        private volatile long deadline;
+        private volatile long bucket;
+        private volatile int state = PENDING;
+
+        private Expiry(ExpiryScheduler scheduler, long deadline, Runnable action) {
+            this.scheduler = scheduler;
+            this.deadline = deadline;
+            this.action = action;
+        }
+
+        public long deadline() {
+            return this.deadline;
+        }
+
+        /**
+         * Changes the deadline of this expiry. This has no effect if it has already expired or been cancelled.
+         *
+         * @return If the deadline was changed
+         */
+        public synchronized boolean renew(long deadline) {
+            if (this.state != PENDING)
+                return false;
+
+            this.deadline = deadline;
+            // Extended deadlines are handled when the current bucket becomes due, but an earlier deadline needs to be
+            // moved to an earlier bucket now
+            if (this.scheduler.bucketOf(deadline) < this.bucket) {
+                this.scheduler.dequeue(this);
+                this.scheduler.enqueue(this);
+            }
+            return true;
+        }
+
+        /**
+         * Cancels this expiry so that its action is never run.
+         *
+         * @return If this expiry was cancelled, or false if it had already expired or been cancelled
+         */
+        public synchronized boolean cancel() {
+            if (this.state != PENDING)
+                return false;
+            this.state = CANCELLED;
+            this.scheduler.dequeue(this);
+            return true;
+        }
+
+        public boolean isPending() {
+            return this.state == PENDING;
+        }
+
+        public boolean isCancelled() {
+            return this.state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state == EXPIRED;
+        }
+
+        /**
+         * Marks this expiry as expired if it's still pending and its deadline has passed. This is synchronized with
+         * renewing, so a renewal can't be lost just as the expiry is processed.
+         */
+        private synchronized boolean expireIfDue(long now) {
+            if (this.state != PENDING || this.deadline > now)
+                return false;
+            this.state = EXPIRED;
+            return true;
+        }
+    }
+
+    private static final class Bucket
+    {
+        @Nullable
+        private Set<Expiry> expiries = new LinkedHashSet<>();
+
+        public synchronized boolean add(Expiry expiry) {
+            if (this.expiries == null)
+                return false;
+            this.expiries.add(expiry);
+            return true;
+        }
+
+        /**
+         * Removes the expiry from this bucket. If it's then empty, it's closed so that it can be removed.
+         *
+         * @return If this bucket was closed
+         */
+        public synchronized boolean remove(Expiry expiry) {
+            if (this.expiries == null || !this.expiries.remove(expiry) || !this.expiries.isEmpty())
+                return false;
+            this.expiries = null;
+            return true;
+        }
+
+        public synchronized int size() {
+            return this.expiries == null ? 0 : this.expiries.size();
+        }
+
+        /**
+         * @return The expiries in this bucket. No more expiries can be added once it has been closed
+         */
+        public synchronized Collection<Expiry> close() {
+            Set<Expiry> expiries = this.expiries;
+            this.expiries = null;
+            return expiries == null ? List.of() : expiries;
+        }
+    }
+}
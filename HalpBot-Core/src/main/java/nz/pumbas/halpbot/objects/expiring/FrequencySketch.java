@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This file has been modified from the original, reducing it to the operations needed by BoundedExpiringMap.
+ */
+
+package nz.pumbas.halpbot.objects.expiring;
+
+/**
+ * A count-min sketch which estimates how frequently keys have been accessed, using four 4-bit counters per key that
+ * are packed into a {@code long[]}. Once the number of increments reaches the sample size, every counter is halved so
+ * that the estimates favour recent accesses.
+ * <p>
+ * This is adapted from the {@code FrequencySketch} in <a href="https://github.com/ben-manes/caffeine">Caffeine</a>,
+ * which is licensed under the Apache License 2.0.
+ */
+final class FrequencySketch
+{
+    private static final long[] SEEDS = {
+        0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(long expectedEntries) {
+        int capacity = (int) Math.min(Math.max(expectedEntries, 16), 1 << 24);
+        this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        this.tableMask = this.table.length - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    /**
+     * @return The estimated number of times the key has been accessed, up to a maximum of 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int index = this.indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= this.incrementAt(this.indexOf(hash, i), start + i);
+        }
+
+        if (added && ++this.size == this.sampleSize)
+            this.reset();
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xFL << offset;
+        if ((this.table[index] & mask) == mask)
+            return false;
+
+        this.table[index] += 1L << offset;
+        return true;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < this.table.length; i++) {
+            odd += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        // Halving odd counters truncates them, so the size is adjusted for the increments that were lost
+        this.size = (this.size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long seeded = (hash + SEEDS[i]) * SEEDS[i];
+        seeded += seeded >>> 32;
+        return (int) seeded & this.tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+        hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -291,6 +291,22 @@ public interface PermissionService extends ContextCarrier, CoreCarrier
      */
     boolean hasPermission(Guild guild, Member member, String permission);
 
+    /**
+     * Checks if the member can use an action which requires the permissions. The bot owner can use any action.
+     *
+     * @param guild
+     *     The guild the action is being used in
+     * @param member
+     *     The member using the action
+     * @param permissions
+     *     The custom permissions the action requires
+     *
+     * @return If the member is the bot owner or has all the permissions
+     */
+    default boolean canUse(Guild guild, Member member, Set<String> permissions) {
+        return this.isOwner(member) || this.hasPermissions(guild, member, permissions);
+    }
+
     /**
      * Determines whether the member has ALL the specified permissions within the guild or not. This will first check if
      * there's a permission supplier for the permission otherwise it will check if they have the permissions bound role.
@@ -29,13 +29,16 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import org.dockbox.hartshorn.core.annotations.inject.ComponentBinding;
 import org.dockbox.hartshorn.core.context.ApplicationContext;
 import org.dockbox.hartshorn.core.context.element.MethodContext;
+import org.dockbox.hartshorn.core.context.element.TypeContext;
 import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.dockbox.hartshorn.core.exceptions.ApplicationException;
+import org.jetbrains.annotations.Nullable;
 
-import java.time.Duration;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -45,11 +48,19 @@ import lombok.Getter;
 import nz.pumbas.halpbot.HalpbotCore;
 import nz.pumbas.halpbot.actions.invokable.HalpbotSourceInvokable;
 import nz.pumbas.halpbot.actions.invokable.InvocationContextFactory;
+import nz.pumbas.halpbot.actions.invokable.SourceInvocationContext;
+import nz.pumbas.halpbot.actions.metrics.ActionMetrics;
+import nz.pumbas.halpbot.actions.metrics.ActionType;
+import nz.pumbas.halpbot.actions.metrics.MetricsRegistry;
+import nz.pumbas.halpbot.actions.metrics.Phase;
+import nz.pumbas.halpbot.commands.Content;
+import nz.pumbas.halpbot.configurations.BotConfiguration;
 import nz.pumbas.halpbot.converters.tokens.ParsingToken;
 import nz.pumbas.halpbot.converters.tokens.TokenService;
 import nz.pumbas.halpbot.decorators.DecoratorService;
 import nz.pumbas.halpbot.events.HalpbotEvent;
 import nz.pumbas.halpbot.events.MessageEvent;
+import nz.pumbas.halpbot.objects.RegexAutomaton;
 import nz.pumbas.halpbot.utilities.HalpbotUtils;
 import nz.pumbas.halpbot.utilities.Require;
 
@@ -72,44 +83,113 @@ public class HalpbotTriggerAdapter implements TriggerAdapter
     private DecoratorService decoratorService;
     @Inject
     private TokenService tokenService;
+    @Inject
+    private MetricsRegistry metricsRegistry;
+
+    private final TriggerRegistry triggerRegistry = new TriggerRegistry();
+    private Content triggerContent = Content.DISPLAY;
 
-    private final List<TriggerContext> triggerContexts = new ArrayList<>();
+    @Override
+    public void enable() throws ApplicationException {
+        String triggerContent = this.applicationContext.get(BotConfiguration.class).triggerContent();
+        Exceptional<Content> content = Exceptional.of(() -> Content.valueOf(triggerContent.toUpperCase(Locale.ROOT)));
+        if (content.present())
+            this.triggerContent = content.get();
+        else this.applicationContext.log()
+            .warn("The trigger content %s defined in bot-config.properties is not valid, falling back to %s"
+                .formatted(triggerContent, this.triggerContent));
+        TriggerAdapter.super.enable();
+    }
 
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
         if (event.getAuthor().isBot()) return;
 
-        String message = event.getMessage().getContentDisplay().toLowerCase(Locale.ROOT);
+        long receivedAt = System.nanoTime();
+        // Mentions are only resolved if the trigger content requires it, or if a matched trigger's parameters use the
+        // display content of the message
+        String message = this.triggerContent.parse(event);
         HalpbotEvent halpbotEvent = new MessageEvent(event);
 
+        for (TriggerContext triggerContext : this.triggerRegistry.snapshot().matches(message)) {
+            ActionMetrics metrics = this.metricsRegistry.metrics(ActionType.TRIGGER, triggerContext.triggers().get(0));
+            metrics.record(Phase.RESOLUTION, System.nanoTime() - receivedAt);
 
-        for (TriggerContext triggerContext : this.triggerContexts) {
-            if (triggerContext.matches(message)) {
-                Exceptional<Object> result = triggerContext.invoke(this.invocationContextFactory.source(
+            this.halpbotCore.executionEngine().execute(halpbotEvent, () -> {
+                SourceInvocationContext invocationContext = this.invocationContextFactory.source(
                     halpbotEvent,
-                    triggerContext.nonCommandParameterTokens()));
+                    triggerContext.nonCommandParameterTokens());
+                long invocationStart = System.nanoTime();
+                Exceptional<Object> result = triggerContext.invoke(invocationContext);
+                long displayStart = System.nanoTime();
+                metrics.record(invocationContext.timings(), displayStart - invocationStart);
 
                 if (result.present())
                     this.displayResult(halpbotEvent, triggerContext, result.get());
                 else if (result.caught()) {
+                    metrics.recordFailure();
                     this.handleException(halpbotEvent, result.error());
                 }
-            }
+                metrics.record(Phase.DISPLAY, System.nanoTime() - displayStart);
+            });
         }
     }
 
     @Override
     public <T> void registerTrigger(T instance, MethodContext<?, T> methodContext) {
+        TriggerContext context = this.createTriggerContext(instance, methodContext);
+        if (context != null)
+            this.triggerRegistry.register(context).whenComplete((ignored, e) -> {
+                if (e != null)
+                    this.applicationContext.log().error("There was an error registering the trigger %s"
+                        .formatted(methodContext.qualifiedName()), e);
+            });
+    }
+
+    @Override
+    public CompletableFuture<Void> unregisterTrigger(TriggerContext triggerContext) {
+        return this.triggerRegistry.unregister(context -> context == triggerContext);
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> unregisterTriggers(TypeContext<T> type) {
+        return this.triggerRegistry.unregister(this.declaredBy(type));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> reloadTriggers(TypeContext<T> type) {
+        T instance = this.applicationContext.get(type);
+        List<TriggerContext> triggerContexts = type.methods(Trigger.class)
+            .stream()
+            .filter(MethodContext::isPublic)
+            .map(methodContext -> this.createTriggerContext(instance, methodContext))
+            .filter(Objects::nonNull)
+            .toList();
+
+        return this.triggerRegistry.reload(this.declaredBy(type), triggerContexts);
+    }
+
+    private Predicate<TriggerContext> declaredBy(TypeContext<?> type) {
+        return triggerContext -> type.type().isInstance(triggerContext.instance());
+    }
+
+    @Nullable
+    private <T> TriggerContext createTriggerContext(T instance, MethodContext<?, T> methodContext) {
         Trigger trigger = methodContext.annotation(Trigger.class).get();
+        TriggerStrategy strategy = trigger.require() == Require.ALL && trigger.strategy() == TriggerStrategy.START
+            ? TriggerStrategy.ANYWHERE : trigger.strategy();
+        if (strategy == TriggerStrategy.REGEX && !this.validRegexes(trigger, methodContext))
+            return null;
 
         // TODO: Use factory to create SourceInvokable
 
-        TriggerContext context = this.triggerContextFactory.create(
+        return this.triggerContextFactory.create(
             Stream.of(trigger.value())
-                .map(String::toLowerCase)
+                // Lowering a regex could change its meaning (E.g: \S), so it's matched ignoring case instead
+                .map(value -> strategy == TriggerStrategy.REGEX ? value : value.toLowerCase(Locale.ROOT))
                 .toList(),
             trigger.description(),
-            trigger.require() == Require.ALL ? TriggerStrategy.ANYWHERE : trigger.strategy(),
+            strategy,
             trigger.require(),
             this.tokenService.tokens(methodContext)
                 .stream()
@@ -120,12 +200,34 @@ public class HalpbotTriggerAdapter implements TriggerAdapter
             HalpbotUtils.asDuration(trigger.display()),
             trigger.isEphemeral()
         );
+    }
 
-        this.triggerContexts.add(context);
+    /**
+     * Reports any regex triggers which are invalid, in which case the trigger isn't registered, or that can't be
+     * compiled into the combined {@link nz.pumbas.halpbot.objects.RegexAutomaton}, in which case they'll require an
+     * additional pass over each message.
+     *
+     * @return If all the regex triggers are valid
+     */
+    private boolean validRegexes(Trigger trigger, MethodContext<?, ?> methodContext) {
+        boolean valid = true;
+        for (String regex : trigger.value()) {
+            Exceptional<String> unsupportedReason = Exceptional.of(() -> RegexAutomaton.unsupportedReason(regex));
+            if (unsupportedReason.caught()) {
+                this.applicationContext.log().error("The regex trigger %s on %s is invalid: %s"
+                    .formatted(regex, methodContext.qualifiedName(), unsupportedReason.error().getMessage()));
+                valid = false;
+            }
+            else if (unsupportedReason.present())
+                this.applicationContext.log().warn(
+                    "The regex trigger %s on %s can't be combined with the other triggers and will be matched separately: %s"
+                        .formatted(regex, methodContext.qualifiedName(), unsupportedReason.get()));
+        }
+        return valid;
     }
 
     @Override
     public List<TriggerContext> triggerContexts() {
-        return Collections.unmodifiableList(this.triggerContexts);
+        return this.triggerRegistry.triggerContexts();
     }
 }
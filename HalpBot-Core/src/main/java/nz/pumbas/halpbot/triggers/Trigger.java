@@ -43,8 +43,8 @@ public @interface Trigger
     TriggerStrategy strategy() default TriggerStrategy.START;
 
     /**
-     * If using {@link Require#ALL}, this will force the trigger strategy to be {@link TriggerStrategy#ANYWHERE}
-     * regardless of what is manually set.
+     * If using {@link Require#ALL} with {@link TriggerStrategy#START}, this will force the trigger strategy to be
+     * {@link TriggerStrategy#ANYWHERE}, as only one trigger can be at the start of the message.
      */
     Require require() default Require.ANY;
 
@@ -31,6 +31,7 @@ import org.dockbox.hartshorn.core.context.element.MethodContext;
 import org.dockbox.hartshorn.core.context.element.TypeContext;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import nz.pumbas.halpbot.adapters.HalpbotAdapter;
 
@@ -61,5 +62,36 @@ public interface TriggerAdapter extends HalpbotAdapter
 
     <T> void registerTrigger(T instance, MethodContext<?, T> methodContext);
 
+    /**
+     * Unregisters the trigger context, so that it will no longer be matched.
+     *
+     * @param triggerContext
+     *     The {@link TriggerContext} to unregister
+     *
+     * @return A {@link CompletableFuture} which completes once the trigger context can no longer be matched
+     */
+    CompletableFuture<Void> unregisterTrigger(TriggerContext triggerContext);
+
+    /**
+     * Unregisters all the triggers declared by the specified type.
+     *
+     * @param type
+     *     The {@link TypeContext} of the type that declares the triggers
+     *
+     * @return A {@link CompletableFuture} which completes once the triggers can no longer be matched
+     */
+    <T> CompletableFuture<Void> unregisterTriggers(TypeContext<T> type);
+
+    /**
+     * Replaces the triggers declared by the specified type with newly created ones. Messages are matched against
+     * either the old or the new triggers, but never neither.
+     *
+     * @param type
+     *     The {@link TypeContext} of the type that declares the triggers
+     *
+     * @return A {@link CompletableFuture} which completes once the new triggers can be matched
+     */
+    <T> CompletableFuture<Void> reloadTriggers(TypeContext<T> type);
+
     List<TriggerContext> triggerContexts();
 }
@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.triggers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import nz.pumbas.halpbot.objects.AhoCorasickAutomaton;
+import nz.pumbas.halpbot.objects.RegexAutomaton;
+import nz.pumbas.halpbot.utilities.Require;
+
+/**
+ * Matches a message against every registered {@link TriggerContext} in a single pass. The literal triggers of all the
+ * contexts are compiled into one {@link AhoCorasickAutomaton} and the {@link TriggerStrategy#REGEX} triggers into one
+ * {@link RegexAutomaton}, so adding triggers never adds another pass over the message. The {@link Require} and
+ * {@link TriggerStrategy} of each context are then resolved using bitsets of the matched triggers. Only contexts with
+ * at least one matched trigger are checked, so the cost of matching a message doesn't grow with the number of contexts.
+ * <p>
+ * Regular expressions which can't be represented by the {@link RegexAutomaton} are matched separately using a
+ * {@link Pattern}, which does require an additional pass for each of them.
+ */
+public class TriggerMatcher
+{
+    private final TriggerContext[] triggerContexts;
+    private final AhoCorasickAutomaton automaton;
+    private final RegexAutomaton regexAutomaton;
+    private final Pattern[] fallbackPatterns;
+    // The patterns are indexed with the literals first, followed by the regexes and then the fallback patterns
+    private final int regexOffset;
+    private final int fallbackOffset;
+    private final int patternCount;
+
+    // The triggers of each context, as the indices of their patterns
+    private final BitSet[] contextTriggers;
+    // The indices of the contexts which use each pattern
+    private final int[][] patternContexts;
+
+    public TriggerMatcher(List<TriggerContext> triggerContexts) {
+        this.triggerContexts = triggerContexts.toArray(TriggerContext[]::new);
+        this.contextTriggers = new BitSet[this.triggerContexts.length];
+
+        Map<String, Integer> literalIndices = new HashMap<>();
+        Map<String, Integer> regexIndices = new HashMap<>();
+        Map<String, Integer> fallbackIndices = new HashMap<>();
+        List<String> literals = new ArrayList<>();
+        List<String> regexes = new ArrayList<>();
+        List<String> fallbacks = new ArrayList<>();
+
+        // The indices are local to each kind of pattern until all the triggers have been sorted
+        List<int[]> triggerPatterns = new ArrayList<>();
+        for (TriggerContext triggerContext : this.triggerContexts) {
+            List<String> triggers = triggerContext.triggers();
+            int[] patterns = new int[triggers.size() * 2];
+            for (int i = 0; i < triggers.size(); i++) {
+                String trigger = triggers.get(i);
+                int kind;
+                int pattern;
+                if (triggerContext.strategy() != TriggerStrategy.REGEX) {
+                    kind = 0;
+                    pattern = this.index(literalIndices, literals, trigger);
+                } else if (RegexAutomaton.unsupportedReason(trigger) == null) {
+                    kind = 1;
+                    pattern = this.index(regexIndices, regexes, trigger);
+                } else {
+                    kind = 2;
+                    pattern = this.index(fallbackIndices, fallbacks, trigger);
+                }
+                patterns[i * 2] = kind;
+                patterns[i * 2 + 1] = pattern;
+            }
+            triggerPatterns.add(patterns);
+        }
+
+        this.automaton = new AhoCorasickAutomaton(literals, true);
+        this.regexAutomaton = new RegexAutomaton(regexes, true);
+        this.fallbackPatterns = fallbacks.stream()
+            .map(fallback -> Pattern.compile(fallback, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE))
+            .toArray(Pattern[]::new);
+        this.regexOffset = literals.size();
+        this.fallbackOffset = this.regexOffset + regexes.size();
+        this.patternCount = this.fallbackOffset + fallbacks.size();
+
+        List<List<Integer>> patternContexts = new ArrayList<>(this.patternCount);
+        for (int pattern = 0; pattern < this.patternCount; pattern++) {
+            patternContexts.add(new ArrayList<>());
+        }
+
+        int[] offsets = { 0, this.regexOffset, this.fallbackOffset };
+        for (int context = 0; context < this.triggerContexts.length; context++) {
+            int[] patterns = triggerPatterns.get(context);
+            BitSet triggers = new BitSet(this.patternCount);
+            for (int i = 0; i < patterns.length; i += 2) {
+                int pattern = offsets[patterns[i]] + patterns[i + 1];
+                if (!triggers.get(pattern))
+                    patternContexts.get(pattern).add(context);
+                triggers.set(pattern);
+            }
+            this.contextTriggers[context] = triggers;
+        }
+
+        this.patternContexts = patternContexts.stream()
+            .map(contexts -> contexts.stream().mapToInt(Integer::intValue).toArray())
+            .toArray(int[][]::new);
+    }
+
+    private int index(Map<String, Integer> indices, List<String> patterns, String trigger) {
+        return indices.computeIfAbsent(trigger, key -> {
+            patterns.add(key);
+            return patterns.size() - 1;
+        });
+    }
+
+    /**
+     * @return The trigger contexts in this matcher, in the order they were registered
+     */
+    public List<TriggerContext> triggerContexts() {
+        return Collections.unmodifiableList(Arrays.asList(this.triggerContexts));
+    }
+
+    /**
+     * @return The number of regular expressions that couldn't be compiled into the combined automaton and so are
+     *     matched separately
+     */
+    public int fallbackPatternCount() {
+        return this.fallbackPatterns.length;
+    }
+
+    /**
+     * Finds the trigger contexts that match the message. The case of the message is folded as it's scanned, so it
+     * doesn't need to be lowered first.
+     *
+     * @param message
+     *     The message to match
+     *
+     * @return The matching trigger contexts, in the order they were registered
+     */
+    public List<TriggerContext> matches(CharSequence message) {
+        BitSet matched = new BitSet(this.patternCount);
+        BitSet matchedAtStart = new BitSet(this.regexOffset);
+        BitSet matchedAsWord = new BitSet(this.regexOffset);
+        this.automaton.scan(message, (pattern, start) -> {
+            matched.set(pattern);
+            if (start == 0)
+                matchedAtStart.set(pattern);
+            if (TriggerStrategy.isWholeWord(message, start, this.automaton.patternLength(pattern)))
+                matchedAsWord.set(pattern);
+        });
+
+        if (this.regexAutomaton.patternCount() != 0)
+            this.regexAutomaton.scan(message, matched, this.regexOffset);
+        for (int i = 0; i < this.fallbackPatterns.length; i++) {
+            if (this.fallbackPatterns[i].matcher(message).find())
+                matched.set(this.fallbackOffset + i);
+        }
+
+        if (matched.isEmpty())
+            return List.of();
+
+        BitSet candidates = new BitSet(this.triggerContexts.length);
+        for (int pattern = matched.nextSetBit(0); pattern >= 0; pattern = matched.nextSetBit(pattern + 1)) {
+            for (int context : this.patternContexts[pattern]) {
+                candidates.set(context);
+            }
+        }
+
+        List<TriggerContext> matches = new ArrayList<>(candidates.cardinality());
+        for (int context = candidates.nextSetBit(0); context >= 0; context = candidates.nextSetBit(context + 1)) {
+            TriggerContext triggerContext = this.triggerContexts[context];
+            BitSet found = switch (triggerContext.strategy()) {
+                case START -> matchedAtStart;
+                case WORD -> matchedAsWord;
+                case ANYWHERE, REGEX -> matched;
+            };
+
+            if (this.isMatch(this.contextTriggers[context], found, triggerContext.require()))
+                matches.add(triggerContext);
+        }
+        return matches;
+    }
+
+    private boolean isMatch(BitSet triggers, BitSet found, Require require) {
+        return switch (require) {
+            case ANY -> triggers.intersects(found);
+            case ALL -> {
+                for (int pattern = triggers.nextSetBit(0); pattern >= 0; pattern = triggers.nextSetBit(pattern + 1)) {
+                    if (!found.get(pattern))
+                        yield false;
+                }
+                yield true;
+            }
+        };
+    }
+}
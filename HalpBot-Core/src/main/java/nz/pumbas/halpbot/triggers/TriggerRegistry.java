@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.triggers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Holds the registered {@link TriggerContext trigger contexts} as an immutable snapshot: a {@link TriggerMatcher}
+ * which has been precompiled from an array of the contexts. The snapshot is published through a volatile reference,
+ * so messages can be matched against it without ever blocking or seeing a partially applied change.
+ * <p>
+ * Changes are applied off-thread. Each change builds a new snapshot from the current one, which is then swapped in
+ * atomically. Any changes that are queued while a snapshot is being built are applied together, so registering many
+ * triggers at once only builds one snapshot. If the snapshot can't be built, the changes are applied one at a time so
+ * that only the changes which caused it to fail do so.
+ */
+public class TriggerRegistry
+{
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "halpbot-trigger-registry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<PendingChange> pendingChanges = new ConcurrentLinkedQueue<>();
+
+    private volatile TriggerMatcher snapshot = new TriggerMatcher(List.of());
+
+    /**
+     * @return The current snapshot of the registered trigger contexts
+     */
+    public TriggerMatcher snapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * @return The registered trigger contexts, in the order they were registered
+     */
+    public List<TriggerContext> triggerContexts() {
+        return this.snapshot.triggerContexts();
+    }
+
+    /**
+     * Registers the trigger context.
+     *
+     * @param triggerContext
+     *     The {@link TriggerContext} to register
+     *
+     * @return A {@link CompletableFuture} which completes once the trigger context can be matched
+     */
+    public CompletableFuture<Void> register(TriggerContext triggerContext) {
+        return this.change(triggerContexts -> triggerContexts.add(triggerContext));
+    }
+
+    /**
+     * Unregisters all the trigger contexts which match the filter.
+     *
+     * @param filter
+     *     The {@link Predicate} which determines which trigger contexts to unregister
+     *
+     * @return A {@link CompletableFuture} which completes once the trigger contexts can no longer be matched
+     */
+    public CompletableFuture<Void> unregister(Predicate<TriggerContext> filter) {
+        return this.change(triggerContexts -> triggerContexts.removeIf(filter));
+    }
+
+    /**
+     * Replaces all the trigger contexts which match the filter with the specified trigger contexts. As both are
+     * applied in the same snapshot, there is no point at which neither can be matched.
+     *
+     * @param filter
+     *     The {@link Predicate} which determines which trigger contexts to unregister
+     * @param replacements
+     *     The trigger contexts to register in their place
+     *
+     * @return A {@link CompletableFuture} which completes once the replacements can be matched
+     */
+    public CompletableFuture<Void> reload(Predicate<TriggerContext> filter,
+                                          Collection<TriggerContext> replacements)
+    {
+        return this.change(triggerContexts -> {
+            triggerContexts.removeIf(filter);
+            triggerContexts.addAll(replacements);
+        });
+    }
+
+    private CompletableFuture<Void> change(Consumer<List<TriggerContext>> change) {
+        PendingChange pendingChange = new PendingChange(change, new CompletableFuture<>());
+        this.pendingChanges.add(pendingChange);
+        this.builder.execute(this::applyPendingChanges);
+        return pendingChange.future();
+    }
+
+    private void applyPendingChanges() {
+        // Only the builder thread writes the snapshot, so there's no need to compare it before swapping
+        List<TriggerContext> triggerContexts = new ArrayList<>(this.snapshot.triggerContexts());
+        List<PendingChange> appliedChanges = new ArrayList<>();
+
+        PendingChange pendingChange;
+        while ((pendingChange = this.pendingChanges.poll()) != null) {
+            try {
+                pendingChange.change().accept(triggerContexts);
+                appliedChanges.add(pendingChange);
+            } catch (RuntimeException e) {
+                pendingChange.future().completeExceptionally(e);
+            }
+        }
+        // The changes may have already been applied when a previous task drained the queue
+        if (appliedChanges.isEmpty())
+            return;
+
+        try {
+            this.snapshot = new TriggerMatcher(triggerContexts);
+            appliedChanges.forEach(change -> change.future().complete(null));
+        } catch (RuntimeException e) {
+            appliedChanges.forEach(this::applyChange);
+        }
+    }
+
+    private void applyChange(PendingChange pendingChange) {
+        List<TriggerContext> triggerContexts = new ArrayList<>(this.snapshot.triggerContexts());
+        try {
+            pendingChange.change().accept(triggerContexts);
+            this.snapshot = new TriggerMatcher(triggerContexts);
+            pendingChange.future().complete(null);
+        } catch (RuntimeException e) {
+            pendingChange.future().completeExceptionally(e);
+        }
+    }
+
+    private record PendingChange(Consumer<List<TriggerContext>> change, CompletableFuture<Void> future) {}
+}
@@ -25,6 +25,7 @@
 package nz.pumbas.halpbot.triggers;
 
 import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
 
 import lombok.RequiredArgsConstructor;
 
@@ -32,13 +33,24 @@ import lombok.RequiredArgsConstructor;
 public enum TriggerStrategy
 {
     START(String::startsWith),
-    ANYWHERE(String::contains);
+    ANYWHERE(String::contains),
+    /**
+     * The trigger must appear as a whole word, so it can't be preceded or followed by a letter, digit or underscore.
+     */
+    WORD(TriggerStrategy::containsWord),
+    /**
+     * The trigger is a regular expression which must be found within the message. Regular expressions are matched
+     * regardless of case.
+     */
+    REGEX((message, trigger) -> Pattern.compile(trigger, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+        .matcher(message)
+        .find());
 
     private final BiPredicate<String, String> validator;
 
     /**
      * If the message contains the specified trigger. Both the message and the trigger should be lowered prior to
-     * calling this method.
+     * calling this method, unless the trigger is a {@link #REGEX}.
      *
      * @param message
      *     The lowered message
@@ -50,4 +62,37 @@ public enum TriggerStrategy
     public boolean contains(String message, String trigger) {
         return this.validator.test(message, trigger);
     }
+
+    /**
+     * @return If the character is part of a word
+     */
+    public static boolean isWordCharacter(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * If the trigger found at the specified start index of the message is a whole word.
+     *
+     * @param message
+     *     The message the trigger was found in
+     * @param start
+     *     The index the trigger starts at
+     * @param length
+     *     The length of the trigger
+     *
+     * @return If the trigger isn't adjacent to any other word characters
+     */
+    public static boolean isWholeWord(CharSequence message, int start, int length) {
+        int end = start + length;
+        return (start == 0 || !isWordCharacter(message.charAt(start - 1)))
+            && (end == message.length() || !isWordCharacter(message.charAt(end)));
+    }
+
+    private static boolean containsWord(String message, String trigger) {
+        for (int start = message.indexOf(trigger); start != -1; start = message.indexOf(trigger, start + 1)) {
+            if (isWholeWord(message, start, trigger.length()))
+                return true;
+        }
+        return false;
+    }
 }
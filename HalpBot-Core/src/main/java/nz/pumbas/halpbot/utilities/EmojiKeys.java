@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.utilities;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Normalises unicode emojis into an {@code int} key, so that reactions can be matched without building a string for
+ * each reaction event. Variation selectors are ignored, as discord doesn't consistently include them. An emoji made up
+ * of a single codepoint uses the codepoint itself as its key, while emojis made up of a sequence of codepoints (E.g:
+ * flags and skin tones) are interned and given a key with {@link #SEQUENCE_FLAG} set.
+ */
+public final class EmojiKeys
+{
+    public static final int NONE = -1;
+    public static final int SEQUENCE_FLAG = 1 << 30;
+
+    private static final int VARIATION_SELECTOR = 0xFE0F;
+    private static final String CODEPOINT_PREFIX = "U+";
+
+    private static final Map<String, Integer> sequenceKeys = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextSequenceKey = new AtomicInteger();
+
+    private EmojiKeys() {}
+
+    /**
+     * Retrieves the key for the emoji, interning it if it's a sequence of codepoints. This should only be used when
+     * registering emojis, as every distinct sequence that is interned is kept for the lifetime of the bot.
+     *
+     * @param emoji
+     *     The emoji, either in its unicode form or in codepoint notation (E.g: {@code U+1F44D})
+     *
+     * @return The key for the emoji
+     */
+    public static int intern(String emoji) {
+        String unicode = isCodepointNotation(emoji) ? fromCodepoints(emoji) : emoji;
+        int key = singleCodepointKey(unicode);
+        if (key != NONE)
+            return key;
+
+        return sequenceKeys.computeIfAbsent(stripVariationSelectors(unicode),
+            sequence -> SEQUENCE_FLAG | nextSequenceKey.getAndIncrement());
+    }
+
+    /**
+     * Retrieves the key for a unicode emoji without interning it. Emojis made up of a single codepoint don't cause any
+     * allocations.
+     *
+     * @param unicode
+     *     The unicode emoji, as given by {@code ReactionEmote#getEmoji()}
+     *
+     * @return The key for the emoji, or {@link #NONE} if it's a sequence that has never been interned
+     */
+    public static int find(String unicode) {
+        int key = singleCodepointKey(unicode);
+        if (key != NONE)
+            return key;
+
+        Integer sequenceKey = sequenceKeys.get(stripVariationSelectors(unicode));
+        return sequenceKey == null ? NONE : sequenceKey;
+    }
+
+    /**
+     * Converts the emoji into codepoint notation, with each of the codepoints in upper case.
+     *
+     * @param emoji
+     *     The emoji, either in its unicode form or in codepoint notation
+     *
+     * @return The emoji in codepoint notation
+     */
+    public static String toCodepoints(String emoji) {
+        String unicode = isCodepointNotation(emoji) ? fromCodepoints(emoji) : emoji;
+        StringBuilder builder = new StringBuilder();
+        unicode.codePoints().forEach(codepoint ->
+            builder.append(CODEPOINT_PREFIX).append(Integer.toHexString(codepoint).toUpperCase(Locale.ROOT)));
+        return builder.toString();
+    }
+
+    /**
+     * @return The codepoint if the emoji is a single codepoint, ignoring variation selectors, otherwise {@link #NONE}
+     */
+    private static int singleCodepointKey(String unicode) {
+        int key = NONE;
+        for (int i = 0; i < unicode.length(); ) {
+            int codepoint = unicode.codePointAt(i);
+            i += Character.charCount(codepoint);
+            if (codepoint == VARIATION_SELECTOR)
+                continue;
+            if (key != NONE)
+                return NONE;
+            key = codepoint;
+        }
+        return key;
+    }
+
+    private static String stripVariationSelectors(String unicode) {
+        StringBuilder builder = new StringBuilder(unicode.length());
+        unicode.codePoints()
+            .filter(codepoint -> codepoint != VARIATION_SELECTOR)
+            .forEach(builder::appendCodePoint);
+        return builder.toString();
+    }
+
+    private static boolean isCodepointNotation(String emoji) {
+        return emoji.regionMatches(true, 0, CODEPOINT_PREFIX, 0, CODEPOINT_PREFIX.length());
+    }
+
+    private static String fromCodepoints(String codepoints) {
+        StringBuilder builder = new StringBuilder();
+        for (String codepoint : codepoints.split("(?i)U\\+")) {
+            if (!codepoint.isEmpty())
+                builder.appendCodePoint(Integer.parseInt(codepoint.strip(), 16));
+        }
+        return builder.toString();
+    }
+}
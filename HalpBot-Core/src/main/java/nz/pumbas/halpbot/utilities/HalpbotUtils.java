@@ -295,6 +295,79 @@ public final class HalpbotUtils
         return str;
     }
 
+    /**
+     * Returns the index of the first non-whitespace character in the {@link CharSequence} at or after the start index.
+     *
+     * @param source
+     *     The {@link CharSequence} to search
+     * @param start
+     *     The index to begin searching from
+     *
+     * @return The index of the first non-whitespace character, or the length of the source if there isn't one
+     */
+    public static int skipWhitespace(CharSequence source, int start) {
+        int index = start;
+        while (index < source.length() && Character.isWhitespace(source.charAt(index)))
+            index++;
+        return index;
+    }
+
+    /**
+     * Returns the index of the first whitespace character in the {@link CharSequence} at or after the start index.
+     *
+     * @param source
+     *     The {@link CharSequence} to search
+     * @param start
+     *     The index to begin searching from
+     *
+     * @return The index of the first whitespace character, or the length of the source if there isn't one
+     */
+    public static int nextWhitespace(CharSequence source, int start) {
+        int index = start;
+        while (index < source.length() && !Character.isWhitespace(source.charAt(index)))
+            index++;
+        return index;
+    }
+
+    /**
+     * Replaces every run of whitespace in the {@link String} with a single space without using regex. If the string
+     * doesn't contain any whitespace that needs replacing, then the same instance is returned.
+     *
+     * @param str
+     *     The {@link String} to collapse the whitespace of
+     *
+     * @return The string with all its whitespace collapsed
+     */
+    public static String collapseWhitespace(String str) {
+        int index = 0;
+        int length = str.length();
+        // Find the first whitespace character that needs replacing before allocating anything
+        while (index < length) {
+            char c = str.charAt(index);
+            if (Character.isWhitespace(c)
+                && (c != ' ' || (index + 1 < length && Character.isWhitespace(str.charAt(index + 1)))))
+                break;
+            index++;
+        }
+        if (index == length)
+            return str;
+
+        StringBuilder builder = new StringBuilder(length).append(str, 0, index);
+        boolean previousWasWhitespace = false;
+        for (; index < length; index++) {
+            char c = str.charAt(index);
+            if (Character.isWhitespace(c)) {
+                if (!previousWasWhitespace)
+                    builder.append(' ');
+                previousWasWhitespace = true;
+            } else {
+                builder.append(c);
+                previousWasWhitespace = false;
+            }
+        }
+        return builder.toString();
+    }
+
     /**
      * Capitalises the first letter of the {@link String} and sets the rest of the word to lowercase.
      *
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nz.pumbas.halpbot.objects.expiring.BoundedExpiringMap;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
+
+public class BoundedExpiringMapTests
+{
+    private final AtomicLong clock = new AtomicLong();
+    private final ExpiryScheduler scheduler = new ExpiryScheduler(10, TimeUnit.MILLISECONDS, this.clock::get);
+    private final Map<Integer, String> removed = new HashMap<>();
+
+    private BoundedExpiringMap<Integer, String> map(long maximumSize) {
+        return new BoundedExpiringMap<>(maximumSize, (k, v) -> 1, 1, TimeUnit.MINUTES, this.removed::put,
+            this.scheduler);
+    }
+
+    @Test
+    public void frequentlyUsedEntriesSurviveAScanTest() {
+        BoundedExpiringMap<Integer, String> map = this.map(100);
+        for (int key = 0; key < 100; key++) {
+            map.put(key, "hot" + key);
+            for (int access = 0; access < 5; access++) {
+                map.get(key);
+            }
+        }
+
+        // Each of these keys is only used once, so they shouldn't be admitted over the frequently used keys. A least
+        // recently used map would evict every hot key, as 100 cold keys are added between each of its uses
+        for (int key = 100; key < 10_000; key++) {
+            map.put(key, "cold" + key);
+            map.get(key % 100);
+        }
+
+        int retained = 0;
+        for (int key = 0; key < 100; key++) {
+            if (map.containsKey(key))
+                retained++;
+        }
+        Assertions.assertTrue(retained >= 95, "Only %d of the frequently used keys were retained".formatted(retained));
+        Assertions.assertTrue(map.size() <= 100);
+    }
+
+    @Test
+    public void evictionInvokesRemovalCallbackTest() {
+        BoundedExpiringMap<Integer, String> map = this.map(10);
+        for (int key = 0; key < 50; key++) {
+            map.put(key, "value" + key);
+        }
+
+        Assertions.assertEquals(10, map.size());
+        Assertions.assertEquals(40, map.evictions());
+        Assertions.assertEquals(40, this.removed.size());
+        this.removed.forEach((key, value) -> {
+            Assertions.assertEquals("value" + key, value);
+            Assertions.assertFalse(map.containsKey(key));
+        });
+    }
+
+    @Test
+    public void totalWeightIsBoundedTest() {
+        BoundedExpiringMap<Integer, String> map = new BoundedExpiringMap<>(
+            100, (k, v) -> v.length(), 1, TimeUnit.MINUTES, this.removed::put, this.scheduler);
+
+        for (int key = 0; key < 100; key++) {
+            map.put(key, "x".repeat(key % 20 + 1));
+            Assertions.assertTrue(map.weightedSize() <= 100);
+        }
+        // An entry that is heavier than the maximum weight is never retained
+        map.put(-1, "x".repeat(101));
+        Assertions.assertFalse(map.containsKey(-1));
+        Assertions.assertEquals("x".repeat(101), this.removed.get(-1));
+    }
+
+    @Test
+    public void entriesExpireAfterTheirOwnTimeToLiveTest() {
+        BoundedExpiringMap<Integer, String> map = this.map(10);
+        map.put(1, "default");
+        map.put(2, "short", 100, TimeUnit.MILLISECONDS);
+
+        this.clock.set(100);
+        Assertions.assertNull(map.get(2));
+        Assertions.assertEquals("default", map.get(1));
+        Assertions.assertEquals(Map.of(2, "short"), this.removed);
+
+        this.clock.set(TimeUnit.MINUTES.toMillis(1));
+        this.scheduler.advance();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertEquals(2, map.expirations());
+        Assertions.assertEquals("default", this.removed.get(1));
+    }
+
+    @Test
+    public void hitRateIsRecordedTest() {
+        BoundedExpiringMap<Integer, String> map = this.map(10);
+        map.put(1, "value");
+
+        map.get(1);
+        map.get(1);
+        map.get(1);
+        map.get(2);
+
+        Assertions.assertEquals(3, map.hits());
+        Assertions.assertEquals(1, map.misses());
+        Assertions.assertEquals(0.75, map.hitRate());
+    }
+}
@@ -24,13 +24,21 @@
 
 package nz.pumbas.halpbot.commands;
 
+import net.dv8tion.jda.api.interactions.components.Button;
+
+import org.dockbox.hartshorn.core.context.element.TypeContext;
 import org.dockbox.hartshorn.testsuite.HartshornTest;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.inject.Inject;
 
+import nz.pumbas.halpbot.buttons.ButtonAction;
 import nz.pumbas.halpbot.buttons.ButtonAdapter;
+import nz.pumbas.halpbot.buttons.DynamicIdGenerator;
 import nz.pumbas.halpbot.buttons.UseButtons;
 
 @UseButtons
@@ -43,18 +51,62 @@ public class ButtonAdapterTests
     @Test
     public void isDynamicButtonTest() {
         String id = "halpbot:test:example";
-        String dynamicId = this.buttonAdapter.generateDynamicId(id);
+        String dynamicId = this.buttonAdapter.generateDynamicId();
 
         Assertions.assertFalse(this.buttonAdapter.isDynamic(id));
         Assertions.assertTrue(this.buttonAdapter.isDynamic(dynamicId));
+        Assertions.assertNotEquals(dynamicId, this.buttonAdapter.generateDynamicId());
     }
 
     @Test
     public void dynamicIdExtractionTest() {
         String id = "halpbot:test:example";
-        String dynamicId = this.buttonAdapter.generateDynamicId(id);
-        String extractedId = this.buttonAdapter.extractOriginalId(dynamicId);
+        this.buttonAdapter.registerButtons(TypeContext.of(TestButtons.class));
+        String dynamicId = this.buttonAdapter.register(Button.primary(id, "Example")).getId();
+
+        Assertions.assertNotNull(dynamicId);
+        Assertions.assertTrue(this.buttonAdapter.isDynamic(dynamicId));
+        Assertions.assertEquals(id, this.buttonAdapter.extractOriginalId(dynamicId));
+
+        // There is no registered dynamic button with these ids to extract the original id from
+        Assertions.assertNull(this.buttonAdapter.extractOriginalId(this.buttonAdapter.generateDynamicId()));
+        Assertions.assertNull(this.buttonAdapter.extractOriginalId(id));
+
+        this.buttonAdapter.unregister(dynamicId);
+        Assertions.assertNull(this.buttonAdapter.extractOriginalId(dynamicId));
+    }
+
+    public static class TestButtons
+    {
+        @ButtonAction(id = "halpbot:test:example")
+        public void example() {}
+    }
+
+    @Test
+    public void dynamicIdEncodingTest() {
+        DynamicIdGenerator generator = new DynamicIdGenerator(DynamicIdGenerator.MAX_NODE_ID);
+        for (int i = 0; i < 1000; i++) {
+            long id = generator.next();
+            String encodedId = DynamicIdGenerator.encode(id);
+
+            Assertions.assertEquals(DynamicIdGenerator.ENCODED_LENGTH, encodedId.length());
+            Assertions.assertEquals(id, DynamicIdGenerator.decode(encodedId));
+            Assertions.assertEquals(DynamicIdGenerator.MAX_NODE_ID, DynamicIdGenerator.nodeId(id));
+        }
+
+        Assertions.assertEquals(-1L, DynamicIdGenerator.decode(DynamicIdGenerator.encode(-1L)));
+        Assertions.assertFalse(DynamicIdGenerator.isDynamic("~0000000000$"));
+    }
+
+    @Test
+    public void dynamicIdsAreUniqueAcrossNodesTest() {
+        DynamicIdGenerator first = new DynamicIdGenerator(1);
+        DynamicIdGenerator second = new DynamicIdGenerator(2);
+        Set<Long> ids = new HashSet<>();
 
-        Assertions.assertEquals(id, extractedId);
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(ids.add(first.next()));
+            Assertions.assertTrue(ids.add(second.next()));
+        }
     }
 }
@@ -0,0 +1,204 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nz.pumbas.halpbot.buttons.AfterRemovalFunction;
+import nz.pumbas.halpbot.buttons.ButtonContext;
+import nz.pumbas.halpbot.buttons.DynamicButton;
+import nz.pumbas.halpbot.buttons.DynamicButtonRegistry;
+import nz.pumbas.halpbot.buttons.DynamicButtonRegistry.PendingRemoval;
+import nz.pumbas.halpbot.buttons.HalpbotButtonContext;
+import nz.pumbas.halpbot.buttons.UseResult;
+import nz.pumbas.halpbot.objects.AsyncDuration;
+
+public class ButtonContextTests
+{
+    private static final long CHANNEL_ID = 1;
+    private static final long MESSAGE_ID = 2;
+
+    private static ButtonContext buttonContext(int maxUses) {
+        return buttonContext(maxUses, null);
+    }
+
+    private static ButtonContext buttonContext(int maxUses, @Nullable AfterRemovalFunction afterRemoval) {
+        return new HalpbotButtonContext("halpbot:test:example", false, Duration.ZERO, null, new Object[0], List.of(),
+            maxUses, new AsyncDuration(-1, TimeUnit.SECONDS), afterRemoval);
+    }
+
+    @Test
+    public void unlimitedButtonIsAlwaysAcceptedTest() {
+        ButtonContext buttonContext = buttonContext(-1);
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(UseResult.UNLIMITED, buttonContext.use());
+        }
+        Assertions.assertEquals(ButtonContext.UNLIMITED_USES, buttonContext.remainingUses());
+        Assertions.assertTrue(buttonContext.hasUses());
+    }
+
+    @Test
+    public void limitedButtonIsExhaustedAfterLastUseTest() {
+        ButtonContext buttonContext = buttonContext(2);
+
+        Assertions.assertEquals(UseResult.USED, buttonContext.use());
+        Assertions.assertEquals(UseResult.LAST_USE, buttonContext.use());
+        Assertions.assertEquals(UseResult.EXHAUSTED, buttonContext.use());
+        Assertions.assertFalse(buttonContext.hasUses());
+    }
+
+    @Test
+    public void concurrentClicksFireExactlyMaxUsesTest() throws Exception {
+        int maxUses = 100;
+        int threads = 16;
+        int clicksPerThread = 1000;
+
+        for (int round = 0; round < 20; round++) {
+            ButtonContext buttonContext = buttonContext(maxUses, component -> component);
+            List<String> removedIds = Collections.synchronizedList(new ArrayList<>());
+            List<PendingRemoval> scheduledRemovals = Collections.synchronizedList(new ArrayList<>());
+            DynamicButtonRegistry registry = new DynamicButtonRegistry(
+                removedIds::add, (messageId, pendingRemoval) -> scheduledRemovals.add(pendingRemoval));
+            registry.register(round, trackedButton(buttonContext));
+
+            AtomicInteger fired = new AtomicInteger();
+            final long key = round;
+            TestUtil.runConcurrently(threads, () -> {
+                for (int click = 0; click < clicksPerThread; click++) {
+                    DynamicButton dynamicButton = registry.get(key);
+                    if (dynamicButton != null && registry.use(key, dynamicButton, MESSAGE_ID) != null)
+                        fired.incrementAndGet();
+                }
+            });
+
+            Assertions.assertEquals(maxUses, fired.get());
+            Assertions.assertEquals(0, buttonContext.remainingUses());
+            Assertions.assertFalse(registry.contains(key));
+            // The removal function is applied by the click that removed the button, so it isn't scheduled
+            Assertions.assertTrue(scheduledRemovals.isEmpty());
+            assertRemovedOnce(registry, buttonContext, removedIds, scheduledRemovals);
+        }
+    }
+
+    @Test
+    public void concurrentRemovalsQueueRemovalFunctionOnceTest() throws Exception {
+        int threads = 16;
+
+        for (int round = 0; round < 200; round++) {
+            ButtonContext buttonContext = buttonContext(threads / 2, component -> component);
+            List<String> removedIds = Collections.synchronizedList(new ArrayList<>());
+            List<PendingRemoval> scheduledRemovals = Collections.synchronizedList(new ArrayList<>());
+            DynamicButtonRegistry registry = new DynamicButtonRegistry(
+                removedIds::add, (messageId, pendingRemoval) -> scheduledRemovals.add(pendingRemoval));
+            registry.register(round, trackedButton(buttonContext));
+
+            // The button is removed by its last use, its expiration and being unregistered at the same time
+            AtomicInteger thread = new AtomicInteger();
+            final long key = round;
+            TestUtil.runConcurrently(threads, () -> {
+                if (thread.getAndIncrement() % 4 == 0)
+                    registry.remove(key, true);
+                else {
+                    DynamicButton dynamicButton = registry.get(key);
+                    if (dynamicButton != null)
+                        registry.use(key, dynamicButton, MESSAGE_ID);
+                }
+            });
+
+            Assertions.assertFalse(registry.contains(key));
+            assertRemovedOnce(registry, buttonContext, removedIds, scheduledRemovals);
+        }
+    }
+
+    @Test
+    public void lastClickInUntrackedMessageQueuesRemovalFunctionTest() {
+        ButtonContext buttonContext = buttonContext(1, component -> component);
+        List<PendingRemoval> scheduledRemovals = new ArrayList<>();
+        DynamicButtonRegistry registry = new DynamicButtonRegistry(
+            id -> {}, (messageId, pendingRemoval) -> scheduledRemovals.add(pendingRemoval));
+        // Buttons in ephemeral messages are never tracked, so the message they were sent in isn't known
+        registry.register(1, new DynamicButton("halpbot:test:example", buttonContext, null, -1));
+
+        Assertions.assertSame(buttonContext, registry.use(1, registry.get(1), MESSAGE_ID));
+        Assertions.assertTrue(scheduledRemovals.isEmpty());
+        Assertions.assertEquals(Map.of(buttonContext.id(), buttonContext.afterRemoval()),
+            registry.claimRemovalFunctions(MESSAGE_ID));
+    }
+
+    @Test
+    public void removalFunctionsAreAppliedToLatestRowsTest() {
+        ButtonContext buttonContext = buttonContext(1, component -> component);
+        List<PendingRemoval> scheduledRemovals = new ArrayList<>();
+        DynamicButtonRegistry registry = new DynamicButtonRegistry(
+            id -> {}, (messageId, pendingRemoval) -> scheduledRemovals.add(pendingRemoval));
+        DynamicButton dynamicButton = trackedButton(buttonContext);
+        registry.register(1, dynamicButton);
+
+        registry.remove(1, true);
+        Assertions.assertEquals(1, scheduledRemovals.size());
+        Assertions.assertSame(dynamicButton.rows(), scheduledRemovals.get(0).rows());
+
+        // The message is edited before the removal function is applied
+        List<ActionRow> editedRows = new ArrayList<>();
+        registry.updateRows(MESSAGE_ID, editedRows);
+        Assertions.assertSame(editedRows, scheduledRemovals.get(0).rows());
+    }
+
+    private static DynamicButton trackedButton(ButtonContext buttonContext) {
+        DynamicButton dynamicButton = new DynamicButton("halpbot:test:example", buttonContext, null, -1);
+        dynamicButton.sentIn(CHANNEL_ID, MESSAGE_ID, new ArrayList<>());
+        return dynamicButton;
+    }
+
+    private static void assertRemovedOnce(DynamicButtonRegistry registry,
+                                          ButtonContext buttonContext,
+                                          List<String> removedIds,
+                                          List<PendingRemoval> scheduledRemovals) {
+        Assertions.assertEquals(List.of(buttonContext.id()), removedIds);
+        Assertions.assertTrue(scheduledRemovals.size() <= 1);
+
+        // Whether it was removed by a click or not, a click on the message claims the removal function
+        Map<String, AfterRemovalFunction> removalFunctions = registry.claimRemovalFunctions(MESSAGE_ID);
+        Assertions.assertEquals(Map.of(buttonContext.id(), buttonContext.afterRemoval()), removalFunctions);
+        Assertions.assertNull(registry.claimRemovalFunctions(MESSAGE_ID));
+        for (PendingRemoval pendingRemoval : scheduledRemovals) {
+            Assertions.assertEquals(CHANNEL_ID, pendingRemoval.channelId());
+            Assertions.assertNull(registry.claimRemovalFunctions(MESSAGE_ID, pendingRemoval));
+        }
+    }
+}
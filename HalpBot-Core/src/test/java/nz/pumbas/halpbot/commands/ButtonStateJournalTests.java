@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nz.pumbas.halpbot.buttons.state.ButtonStateJournal;
+import nz.pumbas.halpbot.buttons.state.ButtonStateJournal.Entry;
+import nz.pumbas.halpbot.buttons.state.ButtonStateTestUtil;
+
+public class ButtonStateJournalTests
+{
+    @TempDir
+    Path directory;
+
+    private static Entry entry(String id, int remainingUses) {
+        return new Entry(id, "halpbot:action", remainingUses, -1, new byte[]{ 1, 2, 3 });
+    }
+
+    @Test
+    public void latestRecordForEachIdIsReadTest() throws IOException {
+        try (ButtonStateJournal journal = new ButtonStateJournal(this.directory.resolve("buttons.journal"))) {
+            journal.open();
+            journal.save(entry("first", 3));
+            journal.save(entry("second", 3));
+            journal.save(entry("first", 2));
+            journal.remove("second");
+
+            Map<String, Entry> entries = journal.read(journal.end());
+            Assertions.assertEquals(Set.of("first"), entries.keySet());
+            Assertions.assertEquals(2, entries.get("first").remainingUses());
+            Assertions.assertArrayEquals(new byte[]{ 1, 2, 3 }, entries.get("first").parameters());
+        }
+    }
+
+    @Test
+    public void journalIsPersistedTest() throws IOException {
+        Path path = this.directory.resolve("buttons.journal");
+        long end;
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            journal.save(entry("persisted", 1));
+            end = journal.end();
+        }
+
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            Assertions.assertEquals(end, journal.end());
+            Assertions.assertEquals(Set.of("persisted"), journal.read(journal.end()).keySet());
+
+            journal.save(entry("added", 1));
+            Assertions.assertEquals(Set.of("added"), journal.ids(end));
+        }
+    }
+
+    @Test
+    public void compactionOnlyKeepsLiveEntriesTest() throws IOException {
+        Path path = this.directory.resolve("buttons.journal");
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            for (int i = 0; i < 1000; i++) {
+                journal.save(entry("button" + i, 5));
+                journal.remove("button" + i);
+            }
+            journal.save(entry("live", 5));
+            long uncompactedEnd = journal.end();
+
+            journal.compact(List.copyOf(journal.read(journal.end()).values()));
+            Assertions.assertTrue(journal.end() < uncompactedEnd);
+            Assertions.assertEquals(Set.of("live"), journal.read(journal.end()).keySet());
+        }
+
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            Assertions.assertEquals(Set.of("live"), journal.read(journal.end()).keySet());
+        }
+    }
+
+    @Test
+    public void journalCanBeWrittenAfterCompactionTest() throws IOException {
+        Path path = this.directory.resolve("buttons.journal");
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            journal.save(entry("compacted", 1));
+            journal.compact(List.copyOf(journal.read(journal.end()).values()));
+
+            journal.save(entry("added", 1));
+            Assertions.assertEquals(Set.of("compacted", "added"), journal.read(journal.end()).keySet());
+            // Closing the journal twice shouldn't fail, as it's closed when the bot is shutdown
+            journal.close();
+        }
+
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            Assertions.assertEquals(Set.of("compacted", "added"), journal.read(journal.end()).keySet());
+        }
+    }
+
+    @Test
+    public void journalGrowsBeyondItsInitialCapacityTest() throws IOException {
+        try (ButtonStateJournal journal = new ButtonStateJournal(this.directory.resolve("buttons.journal"))) {
+            journal.open();
+            byte[] parameters = new byte[64 * 1024];
+            for (int i = 0; i < 40; i++) {
+                journal.save(new Entry("button" + i, "halpbot:action", 1, -1, parameters));
+            }
+
+            Assertions.assertEquals(40, journal.read(journal.end()).size());
+        }
+    }
+
+    @Test
+    public void journalLargerThanCanBeMappedIsRejectedTest() throws IOException {
+        Path path = this.directory.resolve("buttons.journal");
+        // Writing past the end of the file leaves a gap which doesn't use any space on most file systems
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), Integer.MAX_VALUE + 1L);
+        }
+
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            Assertions.assertThrows(IOException.class, journal::open);
+        }
+    }
+
+    @Test
+    public void groupParametersAreOnlyWrittenOnceTest() throws IOException {
+        try (ButtonStateJournal journal = new ButtonStateJournal(this.directory.resolve("buttons.journal"))) {
+            journal.open();
+            byte[] parameters = new byte[1024];
+            journal.save(List.of(
+                new Entry("first", "halpbot:action", 3, -1, parameters),
+                new Entry("second", "halpbot:action", 3, -1, parameters)));
+            Assertions.assertTrue(journal.end() < 16 + 2 * parameters.length);
+
+            Map<String, Entry> entries = journal.read(journal.end());
+            Assertions.assertSame(entries.get("first").parameters(), entries.get("second").parameters());
+            Assertions.assertEquals(Set.of("first", "second"), journal.ids(0));
+        }
+    }
+
+    @Test
+    public void usesAreUpdatedWithoutSavingParametersTest() throws IOException {
+        try (ButtonStateJournal journal = new ButtonStateJournal(this.directory.resolve("buttons.journal"))) {
+            journal.open();
+            journal.save(entry("first", 3));
+            long savedEnd = journal.end();
+
+            journal.updateUses("first", 1);
+            // Updates can be written out of order, but the uses of a button never increase
+            journal.updateUses("first", 2);
+            journal.updateUses("removed", 1);
+            Assertions.assertTrue(journal.end() - savedEnd < 3 * 32);
+
+            Map<String, Entry> entries = journal.read(journal.end());
+            Assertions.assertEquals(Set.of("first"), entries.keySet());
+            Assertions.assertEquals(1, entries.get("first").remainingUses());
+            Assertions.assertArrayEquals(new byte[]{ 1, 2, 3 }, entries.get("first").parameters());
+        }
+    }
+
+    @Test
+    public void corruptedLengthsAreRejectedTest() throws IOException {
+        Path path = this.directory.resolve("buttons.journal");
+        try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+            journal.open();
+            journal.save(entry("first", 3));
+        }
+
+        // The parameters record starts after the 16 byte header, and the length of the parameters after the record
+        // header and their key
+        int recordLengthPosition = 16;
+        int parametersLengthPosition = recordLengthPosition + 5 + (2 + "first".length());
+        for (int position : new int[]{ recordLengthPosition, parametersLengthPosition }) {
+            for (int length : new int[]{ -1, Integer.MAX_VALUE }) {
+                int original = writeInt(path, position, length);
+                try (ButtonStateJournal journal = new ButtonStateJournal(path)) {
+                    journal.open();
+                    Assertions.assertThrows(IOException.class, () -> journal.read(journal.end()));
+                }
+                writeInt(path, position, original);
+            }
+        }
+    }
+
+    /**
+     * @return The int that was previously at the position
+     */
+    private static int writeInt(Path path, int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(buffer, position);
+            int previous = buffer.getInt(0);
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+            return previous;
+        }
+    }
+
+    @Test
+    public void onlyAllowedClassesAreRestoredTest() throws Exception {
+        ObjectInputFilter defaultFilter = ButtonStateTestUtil.inputFilter("");
+        byte[] allowed = serialize(new Object[]{ new ArrayList<>(List.of("value")), 1, BigDecimal.ONE });
+        byte[] rejected = serialize(new Object[]{ URI.create("https://example.com") });
+
+        Assertions.assertArrayEquals(new Object[]{ List.of("value"), 1, BigDecimal.ONE },
+            (Object[]) deserialize(allowed, defaultFilter));
+        Assertions.assertThrows(InvalidClassException.class, () -> deserialize(rejected, defaultFilter));
+
+        // Additional classes can be allowed through the configuration
+        ObjectInputFilter configuredFilter = ButtonStateTestUtil.inputFilter("java.net.URI");
+        Assertions.assertArrayEquals(new Object[]{ URI.create("https://example.com") },
+            (Object[]) deserialize(rejected, configuredFilter));
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes, ObjectInputFilter filter) throws Exception {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            input.setObjectInputFilter(filter);
+            return input.readObject();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.dockbox.hartshorn.core.annotations.stereotype.Service;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.dockbox.hartshorn.testsuite.HartshornTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import nz.pumbas.halpbot.actions.invokable.InvocationContextFactory;
+import nz.pumbas.halpbot.commands.actioninvokable.CommandParser;
+import nz.pumbas.halpbot.commands.actioninvokable.CommandParserCompiler;
+import nz.pumbas.halpbot.commands.actioninvokable.HalpbotCommandInvokable;
+import nz.pumbas.halpbot.commands.actioninvokable.context.CommandInvocationContext;
+import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
+import nz.pumbas.halpbot.commands.annotations.Command;
+import nz.pumbas.halpbot.commands.annotations.UseCommands;
+import nz.pumbas.halpbot.commands.objects.Matrix;
+import nz.pumbas.halpbot.commands.objects.Shape;
+import nz.pumbas.halpbot.commands.objects.Vector3;
+import nz.pumbas.halpbot.converters.annotations.parameter.Implicit;
+import nz.pumbas.halpbot.converters.annotations.parameter.Unrequired;
+
+@Service
+@UseCommands
+@HartshornTest
+public class CommandParserCompilerTests
+{
+    @Inject CommandAdapter commandAdapter;
+    @Inject InvocationContextFactory invocationFactory;
+    @Inject CommandParserCompiler commandParserCompiler;
+
+    @Test
+    public void compiledParserMatchesInterpretedParsingTest() {
+        this.assertMatchesInterpreted("compiledOptionalTest", "1 [2 3 4 1]", "2", "2 [1 a 2]", "abc", "", "1 [2] 3");
+        this.assertMatchesInterpreted("compiledPlaceholderTest",
+            "add 1 and 2 and [1 2 3 4]", "1 and 2 and [1 2 3 4]", "1 2 1 2 3 4", "add 1 and 2 not [1 2 3 4]");
+        this.assertMatchesInterpreted("compiledVector3Test", "Vector3(1 2 3)", "Vector3(3 1)", "(3 1 2)");
+        this.assertMatchesInterpreted("compiledShapesTest",
+            "Shape(Rectangle 200 50 100 25) Shape(Rectangle 50 200 25 150)", "");
+        this.assertMatchesInterpreted("compiledMatrixTest",
+            "Matrix([1 0 0 1]) us()", "mirrorX() scale(2) us()", "reflection()", "yReflection(");
+    }
+
+    @Test
+    public void compiledParserIsOnlyUsedWithItsOwnTokensTest() {
+        CommandContext commandContext = this.commandAdapter.commandContext("compiledOptionalTest");
+        Assertions.assertNotNull(commandContext);
+
+        CommandParser parser = this.commandParserCompiler
+            .compile(commandContext.executable(), commandContext.tokens())
+            .get();
+
+        Assertions.assertSame(commandContext.tokens(), parser.tokens());
+    }
+
+    private void assertMatchesInterpreted(String alias, String... inputs) {
+        CommandContext commandContext = this.commandAdapter.commandContext(alias);
+        Assertions.assertNotNull(commandContext);
+
+        Exceptional<CommandParser> parser = this.commandParserCompiler
+            .compile(commandContext.executable(), commandContext.tokens());
+        Assertions.assertTrue(parser.present());
+
+        HalpbotCommandInvokable compiled = new HalpbotCommandInvokable(
+            commandContext.instance(), commandContext.executable(), parser.get());
+
+        for (String input : inputs) {
+            Exceptional<Object> expected = commandContext.invoke(this.invocationFactory.command(input));
+
+            CommandInvocationContext invocationContext = this.invocationFactory.command(input);
+            invocationContext.tokens(commandContext.tokens());
+            invocationContext.reflections(commandContext.reflections());
+            Exceptional<Object> actual = compiled.invoke(invocationContext);
+
+            Assertions.assertEquals(expected.present(), actual.present(), input);
+            Assertions.assertEquals(expected.orNull(), actual.orNull(), input);
+        }
+    }
+
+    @Command(alias = "compiledOptionalTest")
+    public boolean compiledOptionalTestMethod(int num, @Unrequired("[]") int[] numbers) {
+        for (int number : numbers) {
+            if (number == num) return true;
+        }
+        return false;
+    }
+
+    @Command(alias = "compiledPlaceholderTest", command = "[add] Integer [and] Byte [and] Integer[]")
+    public int compiledPlaceholderTestMethod(int a, byte b, int[] nums) {
+        int sum = a + b;
+        for (int num : nums) {
+            sum += num;
+        }
+        return sum;
+    }
+
+    @Command(alias = "compiledVector3Test")
+    public double compiledVector3TestMethod(Vector3 vector3) {
+        return vector3.getY();
+    }
+
+    @Command(alias = "compiledShapesTest")
+    public double compiledShapesTestMethod(@Implicit Shape[] shapes) {
+        double totalArea = 0;
+        for (Shape shape : shapes) {
+            totalArea += shape.getArea();
+        }
+        return totalArea;
+    }
+
+    @Command(alias = "compiledMatrixTest", reflections = Matrix.class)
+    public int compiledMatrixTestMethod(@Implicit List<Matrix> matrices) {
+        return matrices.size();
+    }
+}
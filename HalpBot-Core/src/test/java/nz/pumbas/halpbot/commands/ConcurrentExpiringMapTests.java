@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nz.pumbas.halpbot.objects.expiring.ConcurrentExpiringMap;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
+
+public class ConcurrentExpiringMapTests
+{
+    private final AtomicLong clock = new AtomicLong();
+    private final ExpiryScheduler scheduler = new ExpiryScheduler(100, TimeUnit.MILLISECONDS, this.clock::get);
+    private final List<String> removed = new ArrayList<>();
+    private final ConcurrentExpiringMap<Integer, String> map = new ConcurrentExpiringMap<>(
+        1, TimeUnit.SECONDS, (key, value) -> this.removed.add(key + "=" + value), this.scheduler);
+
+    @Test
+    public void entriesAreAbsentAsSoonAsTheyExpireTest() {
+        this.map.put(1, "first");
+
+        this.clock.set(999);
+        Assertions.assertEquals("first", this.map.get(1));
+
+        // The scheduler hasn't run, but the entry should still be treated as absent
+        this.clock.set(1000);
+        Assertions.assertNull(this.map.get(1));
+        Assertions.assertFalse(this.map.containsKey(1));
+        Assertions.assertTrue(this.map.isEmpty());
+        Assertions.assertEquals(List.of("1=first"), this.removed);
+
+        this.scheduler.advance();
+        Assertions.assertEquals(List.of("1=first"), this.removed);
+        Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+    }
+
+    @Test
+    public void entriesCanHaveTheirOwnTimeToLiveTest() {
+        this.map.put(1, "default");
+        this.map.put(2, "short", 200, TimeUnit.MILLISECONDS);
+
+        this.clock.set(100);
+        Assertions.assertTrue(this.map.renewKey(2));
+
+        this.clock.set(300);
+        this.scheduler.advance();
+        Assertions.assertEquals(Map.of(1, "default"), Map.copyOf(this.map));
+        Assertions.assertEquals(List.of("2=short"), this.removed);
+    }
+
+    @Test
+    public void replacingAnExpiredEntryInvokesRemovalCallbackTest() {
+        this.map.put(1, "first");
+
+        this.clock.set(1000);
+        Assertions.assertNull(this.map.putIfAbsent(1, "second"));
+        Assertions.assertEquals("second", this.map.get(1));
+        Assertions.assertEquals("second", this.map.put(1, "third"));
+        Assertions.assertEquals(List.of("1=first"), this.removed);
+    }
+
+    @Test
+    public void removedEntriesAreNotExpiredTest() {
+        this.map.put(1, "first");
+        this.map.put(2, "second");
+
+        Assertions.assertEquals("first", this.map.remove(1));
+        Assertions.assertFalse(this.map.remove(2, "other"));
+        Assertions.assertTrue(this.map.remove(2, "second"));
+
+        this.clock.set(1000);
+        this.scheduler.advance();
+        Assertions.assertTrue(this.removed.isEmpty());
+        Assertions.assertFalse(this.map.renewKey(1));
+    }
+}
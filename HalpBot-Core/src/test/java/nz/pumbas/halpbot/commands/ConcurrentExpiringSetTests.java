@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nz.pumbas.halpbot.objects.expiring.ConcurrentExpiringSet;
+import nz.pumbas.halpbot.objects.expiring.ExpiringTestUtil;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
+
+public class ConcurrentExpiringSetTests
+{
+    private final AtomicLong clock = new AtomicLong();
+    private final ExpiryScheduler scheduler = new ExpiryScheduler(10, TimeUnit.MILLISECONDS, this.clock::get);
+
+    @Test
+    public void addOnlySucceedsIfAbsentTest() {
+        ConcurrentExpiringSet<String> set = new ConcurrentExpiringSet<>(100, TimeUnit.MILLISECONDS, this.scheduler);
+
+        Assertions.assertTrue(set.add("value"));
+        Assertions.assertFalse(set.add("value"));
+        Assertions.assertTrue(set.contains("value"));
+        Assertions.assertEquals(1, set.size());
+
+        Assertions.assertTrue(set.remove("value"));
+        Assertions.assertFalse(set.remove("value"));
+        Assertions.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void expiredValuesAreAbsentBeforeBeingCleanedTest() {
+        ConcurrentExpiringSet<String> set = new ConcurrentExpiringSet<>(100, TimeUnit.MILLISECONDS, this.scheduler);
+        set.add("value");
+
+        this.clock.set(100);
+        Assertions.assertFalse(set.contains("value"));
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertTrue(set.add("value"));
+
+        this.clock.set(200);
+        this.scheduler.advance();
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+    }
+
+    @Test
+    public void renewedValuesAreNotCleanedTest() {
+        ConcurrentExpiringSet<String> set = new ConcurrentExpiringSet<>(100, TimeUnit.MILLISECONDS, this.scheduler);
+        set.add("value");
+
+        this.clock.set(60);
+        set.renew("value");
+        this.clock.set(120);
+        this.scheduler.advance();
+        Assertions.assertTrue(set.contains("value"));
+
+        this.clock.set(160);
+        this.scheduler.advance();
+        Assertions.assertFalse(set.contains("value"));
+        Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+    }
+
+    @Test
+    public void concurrentAddsOfTheSameValueOnlySucceedOnceTest() throws Exception {
+        int threads = 8;
+        int keys = 1000;
+
+        for (int round = 0; round < 20; round++) {
+            ConcurrentExpiringSet<Integer> set = new ConcurrentExpiringSet<>(1, TimeUnit.SECONDS, this.scheduler);
+            AtomicInteger added = new AtomicInteger();
+
+            TestUtil.runConcurrently(threads, () -> {
+                for (int key = 0; key < keys; key++) {
+                    if (set.add(key))
+                        added.incrementAndGet();
+                }
+            });
+
+            Assertions.assertEquals(keys, added.get());
+            Assertions.assertEquals(keys, set.size());
+        }
+    }
+
+    @Test
+    public void concurrentAddsRenewsAndCleaningTest() throws Exception {
+        int threads = 8;
+        int keys = 64;
+        int operationsPerThread = 20_000;
+
+        for (int round = 0; round < 20; round++) {
+            ConcurrentExpiringSet<Integer> set = new ConcurrentExpiringSet<>(50, TimeUnit.MILLISECONDS, this.scheduler);
+            AtomicInteger running = new AtomicInteger(threads);
+            List<Callable<Object>> tasks = new ArrayList<>();
+
+            for (int thread = 0; thread < threads; thread++) {
+                tasks.add(() -> {
+                    try {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int operation = 0; operation < operationsPerThread; operation++) {
+                            int key = random.nextInt(keys);
+                            switch (random.nextInt(4)) {
+                                case 0, 1 -> set.add(key);
+                                case 2 -> set.renew(key);
+                                default -> set.remove(key);
+                            }
+                        }
+                    } finally {
+                        // Otherwise the cleaner would spin until the timeout if a worker failed
+                        running.decrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            // The cleaner runs at the same time, with the clock moving forward so values are constantly expiring
+            tasks.add(() -> {
+                while (running.get() > 0) {
+                    this.clock.incrementAndGet();
+                    this.scheduler.advance();
+                }
+                return null;
+            });
+            TestUtil.runConcurrently(tasks);
+
+            // Once every value has passed its deadline, cleaning should leave nothing behind
+            this.clock.addAndGet(100);
+            this.scheduler.advance();
+            Assertions.assertTrue(set.isEmpty());
+            Assertions.assertEquals(0, set.size());
+            // Expired values are absent when read, so the backing map is checked to ensure that they were removed
+            Assertions.assertEquals(0, ExpiringTestUtil.rawSize(set));
+            Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import nz.pumbas.halpbot.utilities.EmojiKeys;
+
+public class EmojiKeysTests
+{
+    @Test
+    public void singleCodepointEmojiKeyIsCodepointTest() {
+        Assertions.assertEquals(0x1F44D, EmojiKeys.intern("U+1f44d"));
+        Assertions.assertEquals(0x1F44D, EmojiKeys.find("\uD83D\uDC4D"));
+    }
+
+    @Test
+    public void variationSelectorsAreIgnoredTest() {
+        int key = EmojiKeys.intern("U+2764U+FE0F");
+
+        Assertions.assertEquals(key, EmojiKeys.find("\u2764"));
+        Assertions.assertEquals(key, EmojiKeys.find("\u2764\uFE0F"));
+    }
+
+    @Test
+    public void sequencesAreOnlyFoundOnceInternedTest() {
+        String flag = "\uD83C\uDDF3\uD83C\uDDFF";
+        Assertions.assertEquals(EmojiKeys.NONE, EmojiKeys.find(flag));
+
+        int key = EmojiKeys.intern(flag);
+        Assertions.assertNotEquals(0, key & EmojiKeys.SEQUENCE_FLAG);
+        Assertions.assertEquals(key, EmojiKeys.find(flag));
+        Assertions.assertEquals(key, EmojiKeys.intern("U+1F1F3U+1F1FF"));
+    }
+
+    @Test
+    public void toCodepointsTest() {
+        Assertions.assertEquals("U+1F44D", EmojiKeys.toCodepoints("\uD83D\uDC4D"));
+        Assertions.assertEquals("U+1F44D", EmojiKeys.toCodepoints("U+1f44d"));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nz.pumbas.halpbot.objects.expiring.ConcurrentExpiringMap;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler.Expiry;
+
+public class ExpirySchedulerTests
+{
+    private final AtomicLong clock = new AtomicLong();
+    private final ExpiryScheduler scheduler = new ExpiryScheduler(100, TimeUnit.MILLISECONDS, this.clock::get);
+    private final List<String> expired = new ArrayList<>();
+
+    private void advanceTo(long millis) {
+        this.clock.set(millis);
+        this.scheduler.advance();
+    }
+
+    @Test
+    public void expiriesAreNotRunBeforeTheirDeadlineTest() {
+        this.scheduler.schedule(250, () -> this.expired.add("first"));
+        this.scheduler.schedule(500, () -> this.expired.add("second"));
+
+        this.advanceTo(249);
+        Assertions.assertTrue(this.expired.isEmpty());
+
+        this.advanceTo(300);
+        Assertions.assertEquals(List.of("first"), this.expired);
+        Assertions.assertEquals(1, this.scheduler.pendingExpiries());
+
+        this.advanceTo(1000);
+        Assertions.assertEquals(List.of("first", "second"), this.expired);
+        Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+    }
+
+    @Test
+    public void cancelledExpiriesAreNotRunTest() {
+        Expiry expiry = this.scheduler.schedule(100, () -> this.expired.add("cancelled"));
+
+        Assertions.assertTrue(expiry.cancel());
+        // Cancelled expiries are removed straight away, rather than when their bucket is due
+        Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+        this.advanceTo(200);
+
+        Assertions.assertTrue(this.expired.isEmpty());
+        Assertions.assertTrue(expiry.isCancelled());
+        Assertions.assertFalse(expiry.renew(300));
+    }
+
+    @Test
+    public void renewedExpiriesAreDeferredTest() {
+        Expiry expiry = this.scheduler.schedule(100, () -> this.expired.add("renewed"));
+
+        this.advanceTo(50);
+        Assertions.assertTrue(expiry.renew(400));
+
+        this.advanceTo(200);
+        Assertions.assertTrue(this.expired.isEmpty());
+        Assertions.assertTrue(expiry.isPending());
+
+        this.advanceTo(400);
+        Assertions.assertEquals(List.of("renewed"), this.expired);
+        Assertions.assertTrue(expiry.isExpired());
+        Assertions.assertFalse(expiry.renew(500));
+    }
+
+    @Test
+    public void shortenedExpiriesAreMovedToAnEarlierBucketTest() {
+        Expiry expiry = this.scheduler.schedule(1000, () -> this.expired.add("shortened"));
+
+        Assertions.assertTrue(expiry.renew(200));
+        Assertions.assertEquals(1, this.scheduler.pendingExpiries());
+        this.advanceTo(200);
+
+        Assertions.assertEquals(List.of("shortened"), this.expired);
+    }
+
+    @Test
+    public void dueExpiriesAreRunOnShutdownTest() {
+        this.scheduler.schedule(100, () -> this.expired.add("due"));
+        this.scheduler.schedule(1000, () -> this.expired.add("pending"));
+
+        this.clock.set(500);
+        this.scheduler.shutdown();
+        Assertions.assertEquals(List.of("due"), this.expired);
+        Assertions.assertEquals(0, this.scheduler.pendingExpiries());
+
+        this.scheduler.schedule(100, () -> this.expired.add("shutdown"));
+        this.advanceTo(2000);
+        Assertions.assertEquals(List.of("due"), this.expired);
+    }
+
+    @Test
+    public void expiringMapInvokesRemovalCallbackWithValueTest() {
+        List<String> removed = new ArrayList<>();
+        ConcurrentExpiringMap<Integer, String> map = new ConcurrentExpiringMap<>(
+            1, TimeUnit.SECONDS, (key, value) -> removed.add(key + "=" + value), this.scheduler);
+
+        map.put(1, "first");
+        map.put(2, "second");
+        this.advanceTo(500);
+        Assertions.assertTrue(map.renewKey(2));
+        map.remove(1);
+
+        this.advanceTo(1000);
+        Assertions.assertEquals(1, map.size());
+        Assertions.assertTrue(removed.isEmpty());
+
+        this.advanceTo(1500);
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertEquals(List.of("2=second"), removed);
+    }
+}
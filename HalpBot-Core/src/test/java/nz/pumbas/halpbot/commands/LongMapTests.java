@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nz.pumbas.halpbot.objects.ConcurrentLongMap;
+import nz.pumbas.halpbot.objects.LongMap;
+import nz.pumbas.halpbot.objects.LongMapTestUtil;
+
+public class LongMapTests
+{
+    @Test
+    public void putGetAndRemoveTest() {
+        LongMap<String> map = new LongMap<>();
+        long[] keys = { 0, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE };
+        for (long key : keys) {
+            Assertions.assertNull(map.put(key, "first" + key));
+        }
+
+        Assertions.assertEquals(keys.length, map.size());
+        for (long key : keys) {
+            Assertions.assertTrue(map.containsKey(key));
+            Assertions.assertEquals("first" + key, map.get(key));
+        }
+        Assertions.assertFalse(map.containsKey(2));
+        Assertions.assertNull(map.get(2));
+
+        Assertions.assertEquals("first0", map.put(0, "second0"));
+        Assertions.assertEquals("second0", map.putIfAbsent(0, "third0"));
+        Assertions.assertFalse(map.replace(0, "first0", "third0"));
+        Assertions.assertTrue(map.replace(0, "second0", "third0"));
+        Assertions.assertEquals("third0", map.get(0));
+        Assertions.assertEquals(keys.length, map.size());
+
+        Assertions.assertFalse(map.remove(-1, "other"));
+        Assertions.assertTrue(map.remove(-1, "first-1"));
+        Assertions.assertEquals("first1", map.remove(1));
+        Assertions.assertNull(map.remove(1));
+        Assertions.assertEquals(keys.length - 2, map.size());
+        Assertions.assertFalse(map.containsKey(-1));
+        Assertions.assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void computeIfAbsentOnlyAddsNonNullValuesTest() {
+        LongMap<String> map = new LongMap<>();
+
+        Assertions.assertNull(map.computeIfAbsent(1, key -> null));
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertEquals("1", map.computeIfAbsent(1, String::valueOf));
+        Assertions.assertEquals("1", map.computeIfAbsent(1, key -> "other"));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void resizingKeepsEveryEntryTest() {
+        LongMap<String> map = new LongMap<>();
+        int initialCapacity = LongMapTestUtil.capacity(map);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key, String.valueOf(key));
+        }
+
+        Assertions.assertTrue(LongMapTestUtil.capacity(map) > initialCapacity);
+        Assertions.assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            Assertions.assertEquals(String.valueOf(key), map.get(key));
+        }
+
+        for (long key = 0; key < 10_000; key += 2) {
+            Assertions.assertEquals(String.valueOf(key), map.remove(key));
+        }
+        Assertions.assertEquals(5_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            Assertions.assertEquals(key % 2 == 0 ? null : String.valueOf(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void removingFromClusterThatWrapsAroundTest() {
+        LongMap<String> map = new LongMap<>();
+        int capacity = LongMapTestUtil.capacity(map);
+        // Three keys which all want the last slot, so that the cluster wraps around to the start of the table, and one
+        // which wants the first slot, so it's displaced by the wrapped keys
+        List<Long> lastSlotKeys = keysInSlot(capacity - 1, capacity, 3);
+        long firstSlotKey = keysInSlot(0, capacity, 1).get(0);
+
+        lastSlotKeys.forEach(key -> map.put(key, String.valueOf(key)));
+        map.put(firstSlotKey, String.valueOf(firstSlotKey));
+        Assertions.assertEquals(capacity, LongMapTestUtil.capacity(map));
+
+        // Removing the head of the cluster has to shift every following entry back across the end of the table
+        Assertions.assertEquals(String.valueOf(lastSlotKeys.get(0)), map.remove(lastSlotKeys.get(0)));
+        Assertions.assertEquals(String.valueOf(lastSlotKeys.get(1)), map.get(lastSlotKeys.get(1)));
+        Assertions.assertEquals(String.valueOf(lastSlotKeys.get(2)), map.get(lastSlotKeys.get(2)));
+        Assertions.assertEquals(String.valueOf(firstSlotKey), map.get(firstSlotKey));
+
+        Assertions.assertEquals(String.valueOf(lastSlotKeys.get(1)), map.remove(lastSlotKeys.get(1)));
+        Assertions.assertEquals(String.valueOf(lastSlotKeys.get(2)), map.get(lastSlotKeys.get(2)));
+        Assertions.assertEquals(String.valueOf(firstSlotKey), map.get(firstSlotKey));
+
+        // The first slot key is now in its ideal slot, so it mustn't be shifted back across the end of the table when
+        // the wrapped entry in front of it is removed
+        Assertions.assertEquals(String.valueOf(lastSlotKeys.get(2)), map.remove(lastSlotKeys.get(2)));
+        Assertions.assertEquals(String.valueOf(firstSlotKey), map.get(firstSlotKey));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void behavesLikeHashMapTest() {
+        LongMap<Long> map = new LongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(600);
+
+        // A small range of keys is used so that keys are frequently removed from the middle of clusters
+        for (int operation = 0; operation < 100_000; operation++) {
+            long key = random.nextInt(64);
+            long value = random.nextLong();
+            switch (random.nextInt(3)) {
+                case 0 -> Assertions.assertEquals(expected.put(key, value), map.put(key, value));
+                case 1 -> Assertions.assertEquals(expected.remove(key), map.remove(key));
+                default -> Assertions.assertEquals(expected.get(key), map.get(key));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void concurrentPutIfAbsentAddsEachKeyOnceTest() throws Exception {
+        ConcurrentLongMap<Integer> map = new ConcurrentLongMap<>();
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger thread = new AtomicInteger();
+
+        TestUtil.runConcurrently(8, () -> {
+            int id = thread.getAndIncrement();
+            for (long key = 0; key < 10_000; key++) {
+                if (map.putIfAbsent(key, id) == null)
+                    added.incrementAndGet();
+            }
+        });
+        Assertions.assertEquals(10_000, added.get());
+        Assertions.assertEquals(10_000, map.size());
+
+        AtomicInteger removed = new AtomicInteger();
+        TestUtil.runConcurrently(8, () -> {
+            for (long key = 0; key < 10_000; key++) {
+                if (map.remove(key) != null)
+                    removed.incrementAndGet();
+            }
+        });
+        Assertions.assertEquals(10_000, removed.get());
+        Assertions.assertTrue(map.isEmpty());
+    }
+
+    private static List<Long> keysInSlot(int slot, int capacity, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (LongMapTestUtil.slot(key, capacity) == slot)
+                keys.add(key);
+        }
+        return keys;
+    }
+}
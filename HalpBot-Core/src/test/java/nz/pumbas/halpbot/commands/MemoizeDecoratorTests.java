@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.dockbox.hartshorn.core.annotations.stereotype.Service;
+import org.dockbox.hartshorn.core.domain.Exceptional;
+import org.dockbox.hartshorn.testsuite.HartshornTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import nz.pumbas.halpbot.actions.invokable.InvocationContextFactory;
+import nz.pumbas.halpbot.commands.actioninvokable.context.command.CommandContext;
+import nz.pumbas.halpbot.commands.annotations.Command;
+import nz.pumbas.halpbot.commands.annotations.UseCommands;
+import nz.pumbas.halpbot.converters.annotations.parameter.Implicit;
+import nz.pumbas.halpbot.decorators.DecoratorService;
+import nz.pumbas.halpbot.decorators.memoize.Memoize;
+import nz.pumbas.halpbot.decorators.memoize.MemoizeCache;
+import nz.pumbas.halpbot.decorators.memoize.MemoizeDecorator;
+import nz.pumbas.halpbot.decorators.memoize.MemoizeKey;
+
+@Service
+@UseCommands
+@HartshornTest
+public class MemoizeDecoratorTests
+{
+    private static final AtomicInteger CONTENT_INVOCATIONS = new AtomicInteger();
+    private static final AtomicInteger PARAMETERS_INVOCATIONS = new AtomicInteger();
+    private static final AtomicInteger BOUNDED_INVOCATIONS = new AtomicInteger();
+
+    @Inject CommandAdapter commandAdapter;
+    @Inject InvocationContextFactory invocationFactory;
+    @Inject DecoratorService decoratorService;
+
+    @Memoize
+    @Command(alias = "memoizeContentTest")
+    public int memoizeContentTestMethod(int a, int b) {
+        CONTENT_INVOCATIONS.incrementAndGet();
+        return a + b;
+    }
+
+    @Memoize(key = MemoizeKey.PARAMETERS)
+    @Command(alias = "memoizeParametersTest")
+    public int memoizeParametersTestMethod(@Implicit int[] numbers) {
+        PARAMETERS_INVOCATIONS.incrementAndGet();
+        int sum = 0;
+        for (int number : numbers) {
+            sum += number;
+        }
+        return sum;
+    }
+
+    @Memoize(maxSize = 2)
+    @Command(alias = "memoizeBoundedTest")
+    public int memoizeBoundedTestMethod(int a) {
+        BOUNDED_INVOCATIONS.incrementAndGet();
+        return a;
+    }
+
+    @Test
+    public void cachedContentSkipsInvocationTest() {
+        CommandContext commandContext = this.commandAdapter.commandContext("memoizeContentTest");
+        Assertions.assertNotNull(commandContext);
+
+        Exceptional<Object> result1 = commandContext.invoke(this.invocationFactory.command("1 2"));
+        Exceptional<Object> result2 = commandContext.invoke(this.invocationFactory.command(" 1  2 "));
+
+        Assertions.assertTrue(result1.present());
+        Assertions.assertTrue(result2.present());
+        Assertions.assertEquals(3, result1.get());
+        Assertions.assertSame(result1.get(), result2.get());
+        Assertions.assertEquals(1, CONTENT_INVOCATIONS.get());
+
+        MemoizeCache<Object, Object> cache = this.cache(commandContext);
+        Assertions.assertEquals(1, cache.hits());
+        Assertions.assertEquals(1, cache.misses());
+        Assertions.assertTrue(commandContext.invoke(this.invocationFactory.command("1 a")).caught());
+    }
+
+    @Test
+    public void cachedParametersSkipsInvocationTest() {
+        CommandContext commandContext = this.commandAdapter.commandContext("memoizeParametersTest");
+        Assertions.assertNotNull(commandContext);
+
+        Exceptional<Object> result1 = commandContext.invoke(this.invocationFactory.command("[1 2 3]"));
+        Exceptional<Object> result2 = commandContext.invoke(this.invocationFactory.command("1 2 3"));
+
+        Assertions.assertTrue(result1.present());
+        Assertions.assertEquals(6, result2.get());
+        Assertions.assertEquals(1, PARAMETERS_INVOCATIONS.get());
+        Assertions.assertEquals(1, this.cache(commandContext).hits());
+    }
+
+    @Test
+    public void leastRecentlyUsedResultIsEvictedTest() {
+        CommandContext commandContext = this.commandAdapter.commandContext("memoizeBoundedTest");
+        Assertions.assertNotNull(commandContext);
+
+        commandContext.invoke(this.invocationFactory.command("1"));
+        commandContext.invoke(this.invocationFactory.command("2"));
+        commandContext.invoke(this.invocationFactory.command("3"));
+        commandContext.invoke(this.invocationFactory.command("1"));
+
+        MemoizeCache<Object, Object> cache = this.cache(commandContext);
+        Assertions.assertEquals(4, BOUNDED_INVOCATIONS.get());
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(2, cache.evictions());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private MemoizeCache<Object, Object> cache(CommandContext commandContext) {
+        return this.decoratorService.decorator(commandContext.actionInvokable(), MemoizeDecorator.class)
+            .map(MemoizeDecorator::cache)
+            .get();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import nz.pumbas.halpbot.actions.metrics.ActionMetrics;
+import nz.pumbas.halpbot.actions.metrics.ActionType;
+import nz.pumbas.halpbot.actions.metrics.InvocationTimings;
+import nz.pumbas.halpbot.actions.metrics.LatencyHistogram;
+import nz.pumbas.halpbot.actions.metrics.Phase;
+
+public class MetricsTests
+{
+    @Test
+    public void emptyHistogramSnapshotTest() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        Assertions.assertEquals(0, snapshot.count());
+        Assertions.assertEquals(0, snapshot.max());
+        Assertions.assertEquals(0, snapshot.p99());
+    }
+
+    @Test
+    public void histogramPercentilesAreWithinBucketPrecisionTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(1000, snapshot.count());
+        Assertions.assertEquals(1_000_000, snapshot.max());
+        // Each bucket is at most an eighth of its magnitude wide
+        Assertions.assertEquals(500_000, snapshot.p50(), 500_000 / 8D);
+        Assertions.assertEquals(990_000, snapshot.p99(), 990_000 / 8D);
+    }
+
+    @Test
+    public void histogramResetTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.reset();
+
+        Assertions.assertEquals(0, histogram.count());
+        Assertions.assertEquals(0, histogram.snapshot().max());
+    }
+
+    @Test
+    public void decoratorTimeIsDerivedFromTimingsTest() {
+        ActionMetrics metrics = new ActionMetrics(ActionType.COMMAND, "test");
+        InvocationTimings timings = new InvocationTimings();
+        timings.record(200, 300);
+
+        metrics.record(timings, 1000);
+        Assertions.assertEquals(1, metrics.invocations());
+        Assertions.assertEquals(200, metrics.histogram(Phase.PARSING).snapshot().max());
+        Assertions.assertEquals(300, metrics.histogram(Phase.INVOCATION).snapshot().max());
+        Assertions.assertEquals(500, metrics.histogram(Phase.DECORATORS).snapshot().max());
+    }
+
+    @Test
+    public void nestedInvocationsAreOnlyTimedOnceTest() {
+        InvocationTimings timings = new InvocationTimings();
+
+        Assertions.assertTrue(timings.enter());
+        Assertions.assertFalse(timings.enter());
+        timings.exit();
+        timings.exit();
+        Assertions.assertTrue(timings.enter());
+    }
+}
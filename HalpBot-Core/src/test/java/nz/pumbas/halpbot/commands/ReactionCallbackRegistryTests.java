@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import nz.pumbas.halpbot.actions.ActionCallback;
+import nz.pumbas.halpbot.actions.ActionCallbackBuilder;
+import nz.pumbas.halpbot.actions.ReactionActionCallback;
+import nz.pumbas.halpbot.adapters.ReactionCallbackRegistry;
+
+public class ReactionCallbackRegistryTests
+{
+    private static final long MESSAGE_ID = 1234;
+
+    private final ReactionCallbackRegistry registry = new ReactionCallbackRegistry();
+
+    private static ReactionActionCallback callback(String emoji) {
+        return callback(emoji, false);
+    }
+
+    private static ReactionActionCallback callback(String emoji, boolean isSingleUse) {
+        ActionCallbackBuilder builder = ActionCallback.builder()
+            .setEmoji(emoji)
+            .setRunnable(() -> {});
+        if (isSingleUse)
+            builder.setSingleUse();
+        return builder.buildReactionCallback();
+    }
+
+    @Test
+    public void registeringCallbacksAddsThemToTheMessageTest() {
+        ReactionActionCallback tick = callback("U+2705");
+        ReactionActionCallback cross = callback("U+274C");
+        ReactionActionCallback replacement = callback("U+2705");
+
+        this.registry.register(MESSAGE_ID, tick);
+        this.registry.register(MESSAGE_ID, cross);
+        Assertions.assertSame(tick, this.registry.callback(MESSAGE_ID, tick.getEmojiKey()));
+        Assertions.assertSame(cross, this.registry.callback(MESSAGE_ID, cross.getEmojiKey()));
+        Assertions.assertNull(this.registry.callback(MESSAGE_ID + 1, tick.getEmojiKey()));
+
+        // A callback with the same emoji replaces the existing one
+        this.registry.register(MESSAGE_ID, replacement);
+        Assertions.assertSame(replacement, this.registry.callback(MESSAGE_ID, tick.getEmojiKey()));
+        Assertions.assertSame(cross, this.registry.callback(MESSAGE_ID, cross.getEmojiKey()));
+        Assertions.assertFalse(this.registry.unregister(MESSAGE_ID, tick));
+    }
+
+    @Test
+    public void unregisteringCallbacksOnlyRemovesThatCallbackTest() {
+        List<ReactionActionCallback> callbacks = List.of(
+            callback("U+2705"), callback("U+274C"), callback("U+2B05"), callback("U+27A1"));
+        callbacks.forEach(callback -> this.registry.register(MESSAGE_ID, callback));
+
+        // Remove the callbacks from the middle, the end and then the start
+        for (int index : new int[]{ 1, 3, 0 }) {
+            Assertions.assertTrue(this.registry.unregister(MESSAGE_ID, callbacks.get(index)));
+            Assertions.assertFalse(this.registry.unregister(MESSAGE_ID, callbacks.get(index)));
+            Assertions.assertNull(this.registry.callback(MESSAGE_ID, callbacks.get(index).getEmojiKey()));
+        }
+        Assertions.assertSame(callbacks.get(2), this.registry.callback(MESSAGE_ID, callbacks.get(2).getEmojiKey()));
+
+        // Once the last callback is removed there are no callbacks left on the message
+        Assertions.assertTrue(this.registry.unregister(MESSAGE_ID, callbacks.get(2)));
+        Assertions.assertNull(this.registry.callback(MESSAGE_ID, callbacks.get(2).getEmojiKey()));
+    }
+
+    @Test
+    public void singleUseCallbackUnregistersTheMessageTest() {
+        ReactionActionCallback accept = callback("U+2705", true);
+        ReactionActionCallback decline = callback("U+274C", true);
+        this.registry.register(MESSAGE_ID, accept);
+        this.registry.register(MESSAGE_ID, decline);
+
+        Assertions.assertTrue(this.registry.use(MESSAGE_ID, accept));
+        Assertions.assertFalse(this.registry.use(MESSAGE_ID, decline));
+        Assertions.assertFalse(this.registry.use(MESSAGE_ID, accept));
+        Assertions.assertNull(this.registry.callback(MESSAGE_ID, accept.getEmojiKey()));
+        Assertions.assertNull(this.registry.callback(MESSAGE_ID, decline.getEmojiKey()));
+    }
+
+    @Test
+    public void callbacksCanBeUsedRepeatedlyTest() {
+        ReactionActionCallback callback = callback("U+2705");
+        this.registry.register(MESSAGE_ID, callback);
+
+        Assertions.assertTrue(this.registry.use(MESSAGE_ID, callback));
+        Assertions.assertTrue(this.registry.use(MESSAGE_ID, callback));
+        Assertions.assertSame(callback, this.registry.callback(MESSAGE_ID, callback.getEmojiKey()));
+    }
+
+    @Test
+    public void singleUseCallbackIsUsedOnceByConcurrentReactionsTest() throws Exception {
+        int threads = 8;
+        for (int round = 0; round < 200; round++) {
+            long messageId = MESSAGE_ID + round;
+            ReactionActionCallback accept = callback("U+2705", true);
+            ReactionActionCallback decline = callback("U+274C", true);
+            this.registry.register(messageId, accept);
+            this.registry.register(messageId, decline);
+
+            List<Callable<Boolean>> reactions = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                // Half the reactions are with each emoji, but only one of them can use either callback
+                int emojiKey = (thread % 2 == 0 ? accept : decline).getEmojiKey();
+                reactions.add(() -> {
+                    ReactionActionCallback actionCallback = this.registry.callback(messageId, emojiKey);
+                    return actionCallback != null && this.registry.use(messageId, actionCallback);
+                });
+            }
+
+            long uses = TestUtil.runConcurrently(reactions).stream().filter(used -> used).count();
+            Assertions.assertEquals(1, uses);
+            Assertions.assertNull(this.registry.callback(messageId, accept.getEmojiKey()));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import nz.pumbas.halpbot.commands.slashcommands.SlashCommandHashStore;
+import nz.pumbas.halpbot.commands.slashcommands.SlashCommandRegistrar;
+
+public class SlashCommandHashStoreTests
+{
+    @Test
+    public void hashIsStableTest() {
+        CommandData first = new CommandData("quiz", "Retrieves a random quiz")
+            .addOption(OptionType.INTEGER, "quizid", "The id of the quiz");
+        CommandData second = new CommandData("quiz", "Retrieves a random quiz")
+            .addOption(OptionType.INTEGER, "quizid", "The id of the quiz");
+
+        Assertions.assertEquals(SlashCommandHashStore.hash(first), SlashCommandHashStore.hash(second));
+    }
+
+    @Test
+    public void hashChangesWithOptionsTest() {
+        CommandData first = new CommandData("quiz", "Retrieves a random quiz")
+            .addOption(OptionType.INTEGER, "quizid", "The id of the quiz");
+        CommandData second = new CommandData("quiz", "Retrieves a random quiz")
+            .addOption(OptionType.INTEGER, "quizid", "The id of the quiz", true);
+
+        Assertions.assertNotEquals(SlashCommandHashStore.hash(first), SlashCommandHashStore.hash(second));
+    }
+
+    @Test
+    public void storedHashesAreLoadedTest(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("slash-commands.properties");
+        SlashCommandHashStore store = new SlashCommandHashStore(path);
+        store.update(SlashCommandRegistrar.GLOBAL_SCOPE, Map.of("quiz", "a", "status", "b"));
+        store.update("123456789", Map.of("quiz", "c"));
+
+        SlashCommandHashStore loadedStore = new SlashCommandHashStore(path);
+        loadedStore.load();
+        Assertions.assertEquals(Set.of(SlashCommandRegistrar.GLOBAL_SCOPE, "123456789"), loadedStore.scopes());
+        Assertions.assertEquals(Map.of("quiz", "a", "status", "b"), loadedStore.hashes(SlashCommandRegistrar.GLOBAL_SCOPE));
+        Assertions.assertEquals(Map.of("quiz", "c"), loadedStore.hashes("123456789"));
+    }
+
+    @Test
+    public void emptyScopesAreRemovedTest(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("slash-commands.properties");
+        SlashCommandHashStore store = new SlashCommandHashStore(path);
+        store.update("123456789", Map.of("quiz", "c"));
+        store.update("123456789", Map.of());
+
+        SlashCommandHashStore loadedStore = new SlashCommandHashStore(path);
+        loadedStore.load();
+        Assertions.assertTrue(loadedStore.scopes().isEmpty());
+    }
+}
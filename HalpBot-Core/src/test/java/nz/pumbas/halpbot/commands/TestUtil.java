@@ -27,6 +27,15 @@ package nz.pumbas.halpbot.commands;
 import org.dockbox.hartshorn.core.context.element.MethodContext;
 import org.dockbox.hartshorn.core.context.element.TypeContext;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 public final class TestUtil
 {
     private TestUtil() {}
@@ -38,4 +47,43 @@ public final class TestUtil
                 .findFirst()
                 .get();
     }
+
+    /**
+     * Runs the task on each of the threads, starting them all at the same time, and waits for them to finish.
+     */
+    public static void runConcurrently(int threads, Runnable task) throws Exception {
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            tasks.add(Executors.callable(task));
+        }
+        runConcurrently(tasks);
+    }
+
+    /**
+     * Runs each of the tasks on its own thread, starting them all at the same time, and waits for them to finish.
+     *
+     * @return The results of the tasks, in the same order as the tasks
+     */
+    public static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nz.pumbas.halpbot.objects.TimingWheel;
+
+public class TimingWheelTests
+{
+    private final AtomicLong clock = new AtomicLong();
+    private final List<long[]> batches = new ArrayList<>();
+    private final TimingWheel wheel = new TimingWheel(1, TimeUnit.SECONDS, this.clock::get, this.batches::add);
+
+    private void advanceBy(long seconds) {
+        this.wheel.advance(this.clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds)));
+    }
+
+    @Test
+    public void valuesExpireInBatchesTest() {
+        this.wheel.schedule(1, 5, TimeUnit.SECONDS);
+        this.wheel.schedule(2, 5, TimeUnit.SECONDS);
+        this.wheel.schedule(3, 8, TimeUnit.SECONDS);
+
+        this.advanceBy(4);
+        Assertions.assertTrue(this.batches.isEmpty());
+
+        this.advanceBy(1);
+        Assertions.assertEquals(1, this.batches.size());
+        long[] batch = this.batches.get(0);
+        Arrays.sort(batch);
+        Assertions.assertArrayEquals(new long[]{ 1, 2 }, batch);
+
+        this.advanceBy(10);
+        Assertions.assertArrayEquals(new long[]{ 3 }, this.batches.get(1));
+    }
+
+    @Test
+    public void cancelledValuesDoNotExpireTest() {
+        TimingWheel.Timeout timeout = this.wheel.schedule(1, 3, TimeUnit.SECONDS);
+        this.advanceBy(1);
+
+        Assertions.assertTrue(timeout.cancel());
+        Assertions.assertFalse(timeout.cancel());
+        this.advanceBy(5);
+
+        Assertions.assertTrue(this.batches.isEmpty());
+        Assertions.assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    public void distantValuesAreCascadedTest() {
+        // Further away than the lowest two levels of the wheel can hold
+        long delay = TimeUnit.HOURS.toSeconds(5) + 7;
+        TimingWheel.Timeout timeout = this.wheel.schedule(1, delay, TimeUnit.SECONDS);
+
+        long elapsed = 0;
+        while (elapsed + 60 < delay) {
+            this.advanceBy(60);
+            elapsed += 60;
+        }
+        this.advanceBy(delay - 1 - elapsed);
+        Assertions.assertTrue(this.batches.isEmpty());
+
+        this.advanceBy(1);
+        Assertions.assertEquals(1, this.batches.size());
+        Assertions.assertArrayEquals(new long[]{ 1 }, this.batches.get(0));
+        Assertions.assertTrue(timeout.isExpired());
+    }
+}
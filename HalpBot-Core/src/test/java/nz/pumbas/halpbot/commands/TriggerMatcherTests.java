@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import nz.pumbas.halpbot.objects.RegexAutomaton;
+import nz.pumbas.halpbot.triggers.HalpbotTriggerContext;
+import nz.pumbas.halpbot.triggers.TriggerContext;
+import nz.pumbas.halpbot.triggers.TriggerMatcher;
+import nz.pumbas.halpbot.triggers.TriggerStrategy;
+import nz.pumbas.halpbot.utilities.Require;
+
+public class TriggerMatcherTests
+{
+    private static TriggerContext trigger(TriggerStrategy strategy, Require require, String... triggers) {
+        return new HalpbotTriggerContext(List.of(triggers), "", strategy, require, List.of(), null, Duration.ZERO, false);
+    }
+
+    @Test
+    public void anyTriggerMatchesAnywhereTest() {
+        TriggerContext context = trigger(TriggerStrategy.ANYWHERE, Require.ANY, "hello", "hi");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(context));
+
+        Assertions.assertEquals(List.of(context), matcher.matches("well hi there"));
+        Assertions.assertEquals(List.of(context), matcher.matches("hello"));
+        Assertions.assertTrue(matcher.matches("goodbye").isEmpty());
+    }
+
+    @Test
+    public void startStrategyOnlyMatchesAtStartTest() {
+        TriggerContext context = trigger(TriggerStrategy.START, Require.ANY, "why");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(context));
+
+        Assertions.assertEquals(List.of(context), matcher.matches("why is this happening"));
+        Assertions.assertTrue(matcher.matches("but why").isEmpty());
+    }
+
+    @Test
+    public void allTriggersMustMatchTest() {
+        TriggerContext context = trigger(TriggerStrategy.ANYWHERE, Require.ALL, "matrix", "inverse");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(context));
+
+        Assertions.assertEquals(List.of(context), matcher.matches("how do i find the inverse of a matrix"));
+        Assertions.assertTrue(matcher.matches("how do i transpose a matrix").isEmpty());
+    }
+
+    @Test
+    public void sharedTriggersMatchEveryContextInOrderTest() {
+        TriggerContext first = trigger(TriggerStrategy.ANYWHERE, Require.ANY, "exam");
+        TriggerContext second = trigger(TriggerStrategy.ANYWHERE, Require.ALL, "exam", "date");
+        TriggerContext third = trigger(TriggerStrategy.START, Require.ANY, "when");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(first, second, third));
+
+        Assertions.assertEquals(List.of(first, second, third), matcher.matches("when is the exam date"));
+        Assertions.assertEquals(List.of(first), matcher.matches("the exam is soon"));
+    }
+
+    @Test
+    public void caseIsFoldedWhileScanningTest() {
+        TriggerContext context = trigger(TriggerStrategy.ANYWHERE, Require.ALL, "halpbot", "easter egg");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(context));
+
+        Assertions.assertEquals(List.of(context), matcher.matches("HalpBot show me the Easter Egg"));
+    }
+
+    @Test
+    public void overlappingTriggersMatchTest() {
+        TriggerContext first = trigger(TriggerStrategy.ANYWHERE, Require.ANY, "she");
+        TriggerContext second = trigger(TriggerStrategy.ANYWHERE, Require.ANY, "he");
+        TriggerContext third = trigger(TriggerStrategy.ANYWHERE, Require.ANY, "hers");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(first, second, third));
+
+        Assertions.assertEquals(List.of(first, second, third), matcher.matches("ushers"));
+    }
+
+    @Test
+    public void wordStrategyOnlyMatchesWholeWordsTest() {
+        TriggerContext context = trigger(TriggerStrategy.WORD, Require.ANY, "cat");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(context));
+
+        Assertions.assertEquals(List.of(context), matcher.matches("my cat, the best"));
+        Assertions.assertEquals(List.of(context), matcher.matches("Cat"));
+        Assertions.assertTrue(matcher.matches("concatenate").isEmpty());
+        Assertions.assertTrue(matcher.matches("cats").isEmpty());
+    }
+
+    @Test
+    public void regexTriggersAreCombinedTest() {
+        TriggerContext first = trigger(TriggerStrategy.REGEX, Require.ANY, "\\bwhat\\b", "how (do|can) i");
+        TriggerContext second = trigger(TriggerStrategy.REGEX, Require.ALL, "\\d+ ?kg", "^conv(ert)?");
+        TriggerContext third = trigger(TriggerStrategy.ANYWHERE, Require.ANY, "kg");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(first, second, third));
+
+        // \b can't be represented by the combined automaton
+        Assertions.assertEquals(1, matcher.fallbackPatternCount());
+        Assertions.assertEquals(List.of(first), matcher.matches("How can I do this"));
+        Assertions.assertEquals(List.of(second, third), matcher.matches("Convert 12kg to pounds"));
+        Assertions.assertEquals(List.of(first, third), matcher.matches("what is 12 kg in pounds"));
+        Assertions.assertTrue(matcher.matches("somewhat").isEmpty());
+    }
+
+    @Test
+    public void regexAutomatonMatchesLikePatternTest() {
+        List<String> patterns = List.of("a.c", "abc$", "^.*$", "c\\s$");
+        RegexAutomaton automaton = new RegexAutomaton(patterns);
+        List<String> texts = List.of("abc", "a\nc", "a\rc", "a\u2028c", "abc\n", "abc\r\n", "abc\n\n", "abc\r",
+            "abc\u0085", "abc \n", "\n", "x\ny");
+
+        for (String text : texts) {
+            BitSet matched = new BitSet();
+            automaton.scan(text, matched, 0);
+            for (int pattern = 0; pattern < patterns.size(); pattern++) {
+                boolean expected = Pattern.compile(patterns.get(pattern)).matcher(text).find();
+                Assertions.assertEquals(expected, matched.get(pattern),
+                    "%s in %s".formatted(patterns.get(pattern), text.replace("\n", "\\n").replace("\r", "\\r")));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 pumbas600
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package nz.pumbas.halpbot.commands;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import nz.pumbas.halpbot.triggers.HalpbotTriggerContext;
+import nz.pumbas.halpbot.triggers.TriggerContext;
+import nz.pumbas.halpbot.triggers.TriggerMatcher;
+import nz.pumbas.halpbot.triggers.TriggerRegistry;
+import nz.pumbas.halpbot.triggers.TriggerStrategy;
+import nz.pumbas.halpbot.utilities.Require;
+
+public class TriggerRegistryTests
+{
+    private static TriggerContext trigger(String trigger) {
+        return new HalpbotTriggerContext(
+            List.of(trigger), "", TriggerStrategy.ANYWHERE, Require.ANY, List.of(), null, Duration.ZERO, false);
+    }
+
+    @Test
+    public void registeredTriggersAreMatchedTest() {
+        TriggerRegistry registry = new TriggerRegistry();
+        List<TriggerContext> contexts = IntStream.range(0, 50)
+            .mapToObj(i -> trigger("trigger" + i + "!"))
+            .toList();
+
+        CompletableFuture.allOf(contexts.stream()
+                .map(registry::register)
+                .toArray(CompletableFuture[]::new))
+            .join();
+
+        Assertions.assertEquals(contexts, registry.triggerContexts());
+        Assertions.assertEquals(List.of(contexts.get(42)), registry.snapshot().matches("say trigger42!"));
+    }
+
+    @Test
+    public void unregisteredTriggersAreNotMatchedTest() {
+        TriggerRegistry registry = new TriggerRegistry();
+        TriggerContext first = trigger("hello");
+        TriggerContext second = trigger("goodbye");
+        registry.register(first);
+        registry.register(second).join();
+
+        registry.unregister(context -> context == first).join();
+
+        Assertions.assertEquals(List.of(second), registry.triggerContexts());
+        Assertions.assertTrue(registry.snapshot().matches("hello").isEmpty());
+    }
+
+    @Test
+    public void invalidTriggerOnlyFailsItsOwnChangeTest() {
+        TriggerRegistry registry = new TriggerRegistry();
+        List<TriggerContext> contexts = IntStream.range(0, 50)
+            .mapToObj(i -> trigger("trigger" + i + "!"))
+            .toList();
+        TriggerContext invalid = new HalpbotTriggerContext(
+            List.of("(unclosed"), "", TriggerStrategy.REGEX, Require.ANY, List.of(), null, Duration.ZERO, false);
+
+        // The changes are queued together, so they're likely to be applied in the same snapshot
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            futures.add(registry.register(contexts.get(i)));
+            if (i == contexts.size() / 2)
+                futures.add(registry.register(invalid));
+        }
+        CompletableFuture<Void> invalidFuture = futures.remove(contexts.size() / 2 + 1);
+
+        Assertions.assertThrows(CompletionException.class, invalidFuture::join);
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        Assertions.assertEquals(contexts, registry.triggerContexts());
+    }
+
+    @Test
+    public void reloadsAreNeverPartiallyVisibleTest() throws InterruptedException {
+        TriggerRegistry registry = new TriggerRegistry();
+        List<TriggerContext> oldContexts = List.of(trigger("alpha"), trigger("beta"));
+        List<TriggerContext> newContexts = List.of(trigger("lpha"), trigger("bet"));
+        registry.reload(context -> true, oldContexts).join();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean sawPartialState = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                TriggerMatcher snapshot = registry.snapshot();
+                List<TriggerContext> matches = snapshot.matches("alpha beta");
+                if (!matches.equals(snapshot.triggerContexts())
+                    || !(matches.equals(oldContexts) || matches.equals(newContexts)))
+                    sawPartialState.set(true);
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 200; i++) {
+            registry.reload(context -> true, i % 2 == 0 ? newContexts : oldContexts).join();
+        }
+        running.set(false);
+        reader.join();
+
+        Assertions.assertFalse(sawPartialState.get());
+        Assertions.assertEquals(oldContexts, registry.triggerContexts());
+    }
+}
@@ -31,9 +31,11 @@ import java.util.List;
 import nz.pumbas.halpbot.commands.annotations.Command;
 import nz.pumbas.halpbot.converters.annotations.parameter.Implicit;
 import nz.pumbas.halpbot.converters.annotations.parameter.Unrequired;
+import nz.pumbas.halpbot.decorators.memoize.Memoize;
 import nz.pumbas.halpbot.customparameters.math.Matrix;
 
 @Service
+@Memoize
 @Command(reflections = Matrix.class)
 public class MatrixCommands {
 
@@ -27,8 +27,10 @@ package nz.pumbas.halpbot.commands;
 import org.dockbox.hartshorn.core.annotations.stereotype.Service;
 
 import nz.pumbas.halpbot.commands.annotations.Command;
+import nz.pumbas.halpbot.decorators.memoize.Memoize;
 import nz.pumbas.halpbot.customparameters.math.Vector3;
 
+@Memoize
 public class VectorCommands
 {
 
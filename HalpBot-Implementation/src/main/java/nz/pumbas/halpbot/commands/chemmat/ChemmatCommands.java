@@ -63,7 +63,8 @@ import nz.pumbas.halpbot.converters.annotations.parameter.Remaining;
 import nz.pumbas.halpbot.commands.annotations.SlashCommand;
 import nz.pumbas.halpbot.converters.annotations.parameter.Source;
 import nz.pumbas.halpbot.converters.annotations.parameter.Unrequired;
-import nz.pumbas.halpbot.objects.expiring.ExpiringHashSet;
+import nz.pumbas.halpbot.objects.expiring.ConcurrentExpiringSet;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
 import nz.pumbas.halpbot.permissions.HalpbotPermissions;
 import nz.pumbas.halpbot.hibernate.exceptions.ResourceNotFoundException;
 import nz.pumbas.halpbot.hibernate.models.Question;
@@ -102,7 +103,7 @@ public class ChemmatCommands
         "{NAME} has become a **EUTECOID BEAST KING** :crown:", "The lohonators welcome you {NAME} :pray:",
     };
 
-    private final Set<String> clickedButtons = new ExpiringHashSet<>(LISTENING_DURATION, TimeUnit.MINUTES);
+    private final Set<String> clickedButtons;
     private final Random random = new Random();
 
     private final QuestionService questionService;
@@ -113,10 +114,12 @@ public class ChemmatCommands
     private final Map<Long, QuestionHandler> questionHandlers = new HashMap<>();
 
     //@Autowired
-    public ChemmatCommands(QuestionService questionService, TopicService topicService, UserStatisticsService userStatisticsService) {
+    public ChemmatCommands(QuestionService questionService, TopicService topicService,
+                           UserStatisticsService userStatisticsService, ExpiryScheduler expiryScheduler) {
         this.questionService = questionService;
         this.topicService = topicService;
         this.userStatisticsService = userStatisticsService;
+        this.clickedButtons = new ConcurrentExpiringSet<>(LISTENING_DURATION, TimeUnit.MINUTES, expiryScheduler);
         this.defaultQuestionHandler = new QuestionHandler(this.questionService, this.random);
     }
 
@@ -239,9 +242,8 @@ public class ChemmatCommands
 
         EmbedBuilder builder = new EmbedBuilder();
         UserStatistics userStatistics = this.userStatisticsService.getByUserId(user.getIdLong());
-        if (!this.clickedButtons.contains(clickId)) {
-            this.clickedButtons.add(clickId);
-
+        // Only the first click is counted, even if the button is clicked concurrently
+        if (this.clickedButtons.add(clickId)) {
             userStatistics.incrementQuestionsAnswered();
             if (isCorrect)
                 userStatistics.incrementQuestionsAnsweredCorrectly();
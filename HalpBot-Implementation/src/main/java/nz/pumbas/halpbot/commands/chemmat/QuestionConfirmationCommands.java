@@ -40,7 +40,10 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import javax.inject.Inject;
+
 import nz.pumbas.halpbot.actions.ActionCallback;
+import nz.pumbas.halpbot.adapters.ReactionAdapter;
 import nz.pumbas.halpbot.commands.annotations.Command;
 import nz.pumbas.halpbot.converters.annotations.parameter.Source;
 import nz.pumbas.halpbot.permissions.HalpbotPermissions;
@@ -63,9 +66,8 @@ public class QuestionConfirmationCommands
     private final TopicService topicService;
     private long displayChangesChannel = -1;
 
-    private final ActionCallbackBuilder callbackBuilder = ActionCallback.builder()
-        .setSingleUse()
-        .setDeleteAfter(-1, TimeUnit.MINUTES);
+    @Inject
+    private ReactionAdapter reactionAdapter;
 
     //@Autowired
     public QuestionConfirmationCommands(QuestionService questionService,
@@ -130,14 +132,23 @@ public class QuestionConfirmationCommands
     }
 
     private void addReactionCallbacks(Message message, Question question) {
-//        ReactionAdapter reactionAdapter = Halpbot.getReactionAdapter();
-//
-//        reactionAdapter.registerCallback(message, this.callbackBuilder.setEmoji("U+2705")
-//            .setRunnable(() -> this.acceptChange(question))
-//            .buildReactionCallback());
-//        reactionAdapter.registerCallback(message, this.callbackBuilder.setEmoji("U+274C")
-//            .setRunnable(() -> this.deleteChange(question.getId()))
-//            .buildReactionCallback());
+        this.reactionAdapter.registerCallback(message, this.callbackBuilder().setEmoji("U+2705")
+            .setRunnable(() -> this.acceptChange(question))
+            .buildReactionCallback());
+        this.reactionAdapter.registerCallback(message, this.callbackBuilder().setEmoji("U+274C")
+            .setRunnable(() -> this.deleteChange(question.getId()))
+            .buildReactionCallback());
+    }
+
+    /**
+     * @return A new builder for the callbacks which approve or decline a change. A new builder is used for each
+     *     callback, as the callbacks of different messages are added concurrently
+     */
+    private ActionCallbackBuilder callbackBuilder() {
+        return ActionCallback.builder()
+            .setSingleUse()
+            .setDeleteAfter(-1, TimeUnit.MINUTES)
+            .addPermissions(HalpbotPermissions.BOT_OWNER);
     }
 
     private void acceptChange(Question question) {
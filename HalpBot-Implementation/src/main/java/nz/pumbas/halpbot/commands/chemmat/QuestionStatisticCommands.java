@@ -44,16 +44,18 @@ import nz.pumbas.halpbot.hibernate.models.UserStatistics;
 import nz.pumbas.halpbot.hibernate.services.UserStatisticsService;
 import nz.pumbas.halpbot.objects.expiring.ConcurrentExpiringMap;
 import nz.pumbas.halpbot.objects.expiring.ExpiringMap;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
 import nz.pumbas.halpbot.utilities.HalpbotUtils;
 
 public class QuestionStatisticCommands
 {
-    private final ExpiringMap<Long, String> cachedUsernames = new ConcurrentExpiringMap<>(1, TimeUnit.HOURS);
+    private final ExpiringMap<Long, String> cachedUsernames;
     private static final int TOP_AMOUNT = 10;
     private final UserStatisticsService userStatisticsService;
 
-    public QuestionStatisticCommands(UserStatisticsService userStatisticsService) {
+    public QuestionStatisticCommands(UserStatisticsService userStatisticsService, ExpiryScheduler expiryScheduler) {
         this.userStatisticsService = userStatisticsService;
+        this.cachedUsernames = new ConcurrentExpiringMap<>(1, TimeUnit.HOURS, expiryScheduler);
     }
 
     @Command(description = "Returns the top " + TOP_AMOUNT + " users and their stats for a particular column")
@@ -66,11 +68,13 @@ public class QuestionStatisticCommands
 
         List<String> usernames = topUserStatistics.stream()
             .map(statistic -> {
-                if (!this.cachedUsernames.containsKey(statistic.getUserId())) {
-                    User user = jda.retrieveUserById(statistic.getUserId()).complete();
-                    this.cachedUsernames.put(statistic.getUserId(), user.getName());
+                // The username is only retrieved once, as it could expire between checking and retrieving it
+                String username = this.cachedUsernames.get(statistic.getUserId());
+                if (username == null) {
+                    username = jda.retrieveUserById(statistic.getUserId()).complete().getName();
+                    this.cachedUsernames.put(statistic.getUserId(), username);
                 }
-                return this.cachedUsernames.get(statistic.getUserId());
+                return username;
             })
             .collect(Collectors.toList());
 
@@ -24,13 +24,14 @@
 
 package nz.pumbas.halpbot.commands.games;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import lombok.Getter;
 
-public class BlackjackSet
+public class BlackjackSet implements Serializable
 {
     public static final int TARGET = 21;
     public static final int STARTING_CARDS = 2;
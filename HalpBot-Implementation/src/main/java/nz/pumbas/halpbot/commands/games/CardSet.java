@@ -24,12 +24,13 @@
 
 package nz.pumbas.halpbot.commands.games;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
-public class CardSet
+public class CardSet implements Serializable
 {
     private final List<Card> cards = new ArrayList<>();
 
@@ -24,6 +24,7 @@
 
 package nz.pumbas.halpbot.hibernate.services;
 
+import org.dockbox.hartshorn.core.Enableable;
 import org.dockbox.hartshorn.core.annotations.stereotype.Service;
 import org.jetbrains.annotations.NotNull;
 
@@ -31,16 +32,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import javax.inject.Inject;
+
 import nz.pumbas.halpbot.hibernate.models.UserStatistics;
 import nz.pumbas.halpbot.hibernate.repositories.UserStatisticsRepository;
-import nz.pumbas.halpbot.objects.expiring.ConcurrentExpiringMap;
-import nz.pumbas.halpbot.objects.expiring.ExpiringMap;
+import nz.pumbas.halpbot.objects.expiring.BoundedExpiringMap;
+import nz.pumbas.halpbot.objects.expiring.ExpiryScheduler;
 
 @Service
-public class UserStatisticsService
+public class UserStatisticsService implements Enableable
 {
-    private final ExpiringMap<Long, UserStatistics> userStatistics
-        = new ConcurrentExpiringMap<>(30, TimeUnit.MINUTES, this::saveModifiedStatistic);
+    private static final int MAX_CACHED_STATISTICS = 10_000;
+
+    @Inject
+    private ExpiryScheduler expiryScheduler;
+
+    // Statistics that are evicted or expire are saved by the removal callback
+    private BoundedExpiringMap<Long, UserStatistics> userStatistics;
 
     private final UserStatisticsRepository userStatisticsRepository;
 
@@ -53,10 +61,17 @@ public class UserStatisticsService
         this.userStatisticsRepository = userStatisticsRepository;
     }
 
+    @Override
+    public void enable() {
+        this.userStatistics = new BoundedExpiringMap<>(
+            MAX_CACHED_STATISTICS, 30, TimeUnit.MINUTES, this::saveModifiedStatistic, this.expiryScheduler);
+    }
+
     public UserStatistics getByUserId(@NotNull Long userId) {
-        if (this.userStatistics.containsKey(userId)) {
+        UserStatistics cached = this.userStatistics.get(userId);
+        if (cached != null) {
             this.userStatistics.renewKey(userId);
-            return this.userStatistics.get(userId);
+            return cached;
         }
 //        UserStatistics userStatistics = this.userStatisticsRepository.findById(userId)
 //            .orElse(new UserStatistics(userId));